@@ -0,0 +1,105 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.benchmark;
+
+
+// Importa de la biblioteca/librería el paquete "CargaMasivaCatalogo".
+import com.dam.gestion.CargaMasivaCatalogo;
+// Importa de la biblioteca/librería el paquete "Autor".
+import com.dam.modelo.Autor;
+// Importa de la biblioteca/librería el paquete "Ejemplar".
+import com.dam.modelo.Ejemplar;
+// Importa de la biblioteca/librería el paquete "EstadoEjemplar".
+import com.dam.modelo.Ejemplar.EstadoEjemplar;
+// Importa de la biblioteca/librería el paquete "Libro".
+import com.dam.modelo.Libro;
+// Importa de la biblioteca/librería el paquete "HibernateUtil".
+import com.dam.util.HibernateUtil;
+// Importa de la biblioteca/librería el paquete "LocalDate".
+import java.time.LocalDate;
+// Importa de la biblioteca/librería el paquete "ArrayList".
+import java.util.ArrayList;
+// Importa de la biblioteca/librería el paquete "List".
+import java.util.List;
+// Importa de la biblioteca/librería el paquete "Optional".
+import java.util.Optional;
+// Importa de la biblioteca/librería el paquete "TimeUnit".
+import java.util.concurrent.TimeUnit;
+// Importa todas las anotaciones de JMH.
+import org.openjdk.jmh.annotations.*;
+
+// Crea la clase "AgregarEjemplaresBenchmark".
+    /*
+     * Añadir ejemplares a un libro que ya tiene "ejemplaresLibro" ejemplares:
+     *   1. "agregarCargandoLibro": referencia con el camino anterior (cargar el libro, su autor y su colección completa de ejemplares, "addEjemplar()" y "merge()").
+     *   2. "agregarEjemplar": "ServicioBiblioteca.agregarEjemplarALibroExistente()" (referencia al libro, un solo "INSERT").
+     *   3. "agregarEjemplaresLote": "ServicioBiblioteca.agregarEjemplares()" con "LOTE" ejemplares por transacción (tiempo por ejemplar).
+     *
+     * El libro crece con cada invocación; con el camino anterior cada ejemplar añadido cuesta más que el anterior.
+     */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+@Fork(1)
+public class AgregarEjemplaresBenchmark{
+        // Ejemplares por invocación de "agregarEjemplaresLote".
+    private static final int LOTE = 50;
+
+    @Param({"10", "5000"})
+    public int ejemplaresLibro;
+
+        // ISBN del libro sembrado con "ejemplaresLibro" ejemplares.
+    private String isbn;
+
+
+    // ==================== CICLO DE VIDA ====================
+    @Setup(Level.Trial)
+    public void sembrarLibro(DatosBenchmark datos){
+        isbn = "grande-" + ejemplaresLibro;
+        Autor autor = new Autor("Nombre", "Apellidos", "Española", LocalDate.of(1950, 1, 1));
+        Libro libro = new Libro("Título " + isbn, isbn, LocalDate.of(2000, 1, 1), 100);
+        for (int e = 0; e < ejemplaresLibro; e++){
+            libro.addEjemplar(new Ejemplar("EJ-" + isbn + "-" + e, EstadoEjemplar.DISPONIBLE, "Estantería " + (e % 8)));
+        }
+        autor.addLibro(libro);
+        new CargaMasivaCatalogo().importarAutores(List.of(autor));
+    }
+
+
+    // ==================== BENCHMARKS ====================
+    @Benchmark
+    public Ejemplar agregarCargandoLibro(DatosBenchmark datos){
+        String codigo = "EJ-ref-" + datos.secuencia.incrementAndGet();
+        return HibernateUtil.enTransaccion(session -> {
+            Libro libro = session.createQuery("FROM Libro l WHERE l.isbn = :isbn", Libro.class)
+                                 .setParameter("isbn", isbn)
+                                 .uniqueResult();
+            libro.getAutor().getNombre();
+            libro.getEjemplares().size();
+
+            Ejemplar nuevoEjemplar = new Ejemplar(codigo, EstadoEjemplar.DISPONIBLE, "Almacén");
+            libro.addEjemplar(nuevoEjemplar);
+            session.merge(libro);
+            return nuevoEjemplar;
+        });
+    }
+
+    @Benchmark
+    public Optional<Ejemplar> agregarEjemplar(DatosBenchmark datos){
+        return datos.servicio.agregarEjemplarALibroExistente(isbn, "EJ-uno-" + datos.secuencia.incrementAndGet());
+    }
+
+        // Mide "LOTE" ejemplares por invocación: el tiempo por ejemplar es el medido dividido entre "LOTE".
+    @Benchmark
+    @OperationsPerInvocation(LOTE)
+    public List<Ejemplar> agregarEjemplaresLote(DatosBenchmark datos){
+        long base = datos.secuencia.addAndGet(LOTE);
+        List<String> codigos = new ArrayList<>(LOTE);
+        for (int i = 0; i < LOTE; i++) codigos.add("EJ-lote-" + (base - i));
+        return datos.servicio.agregarEjemplares(isbn, codigos);
+    }
+}
@@ -0,0 +1,110 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.benchmark;
+
+
+// Importa de la biblioteca/librería el paquete "IndiceTextoCatalogo".
+import com.dam.indice.IndiceTextoCatalogo;
+// Importa de la biblioteca/librería el paquete "List".
+import java.util.List;
+// Importa de la biblioteca/librería el paquete "Random".
+import java.util.Random;
+// Importa de la biblioteca/librería el paquete "ThreadLocalRandom".
+import java.util.concurrent.ThreadLocalRandom;
+// Importa de la biblioteca/librería el paquete "TimeUnit".
+import java.util.concurrent.TimeUnit;
+// Importa todas las anotaciones de JMH.
+import org.openjdk.jmh.annotations.*;
+
+// Crea la clase "BusquedaTextoBenchmark".
+    /*
+     * Búsqueda de libros por palabras del título y del autor:
+     *   1. "indiceSintetico": "IndiceTextoCatalogo.buscar()" sobre un índice propio de "libros" títulos generados con un vocabulario fijo (sin base de datos), con consultas de una o dos palabras (una de ellas como prefijo).
+     *   2. "servicioIndice" / "servicioLike": "buscarIdsLibrosPorTexto()" (índice) frente a "consultarIdsLibrosPorTexto()" ("LIKE '%palabra%'") sobre el catálogo de "DatosBenchmark" en H2.
+     */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class BusquedaTextoBenchmark{
+    private static final int LIMITE = 20;
+
+    private static final String[] PALABRAS = {
+        "mañana", "batalla", "corazón", "blanco", "sombra", "viento", "noche", "ciudad", "perros", "tiempo",
+        "amor", "guerra", "historia", "memoria", "silencio", "camino", "mar", "tierra", "fuego", "jardín",
+        "casa", "espíritu", "colmena", "soledad", "cólera", "invierno", "verano", "río", "montaña", "isla",
+        "libro", "palabra", "secreto", "sueño", "ángel", "reino", "ciego", "náufrago", "hombre", "mujer",
+        "niños", "ladrón", "viaje", "frontera", "desierto", "cielo", "muerte", "vida", "luz", "espejo",
+        "laberinto", "biblioteca", "crónica", "cuaderno", "diario", "cartas", "leyenda", "país", "pueblo", "rosa"
+    };
+    private static final String[] NOMBRES = { "Javier", "Carmen", "Miguel", "Ana", "Gabriel", "Elena", "Arturo", "Almudena", "Benito", "Rosa" };
+    private static final String[] APELLIDOS = { "Marías", "Laforet", "Delibes", "Matute", "García", "Grandes", "Pérez", "Galdós", "Cercas", "Montero" };
+
+
+    // ==================== ÍNDICE SINTÉTICO ====================
+    @State(Scope.Benchmark)
+    public static class IndiceSintetico{
+        @Param({"100000", "1000000"})
+        public int libros;
+
+        private IndiceTextoCatalogo indice;
+        private String[] consultas;
+
+        @Setup(Level.Trial)
+        public void construir(){
+            Random aleatorio = new Random(42);
+            indice = new IndiceTextoCatalogo();
+            int autores = libros / 10;
+            for (long a = 1; a <= autores; a++){
+                indice.registrarAutor(a, NOMBRES[aleatorio.nextInt(NOMBRES.length)], APELLIDOS[aleatorio.nextInt(APELLIDOS.length)] + " " + a);
+            }
+            for (long l = 1; l <= libros; l++){
+                StringBuilder titulo = new StringBuilder();
+                int palabras = 2 + aleatorio.nextInt(4);
+                for (int p = 0; p < palabras; p++) titulo.append(PALABRAS[aleatorio.nextInt(PALABRAS.length)]).append(" de la ");
+                indice.registrarLibro(l, titulo.append(l).toString(), 1 + (l - 1) % autores);
+            }
+
+                // Una palabra entera del vocabulario y, en la mitad de las consultas, un apellido o el prefijo de otra palabra.
+            consultas = new String[1024];
+            for (int i = 0; i < consultas.length; i++){
+                String consulta = PALABRAS[aleatorio.nextInt(PALABRAS.length)];
+                if (i % 4 == 1) consulta += " " + APELLIDOS[aleatorio.nextInt(APELLIDOS.length)];
+                else if (i % 4 == 2){
+                    String otra = PALABRAS[aleatorio.nextInt(PALABRAS.length)];
+                    consulta += " " + otra.substring(0, Math.min(otra.length(), 4));
+                }
+                consultas[i] = consulta;
+            }
+            System.out.println("\nÍndice de texto: " + indice.getLibros() + " libros, " + indice.getTerminos() + " términos");
+        }
+
+        String consultaAleatoria(){ return consultas[ThreadLocalRandom.current().nextInt(consultas.length)]; }
+    }
+
+    @Benchmark
+    public List<Long> indiceSintetico(IndiceSintetico estado){
+        return estado.indice.buscar(estado.consultaAleatoria(), LIMITE);
+    }
+
+
+    // ==================== SERVICIO ====================
+        // Nombre y nº de un autor sembrado: encuentra sus libros (y, con "LIKE", también los de otros autores cuyo nº contiene ese).
+    private static String consultaAutor(){
+        int autor = ThreadLocalRandom.current().nextInt(200);
+        return "nombre " + autor;
+    }
+
+    @Benchmark
+    public List<Long> servicioIndice(DatosBenchmark datos){
+        return datos.servicio.buscarIdsLibrosPorTexto(consultaAutor(), LIMITE);
+    }
+
+    @Benchmark
+    public List<Long> servicioLike(DatosBenchmark datos){
+        return datos.servicio.consultarIdsLibrosPorTexto(consultaAutor(), LIMITE);
+    }
+}
@@ -0,0 +1,147 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.benchmark;
+
+
+// Importa de la biblioteca/librería el paquete "ServicioBiblioteca".
+import com.dam.gestion.ServicioBiblioteca;
+// Importa de la biblioteca/librería el paquete "ServicioEstadisticas".
+import com.dam.gestion.ServicioEstadisticas;
+// Importa de la biblioteca/librería el paquete "CargaMasivaCatalogo".
+import com.dam.gestion.CargaMasivaCatalogo;
+// Importa de la biblioteca/librería el paquete "IndiceCatalogo".
+import com.dam.indice.IndiceCatalogo;
+// Importa de la biblioteca/librería el paquete "IndiceFacetasEjemplares".
+import com.dam.indice.IndiceFacetasEjemplares;
+// Importa todos las dependencias creadas en el paquete "modelo".
+import com.dam.modelo.*;
+// Importa de la biblioteca/librería el paquete "EstadoEjemplar".
+import com.dam.modelo.Ejemplar.EstadoEjemplar;
+// Importa de la biblioteca/librería el paquete "HibernateUtil".
+import com.dam.util.HibernateUtil;
+// Importa de la biblioteca/librería el paquete "Duration".
+import java.time.Duration;
+// Importa de la biblioteca/librería el paquete "LocalDate".
+import java.time.LocalDate;
+// Importa de la biblioteca/librería el paquete "ArrayList".
+import java.util.ArrayList;
+// Importa de la biblioteca/librería el paquete "List".
+import java.util.List;
+// Importa de la biblioteca/librería el paquete "ThreadLocalRandom".
+import java.util.concurrent.ThreadLocalRandom;
+// Importa de la biblioteca/librería el paquete "AtomicLong".
+import java.util.concurrent.atomic.AtomicLong;
+// Importa de la biblioteca/librería el paquete "Level".
+import org.openjdk.jmh.annotations.Level;
+// Importa de la biblioteca/librería el paquete "Scope".
+import org.openjdk.jmh.annotations.Scope;
+// Importa de la biblioteca/librería el paquete "Setup".
+import org.openjdk.jmh.annotations.Setup;
+// Importa de la biblioteca/librería el paquete "State".
+import org.openjdk.jmh.annotations.State;
+// Importa de la biblioteca/librería el paquete "TearDown".
+import org.openjdk.jmh.annotations.TearDown;
+
+// Crea la clase "DatosBenchmark".
+    /*
+     * Catálogo de prueba compartido por todos los benchmarks ("Scope.Benchmark": uno por "fork").
+     *
+     *   1. Antes de que se cargue "HibernateUtil" redirige la configuración a una base de datos H2 en memoria en modo MySQL ("hibernate.*" en las propiedades del sistema, ver "ArranqueHibernate")
+     *      y deja que Hibernate cree el esquema: los benchmarks no necesitan un servidor MySQL ni tocan datos reales.
+     *   2. Siembra "AUTORES" autores con "LIBROS_POR_AUTOR" libros y "EJEMPLARES_POR_LIBRO" ejemplares cada uno mediante "CargaMasivaCatalogo".
+     *   3. Espera a que los índices del catálogo terminen de cargarse, para medir siempre el camino "caliente" (el de facetas es el último que se carga).
+     *
+     * Las mediciones comparan caminos entre sí (índice frente a consulta, caché frente a base de datos, cascada frente a carga masiva); los tiempos absolutos frente a MySQL real serán mayores.
+     */
+@State(Scope.Benchmark)
+public class DatosBenchmark{
+    // ==================== CONFIGURACIÓN ====================
+    static{
+        System.setProperty("hibernate.connection.url", "jdbc:h2:mem:biblioteca;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        System.setProperty("hibernate.connection.driver_class", "org.h2.Driver");
+        System.setProperty("hibernate.connection.username", "sa");
+        System.setProperty("hibernate.connection.password", "");
+        System.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        System.setProperty("hibernate.hbm2ddl.auto", "create");
+        System.setProperty("hibernate.show_sql", "false");
+        System.setProperty("hibernate.format_sql", "false");
+    }
+
+
+    // ==================== ATRIBUTOS ====================
+    public static final int AUTORES = 200;
+    public static final int LIBROS_POR_AUTOR = 5;
+    public static final int EJEMPLARES_POR_LIBRO = 10;
+
+        // Los "ID" sembrados (la carga masiva los asigna en orden, pero no tienen por qué empezar en 1).
+    List<Long> idsLibros;
+    List<String> isbns;
+    List<Long> idsEjemplares;
+
+        // Sin TTL: las estadísticas se consultan siempre en la base de datos.
+    ServicioBiblioteca servicio;
+    ServicioEstadisticas estadisticas;
+
+        // Contador para generar ISBN y códigos únicos en los benchmarks que insertan.
+    final AtomicLong secuencia = new AtomicLong();
+
+
+    // ==================== CICLO DE VIDA ====================
+    @Setup(Level.Trial)
+    public void sembrar() throws InterruptedException{
+        new CargaMasivaCatalogo().importarAutores(generarAutores("sem", AUTORES));
+
+        idsLibros = HibernateUtil.enSesion(session -> session.createQuery("SELECT l.id FROM Libro l ORDER BY l.id", Long.class).getResultList());
+        isbns = HibernateUtil.enSesion(session -> session.createQuery("SELECT l.isbn FROM Libro l ORDER BY l.id", String.class).getResultList());
+        idsEjemplares = HibernateUtil.enSesion(session -> session.createQuery("SELECT e.id FROM Ejemplar e ORDER BY e.id", Long.class).getResultList());
+
+        estadisticas = new ServicioEstadisticas(Duration.ZERO);
+        servicio = new ServicioBiblioteca(estadisticas);
+
+        while (IndiceCatalogo.getInstancia().getEjemplares() < idsEjemplares.size()) Thread.sleep(10);
+        while (!IndiceFacetasEjemplares.getInstancia().isCargado()) Thread.sleep(10);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar(){ HibernateUtil.shutdown(); }
+
+
+    // ==================== MÉTODOS HELPER ====================
+
+    /*
+     * "@param prefijo" Parámetro: Prefijo de los ISBN y códigos generados (debe ser distinto en cada llamada para no chocar con las claves únicas).
+     * "@param autores" Parámetro: Nº de autores a generar.
+     * "@return" Retorna: Autores con sus libros y ejemplares asociados, listos para guardarse en cascada.
+     */
+    static List<Autor> generarAutores(String prefijo, int autores){
+        List<Autor> lista = new ArrayList<>(autores);
+        for (int a = 0; a < autores; a++){
+            Autor autor = new Autor("Nombre " + a, "Apellidos " + a, "Española", LocalDate.of(1950, 1, 1).plusDays(a));
+            for (int l = 0; l < LIBROS_POR_AUTOR; l++){
+                String clave = prefijo + "-" + a + "-" + l;
+                Libro libro = new Libro("Título " + clave, clave, LocalDate.of(2000, 1, 1).plusDays(l), 100 + l);
+                for (int e = 0; e < EJEMPLARES_POR_LIBRO; e++){
+                    libro.addEjemplar(new Ejemplar("EJ-" + clave + "-" + e, EstadoEjemplar.values()[e % EstadoEjemplar.values().length], "Estantería " + (e % 8)));
+                }
+                autor.addLibro(libro);
+            }
+            lista.add(autor);
+        }
+        return lista;
+    }
+
+    Long idLibroAleatorio(){ return idsLibros.get(ThreadLocalRandom.current().nextInt(idsLibros.size())); }
+    String isbnAleatorio(){ return isbns.get(ThreadLocalRandom.current().nextInt(isbns.size())); }
+
+    /*
+     * "@param cantidad" Parámetro: Nº de ISBN a generar.
+     * "@return" Retorna: ISBN sembrados elegidos al azar, con uno de cada diez sustituido por un ISBN que no existe.
+     */
+    List<String> isbnsAleatorios(int cantidad){
+        List<String> lista = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) lista.add(i % 10 == 9 ? "no-existe-" + i : isbnAleatorio());
+        return lista;
+    }
+}
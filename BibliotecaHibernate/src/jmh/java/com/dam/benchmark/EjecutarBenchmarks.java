@@ -0,0 +1,32 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.benchmark;
+
+
+// Importa de la biblioteca/librería el paquete "RunnerException".
+import org.openjdk.jmh.runner.RunnerException;
+// Importa de la biblioteca/librería el paquete "Runner".
+import org.openjdk.jmh.runner.Runner;
+// Importa de la biblioteca/librería el paquete "CommandLineOptionException".
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+// Importa de la biblioteca/librería el paquete "CommandLineOptions".
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+// Importa de la biblioteca/librería el paquete "OptionsBuilder".
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+// Importa de la biblioteca/librería el paquete "GCProfiler".
+import org.openjdk.jmh.profile.GCProfiler;
+
+// Crea la clase "EjecutarBenchmarks".
+    /*
+     * Punto de entrada del jar de benchmarks ("mvn -Pbenchmarks package"). Acepta las mismas opciones que el "Main" de JMH
+     * (p. ej. "LecturasBenchmark -f 1 -wi 2 -i 3" o "-rf json -rff resultados.json") y añade siempre el perfilador "gc" para informar de la memoria asignada por operación.
+     */
+public class EjecutarBenchmarks{
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException{
+        new Runner(new OptionsBuilder().parent(new CommandLineOptions(args))
+                                       .addProfiler(GCProfiler.class)
+                                       .build()).run();
+    }
+}
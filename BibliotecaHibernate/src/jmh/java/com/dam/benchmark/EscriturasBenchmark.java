@@ -0,0 +1,54 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.benchmark;
+
+
+// Importa de la biblioteca/librería el paquete "ResultadoCarga".
+import com.dam.dto.ResultadoCarga;
+// Importa de la biblioteca/librería el paquete "CargaMasivaCatalogo".
+import com.dam.gestion.CargaMasivaCatalogo;
+// Importa de la biblioteca/librería el paquete "Autor".
+import com.dam.modelo.Autor;
+// Importa de la biblioteca/librería el paquete "List".
+import java.util.List;
+// Importa de la biblioteca/librería el paquete "TimeUnit".
+import java.util.concurrent.TimeUnit;
+// Importa todas las anotaciones de JMH.
+import org.openjdk.jmh.annotations.*;
+
+// Crea la clase "EscriturasBenchmark".
+    /*
+     * Inserción de un autor con sus libros y ejemplares ("DatosBenchmark.LIBROS_POR_AUTOR" × "DatosBenchmark.EJEMPLARES_POR_LIBRO"):
+     * guardado en cascada de "crearAutorConLibros()" frente a la carga masiva por lotes JDBC de "CargaMasivaCatalogo".
+     *
+     * Los autores se generan en cada invocación con claves nuevas (fuera de la medición no es posible: cada inserción consume sus claves únicas).
+     */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+@Fork(1)
+public class EscriturasBenchmark{
+        // Autores por invocación de la carga masiva (para que los lotes JDBC lleguen a llenarse).
+    private static final int AUTORES_CARGA = 20;
+
+    private final CargaMasivaCatalogo carga = new CargaMasivaCatalogo();
+
+
+    // ==================== BENCHMARKS ====================
+    @Benchmark
+    public Autor crearAutorConLibros(DatosBenchmark datos){
+        return datos.servicio.crearAutorConLibros(DatosBenchmark.generarAutores("c" + datos.secuencia.incrementAndGet(), 1).get(0));
+    }
+
+        // Mide "AUTORES_CARGA" autores por invocación: el tiempo por autor es el medido dividido entre "AUTORES_CARGA".
+    @Benchmark
+    @OperationsPerInvocation(AUTORES_CARGA)
+    public ResultadoCarga cargaMasiva(DatosBenchmark datos){
+        List<Autor> autores = DatosBenchmark.generarAutores("m" + datos.secuencia.incrementAndGet(), AUTORES_CARGA);
+        return carga.importarAutores(autores);
+    }
+}
@@ -0,0 +1,113 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.benchmark;
+
+
+// Importa de la biblioteca/librería el paquete "ResultadoFacetas".
+import com.dam.dto.ResultadoFacetas;
+// Importa de la biblioteca/librería el paquete "IndiceFacetasEjemplares".
+import com.dam.indice.IndiceFacetasEjemplares;
+// Importa de la biblioteca/librería el paquete "EstadoEjemplar".
+import com.dam.modelo.Ejemplar.EstadoEjemplar;
+// Importa de la biblioteca/librería el paquete "List".
+import java.util.List;
+// Importa de la biblioteca/librería el paquete "Random".
+import java.util.Random;
+// Importa de la biblioteca/librería el paquete "ThreadLocalRandom".
+import java.util.concurrent.ThreadLocalRandom;
+// Importa de la biblioteca/librería el paquete "TimeUnit".
+import java.util.concurrent.TimeUnit;
+// Importa todas las anotaciones de JMH.
+import org.openjdk.jmh.annotations.*;
+
+// Crea la clase "FacetasBenchmark".
+    /*
+     * Filtro de ejemplares por estado, ubicación y libro con los recuentos de cada faceta:
+     *   1. "indiceSintetico": "IndiceFacetasEjemplares.buscar()" sobre un índice propio de "ejemplares" ejemplares (sin base de datos) en "UBICACIONES" estanterías,
+     *      con consultas de disponibles en dos estanterías, de prestados o en reparación en todo el catálogo y de disponibles de un libro.
+     *   2. "servicioIndice" / "servicioHql": "buscarEjemplaresPorFacetas()" (índice) frente a "consultarEjemplaresPorFacetas()" (consultas "HQL") sobre el catálogo de "DatosBenchmark" en H2.
+     */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class FacetasBenchmark{
+    private static final int LIMITE = 50;
+    private static final int UBICACIONES = 500;
+    private static final int EJEMPLARES_POR_LIBRO = 10;
+
+
+    // ==================== ÍNDICE SINTÉTICO ====================
+    @State(Scope.Benchmark)
+    public static class IndiceSintetico{
+        @Param({"1000000", "5000000"})
+        public int ejemplares;
+
+        private IndiceFacetasEjemplares indice;
+        private Consulta[] consultas;
+
+        @Setup(Level.Trial)
+        public void construir(){
+            Random aleatorio = new Random(42);
+            indice = new IndiceFacetasEjemplares();
+                // 70 % disponibles, 20 % prestados, 7 % en reparación y 3 % de baja; los ejemplares de un libro tienen "ID" consecutivos.
+            for (long e = 1; e <= ejemplares; e++){
+                int tirada = aleatorio.nextInt(100);
+                EstadoEjemplar estado = tirada < 70 ? EstadoEjemplar.DISPONIBLE : tirada < 90 ? EstadoEjemplar.PRESTADO : tirada < 97 ? EstadoEjemplar.REPARACION : EstadoEjemplar.BAJA;
+                indice.registrarEjemplar(e, 1 + (e - 1) / EJEMPLARES_POR_LIBRO, estanteria(aleatorio.nextInt(UBICACIONES)), estado);
+            }
+
+            int libros = ejemplares / EJEMPLARES_POR_LIBRO;
+            consultas = new Consulta[1024];
+            for (int i = 0; i < consultas.length; i++){
+                if (i % 3 == 0) consultas[i] = new Consulta(List.of(EstadoEjemplar.DISPONIBLE), List.of(estanteria(aleatorio.nextInt(UBICACIONES)), estanteria(aleatorio.nextInt(UBICACIONES))), null);
+                else if (i % 3 == 1) consultas[i] = new Consulta(List.of(EstadoEjemplar.PRESTADO, EstadoEjemplar.REPARACION), null, null);
+                else consultas[i] = new Consulta(List.of(EstadoEjemplar.DISPONIBLE), null, List.of(1L + aleatorio.nextInt(libros)));
+            }
+            System.out.println("\nÍndice de facetas: " + indice.getEjemplares() + " ejemplares, " + indice.getUbicaciones() + " ubicaciones, " + indice.getBytes() / 1024 + " KB");
+        }
+
+        Consulta consultaAleatoria(){ return consultas[ThreadLocalRandom.current().nextInt(consultas.length)]; }
+    }
+
+    private static final class Consulta{
+        final List<EstadoEjemplar> estados;
+        final List<String> ubicaciones;
+        final List<Long> libros;
+
+        Consulta(List<EstadoEjemplar> estados, List<String> ubicaciones, List<Long> libros){
+            this.estados = estados;
+            this.ubicaciones = ubicaciones;
+            this.libros = libros;
+        }
+    }
+
+    private static String estanteria(int n){ return "Estantería " + n; }
+
+    @Benchmark
+    public ResultadoFacetas indiceSintetico(IndiceSintetico estado){
+        Consulta consulta = estado.consultaAleatoria();
+        return estado.indice.buscar(consulta.estados, consulta.ubicaciones, consulta.libros, LIMITE);
+    }
+
+
+    // ==================== SERVICIO ====================
+        // Disponibles en dos de las estanterías sembradas ("Estantería 0" a "Estantería 7").
+    private static List<String> estanteriasAleatorias(){
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        return List.of(estanteria(aleatorio.nextInt(8)), estanteria(aleatorio.nextInt(8)));
+    }
+
+    @Benchmark
+    public ResultadoFacetas servicioIndice(DatosBenchmark datos){
+        return datos.servicio.buscarEjemplaresPorFacetas(List.of(EstadoEjemplar.DISPONIBLE), estanteriasAleatorias(), null, LIMITE);
+    }
+
+    @Benchmark
+    public ResultadoFacetas servicioHql(DatosBenchmark datos){
+        return datos.servicio.consultarEjemplaresPorFacetas(List.of(EstadoEjemplar.DISPONIBLE), estanteriasAleatorias(), null, LIMITE);
+    }
+}
@@ -0,0 +1,247 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.benchmark;
+
+
+// Importa de la biblioteca/librería el paquete "EstadoEjemplar".
+import com.dam.modelo.Ejemplar.EstadoEjemplar;
+// Importa de la biblioteca/librería el paquete "Connection".
+import java.sql.Connection;
+// Importa de la biblioteca/librería el paquete "DriverManager".
+import java.sql.DriverManager;
+// Importa de la biblioteca/librería el paquete "PreparedStatement".
+import java.sql.PreparedStatement;
+// Importa de la biblioteca/librería el paquete "ResultSet".
+import java.sql.ResultSet;
+// Importa de la biblioteca/librería el paquete "ResultSetMetaData".
+import java.sql.ResultSetMetaData;
+// Importa de la biblioteca/librería el paquete "SQLException".
+import java.sql.SQLException;
+// Importa de la biblioteca/librería el paquete "Statement".
+import java.sql.Statement;
+// Importa de la biblioteca/librería el paquete "ThreadLocalRandom".
+import java.util.concurrent.ThreadLocalRandom;
+// Importa de la biblioteca/librería el paquete "TimeUnit".
+import java.util.concurrent.TimeUnit;
+// Importa todas las anotaciones de JMH.
+import org.openjdk.jmh.annotations.*;
+
+// Crea la clase "IndicesBenchmark".
+    /*
+     * Consultas sobre "ejemplares" con varios millones de filas, sin y con los índices de "db/migracion/V4__indices_ejemplares.sql" ("indices" = "false" / "true").
+     *
+     *   1. Usa JDBC directamente (sin Hibernate ni caché de segundo nivel): mide solo la base de datos, con las mismas sentencias que genera Hibernate para "ServicioBiblioteca".
+     *   2. Sin índices el esquema es el de antes de V4: clave primaria, código único y el índice de la clave ajena del libro.
+     *   3. Tras sembrar los datos imprime el plan ("EXPLAIN") de cada consulta, para comparar los dos esquemas junto a las latencias.
+     *
+     * Por defecto usa una base de datos H2 en memoria en modo MySQL. Para medir contra MySQL, con un esquema vacío (el benchmark crea las tablas "libros" y "ejemplares"):
+     *   java -jar ...-benchmarks.jar IndicesBenchmark -jvmArgsAppend "-Dbiblioteca.benchmark.url=jdbc:mysql://localhost:3306/pruebas -Dbiblioteca.benchmark.usuario=root -Dbiblioteca.benchmark.contrasena=..."
+     */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class IndicesBenchmark{
+    // ==================== CONFIGURACIÓN ====================
+    private static final String URL = System.getProperty("biblioteca.benchmark.url", "jdbc:h2:mem:indices;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+    private static final String USUARIO = System.getProperty("biblioteca.benchmark.usuario", "sa");
+    private static final String CONTRASENA = System.getProperty("biblioteca.benchmark.contrasena", "");
+
+    @Param({"2000000"})
+    public int ejemplares;
+
+    @Param({"false", "true"})
+    public boolean indices;
+
+
+    // ==================== ATRIBUTOS ====================
+    private static final int EJEMPLARES_POR_LIBRO = 10;
+    private static final int UBICACIONES = 500;
+    private static final int TAMANO_LOTE = 10_000;
+
+        // Mismos nombres y columnas que "Ejemplar" ("@Table(indexes = ...)") y la migración V4.
+    private static final String[] SQL_INDICES = {
+        "CREATE INDEX idx_ejemplares_libro_estado ON ejemplares (id_libro, estado)",
+        "CREATE INDEX idx_ejemplares_estado ON ejemplares (estado, id_ejemplar)",
+        "CREATE INDEX idx_ejemplares_estado_ubicacion ON ejemplares (estado, ubicacion)",
+        "CREATE INDEX idx_ejemplares_ubicacion ON ejemplares (ubicacion)"
+    };
+
+        // Las consultas medidas: "prestarCualquierEjemplar()", carga de "Libro.ejemplares", "listarEjemplaresPorEstado()", recuento de una estantería y la lectura previa de "cambiarEstadoPorUbicacion()".
+    private static final String SQL_DISPONIBLES_LIBRO = "SELECT id_ejemplar FROM ejemplares WHERE id_libro = ? AND estado = ? LIMIT 16";
+    private static final String SQL_EJEMPLARES_LIBRO = "SELECT id_ejemplar, codigo_ejemplar, estado, ubicacion, version FROM ejemplares WHERE id_libro = ?";
+    private static final String SQL_PAGINA_ESTADO = "SELECT id_ejemplar, codigo_ejemplar, ubicacion FROM ejemplares WHERE estado = ? AND id_ejemplar > ? ORDER BY estado, id_ejemplar LIMIT 50";
+    private static final String SQL_ESTADO_UBICACION = "SELECT COUNT(*) FROM ejemplares WHERE estado = ? AND ubicacion = ?";
+    private static final String SQL_LECTURA_UBICACION = "SELECT id_ejemplar, id_libro, ubicacion, estado FROM ejemplares WHERE (estado IS NULL OR estado <> ?) AND ubicacion = ?";
+
+    private Connection conexion;
+    private int libros;
+    private PreparedStatement disponiblesLibro, ejemplaresLibro, paginaEstado, estadoUbicacion, lecturaUbicacion;
+
+
+    // ==================== CICLO DE VIDA ====================
+    @Setup(Level.Trial)
+    public void preparar() throws SQLException{
+        conexion = DriverManager.getConnection(URL, USUARIO, CONTRASENA);
+        libros = Math.max(1, ejemplares / EJEMPLARES_POR_LIBRO);
+        try (Statement st = conexion.createStatement()){
+            st.execute("CREATE TABLE libros (id_libro BIGINT NOT NULL PRIMARY KEY, titulo VARCHAR(255))");
+            st.execute("CREATE TABLE ejemplares (id_ejemplar BIGINT NOT NULL PRIMARY KEY, codigo_ejemplar VARCHAR(50) NOT NULL UNIQUE, estado VARCHAR(20), ubicacion VARCHAR(100),"
+                     + " version BIGINT NOT NULL, id_libro BIGINT, CONSTRAINT fk_ejemplares_libro FOREIGN KEY (id_libro) REFERENCES libros (id_libro))");
+        }
+        sembrar();
+        try (Statement st = conexion.createStatement()){
+            if (indices) for (String sql : SQL_INDICES) st.execute(sql);
+            st.execute(esMySQL() ? "ANALYZE TABLE libros, ejemplares" : "ANALYZE");
+        }
+
+        disponiblesLibro = conexion.prepareStatement(SQL_DISPONIBLES_LIBRO);
+        ejemplaresLibro = conexion.prepareStatement(SQL_EJEMPLARES_LIBRO);
+        paginaEstado = conexion.prepareStatement(SQL_PAGINA_ESTADO);
+        estadoUbicacion = conexion.prepareStatement(SQL_ESTADO_UBICACION);
+        lecturaUbicacion = conexion.prepareStatement(SQL_LECTURA_UBICACION);
+
+        System.out.println("\n==================== PLANES (" + ejemplares + " ejemplares, índices: " + indices + ") ====================");
+        explicar(SQL_DISPONIBLES_LIBRO, 1L, EstadoEjemplar.DISPONIBLE.name());
+        explicar(SQL_EJEMPLARES_LIBRO, 1L);
+        explicar(SQL_PAGINA_ESTADO, EstadoEjemplar.REPARACION.name(), 0L);
+        explicar(SQL_ESTADO_UBICACION, EstadoEjemplar.PRESTADO.name(), ubicacion(0));
+        explicar(SQL_LECTURA_UBICACION, EstadoEjemplar.REPARACION.name(), ubicacion(0));
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws SQLException{
+        try (Statement st = conexion.createStatement()){
+            st.execute("DROP TABLE ejemplares");
+            st.execute("DROP TABLE libros");
+        } finally{
+            conexion.close();
+        }
+    }
+
+
+    // ==================== BENCHMARKS ====================
+
+        // Candidatos a préstamo de un libro: "(id_libro, estado)" frente al índice de la clave ajena y filtrar el estado fila a fila.
+    @Benchmark
+    public long disponiblesDeLibro() throws SQLException{
+        disponiblesLibro.setLong(1, libroAleatorio());
+        disponiblesLibro.setString(2, EstadoEjemplar.DISPONIBLE.name());
+        return sumar(disponiblesLibro);
+    }
+
+        // Colección "Libro.ejemplares": la cubre el índice de la clave ajena en los dos esquemas (no debe empeorar).
+    @Benchmark
+    public long ejemplaresDeLibro() throws SQLException{
+        ejemplaresLibro.setLong(1, libroAleatorio());
+        return sumar(ejemplaresLibro);
+    }
+
+        // Página de un estado poco frecuente a partir de un "ID" aleatorio ("ORDER BY estado, id_ejemplar", como en el servicio): sin índice hay que ordenar todas las filas del estado con "ID" mayor.
+    @Benchmark
+    public long paginaPorEstado() throws SQLException{
+        paginaEstado.setString(1, EstadoEjemplar.REPARACION.name());
+        paginaEstado.setLong(2, ThreadLocalRandom.current().nextLong(ejemplares));
+        return sumar(paginaEstado);
+    }
+
+        // Ejemplares prestados de una estantería: "(estado, ubicacion)" frente a recorrer toda la tabla.
+    @Benchmark
+    public long prestadosEnUbicacion() throws SQLException{
+        estadoUbicacion.setString(1, EstadoEjemplar.PRESTADO.name());
+        estadoUbicacion.setString(2, ubicacion(ThreadLocalRandom.current().nextInt(UBICACIONES)));
+        return sumar(estadoUbicacion);
+    }
+
+        // Lectura de los ejemplares previa al cambio de estado de una estantería entera ("cambiarEstado()", que además los bloquea).
+    @Benchmark
+    public long lecturaPorUbicacion() throws SQLException{
+        lecturaUbicacion.setString(1, EstadoEjemplar.REPARACION.name());
+        lecturaUbicacion.setString(2, ubicacion(ThreadLocalRandom.current().nextInt(UBICACIONES)));
+        return sumar(lecturaUbicacion);
+    }
+
+
+    // ==================== MÉTODOS HELPER ====================
+
+    /*
+     * Inserta los libros y sus ejemplares en lotes. Los ejemplares de un libro quedan repartidos por la tabla (como si se hubieran ido añadiendo con el tiempo)
+     * y los estados siguen una proporción realista: 70 % disponibles, 20 % prestados, 7 % en reparación y 3 % de baja.
+     */
+    private void sembrar() throws SQLException{
+        conexion.setAutoCommit(false);
+        try (PreparedStatement libro = conexion.prepareStatement("INSERT INTO libros (id_libro, titulo) VALUES (?, ?)")){
+            for (int l = 1; l <= libros; l++){
+                libro.setLong(1, l);
+                libro.setString(2, "Título " + l);
+                libro.addBatch();
+                if (l % TAMANO_LOTE == 0){ libro.executeBatch(); conexion.commit(); }
+            }
+            libro.executeBatch();
+            conexion.commit();
+        }
+        try (PreparedStatement ejemplar = conexion.prepareStatement("INSERT INTO ejemplares (id_ejemplar, codigo_ejemplar, estado, ubicacion, version, id_libro) VALUES (?, ?, ?, ?, 0, ?)")){
+            for (int e = 1; e <= ejemplares; e++){
+                ejemplar.setLong(1, e);
+                ejemplar.setString(2, "EJ-" + e);
+                ejemplar.setString(3, estado(e).name());
+                ejemplar.setString(4, ubicacion((int) ((e * 7919L) % UBICACIONES)));
+                ejemplar.setLong(5, e % libros + 1);
+                ejemplar.addBatch();
+                if (e % TAMANO_LOTE == 0){ ejemplar.executeBatch(); conexion.commit(); }
+            }
+            ejemplar.executeBatch();
+            conexion.commit();
+        }
+        conexion.setAutoCommit(true);
+    }
+
+    private static EstadoEjemplar estado(int ejemplar){
+        int p = ejemplar % 100;
+        if (p < 70) return EstadoEjemplar.DISPONIBLE;
+        if (p < 90) return EstadoEjemplar.PRESTADO;
+        if (p < 97) return EstadoEjemplar.REPARACION;
+        return EstadoEjemplar.BAJA;
+    }
+
+    private static String ubicacion(int n){ return "Estantería " + n; }
+
+    private long libroAleatorio(){ return ThreadLocalRandom.current().nextInt(libros) + 1; }
+
+        // Recorre el resultado entero (como haría Hibernate al construir la lista) y devuelve algo que JMH no pueda descartar.
+    private static long sumar(PreparedStatement sentencia) throws SQLException{
+        long suma = 0;
+        try (ResultSet rs = sentencia.executeQuery()){
+            while (rs.next()) suma += rs.getLong(1);
+        }
+        return suma;
+    }
+
+    /*
+     * Imprime el plan de la consulta con los parámetros dados: en H2 es una única columna de texto; en MySQL, una fila por tabla ("type", "key", "rows", "Extra"...).
+     */
+    private void explicar(String sql, Object... parametros) throws SQLException{
+        System.out.println("\n" + sql);
+        try (PreparedStatement explain = conexion.prepareStatement("EXPLAIN " + sql)){
+            for (int i = 0; i < parametros.length; i++) explain.setObject(i + 1, parametros[i]);
+            try (ResultSet rs = explain.executeQuery()){
+                ResultSetMetaData meta = rs.getMetaData();
+                while (rs.next()){
+                    StringBuilder fila = new StringBuilder("    ");
+                    for (int c = 1; c <= meta.getColumnCount(); c++){
+                        if (c > 1) fila.append(" | ");
+                        if (meta.getColumnCount() > 1) fila.append(meta.getColumnLabel(c)).append('=');
+                        fila.append(rs.getString(c));
+                    }
+                    System.out.println(fila);
+                }
+            }
+        }
+    }
+
+    private boolean esMySQL() throws SQLException{ return conexion.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql"); }
+}
@@ -0,0 +1,179 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.benchmark;
+
+
+// Importa de la biblioteca/librería el paquete "DetalleLibro".
+import com.dam.dto.DetalleLibro;
+// Importa de la biblioteca/librería el paquete "DisponibilidadLibro".
+import com.dam.dto.DisponibilidadLibro;
+// Importa de la biblioteca/librería el paquete "EstadisticasBiblioteca".
+import com.dam.dto.EstadisticasBiblioteca;
+// Importa de la biblioteca/librería el paquete "Pagina".
+import com.dam.dto.Pagina;
+// Importa de la biblioteca/librería el paquete "ResumenAutor".
+import com.dam.dto.ResumenAutor;
+// Importa de la biblioteca/librería el paquete "ResumenEjemplar".
+import com.dam.dto.ResumenEjemplar;
+// Importa de la biblioteca/librería el paquete "IndiceCatalogo".
+import com.dam.indice.IndiceCatalogo;
+// Importa de la biblioteca/librería el paquete "Autor".
+import com.dam.modelo.Autor;
+// Importa de la biblioteca/librería el paquete "Ejemplar".
+import com.dam.modelo.Ejemplar;
+// Importa de la biblioteca/librería el paquete "EstadoEjemplar".
+import com.dam.modelo.Ejemplar.EstadoEjemplar;
+// Importa de la biblioteca/librería el paquete "Libro".
+import com.dam.modelo.Libro;
+// Importa de la biblioteca/librería el paquete "HibernateUtil".
+import com.dam.util.HibernateUtil;
+// Importa de la biblioteca/librería el paquete "ArrayList".
+import java.util.ArrayList;
+// Importa de la biblioteca/librería el paquete "List".
+import java.util.List;
+// Importa de la biblioteca/librería el paquete "Map".
+import java.util.Map;
+// Importa de la biblioteca/librería el paquete "Optional".
+import java.util.Optional;
+// Importa de la biblioteca/librería el paquete "TimeUnit".
+import java.util.concurrent.TimeUnit;
+// Importa todas las anotaciones de JMH.
+import org.openjdk.jmh.annotations.*;
+
+// Crea la clase "LecturasBenchmark".
+    /*
+     * Caminos de lectura de "ServicioBiblioteca" con un único hilo: rendimiento ("Throughput") y percentiles de latencia ("SampleTime") de cada operación.
+     * Con el perfilador "gc" ("EjecutarBenchmarks" lo añade siempre) se obtiene también la memoria asignada por operación ("gc.alloc.rate.norm").
+     *
+     * Cada pareja "...Consulta"/"..." compara el camino sin optimizar con el del servicio (índice en memoria, caché de segundo nivel).
+     * Cada pareja "..."/"...Resumen..." (y "detalleLibroEntidades"/"consultarDetalleLibro") compara la carga de entidades con la proyección a DTO: la diferencia está sobre todo en "gc.alloc.rate.norm".
+     * Los benchmarks "isbns..." resuelven "LOTE_ISBN" ISBN por invocación (uno de cada diez no existe) y se miden por ISBN ("@OperationsPerInvocation").
+     */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LecturasBenchmark{
+        // ISBN por invocación en los benchmarks "isbns...".
+    private static final int LOTE_ISBN = 200;
+
+
+    // ==================== ISBN ====================
+
+        // Búsqueda directa en el índice del catálogo (sin sesión ni base de datos).
+    @Benchmark
+    public Long isbnIndice(DatosBenchmark datos){
+        return IndiceCatalogo.getInstancia().idLibro(datos.isbnAleatorio());
+    }
+
+        // "ServicioBiblioteca.resolverIdLibro()": índice y, si no está, consulta.
+    @Benchmark
+    public Optional<Long> isbnServicio(DatosBenchmark datos){
+        return datos.servicio.resolverIdLibro(datos.isbnAleatorio());
+    }
+
+        // Referencia: la consulta "HQL" por ISBN de siempre, sin índice ni caché de consultas.
+    @Benchmark
+    public Long isbnConsulta(DatosBenchmark datos){
+        String isbn = datos.isbnAleatorio();
+        return HibernateUtil.enSesion(session -> session.createQuery("SELECT l.id FROM Libro l WHERE l.isbn = :isbn", Long.class)
+                                                        .setParameter("isbn", isbn)
+                                                        .uniqueResult());
+    }
+
+
+    // ==================== ISBN EN BLOQUE ====================
+
+        // Referencia: "LOTE_ISBN" consultas por ISBN, cada una en su propia sesión.
+    @Benchmark
+    @OperationsPerInvocation(LOTE_ISBN)
+    public List<Long> isbnsUnoAUno(DatosBenchmark datos){
+        List<Long> ids = new ArrayList<>(LOTE_ISBN);
+        for (String isbn : datos.isbnsAleatorios(LOTE_ISBN)){
+            ids.add(HibernateUtil.enSesion(session -> session.createQuery("SELECT l.id FROM Libro l WHERE l.isbn = :isbn", Long.class)
+                                                              .setParameter("isbn", isbn)
+                                                              .uniqueResult()));
+        }
+        return ids;
+    }
+
+        // "ServicioBiblioteca.consultarIdsLibros()": una sola sesión y una consulta "IN" por bloque, sin índice.
+    @Benchmark
+    @OperationsPerInvocation(LOTE_ISBN)
+    public Map<String, Optional<Long>> isbnsConsultarEnBloque(DatosBenchmark datos){
+        return datos.servicio.consultarIdsLibros(datos.isbnsAleatorios(LOTE_ISBN));
+    }
+
+        // "ServicioBiblioteca.resolverIdsLibros()": índice y, para los que no están (los que no existen), una consulta "IN".
+    @Benchmark
+    @OperationsPerInvocation(LOTE_ISBN)
+    public Map<String, Optional<Long>> isbnsResolverEnBloque(DatosBenchmark datos){
+        return datos.servicio.resolverIdsLibros(datos.isbnsAleatorios(LOTE_ISBN));
+    }
+
+        // "ServicioBiblioteca.consultarDisponibilidadLibros()": lo anterior más el inventario resumido de los libros encontrados.
+        // Con H2 la consulta del inventario recorre la tabla entera comparando cada fila con la lista "IN" (no usa la clave primaria para ~180 "ID" de 1000): el tiempo es sobre todo de H2.
+    @Benchmark
+    @OperationsPerInvocation(LOTE_ISBN)
+    public Map<String, Optional<DisponibilidadLibro>> isbnsDisponibilidad(DatosBenchmark datos){
+        return datos.servicio.consultarDisponibilidadLibros(datos.isbnsAleatorios(LOTE_ISBN));
+    }
+
+
+    // ==================== DETALLE DE LIBRO ====================
+    @Benchmark
+    public Optional<Libro> buscarLibroPorId(DatosBenchmark datos){
+        return datos.servicio.buscarLibroPorId(datos.idLibroAleatorio());
+    }
+
+    @Benchmark
+    public Optional<DetalleLibro> obtenerDetalleLibro(DatosBenchmark datos){
+        return datos.servicio.obtenerDetalleLibro(datos.idLibroAleatorio());
+    }
+
+        // Referencia: la consulta "JOIN FETCH" que hidrata el libro, su autor y sus ejemplares como entidades (siempre contra la base de datos).
+    @Benchmark
+    public List<Object[]> detalleLibroEntidades(DatosBenchmark datos){
+        Long id = datos.idLibroAleatorio();
+        return HibernateUtil.enLectura(session -> session.createQuery("SELECT l, SIZE(a.libros) FROM Libro l LEFT JOIN FETCH l.autor a LEFT JOIN FETCH l.ejemplares WHERE l.id = :id", Object[].class)
+                                                         .setParameter("id", id)
+                                                         .list());
+    }
+
+        // Proyección del detalle (siempre contra la base de datos).
+    @Benchmark
+    public Optional<DetalleLibro> consultarDetalleLibro(DatosBenchmark datos){
+        return datos.servicio.consultarDetalleLibro(datos.idLibroAleatorio());
+    }
+
+
+    // ==================== LISTADOS Y ESTADÍSTICAS ====================
+    @Benchmark
+    public Pagina<Autor> listarAutores(DatosBenchmark datos){
+        return datos.servicio.listarAutores(null, 50);
+    }
+
+    @Benchmark
+    public Pagina<ResumenAutor> listarResumenAutores(DatosBenchmark datos){
+        return datos.servicio.listarResumenAutores(null, 50);
+    }
+
+    @Benchmark
+    public Pagina<Ejemplar> listarEjemplaresPorEstado(DatosBenchmark datos){
+        return datos.servicio.listarEjemplaresPorEstado(EstadoEjemplar.DISPONIBLE, null, 50);
+    }
+
+    @Benchmark
+    public Pagina<ResumenEjemplar> listarResumenEjemplaresPorEstado(DatosBenchmark datos){
+        return datos.servicio.listarResumenEjemplaresPorEstado(EstadoEjemplar.DISPONIBLE, null, 50);
+    }
+
+        // Siempre contra la base de datos ("ServicioEstadisticas" sin TTL).
+    @Benchmark
+    public EstadisticasBiblioteca obtenerEstadisticas(DatosBenchmark datos){
+        return datos.estadisticas.obtenerEstadisticas();
+    }
+}
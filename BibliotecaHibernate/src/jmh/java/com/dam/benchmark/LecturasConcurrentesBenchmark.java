@@ -0,0 +1,16 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.benchmark;
+
+
+// Importa de la biblioteca/librería el paquete "Threads".
+import org.openjdk.jmh.annotations.Threads;
+
+// Crea la clase "LecturasConcurrentesBenchmark".
+    /*
+     * Las mismas lecturas que "LecturasBenchmark", con 32 hilos a la vez: más hilos que conexiones en el pool, para medir la contención en el pool, la caché y el índice.
+     */
+@Threads(32)
+public class LecturasConcurrentesBenchmark extends LecturasBenchmark{}
@@ -0,0 +1,81 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.benchmark;
+
+
+// Importa de la biblioteca/librería el paquete "DetalleEjemplar".
+import com.dam.dto.DetalleEjemplar;
+// Importa de la biblioteca/librería el paquete "Optional".
+import java.util.Optional;
+// Importa de la biblioteca/librería el paquete "ConcurrentHashMap".
+import java.util.concurrent.ConcurrentHashMap;
+// Importa de la biblioteca/librería el paquete "ConcurrentMap".
+import java.util.concurrent.ConcurrentMap;
+// Importa de la biblioteca/librería el paquete "ThreadLocalRandom".
+import java.util.concurrent.ThreadLocalRandom;
+// Importa de la biblioteca/librería el paquete "TimeUnit".
+import java.util.concurrent.TimeUnit;
+// Importa todas las anotaciones de JMH.
+import org.openjdk.jmh.annotations.*;
+
+// Crea la clase "PrestamosBenchmark".
+    /*
+     * Préstamo y devolución concurrentes: 200 hilos ("mostradores") prestan a la vez ejemplares de unos pocos libros muy solicitados ("LIBROS_SOLICITADOS").
+     *
+     * Además de medir el rendimiento con contención (conflictos de versión y reintentos), comprueba que un ejemplar nunca se presta dos veces:
+     * cada hilo anota el ejemplar prestado en "prestados" hasta devolverlo, y si ya estaba anotado por un préstamo que aún no se estaba devolviendo la invocación falla y JMH aborta la medición.
+     */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(200)
+@Fork(1)
+public class PrestamosBenchmark{
+    // ==================== ATRIBUTOS ====================
+    private static final int LIBROS_SOLICITADOS = 8;
+
+        // Ejemplares prestados en este momento por algún hilo del benchmark, con el préstamo que los tiene.
+    private final ConcurrentMap<Long, Prestamo> prestados = new ConcurrentHashMap<>();
+
+
+    // ==================== BENCHMARKS ====================
+
+    /*
+     * "@return" Retorna: "true" si se ha prestado (y devuelto) un ejemplar; "false" si el libro no tenía ninguno disponible o se los llevaron otros mostradores.
+     */
+    @Benchmark
+    public boolean prestarYDevolver(DatosBenchmark datos){
+        String isbn = datos.isbns.get(ThreadLocalRandom.current().nextInt(LIBROS_SOLICITADOS));
+        Optional<DetalleEjemplar> prestado;
+        try{
+            prestado = datos.servicio.prestarCualquierEjemplar(isbn);
+        } catch (IllegalStateException ise){
+            return false;
+        }
+        if (!prestado.isPresent()) return false;
+
+        Long id = prestado.get().getId();
+        Prestamo prestamo = new Prestamo();
+            // Si otro préstamo lo tiene anotado, solo es válido si ya lo estaba devolviendo (la devolución se confirma antes de quitar la anotación).
+        Prestamo anterior = prestados.put(id, prestamo);
+        if (anterior != null && !anterior.devolviendo) throw new IllegalStateException("El ejemplar " + id + " se ha prestado dos veces a la vez");
+        try{
+            prestamo.devolviendo = true;
+            if (!datos.servicio.devolverEjemplar(id)) throw new IllegalStateException("El ejemplar " + id + " no estaba prestado al devolverlo");
+        } finally{
+            prestados.remove(id, prestamo);
+        }
+        return true;
+    }
+
+
+    // ==================== TIPOS AUXILIARES ====================
+        // Préstamo de un hilo; "devolviendo" se marca justo antes de devolver el ejemplar.
+    private static final class Prestamo{
+        volatile boolean devolviendo;
+    }
+}
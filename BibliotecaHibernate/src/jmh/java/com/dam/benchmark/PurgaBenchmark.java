@@ -0,0 +1,88 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.benchmark;
+
+
+// Importa de la biblioteca/librería el paquete "ResultadoPurga".
+import com.dam.dto.ResultadoPurga;
+// Importa de la biblioteca/librería el paquete "CargaMasivaCatalogo".
+import com.dam.gestion.CargaMasivaCatalogo;
+// Importa de la biblioteca/librería el paquete "Autor".
+import com.dam.modelo.Autor;
+// Importa de la biblioteca/librería el paquete "Ejemplar".
+import com.dam.modelo.Ejemplar;
+// Importa de la biblioteca/librería el paquete "EstadoEjemplar".
+import com.dam.modelo.Ejemplar.EstadoEjemplar;
+// Importa de la biblioteca/librería el paquete "Libro".
+import com.dam.modelo.Libro;
+// Importa de la biblioteca/librería el paquete "HibernateUtil".
+import com.dam.util.HibernateUtil;
+// Importa de la biblioteca/librería el paquete "LocalDate".
+import java.time.LocalDate;
+// Importa de la biblioteca/librería el paquete "List".
+import java.util.List;
+// Importa de la biblioteca/librería el paquete "TimeUnit".
+import java.util.concurrent.TimeUnit;
+// Importa todas las anotaciones de JMH.
+import org.openjdk.jmh.annotations.*;
+
+// Crea la clase "PurgaBenchmark".
+    /*
+     * Borrado de un autor con "LIBROS" libros de "ejemplaresLibro" ejemplares cada uno:
+     *   1. "eliminarEnCascada": referencia con "session.remove()" (la cascada carga los libros y ejemplares y los borra fila a fila).
+     *   2. "eliminarAutores": "ServicioBiblioteca.eliminarAutores()" (sentencias "DELETE" por bloques, ver "PurgaCatalogo").
+     *
+     * Antes de cada invocación (fuera de la medición) se inserta un autor nuevo con la carga masiva.
+     * El tiempo no incluye esa inserción, pero la memoria asignada por operación ("gc.alloc.rate.norm") sí, igual que la de H2 (que se ejecuta en el mismo proceso): solo sirve para comparar las dos variantes entre sí.
+     */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+@Fork(1)
+public class PurgaBenchmark{
+    private static final int LIBROS = 5;
+
+    @Param({"10", "2000"})
+    public int ejemplaresLibro;
+
+    private final CargaMasivaCatalogo carga = new CargaMasivaCatalogo();
+        // Autor insertado para la invocación en curso.
+    private Long idAutor;
+
+
+    // ==================== CICLO DE VIDA ====================
+    @Setup(Level.Invocation)
+    public void insertarAutor(DatosBenchmark datos){
+        String prefijo = "p" + datos.secuencia.incrementAndGet();
+        Autor autor = new Autor("Nombre " + prefijo, "Apellidos", "Española", LocalDate.of(1950, 1, 1));
+        for (int l = 0; l < LIBROS; l++){
+            String clave = prefijo + "-" + l;
+            Libro libro = new Libro("Título " + clave, clave, LocalDate.of(2000, 1, 1), 100);
+            for (int e = 0; e < ejemplaresLibro; e++){
+                libro.addEjemplar(new Ejemplar("EJ-" + clave + "-" + e, EstadoEjemplar.values()[e % EstadoEjemplar.values().length], "Estantería " + (e % 8)));
+            }
+            autor.addLibro(libro);
+        }
+        carga.importarAutores(List.of(autor));
+        idAutor = autor.getId();
+    }
+
+
+    // ==================== BENCHMARKS ====================
+    @Benchmark
+    public boolean eliminarEnCascada(){
+        return HibernateUtil.enTransaccion(session -> {
+            session.remove(session.get(Autor.class, idAutor));
+            return true;
+        });
+    }
+
+    @Benchmark
+    public ResultadoPurga eliminarAutores(DatosBenchmark datos){
+        return datos.servicio.eliminarAutores(List.of(idAutor));
+    }
+}
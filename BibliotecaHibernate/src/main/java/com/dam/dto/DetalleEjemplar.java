@@ -0,0 +1,46 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.dto;
+
+
+// Importa de la biblioteca/librería el paquete "EstadoEjemplar".
+import com.dam.modelo.Ejemplar.EstadoEjemplar;
+
+// Definimos los datos (inmutables) de un ejemplar dentro de la vista de detalle de un libro ("DetalleLibro").
+public final class DetalleEjemplar{
+    // ==================== ATRIBUTOS ====================
+    private final Long id;
+    private final String codigoEjemplar;
+    private final EstadoEjemplar estado;
+    private final String ubicacion;
+
+
+    // ==================== CONSTRUCTORES ====================
+    public DetalleEjemplar(Long id, String codigoEjemplar, EstadoEjemplar estado, String ubicacion){
+        this.id = id;
+        this.codigoEjemplar = codigoEjemplar;
+        this.estado = estado;
+        this.ubicacion = ubicacion;
+    }
+
+
+    // ==================== GETTERS ====================
+    public Long getId(){ return id; }
+    public String getCodigoEjemplar(){ return codigoEjemplar; }
+    public EstadoEjemplar getEstado(){ return estado; }
+    public String getUbicacion(){ return ubicacion; }
+
+
+    // ==================== TOSTRING ====================
+    @Override
+    public String toString(){
+        return "\n\tDetalleEjemplar{"
+             + "\n\t\tID: " + id
+             + "\n\t\tCódigo del Ejemplar:" + codigoEjemplar
+             + "\n\t\tEstado:" + estado
+             + "\n\t\tUbicación:" + ubicacion
+             + "\n\t" + '}';
+    }
+}
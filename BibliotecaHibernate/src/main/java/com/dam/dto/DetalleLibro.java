@@ -0,0 +1,86 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.dto;
+
+
+// Importa de la biblioteca/librería el paquete "LocalDate".
+import java.time.LocalDate;
+// Importa de la biblioteca/librería el paquete "Collections".
+import java.util.Collections;
+// Importa de la biblioteca/librería el paquete "List".
+import java.util.List;
+
+// Definimos la vista de detalle (inmutable) de un libro: sus datos, los de su autor y la lista de sus ejemplares.
+    /*
+     * Al no ser una entidad, puede usarse fuera de la sesión de Hibernate sin riesgo de "LazyInitializationException" ni de consultas adicionales.
+     */
+public final class DetalleLibro{
+    // ==================== ATRIBUTOS ====================
+    private final Long id;
+    private final String titulo;
+    private final String isbn;
+    private final LocalDate fechaPublicacion;
+    private final int numeroPaginas;
+
+    private final Long idAutor;
+    private final String nombreAutor;
+    private final String apellidosAutor;
+    private final String nacionalidadAutor;
+    private final LocalDate fechaNacimientoAutor;
+    private final long librosDelAutor;
+
+    private final List<DetalleEjemplar> ejemplares;
+
+
+    // ==================== CONSTRUCTORES ====================
+    public DetalleLibro(Long id, String titulo, String isbn, LocalDate fechaPublicacion, int numeroPaginas,
+                        Long idAutor, String nombreAutor, String apellidosAutor, String nacionalidadAutor, LocalDate fechaNacimientoAutor, long librosDelAutor,
+                        List<DetalleEjemplar> ejemplares){
+        this.id = id;
+        this.titulo = titulo;
+        this.isbn = isbn;
+        this.fechaPublicacion = fechaPublicacion;
+        this.numeroPaginas = numeroPaginas;
+        this.idAutor = idAutor;
+        this.nombreAutor = nombreAutor;
+        this.apellidosAutor = apellidosAutor;
+        this.nacionalidadAutor = nacionalidadAutor;
+        this.fechaNacimientoAutor = fechaNacimientoAutor;
+        this.librosDelAutor = librosDelAutor;
+        this.ejemplares = Collections.unmodifiableList(ejemplares);
+    }
+
+
+    // ==================== GETTERS ====================
+    public Long getId(){ return id; }
+    public String getTitulo(){ return titulo; }
+    public String getIsbn(){ return isbn; }
+    public LocalDate getFechaPublicacion(){ return fechaPublicacion; }
+    public int getNumeroPaginas(){ return numeroPaginas; }
+
+    public Long getIdAutor(){ return idAutor; }
+    public String getNombreAutor(){ return nombreAutor; }
+    public String getApellidosAutor(){ return apellidosAutor; }
+    public String getNacionalidadAutor(){ return nacionalidadAutor; }
+    public LocalDate getFechaNacimientoAutor(){ return fechaNacimientoAutor; }
+    public long getLibrosDelAutor(){ return librosDelAutor; }
+
+    public List<DetalleEjemplar> getEjemplares(){ return ejemplares; }
+
+
+    // ==================== TOSTRING ====================
+    @Override
+    public String toString(){
+        return "\n\tDetalleLibro{"
+             + "\n\t\tID: " + id
+             + "\n\t\tTitulo:" + titulo
+             + "\n\t\tISBN:" + isbn
+             + "\n\t\tFecha de Publicación:" + fechaPublicacion
+             + "\n\t\tNúmero de Páginas: " + numeroPaginas
+             + "\n\t\tAutor: " + nombreAutor + " " + apellidosAutor + " (" + idAutor + ")"
+             + "\n\t\tEjemplares:" + ejemplares
+             + "\n\t" + '}';
+    }
+}
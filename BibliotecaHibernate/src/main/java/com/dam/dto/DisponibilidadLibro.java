@@ -0,0 +1,71 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.dto;
+
+
+// Importa de la biblioteca/librería el paquete "EstadoEjemplar".
+import com.dam.modelo.Ejemplar.EstadoEjemplar;
+// Importa de la biblioteca/librería el paquete "Collections".
+import java.util.Collections;
+// Importa de la biblioteca/librería el paquete "EnumMap".
+import java.util.EnumMap;
+// Importa de la biblioteca/librería el paquete "Map".
+import java.util.Map;
+
+// Definimos la disponibilidad (inmutable) de un libro: su ISBN, su "ID" y el nº de ejemplares en cada estado, leído del inventario resumido.
+public final class DisponibilidadLibro{
+    // ==================== ATRIBUTOS ====================
+    private final String isbn;
+    private final Long idLibro;
+    private final Map<EstadoEjemplar, Long> porEstado;
+
+
+    // ==================== CONSTRUCTORES ====================
+            /*
+             * "@param isbn"      Parámetro: ISBN del libro.
+             * "@param idLibro"   Parámetro: "ID" del libro.
+             * "@param porEstado" Parámetro: Nº de ejemplares en cada estado (los estados que falten cuentan como 0).
+             */
+    public DisponibilidadLibro(String isbn, Long idLibro, Map<EstadoEjemplar, Long> porEstado){
+        this.isbn = isbn;
+        this.idLibro = idLibro;
+        EnumMap<EstadoEjemplar, Long> copia = new EnumMap<>(EstadoEjemplar.class);
+        for (EstadoEjemplar estado : EstadoEjemplar.values()) copia.put(estado, porEstado.getOrDefault(estado, 0L));
+        this.porEstado = Collections.unmodifiableMap(copia);
+    }
+
+
+    // ==================== GETTERS ====================
+    public String getIsbn(){ return isbn; }
+    public Long getIdLibro(){ return idLibro; }
+    public Map<EstadoEjemplar, Long> getPorEstado(){ return porEstado; }
+
+    /*
+     * "@param estado" Parámetro: Estado de los ejemplares.
+     * "@return" Retorna: Nº de ejemplares del libro en ese estado.
+     */
+    public long getCantidad(EstadoEjemplar estado){ return porEstado.get(estado); }
+
+    /*
+     * "@return" Retorna: Nº de ejemplares disponibles para préstamo.
+     */
+    public long getDisponibles(){ return porEstado.get(EstadoEjemplar.DISPONIBLE); }
+
+    /*
+     * "@return" Retorna: Nº total de ejemplares del libro con estado.
+     */
+    public long getTotal(){ return porEstado.values().stream().mapToLong(Long::longValue).sum(); }
+
+
+    // ==================== TOSTRING ====================
+    @Override
+    public String toString(){
+        return "\n\tDisponibilidadLibro{"
+             + "\n\t\tISBN: " + isbn
+             + "\n\t\tID del libro: " + idLibro
+             + "\n\t\tEjemplares por estado: " + porEstado
+             + "\n\t" + '}';
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.dto;
+
+
+// Importa de la biblioteca/librería el paquete "EstadoEjemplar".
+import com.dam.modelo.Ejemplar.EstadoEjemplar;
+// Importa de la biblioteca/librería el paquete "Instant".
+import java.time.Instant;
+// Importa de la biblioteca/librería el paquete "Collections".
+import java.util.Collections;
+// Importa de la biblioteca/librería el paquete "EnumMap".
+import java.util.EnumMap;
+// Importa de la biblioteca/librería el paquete "Map".
+import java.util.Map;
+
+// Definimos una instantánea (inmutable) de las estadísticas globales de la biblioteca.
+    /*
+     * 1. Agrupa los conteos totales de autores, libros y ejemplares.
+     * 2. Agrupa el desglose de ejemplares por cada valor de "EstadoEjemplar" (los estados sin ejemplares aparecen con valor 0).
+     * 3. Al ser inmutable puede compartirse entre hilos sin sincronización, lo que permite reutilizar la misma instantánea en consultas muy frecuentes.
+     */
+public final class EstadisticasBiblioteca{
+    // ==================== ATRIBUTOS ====================
+    private final long totalAutores;
+    private final long totalLibros;
+    private final long totalEjemplares;
+    private final Map<EstadoEjemplar, Long> ejemplaresPorEstado;
+    private final Instant generadaEn;
+
+
+    // ==================== CONSTRUCTORES ====================
+            /*
+             * "@param totalAutores"        Parámetro: Nº total de autores registrados.
+             * "@param totalLibros"         Parámetro: Nº total de libros registrados.
+             * "@param totalEjemplares"     Parámetro: Nº total de ejemplares registrados (incluidos los que no tienen estado).
+             * "@param ejemplaresPorEstado" Parámetro: Nº de ejemplares por estado.
+             * "@param generadaEn"          Parámetro: Momento en el que se obtuvieron los datos.
+             */
+    public EstadisticasBiblioteca(long totalAutores, long totalLibros, long totalEjemplares, Map<EstadoEjemplar, Long> ejemplaresPorEstado, Instant generadaEn){
+        this.totalAutores = totalAutores;
+        this.totalLibros = totalLibros;
+        this.totalEjemplares = totalEjemplares;
+
+        EnumMap<EstadoEjemplar, Long> copia = new EnumMap<>(EstadoEjemplar.class);
+        for (EstadoEjemplar estado : EstadoEjemplar.values()){
+            copia.put(estado, ejemplaresPorEstado.getOrDefault(estado, 0L));
+        }
+        this.ejemplaresPorEstado = Collections.unmodifiableMap(copia);
+        this.generadaEn = generadaEn;
+    }
+
+
+    // ==================== GETTERS ====================
+    public long getTotalAutores(){ return totalAutores; }
+    public long getTotalLibros(){ return totalLibros; }
+    public long getTotalEjemplares(){ return totalEjemplares; }
+    public Map<EstadoEjemplar, Long> getEjemplaresPorEstado(){ return ejemplaresPorEstado; }
+    public long getEjemplares(EstadoEjemplar estado){ return ejemplaresPorEstado.get(estado); }
+    public Instant getGeneradaEn(){ return generadaEn; }
+
+
+    // ==================== TOSTRING ====================
+    @Override
+    public String toString(){
+        return "\n\tEstadisticasBiblioteca{"
+             + "\n\t\tAutores: " + totalAutores
+             + "\n\t\tLibros: " + totalLibros
+             + "\n\t\tEjemplares: " + totalEjemplares
+             + "\n\t\tEjemplares por estado: " + ejemplaresPorEstado
+             + "\n\t\tGenerada en: " + generadaEn
+             + "\n\t" + '}';
+    }
+}
@@ -0,0 +1,62 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.dto;
+
+
+// Importa de la biblioteca/librería el paquete "Collections".
+import java.util.Collections;
+// Importa de la biblioteca/librería el paquete "List".
+import java.util.List;
+// Importa de la biblioteca/librería el paquete "Optional".
+import java.util.Optional;
+
+// Definimos una instantánea (inmutable) de las estadísticas de la caché de segundo nivel: una entrada por región (entidades, colecciones y consultas) y los totales.
+public final class MetricasCache{
+    // ==================== ATRIBUTOS ====================
+    private final List<MetricasRegionCache> regiones;
+
+
+    // ==================== CONSTRUCTORES ====================
+    public MetricasCache(List<MetricasRegionCache> regiones){
+        this.regiones = Collections.unmodifiableList(regiones);
+    }
+
+
+    // ==================== GETTERS ====================
+    public List<MetricasRegionCache> getRegiones(){ return regiones; }
+
+            /*
+             * "@param region" Parámetro: Nombre de la región (por ejemplo "com.dam.modelo.Libro").
+             * "@return" Retorna: Las estadísticas de esa región, o vacío si no existe.
+             */
+    public Optional<MetricasRegionCache> getRegion(String region){
+        return regiones.stream().filter(r -> r.getRegion().equals(region)).findFirst();
+    }
+
+    public long getAciertos(){ return regiones.stream().mapToLong(MetricasRegionCache::getAciertos).sum(); }
+    public long getFallos(){ return regiones.stream().mapToLong(MetricasRegionCache::getFallos).sum(); }
+    public long getExpulsiones(){ return regiones.stream().mapToLong(MetricasRegionCache::getExpulsiones).sum(); }
+
+            /*
+             * "@return" Retorna: Porcentaje global de lecturas servidas desde la caché (0 si aún no hay lecturas).
+             */
+    public double getTasaAciertos(){
+        long lecturas = getAciertos() + getFallos();
+        return lecturas == 0 ? 0.0 : getAciertos() * 100.0 / lecturas;
+    }
+
+
+    // ==================== TOSTRING ====================
+    @Override
+    public String toString(){
+        return "\n\tMetricasCache{"
+             + "\n\t\tAciertos: " + getAciertos()
+             + "\n\t\tFallos: " + getFallos()
+             + "\n\t\tTasa de aciertos (%): " + String.format("%.1f", getTasaAciertos())
+             + "\n\t\tExpulsiones: " + getExpulsiones()
+             + "\n\t\tRegiones:" + regiones
+             + "\n\t" + '}';
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.dto;
+
+
+// Definimos una instantánea (inmutable) de las métricas acumuladas de una operación de "GestionBiblioteca".
+    /*
+     * 1. Invocaciones y latencia: media, percentiles 50/95/99 y máxima (ms).
+     * 2. Trabajo en la base de datos por invocación: sentencias SQL enviadas y entidades cargadas.
+     * 3. Tiempo medio esperando una conexión del pool (ms por invocación).
+     *
+     * Una operación que envía muchas sentencias o carga muchas entidades por invocación suele ser un problema "N + 1"; una espera de conexión alta, un pool que se queda corto.
+     */
+public final class MetricasOperacion{
+    // ==================== ATRIBUTOS ====================
+    private final String operacion;
+    private final long invocaciones;
+    private final double latenciaMediaMs;
+    private final double p50Ms;
+    private final double p95Ms;
+    private final double p99Ms;
+    private final double latenciaMaximaMs;
+    private final long sentenciasSql;
+    private final long entidadesCargadas;
+    private final double esperaConexionMs;
+
+
+    // ==================== CONSTRUCTORES ====================
+    public MetricasOperacion(String operacion, long invocaciones, double latenciaMediaMs, double p50Ms, double p95Ms, double p99Ms, double latenciaMaximaMs, long sentenciasSql, long entidadesCargadas, double esperaConexionMs){
+        this.operacion = operacion;
+        this.invocaciones = invocaciones;
+        this.latenciaMediaMs = latenciaMediaMs;
+        this.p50Ms = p50Ms;
+        this.p95Ms = p95Ms;
+        this.p99Ms = p99Ms;
+        this.latenciaMaximaMs = latenciaMaximaMs;
+        this.sentenciasSql = sentenciasSql;
+        this.entidadesCargadas = entidadesCargadas;
+        this.esperaConexionMs = esperaConexionMs;
+    }
+
+
+    // ==================== GETTERS ====================
+    public String getOperacion(){ return operacion; }
+    public long getInvocaciones(){ return invocaciones; }
+    public double getLatenciaMediaMs(){ return latenciaMediaMs; }
+    public double getP50Ms(){ return p50Ms; }
+    public double getP95Ms(){ return p95Ms; }
+    public double getP99Ms(){ return p99Ms; }
+    public double getLatenciaMaximaMs(){ return latenciaMaximaMs; }
+    public long getSentenciasSql(){ return sentenciasSql; }
+    public long getEntidadesCargadas(){ return entidadesCargadas; }
+    public double getEsperaConexionMs(){ return esperaConexionMs; }
+
+            /*
+             * "@return" Retorna: Sentencias SQL por invocación (0 si aún no hay invocaciones).
+             */
+    public double getSentenciasPorInvocacion(){ return invocaciones == 0 ? 0.0 : sentenciasSql / (double) invocaciones; }
+
+
+    // ==================== TOSTRING ====================
+    @Override
+    public String toString(){
+        return "\n\tMetricasOperacion{"
+             + "\n\t\tOperación: " + operacion
+             + "\n\t\tInvocaciones: " + invocaciones
+             + "\n\t\tLatencia media (ms): " + String.format("%.3f", latenciaMediaMs)
+             + "\n\t\tLatencia p50/p95/p99 (ms): " + String.format("%.3f / %.3f / %.3f", p50Ms, p95Ms, p99Ms)
+             + "\n\t\tLatencia máxima (ms): " + String.format("%.3f", latenciaMaximaMs)
+             + "\n\t\tSentencias SQL: " + sentenciasSql + " (" + String.format("%.1f", getSentenciasPorInvocacion()) + " por invocación)"
+             + "\n\t\tEntidades cargadas: " + entidadesCargadas
+             + "\n\t\tEspera de conexión media (ms): " + String.format("%.3f", esperaConexionMs)
+             + "\n\t" + '}';
+    }
+}
@@ -0,0 +1,69 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.dto;
+
+
+// Definimos una instantánea (inmutable) del estado del pool de conexiones.
+    /*
+     * 1. Conexiones activas (prestadas a una sesión), inactivas (libres en el pool), totales y máximo configurado.
+     * 2. Hilos pendientes, es decir, esperando a que quede libre una conexión.
+     * 3. Tiempos de espera para obtener una conexión (medio y máximo) y nº de esperas agotadas ("timeouts").
+     *
+     * Permite dimensionar el pool con datos reales: muchas esperas o hilos pendientes indican que el máximo se queda corto; muchas conexiones inactivas, que sobra.
+     */
+public final class MetricasPool{
+    // ==================== ATRIBUTOS ====================
+    private final int activas;
+    private final int inactivas;
+    private final int pendientes;
+    private final int totales;
+    private final int maximo;
+    private final long adquisiciones;
+    private final double esperaMediaMs;
+    private final double esperaMaximaMs;
+    private final long timeouts;
+
+
+    // ==================== CONSTRUCTORES ====================
+    public MetricasPool(int activas, int inactivas, int pendientes, int totales, int maximo, long adquisiciones, double esperaMediaMs, double esperaMaximaMs, long timeouts){
+        this.activas = activas;
+        this.inactivas = inactivas;
+        this.pendientes = pendientes;
+        this.totales = totales;
+        this.maximo = maximo;
+        this.adquisiciones = adquisiciones;
+        this.esperaMediaMs = esperaMediaMs;
+        this.esperaMaximaMs = esperaMaximaMs;
+        this.timeouts = timeouts;
+    }
+
+
+    // ==================== GETTERS ====================
+    public int getActivas(){ return activas; }
+    public int getInactivas(){ return inactivas; }
+    public int getPendientes(){ return pendientes; }
+    public int getTotales(){ return totales; }
+    public int getMaximo(){ return maximo; }
+    public long getAdquisiciones(){ return adquisiciones; }
+    public double getEsperaMediaMs(){ return esperaMediaMs; }
+    public double getEsperaMaximaMs(){ return esperaMaximaMs; }
+    public long getTimeouts(){ return timeouts; }
+
+
+    // ==================== TOSTRING ====================
+    @Override
+    public String toString(){
+        return "\n\tMetricasPool{"
+             + "\n\t\tActivas: " + activas
+             + "\n\t\tInactivas: " + inactivas
+             + "\n\t\tPendientes: " + pendientes
+             + "\n\t\tTotales: " + totales + " (máximo " + maximo + ")"
+             + "\n\t\tAdquisiciones: " + adquisiciones
+             + "\n\t\tEspera media (ms): " + String.format("%.3f", esperaMediaMs)
+             + "\n\t\tEspera máxima (ms): " + String.format("%.3f", esperaMaximaMs)
+             + "\n\t\tTimeouts: " + timeouts
+             + "\n\t" + '}';
+    }
+}
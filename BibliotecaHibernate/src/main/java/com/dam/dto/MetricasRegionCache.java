@@ -0,0 +1,62 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.dto;
+
+
+// Definimos una instantánea (inmutable) de las estadísticas de una región de la caché de segundo nivel.
+    /*
+     * 1. Aciertos (lecturas servidas desde la caché) y fallos (lecturas que tuvieron que ir a la base de datos).
+     * 2. Escrituras (entradas añadidas o reemplazadas) y expulsiones (entradas descartadas por alcanzar el máximo de la región).
+     *
+     * Muchas expulsiones con una tasa de aciertos baja indican que el máximo de la región (ver "ehcache.xml") se queda corto.
+     */
+public final class MetricasRegionCache{
+    // ==================== ATRIBUTOS ====================
+    private final String region;
+    private final long aciertos;
+    private final long fallos;
+    private final long escrituras;
+    private final long expulsiones;
+
+
+    // ==================== CONSTRUCTORES ====================
+    public MetricasRegionCache(String region, long aciertos, long fallos, long escrituras, long expulsiones){
+        this.region = region;
+        this.aciertos = aciertos;
+        this.fallos = fallos;
+        this.escrituras = escrituras;
+        this.expulsiones = expulsiones;
+    }
+
+
+    // ==================== GETTERS ====================
+    public String getRegion(){ return region; }
+    public long getAciertos(){ return aciertos; }
+    public long getFallos(){ return fallos; }
+    public long getEscrituras(){ return escrituras; }
+    public long getExpulsiones(){ return expulsiones; }
+
+            /*
+             * "@return" Retorna: Porcentaje de lecturas servidas desde la caché (0 si aún no hay lecturas).
+             */
+    public double getTasaAciertos(){
+        long lecturas = aciertos + fallos;
+        return lecturas == 0 ? 0.0 : aciertos * 100.0 / lecturas;
+    }
+
+
+    // ==================== TOSTRING ====================
+    @Override
+    public String toString(){
+        return "\n\tMetricasRegionCache{"
+             + "\n\t\tRegión: " + region
+             + "\n\t\tAciertos: " + aciertos
+             + "\n\t\tFallos: " + fallos
+             + "\n\t\tTasa de aciertos (%): " + String.format("%.1f", getTasaAciertos())
+             + "\n\t\tEscrituras: " + escrituras
+             + "\n\t\tExpulsiones: " + expulsiones
+             + "\n\t" + '}';
+    }
+}
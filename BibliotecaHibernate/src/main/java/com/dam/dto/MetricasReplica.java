@@ -0,0 +1,52 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.dto;
+
+
+// Definimos una instantánea (inmutable) del uso de una réplica de lectura.
+    /*
+     * 1. URL de la réplica y si está en servicio (o apartada del reparto tras un fallo).
+     * 2. Conexiones en uso en este momento.
+     * 3. Nº de conexiones servidas a sesiones de lectura y nº de veces que no pudo dar conexión.
+     */
+public final class MetricasReplica{
+    // ==================== ATRIBUTOS ====================
+    private final String url;
+    private final boolean enServicio;
+    private final int activas;
+    private final long lecturas;
+    private final long fallos;
+
+
+    // ==================== CONSTRUCTORES ====================
+    public MetricasReplica(String url, boolean enServicio, int activas, long lecturas, long fallos){
+        this.url = url;
+        this.enServicio = enServicio;
+        this.activas = activas;
+        this.lecturas = lecturas;
+        this.fallos = fallos;
+    }
+
+
+    // ==================== GETTERS ====================
+    public String getUrl(){ return url; }
+    public boolean isEnServicio(){ return enServicio; }
+    public int getActivas(){ return activas; }
+    public long getLecturas(){ return lecturas; }
+    public long getFallos(){ return fallos; }
+
+
+    // ==================== TOSTRING ====================
+    @Override
+    public String toString(){
+        return "\n\tMetricasReplica{"
+             + "\n\t\tURL: " + url
+             + "\n\t\tEn servicio: " + enServicio
+             + "\n\t\tActivas: " + activas
+             + "\n\t\tLecturas: " + lecturas
+             + "\n\t\tFallos: " + fallos
+             + "\n\t" + '}';
+    }
+}
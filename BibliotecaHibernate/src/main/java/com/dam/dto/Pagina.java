@@ -0,0 +1,76 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.dto;
+
+
+// Importa de la biblioteca/librería el paquete "StandardCharsets".
+import java.nio.charset.StandardCharsets;
+// Importa de la biblioteca/librería el paquete "Base64".
+import java.util.Base64;
+// Importa de la biblioteca/librería el paquete "Collections".
+import java.util.Collections;
+// Importa de la biblioteca/librería el paquete "List".
+import java.util.List;
+
+// Definimos una página (inmutable) de un listado paginado por clave ("keyset").
+    /*
+     * 1. Contiene los elementos de la página, ordenados por su "ID".
+     * 2. Si hay más elementos, incluye un testigo de continuación ("siguienteToken") que se pasa tal cual para pedir la página siguiente; si es la última página vale "null".
+     *
+     * El testigo codifica el último "ID" entregado: la siguiente consulta filtra "id > ultimoId" con un límite, de modo que el coste de cada página no depende de su posición (a diferencia de "OFFSET").
+     */
+public final class Pagina<T>{
+    // ==================== ATRIBUTOS ====================
+    private final List<T> elementos;
+    private final String siguienteToken;
+
+
+    // ==================== CONSTRUCTORES ====================
+    public Pagina(List<T> elementos, String siguienteToken){
+        this.elementos = Collections.unmodifiableList(elementos);
+        this.siguienteToken = siguienteToken;
+    }
+
+
+    // ==================== GETTERS ====================
+    public List<T> getElementos(){ return elementos; }
+    public String getSiguienteToken(){ return siguienteToken; }
+    public boolean haySiguiente(){ return siguienteToken != null; }
+
+
+    // ==================== TESTIGOS ====================
+
+    /*
+     * "@param ultimoId" Parámetro: Último "ID" entregado.
+     * "@return" Retorna: Testigo opaco de continuación.
+     */
+    public static String codificarToken(long ultimoId){
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Long.toString(ultimoId).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /*
+     * "@param token" Parámetro: Testigo recibido de una página anterior, o "null" para empezar desde el principio.
+     * "@return" Retorna: Último "ID" entregado (0 si el testigo es "null").
+     * Lanza "IllegalArgumentException" si el testigo no es válido.
+     */
+    public static long decodificarToken(String token){
+        if (token == null) return 0L;
+        try{
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII));
+        } catch (IllegalArgumentException iae){
+            throw new IllegalArgumentException("Testigo de paginación no válido: '" + token + "'", iae);
+        }
+    }
+
+
+    // ==================== TOSTRING ====================
+    @Override
+    public String toString(){
+        return "\n\tPagina{"
+             + "\n\t\tElementos: " + elementos.size()
+             + "\n\t\tSiguiente: " + (siguienteToken != null ? siguienteToken : "N/A (última página)")
+             + "\n\t" + '}';
+    }
+}
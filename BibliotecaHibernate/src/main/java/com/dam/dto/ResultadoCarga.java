@@ -0,0 +1,51 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.dto;
+
+
+// Importa de la biblioteca/librería el paquete "Duration".
+import java.time.Duration;
+
+// Definimos el resultado (inmutable) de una carga masiva: filas escritas, duración y rendimiento.
+public final class ResultadoCarga{
+    // ==================== ATRIBUTOS ====================
+    private final long filas;
+    private final Duration duracion;
+
+
+    // ==================== CONSTRUCTORES ====================
+            /*
+             * "@param filas"    Parámetro: Nº de filas insertadas (autores, libros y ejemplares).
+             * "@param duracion" Parámetro: Tiempo total de la carga, incluida la confirmación de la transacción.
+             */
+    public ResultadoCarga(long filas, Duration duracion){
+        this.filas = filas;
+        this.duracion = duracion;
+    }
+
+
+    // ==================== GETTERS ====================
+    public long getFilas(){ return filas; }
+    public Duration getDuracion(){ return duracion; }
+
+    /*
+     * "@return" Retorna: Filas por segundo (0 si la carga no llegó a medir tiempo).
+     */
+    public double getFilasPorSegundo(){
+        long nanos = duracion.toNanos();
+        return nanos == 0 ? 0.0 : filas * 1_000_000_000.0 / nanos;
+    }
+
+
+    // ==================== TOSTRING ====================
+    @Override
+    public String toString(){
+        return "\n\tResultadoCarga{"
+             + "\n\t\tFilas: " + filas
+             + "\n\t\tDuración (ms): " + duracion.toMillis()
+             + "\n\t\tFilas por segundo: " + String.format("%.1f", getFilasPorSegundo())
+             + "\n\t" + '}';
+    }
+}
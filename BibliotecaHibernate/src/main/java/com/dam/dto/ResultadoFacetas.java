@@ -0,0 +1,69 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.dto;
+
+
+// Importa de la biblioteca/librería el paquete "EstadoEjemplar".
+import com.dam.modelo.Ejemplar.EstadoEjemplar;
+// Importa de la biblioteca/librería el paquete "Collections".
+import java.util.Collections;
+// Importa de la biblioteca/librería el paquete "EnumMap".
+import java.util.EnumMap;
+// Importa de la biblioteca/librería el paquete "List".
+import java.util.List;
+// Importa de la biblioteca/librería el paquete "Map".
+import java.util.Map;
+// Importa de la biblioteca/librería el paquete "TreeMap".
+import java.util.TreeMap;
+
+// Definimos el resultado (inmutable) de filtrar ejemplares por estado, ubicación y libro.
+    /*
+     * 1. Los primeros "ID" (en orden creciente) de los ejemplares que cumplen todos los filtros, y cuántos son en total.
+     * 2. Los recuentos de cada faceta: cuántos ejemplares hay en cada estado con los filtros de ubicación y libro (sin el de estado),
+     *    y en cada ubicación con los de estado y libro (sin el de ubicación). Así cada pantalla muestra cuántos ejemplares añadiría o quitaría cambiar un filtro.
+     */
+public final class ResultadoFacetas{
+    // ==================== ATRIBUTOS ====================
+    private final List<Long> ids;
+    private final long total;
+    private final Map<EstadoEjemplar, Long> porEstado;
+    private final Map<String, Long> porUbicacion;
+
+
+    // ==================== CONSTRUCTORES ====================
+            /*
+             * "@param ids"          Parámetro: Primeros "ID" de los ejemplares que cumplen los filtros.
+             * "@param total"        Parámetro: Nº de ejemplares que cumplen los filtros.
+             * "@param porEstado"    Parámetro: Nº de ejemplares en cada estado (los estados que falten cuentan como 0).
+             * "@param porUbicacion" Parámetro: Nº de ejemplares en cada ubicación (solo las que tienen alguno).
+             */
+    public ResultadoFacetas(List<Long> ids, long total, Map<EstadoEjemplar, Long> porEstado, Map<String, Long> porUbicacion){
+        this.ids = Collections.unmodifiableList(ids);
+        this.total = total;
+        EnumMap<EstadoEjemplar, Long> estados = new EnumMap<>(EstadoEjemplar.class);
+        for (EstadoEjemplar estado : EstadoEjemplar.values()) estados.put(estado, porEstado.getOrDefault(estado, 0L));
+        this.porEstado = Collections.unmodifiableMap(estados);
+        this.porUbicacion = Collections.unmodifiableMap(new TreeMap<>(porUbicacion));
+    }
+
+
+    // ==================== GETTERS ====================
+    public List<Long> getIds(){ return ids; }
+    public long getTotal(){ return total; }
+    public Map<EstadoEjemplar, Long> getPorEstado(){ return porEstado; }
+    public Map<String, Long> getPorUbicacion(){ return porUbicacion; }
+
+
+    // ==================== TOSTRING ====================
+    @Override
+    public String toString(){
+        return "\n\tResultadoFacetas{"
+             + "\n\t\tEjemplares: " + total
+             + "\n\t\tIDs: " + ids
+             + "\n\t\tPor estado: " + porEstado
+             + "\n\t\tPor ubicación: " + porUbicacion
+             + "\n\t" + '}';
+    }
+}
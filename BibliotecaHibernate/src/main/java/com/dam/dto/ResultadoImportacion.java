@@ -0,0 +1,70 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.dto;
+
+
+// Importa de la biblioteca/librería el paquete "Duration".
+import java.time.Duration;
+
+// Definimos el progreso (o el resultado final) de una importación de catálogo.
+    /*
+     * 1. Registros leídos del fichero.
+     * 2. Autores, libros y ejemplares insertados; libros y ejemplares actualizados ("upsert" sobre "isbn" y "codigo_ejemplar").
+     * 3. Tiempo transcurrido y rendimiento (registros por segundo).
+     */
+public final class ResultadoImportacion{
+    // ==================== ATRIBUTOS ====================
+    private final long registrosLeidos;
+    private final long autoresInsertados;
+    private final long librosInsertados;
+    private final long librosActualizados;
+    private final long ejemplaresInsertados;
+    private final long ejemplaresActualizados;
+    private final Duration duracion;
+
+
+    // ==================== CONSTRUCTORES ====================
+    public ResultadoImportacion(long registrosLeidos, long autoresInsertados, long librosInsertados, long librosActualizados, long ejemplaresInsertados, long ejemplaresActualizados, Duration duracion){
+        this.registrosLeidos = registrosLeidos;
+        this.autoresInsertados = autoresInsertados;
+        this.librosInsertados = librosInsertados;
+        this.librosActualizados = librosActualizados;
+        this.ejemplaresInsertados = ejemplaresInsertados;
+        this.ejemplaresActualizados = ejemplaresActualizados;
+        this.duracion = duracion;
+    }
+
+
+    // ==================== GETTERS ====================
+    public long getRegistrosLeidos(){ return registrosLeidos; }
+    public long getAutoresInsertados(){ return autoresInsertados; }
+    public long getLibrosInsertados(){ return librosInsertados; }
+    public long getLibrosActualizados(){ return librosActualizados; }
+    public long getEjemplaresInsertados(){ return ejemplaresInsertados; }
+    public long getEjemplaresActualizados(){ return ejemplaresActualizados; }
+    public Duration getDuracion(){ return duracion; }
+
+    /*
+     * "@return" Retorna: Registros leídos por segundo (0 si aún no ha transcurrido tiempo medible).
+     */
+    public double getRegistrosPorSegundo(){
+        long nanos = duracion.toNanos();
+        return nanos == 0 ? 0.0 : registrosLeidos * 1_000_000_000.0 / nanos;
+    }
+
+
+    // ==================== TOSTRING ====================
+    @Override
+    public String toString(){
+        return "\n\tResultadoImportacion{"
+             + "\n\t\tRegistros leídos: " + registrosLeidos
+             + "\n\t\tAutores insertados: " + autoresInsertados
+             + "\n\t\tLibros insertados/actualizados: " + librosInsertados + "/" + librosActualizados
+             + "\n\t\tEjemplares insertados/actualizados: " + ejemplaresInsertados + "/" + ejemplaresActualizados
+             + "\n\t\tDuración (ms): " + duracion.toMillis()
+             + "\n\t\tRegistros por segundo: " + String.format("%.1f", getRegistrosPorSegundo())
+             + "\n\t" + '}';
+    }
+}
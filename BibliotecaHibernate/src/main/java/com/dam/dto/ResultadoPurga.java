@@ -0,0 +1,57 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.dto;
+
+
+// Importa de la biblioteca/librería el paquete "Duration".
+import java.time.Duration;
+
+// Definimos el resultado (inmutable) de una purga masiva: autores, libros y ejemplares borrados y duración.
+public final class ResultadoPurga{
+    // ==================== ATRIBUTOS ====================
+    private final long autores;
+    private final long libros;
+    private final long ejemplares;
+    private final Duration duracion;
+
+
+    // ==================== CONSTRUCTORES ====================
+            /*
+             * "@param autores"    Parámetro: Nº de autores borrados.
+             * "@param libros"     Parámetro: Nº de libros borrados (incluidos los de los autores borrados).
+             * "@param ejemplares" Parámetro: Nº de ejemplares borrados (incluidos los de los libros borrados).
+             * "@param duracion"   Parámetro: Tiempo total de la purga, incluida la confirmación de la transacción.
+             */
+    public ResultadoPurga(long autores, long libros, long ejemplares, Duration duracion){
+        this.autores = autores;
+        this.libros = libros;
+        this.ejemplares = ejemplares;
+        this.duracion = duracion;
+    }
+
+
+    // ==================== GETTERS ====================
+    public long getAutores(){ return autores; }
+    public long getLibros(){ return libros; }
+    public long getEjemplares(){ return ejemplares; }
+    public Duration getDuracion(){ return duracion; }
+
+    /*
+     * "@return" Retorna: Nº total de filas borradas.
+     */
+    public long getFilas(){ return autores + libros + ejemplares; }
+
+
+    // ==================== TOSTRING ====================
+    @Override
+    public String toString(){
+        return "\n\tResultadoPurga{"
+             + "\n\t\tAutores: " + autores
+             + "\n\t\tLibros: " + libros
+             + "\n\t\tEjemplares: " + ejemplares
+             + "\n\t\tDuración (ms): " + duracion.toMillis()
+             + "\n\t" + '}';
+    }
+}
@@ -0,0 +1,52 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.dto;
+
+
+// Importa de la biblioteca/librería el paquete "Duration".
+import java.time.Duration;
+
+// Definimos el resultado (inmutable) de una reconciliación del inventario de ejemplares con la tabla "ejemplares".
+public final class ResultadoReconciliacion{
+    // ==================== ATRIBUTOS ====================
+    private final long filasRevisadas;
+    private final long filasCorregidas;
+    private final long ejemplaresDescuadrados;
+    private final Duration duracion;
+
+
+    // ==================== CONSTRUCTORES ====================
+            /*
+             * "@param filasRevisadas"         Parámetro: Nº de contadores (libro, ubicación y estado, más los totales por estado) comparados.
+             * "@param filasCorregidas"        Parámetro: Nº de contadores que no coincidían y se han corregido.
+             * "@param ejemplaresDescuadrados" Parámetro: Suma de las diferencias (en valor absoluto) de los contadores por libro, ubicación y estado.
+             * "@param duracion"               Parámetro: Tiempo total de la reconciliación.
+             */
+    public ResultadoReconciliacion(long filasRevisadas, long filasCorregidas, long ejemplaresDescuadrados, Duration duracion){
+        this.filasRevisadas = filasRevisadas;
+        this.filasCorregidas = filasCorregidas;
+        this.ejemplaresDescuadrados = ejemplaresDescuadrados;
+        this.duracion = duracion;
+    }
+
+
+    // ==================== GETTERS ====================
+    public long getFilasRevisadas(){ return filasRevisadas; }
+    public long getFilasCorregidas(){ return filasCorregidas; }
+    public long getEjemplaresDescuadrados(){ return ejemplaresDescuadrados; }
+    public Duration getDuracion(){ return duracion; }
+
+
+    // ==================== TOSTRING ====================
+    @Override
+    public String toString(){
+        return "\n\tResultadoReconciliacion{"
+             + "\n\t\tFilas revisadas: " + filasRevisadas
+             + "\n\t\tFilas corregidas: " + filasCorregidas
+             + "\n\t\tEjemplares descuadrados: " + ejemplaresDescuadrados
+             + "\n\t\tDuración (ms): " + duracion.toMillis()
+             + "\n\t" + '}';
+    }
+}
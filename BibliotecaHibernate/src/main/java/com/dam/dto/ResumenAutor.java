@@ -0,0 +1,58 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.dto;
+
+
+// Importa de la biblioteca/librería el paquete "LocalDate".
+import java.time.LocalDate;
+
+// Definimos los datos (inmutables) de un autor en un listado: sus campos y su nº de libros, sin la colección de libros.
+    /*
+     * Se construye directamente en la consulta ("SELECT new com.dam.dto.ResumenAutor(...)", ver "ServicioBiblioteca.listarResumenAutores()"): Hibernate no crea entidades,
+     * así que tampoco guarda en la sesión su copia para detectar cambios ni necesita una consulta por autor para contar sus libros.
+     */
+public final class ResumenAutor{
+    // ==================== ATRIBUTOS ====================
+    private final Long id;
+    private final String nombre;
+    private final String apellidos;
+    private final String nacionalidad;
+    private final LocalDate fechaNacimiento;
+    private final int numeroLibros;
+
+
+    // ==================== CONSTRUCTORES ====================
+    public ResumenAutor(Long id, String nombre, String apellidos, String nacionalidad, LocalDate fechaNacimiento, int numeroLibros){
+        this.id = id;
+        this.nombre = nombre;
+        this.apellidos = apellidos;
+        this.nacionalidad = nacionalidad;
+        this.fechaNacimiento = fechaNacimiento;
+        this.numeroLibros = numeroLibros;
+    }
+
+
+    // ==================== GETTERS ====================
+    public Long getId(){ return id; }
+    public String getNombre(){ return nombre; }
+    public String getApellidos(){ return apellidos; }
+    public String getNacionalidad(){ return nacionalidad; }
+    public LocalDate getFechaNacimiento(){ return fechaNacimiento; }
+    public int getNumeroLibros(){ return numeroLibros; }
+
+
+    // ==================== TOSTRING ====================
+    @Override
+    public String toString(){
+        return "\n\tResumenAutor{"
+             + "\n\t\tID: " + id
+             + "\n\t\tNombre:" + nombre
+             + "\n\t\tApellidos:" + apellidos
+             + "\n\t\tNacionalidad:" + nacionalidad
+             + "\n\t\tFecha de Nacimiento:" + fechaNacimiento
+             + "\n\t\tNº de Libros:" + numeroLibros
+             + "\n\t" + '}';
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.dto;
+
+
+// Importa de la biblioteca/librería el paquete "EstadoEjemplar".
+import com.dam.modelo.Ejemplar.EstadoEjemplar;
+// Importa de la biblioteca/librería el paquete "LocalDate".
+import java.time.LocalDate;
+
+// Definimos los datos (inmutables) de un ejemplar en un listado, junto con los de su libro y el autor del libro.
+    /*
+     * Se construye directamente en la consulta ("SELECT new com.dam.dto.ResumenEjemplar(...)", ver "ServicioBiblioteca.listarResumenEjemplaresPorEstado()"):
+     * una fila plana por ejemplar, sin entidades "Ejemplar", "Libro" ni "Autor" en la sesión.
+     */
+public final class ResumenEjemplar{
+    // ==================== ATRIBUTOS ====================
+    private final Long id;
+    private final String codigoEjemplar;
+    private final EstadoEjemplar estado;
+    private final String ubicacion;
+
+    private final Long idLibro;
+    private final String titulo;
+    private final String isbn;
+    private final LocalDate fechaPublicacion;
+    private final int numeroPaginas;
+
+    private final Long idAutor;
+    private final String nombreAutor;
+    private final String apellidosAutor;
+    private final String nacionalidadAutor;
+    private final LocalDate fechaNacimientoAutor;
+    private final int librosDelAutor;
+
+
+    // ==================== CONSTRUCTORES ====================
+    public ResumenEjemplar(Long id, String codigoEjemplar, EstadoEjemplar estado, String ubicacion,
+                           Long idLibro, String titulo, String isbn, LocalDate fechaPublicacion, int numeroPaginas,
+                           Long idAutor, String nombreAutor, String apellidosAutor, String nacionalidadAutor, LocalDate fechaNacimientoAutor, int librosDelAutor){
+        this.id = id;
+        this.codigoEjemplar = codigoEjemplar;
+        this.estado = estado;
+        this.ubicacion = ubicacion;
+        this.idLibro = idLibro;
+        this.titulo = titulo;
+        this.isbn = isbn;
+        this.fechaPublicacion = fechaPublicacion;
+        this.numeroPaginas = numeroPaginas;
+        this.idAutor = idAutor;
+        this.nombreAutor = nombreAutor;
+        this.apellidosAutor = apellidosAutor;
+        this.nacionalidadAutor = nacionalidadAutor;
+        this.fechaNacimientoAutor = fechaNacimientoAutor;
+        this.librosDelAutor = librosDelAutor;
+    }
+
+
+    // ==================== GETTERS ====================
+    public Long getId(){ return id; }
+    public String getCodigoEjemplar(){ return codigoEjemplar; }
+    public EstadoEjemplar getEstado(){ return estado; }
+    public String getUbicacion(){ return ubicacion; }
+
+    public Long getIdLibro(){ return idLibro; }
+    public String getTitulo(){ return titulo; }
+    public String getIsbn(){ return isbn; }
+    public LocalDate getFechaPublicacion(){ return fechaPublicacion; }
+    public int getNumeroPaginas(){ return numeroPaginas; }
+
+    public Long getIdAutor(){ return idAutor; }
+    public String getNombreAutor(){ return nombreAutor; }
+    public String getApellidosAutor(){ return apellidosAutor; }
+    public String getNacionalidadAutor(){ return nacionalidadAutor; }
+    public LocalDate getFechaNacimientoAutor(){ return fechaNacimientoAutor; }
+    public int getLibrosDelAutor(){ return librosDelAutor; }
+
+
+    // ==================== TOSTRING ====================
+    @Override
+    public String toString(){
+        return "\n\tResumenEjemplar{"
+             + "\n\t\tID: " + id
+             + "\n\t\tCódigo del Ejemplar:" + codigoEjemplar
+             + "\n\t\tEstado:" + estado
+             + "\n\t\tUbicación:" + ubicacion
+             + "\n\t\tLibro:" + titulo + " (" + idLibro + ")"
+             + "\n\t\tAutor:" + nombreAutor + " " + apellidosAutor + " (" + idAutor + ")"
+             + "\n\t" + '}';
+    }
+}
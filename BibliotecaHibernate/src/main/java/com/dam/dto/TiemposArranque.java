@@ -0,0 +1,66 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.dto;
+
+
+// Definimos una instantánea (inmutable) de lo que ha tardado cada fase de la creación de la "SessionFactory".
+    /*
+     * 1. Servicios: lectura de "hibernate.cfg.xml", pool de conexiones y entorno JDBC.
+     * 2. Metadatos: lectura de las anotaciones de las entidades.
+     * 3. Validación: comprobación del esquema de la base de datos ("hbm2ddl.auto=validate"); puede omitirse si ya se validó el mismo mapeo ("validacion").
+     * 4. Fábrica: construcción de la "SessionFactory" (persistidores, caché de segundo nivel, consultas con nombre...).
+     */
+public final class TiemposArranque{
+    // ==================== ATRIBUTOS ====================
+    private final String modo;
+    private final double serviciosMs;
+    private final double metadatosMs;
+    private final double validacionMs;
+    private final String validacion;
+    private final double fabricaMs;
+    private final double totalMs;
+
+
+    // ==================== CONSTRUCTORES ====================
+    public TiemposArranque(String modo, double serviciosMs, double metadatosMs, double validacionMs, String validacion, double fabricaMs, double totalMs){
+        this.modo = modo;
+        this.serviciosMs = serviciosMs;
+        this.metadatosMs = metadatosMs;
+        this.validacionMs = validacionMs;
+        this.validacion = validacion;
+        this.fabricaMs = fabricaMs;
+        this.totalMs = totalMs;
+    }
+
+
+    // ==================== GETTERS ====================
+            /*
+             * "@return" Retorna: Cómo se ha iniciado ("perezoso", "segundo_plano" o "inmediato", ver "HibernateUtil").
+             */
+    public String getModo(){ return modo; }
+    public double getServiciosMs(){ return serviciosMs; }
+    public double getMetadatosMs(){ return metadatosMs; }
+    public double getValidacionMs(){ return validacionMs; }
+            /*
+             * "@return" Retorna: Resultado de la validación del esquema ("validado", "omitido (ya validado)", "desactivado" o "no aplica").
+             */
+    public String getValidacion(){ return validacion; }
+    public double getFabricaMs(){ return fabricaMs; }
+    public double getTotalMs(){ return totalMs; }
+
+
+    // ==================== TOSTRING ====================
+    @Override
+    public String toString(){
+        return "\n\tTiemposArranque{"
+             + "\n\t\tModo: " + modo
+             + "\n\t\tServicios (ms): " + String.format("%.1f", serviciosMs)
+             + "\n\t\tMetadatos (ms): " + String.format("%.1f", metadatosMs)
+             + "\n\t\tValidación (ms): " + String.format("%.1f", validacionMs) + " (" + validacion + ")"
+             + "\n\t\tFábrica (ms): " + String.format("%.1f", fabricaMs)
+             + "\n\t\tTotal (ms): " + String.format("%.1f", totalMs)
+             + "\n\t" + '}';
+    }
+}
@@ -0,0 +1,144 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.gestion;
+
+
+// Importa de la biblioteca/librería el paquete "ResultadoCarga".
+import com.dam.dto.ResultadoCarga;
+// Importa todos las dependencias creadas en el paquete "modelo".
+import com.dam.modelo.*;
+// Importa de la biblioteca/librería el paquete "HibernateUtil".
+import com.dam.util.HibernateUtil;
+// Importa de la biblioteca/librería el paquete "Duration".
+import java.time.Duration;
+// Importa de la biblioteca/librería el paquete "Iterator".
+import java.util.Iterator;
+// Importa de la biblioteca/librería el paquete "CacheMode".
+import org.hibernate.CacheMode;
+// Importa de la biblioteca/librería el paquete "FlushMode".
+import org.hibernate.FlushMode;
+// Importa de la biblioteca/librería el paquete "Session".
+import org.hibernate.Session;
+
+// Crea la clase "CargaMasivaCatalogo".
+    /*
+     * Modo de importación masiva para catálogos completos de una editorial (millones de ejemplares).
+     *
+     * Frente a "crearAutorConLibros()" (un "persist" y un "INSERT" por fila):
+     *   1. Los identificadores se reservan por bloques ("@TableGenerator" con optimizador "pooled"), así que los "INSERT" se envían en lotes JDBC ("hibernate.jdbc.batch_size" + "hibernate.order_inserts").
+     *   2. Cada "tamanoLote" filas se hace "flush()" (envía el lote) y "clear()" (vacía la caché de primer nivel), de modo que la memoria no crece con el tamaño del catálogo.
+     *   3. La sesión trabaja con "FlushMode.MANUAL": solo se vuelca cuando la carga lo decide.
+     *   4. La sesión no escribe en la caché de segundo nivel ("CacheMode.IGNORE"): millones de filas recién insertadas expulsarían de la caché los datos que sí se leen. Las colecciones cacheadas afectadas se siguen invalidando.
+     *
+     * Toda la carga se ejecuta en una única transacción: o se importa el catálogo completo o no se importa nada.
+     * La clase no guarda estado entre llamadas, por lo que puede compartirse entre hilos.
+     */
+public class CargaMasivaCatalogo{
+    // ==================== ATRIBUTOS ====================
+        // Coincide con "hibernate.jdbc.batch_size" en "hibernate.cfg.xml".
+    public static final int TAMANO_LOTE_POR_DEFECTO = 50;
+
+    private final int tamanoLote;
+
+
+    // ==================== CONSTRUCTORES ====================
+    public CargaMasivaCatalogo(){ this(TAMANO_LOTE_POR_DEFECTO); }
+
+            /*
+             * "@param tamanoLote" Parámetro: Nº de filas por lote JDBC y por cada "flush()"/"clear()" de la sesión.
+             */
+    public CargaMasivaCatalogo(int tamanoLote){
+        if (tamanoLote < 1) throw new IllegalArgumentException("El tamaño de lote debe ser positivo: " + tamanoLote);
+        this.tamanoLote = tamanoLote;
+    }
+
+
+    // ==================== MÉTODOS ====================
+
+    /*
+     * Importa autores con sus libros y ejemplares (ya asociados con "addLibro()"/"addEjemplar()"), guardándolos en cascada.
+     *
+     * Los autores se consumen uno a uno del "Iterable", así que puede alimentarse desde un origen que los genere sobre la marcha sin tener todo el catálogo en memoria.
+     *
+     * "@param autores" Parámetro: Autores a importar.
+     * "@return" Retorna: Filas insertadas y rendimiento de la carga.
+     */
+    public ResultadoCarga importarAutores(Iterable<Autor> autores){
+        long inicio = System.nanoTime();
+
+        long filas = HibernateUtil.enTransaccion(session -> {
+            prepararSesion(session);
+            long insertadas = 0;
+            long pendientes = 0;
+
+            for (Autor autor : autores){
+                session.persist(autor);
+
+                long filasAutor = 1;
+                for (Libro libro : autor.getLibros()) filasAutor += 1 + libro.getEjemplares().size();
+                insertadas += filasAutor;
+                pendientes += filasAutor;
+
+                if (pendientes >= tamanoLote){
+                    volcar(session);
+                    pendientes = 0;
+                }
+            }
+            session.flush();
+            return insertadas;
+        });
+
+        return new ResultadoCarga(filas, Duration.ofNanos(System.nanoTime() - inicio));
+    }
+
+    /*
+     * Importa ejemplares de un libro ya existente.
+     *
+     * El libro no se carga: cada ejemplar se asocia a una referencia ("session.load()", un "proxy" con solo el "ID"), así que tampoco se inicializa su colección de ejemplares.
+     *
+     * "@param idLibro"    Parámetro: ID del libro al que pertenecen los ejemplares.
+     * "@param ejemplares" Parámetro: Ejemplares a importar (sin libro asignado).
+     * "@return" Retorna: Filas insertadas y rendimiento de la carga.
+     */
+    public ResultadoCarga importarEjemplares(Long idLibro, Iterator<Ejemplar> ejemplares){
+        long inicio = System.nanoTime();
+
+        long filas = HibernateUtil.enTransaccion(session -> {
+            prepararSesion(session);
+            Libro referencia = session.load(Libro.class, idLibro);
+            long insertadas = 0;
+
+            while (ejemplares.hasNext()){
+                Ejemplar ejemplar = ejemplares.next();
+                ejemplar.setLibro(referencia);
+                session.persist(ejemplar);
+                insertadas++;
+
+                if (insertadas % tamanoLote == 0){
+                    volcar(session);
+                        // Tras "clear()" la referencia queda desasociada; se pide otra a la sesión (sigue sin consultar la base de datos).
+                    referencia = session.load(Libro.class, idLibro);
+                }
+            }
+            session.flush();
+            return insertadas;
+        });
+
+        return new ResultadoCarga(filas, Duration.ofNanos(System.nanoTime() - inicio));
+    }
+
+        // Ajusta la sesión para la carga: lotes JDBC del tamaño configurado, volcado manual y sin poblar la caché de segundo nivel.
+    private void prepararSesion(Session session){
+        session.setJdbcBatchSize(tamanoLote);
+        session.setHibernateFlushMode(FlushMode.MANUAL);
+        session.setCacheMode(CacheMode.IGNORE);
+    }
+
+        // Envía a la base de datos el lote pendiente y vacía la caché de primer nivel.
+    private static void volcar(Session session){
+        session.flush();
+        session.clear();
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.gestion;
+
+
+// Importa de la biblioteca/librería el paquete "EstadoEjemplar".
+import com.dam.modelo.Ejemplar.EstadoEjemplar;
+// Importa de la biblioteca/librería el paquete "ArrayList".
+import java.util.ArrayList;
+// Importa de la biblioteca/librería el paquete "Collection".
+import java.util.Collection;
+// Importa de la biblioteca/librería el paquete "Collections".
+import java.util.Collections;
+// Importa de la biblioteca/librería el paquete "LinkedHashSet".
+import java.util.LinkedHashSet;
+// Importa de la biblioteca/librería el paquete "List".
+import java.util.List;
+// Importa de la biblioteca/librería el paquete "Query".
+import org.hibernate.query.Query;
+
+// Crea la clase "FiltroEjemplares".
+    /*
+     * Condición (inmutable) que selecciona un conjunto de ejemplares para las operaciones masivas de "ServicioBiblioteca" (por ejemplo "cambiarEstado()").
+     *
+     * Se crea con uno de los métodos estáticos y se restringe encadenando "con...()"; todas las condiciones se combinan con "AND":
+     *   FiltroEjemplares.porUbicacion("Estantería 4").conEstado(EstadoEjemplar.DISPONIBLE)
+     *
+     * Se traduce a la cláusula "WHERE" de una sentencia "HQL" sobre el alias "e" (ver "condicion()" y "asignarParametros()").
+     */
+public final class FiltroEjemplares{
+    // ==================== ATRIBUTOS ====================
+    private final List<Long> ids;
+    private final String ubicacion;
+    private final EstadoEjemplar estado;
+    private final Long idLibro;
+
+
+    // ==================== CONSTRUCTORES ====================
+    private FiltroEjemplares(List<Long> ids, String ubicacion, EstadoEjemplar estado, Long idLibro){
+        this.ids = ids;
+        this.ubicacion = ubicacion;
+        this.estado = estado;
+        this.idLibro = idLibro;
+    }
+
+            /*
+             * "@param ids" Parámetro: "ID" de los ejemplares (se ignoran los repetidos).
+             */
+    public static FiltroEjemplares porIds(Collection<Long> ids){
+        return new FiltroEjemplares(Collections.unmodifiableList(new ArrayList<>(new LinkedHashSet<>(ids))), null, null, null);
+    }
+
+    public static FiltroEjemplares porUbicacion(String ubicacion){ return new FiltroEjemplares(null, requerido(ubicacion, "ubicacion"), null, null); }
+    public static FiltroEjemplares porEstado(EstadoEjemplar estado){ return new FiltroEjemplares(null, null, requerido(estado, "estado"), null); }
+    public static FiltroEjemplares porLibro(Long idLibro){ return new FiltroEjemplares(null, null, null, requerido(idLibro, "idLibro")); }
+
+    public FiltroEjemplares conUbicacion(String ubicacion){ return new FiltroEjemplares(ids, requerido(ubicacion, "ubicacion"), estado, idLibro); }
+    public FiltroEjemplares conEstado(EstadoEjemplar estado){ return new FiltroEjemplares(ids, ubicacion, requerido(estado, "estado"), idLibro); }
+    public FiltroEjemplares conLibro(Long idLibro){ return new FiltroEjemplares(ids, ubicacion, estado, requerido(idLibro, "idLibro")); }
+
+
+    // ==================== HQL ====================
+
+    /*
+     * "@return" Retorna: Las condiciones del filtro, sin la de los "ID" (los "ID" se envían por bloques, ver "ServicioBiblioteca.cambiarEstado()"), unidas con "AND" y precedidas de " AND ", sobre el alias "e".
+     */
+    String condicion(){
+        StringBuilder hql = new StringBuilder();
+        if (ubicacion != null) hql.append(" AND e.ubicacion = :ubicacion");
+        if (estado != null) hql.append(" AND e.estado = :estado");
+        if (idLibro != null) hql.append(" AND e.libro.id = :idLibro");
+        return hql.toString();
+    }
+
+        // Asigna a la consulta los parámetros usados en "condicion()".
+    void asignarParametros(Query<?> query){
+        if (ubicacion != null) query.setParameter("ubicacion", ubicacion);
+        if (estado != null) query.setParameter("estado", estado);
+        if (idLibro != null) query.setParameter("idLibro", idLibro);
+    }
+
+
+    // ==================== GETTERS ====================
+            /*
+             * "@return" Retorna: "ID" de los ejemplares, o "null" si el filtro no se limita a unos "ID" concretos.
+             */
+    public List<Long> getIds(){ return ids; }
+    public String getUbicacion(){ return ubicacion; }
+    public EstadoEjemplar getEstado(){ return estado; }
+    public Long getIdLibro(){ return idLibro; }
+
+
+    // ==================== MÉTODOS HELPER ====================
+    private static <T> T requerido(T valor, String nombre){
+        if (valor == null) throw new IllegalArgumentException("El filtro de ejemplares necesita un valor para '" + nombre + "'");
+        return valor;
+    }
+
+
+    // ==================== TOSTRING ====================
+    @Override
+    public String toString(){
+        return "\n\tFiltroEjemplares{"
+             + "\n\t\tIDs: " + (ids != null ? ids.size() : "N/A")
+             + "\n\t\tUbicación: " + (ubicacion != null ? ubicacion : "N/A")
+             + "\n\t\tEstado: " + (estado != null ? estado : "N/A")
+             + "\n\t\tLibro: " + (idLibro != null ? idLibro : "N/A")
+             + "\n\t" + '}';
+    }
+}
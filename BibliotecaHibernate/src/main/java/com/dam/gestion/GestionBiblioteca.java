@@ -11,31 +11,65 @@ import com.dam.modelo.*;
 import com.dam.modelo.Ejemplar.*;
 // Importa todos las dependencias creadas en el paquete "modelo".
 import com.dam.util.*;
+// Importa de la biblioteca/librería el paquete "DetalleEjemplar".
+import com.dam.dto.DetalleEjemplar;
+// Importa de la biblioteca/librería el paquete "DetalleLibro".
+import com.dam.dto.DetalleLibro;
+// Importa de la biblioteca/librería el paquete "EstadisticasBiblioteca".
+import com.dam.dto.EstadisticasBiblioteca;
+// Importa de la biblioteca/librería el paquete "MetricasOperacion".
+import com.dam.dto.MetricasOperacion;
+// Importa de la biblioteca/librería el paquete "MetricasReplica".
+import com.dam.dto.MetricasReplica;
+// Importa de la biblioteca/librería el paquete "Pagina".
+import com.dam.dto.Pagina;
+// Importa de la biblioteca/librería el paquete "ResultadoFacetas".
+import com.dam.dto.ResultadoFacetas;
+// Importa de la biblioteca/librería el paquete "ResumenAutor".
+import com.dam.dto.ResumenAutor;
+// Importa de la biblioteca/librería el paquete "ResumenEjemplar".
+import com.dam.dto.ResumenEjemplar;
+// Importa de la biblioteca/librería el paquete "MetricasOperaciones".
+import com.dam.metricas.MetricasOperaciones;
 // Importa de todos los paquetes de la biblioteca/librería "Session".
 import org.hibernate.Session;
 // Importa de todos los paquetes de la biblioteca/librería "Transaction".
 import org.hibernate.Transaction;
 // Importa de todos los paquetes de la biblioteca/librería "LocalDate".
 import java.time.LocalDate;
+// Importa de la biblioteca/librería el paquete "HashMap".
+import java.util.HashMap;
 // Importa de la biblioteca/librería el paquete "List".
 import java.util.List;
-// Importa de todos los paquetes de la biblioteca/librería "JOptionPane".
-import javax.swing.JOptionPane;
+// Importa de la biblioteca/librería el paquete "Map".
+import java.util.Map;
+// Importa de la biblioteca/librería el paquete "Optional".
+import java.util.Optional;
+// Importa de la biblioteca/librería el paquete "OptimisticLockException".
+import javax.persistence.OptimisticLockException;
 // Importa de la biblioteca/librería el paquete "HibernateException".
 import org.hibernate.HibernateException;
-// Importa de la biblioteca/librería el paquete "Query".
-import org.hibernate.query.Query;
 
 // Crea la clase 'main', principal, del programa.
 public class GestionBiblioteca{
-    // Crea e inicializa el objeto para la sesión.
-    Session session = null;
+    // Nº de filas que se leen por página en los listados (paginación por clave: "id > ultimoId ORDER BY id").
+    static final int TAMANO_PAGINA = 100;
     
-    // Crea e inicializa el objeto para las operaciones de transacciones.
-    Transaction transaction = null;
+    // La sesión y la transacción ya no son atributos de la clase: cada método abre las suyas (variables locales), de modo que una llamada no pisa la sesión de otra que se esté ejecutando a la vez.
+    
+    // Crea e inicializa el servicio de estadísticas (una única consulta agrupada y reutilización de la última instantánea).
+    final ServicioEstadisticas servicioEstadisticas = new ServicioEstadisticas();
+    
+    // Registro de métricas: cada operación pública se mide (latencia, sentencias SQL, entidades cargadas y espera de conexión) con "METRICAS.medir()".
+    static final MetricasOperaciones METRICAS = MetricasOperaciones.getInstancia();
+    
+    // Crea e inicializa el servicio concurrente (sesión por operación) en el que se apoyan las consultas que devuelven DTOs.
+    final ServicioBiblioteca servicioBiblioteca = new ServicioBiblioteca(servicioEstadisticas);
     
     // Creal el método 'main', principal, del programa.
     public static void main(String[] args){
+        // La "SessionFactory" (conexión, mapeo y validación del esquema) se va creando mientras arranca el resto de la aplicación.
+        HibernateUtil.iniciarEnSegundoPlano();
     }
     
     // Crea el método "crearAutorConLibros". Su función será ir añadiendo objetos, autores, (asociándole también dos nuevos libros) a la tabla "autores" de nuesta base de datos.
@@ -43,78 +77,80 @@ public class GestionBiblioteca{
          * Crea un nuevo autor con dos libros asociados, y cada libro con sus ejemplares. Gracias a las operaciones en cascada "CascadeType.ALL" al guardar el autor, se guardan automáticamente sus libros y ejemplares. Esto demuestra que el mapeo y la cascada funcionan correctamente.
          */
     public void crearAutorConLibros(){
-        // Se abre una sesión de Hibernate para interactuar con la base de datos.
-        session = HibernateUtil.getSessionFactory().openSession();
-        //transaction = null;
+        METRICAS.medir("crearAutorConLibros", () -> {
+            // Se abre una sesión de Hibernate para interactuar con la base de datos.
+            Session session = HibernateUtil.getSessionFactory().openSession();
+            Transaction transaction = null;
         
-        try{
-            // Se abre/inicia una nueva transacción.
-            transaction = session.beginTransaction();
-            
-            System.out.println("\n\n\tCreando el autor junto a sus libros y respectivos ejemplares...");
-            
-            // Bloque de código para crear el autor.
-            Autor autor = new Autor(
-                    "Javier",
-                    "Marías",
-                    "Española",
-                    LocalDate.of(1951, 9, 20)
-            );
-            
-            // Bloque de código para crear el libro 1.
-            Libro libro1 = new Libro(
-                    "Corazón tan blanco",
-                    "978-84-204-2954-3",
-                    LocalDate.of(1992, 3, 1),
-                    368
-            );
-            
-            // Bloque de código para crear ejemplares.
-            Ejemplar ejemplar1 = new Ejemplar("EJ-009-2024", EstadoEjemplar.DISPONIBLE, "Estantería E-10");
-            Ejemplar ejemplar2 = new Ejemplar("EJ-010-2024", EstadoEjemplar.DISPONIBLE, "Estantería E-10");
-            
-            // Bloque de código para añadir los ejemplares creados al libro 1.
-            libro1.addEjemplar(ejemplar1);
-            libro1.addEjemplar(ejemplar2);
+            try{
+                // Se abre/inicia una nueva transacción.
+                transaction = session.beginTransaction();
+            
+                System.out.println("\n\n\tCreando el autor junto a sus libros y respectivos ejemplares...");
+            
+                // Bloque de código para crear el autor.
+                Autor autor = new Autor(
+                        "Javier",
+                        "Marías",
+                        "Española",
+                        LocalDate.of(1951, 9, 20)
+                );
+            
+                // Bloque de código para crear el libro 1.
+                Libro libro1 = new Libro(
+                        "Corazón tan blanco",
+                        "978-84-204-2954-3",
+                        LocalDate.of(1992, 3, 1),
+                        368
+                );
+            
+                // Bloque de código para crear ejemplares.
+                Ejemplar ejemplar1 = new Ejemplar("EJ-009-2024", EstadoEjemplar.DISPONIBLE, "Estantería E-10");
+                Ejemplar ejemplar2 = new Ejemplar("EJ-010-2024", EstadoEjemplar.DISPONIBLE, "Estantería E-10");
+            
+                // Bloque de código para añadir los ejemplares creados al libro 1.
+                libro1.addEjemplar(ejemplar1);
+                libro1.addEjemplar(ejemplar2);
 
-            // Bloque de código para crear el libro 2.
-            Libro libro2 = new Libro(
-                    "Mañana en la batalla piensa en mí",
-                    "978-84-204-2955-0",
-                    LocalDate.of(1994, 5, 5),
-                    464
-            );
+                // Bloque de código para crear el libro 2.
+                Libro libro2 = new Libro(
+                        "Mañana en la batalla piensa en mí",
+                        "978-84-204-2955-0",
+                        LocalDate.of(1994, 5, 5),
+                        464
+                );
             
-            // Bloque de código para crear ejemplares.
-            Ejemplar ejemplar3 = new Ejemplar("EJ-011-2024", EstadoEjemplar.DISPONIBLE, "Estantería E-11");
+                // Bloque de código para crear ejemplares.
+                Ejemplar ejemplar3 = new Ejemplar("EJ-011-2024", EstadoEjemplar.DISPONIBLE, "Estantería E-11");
             
-            // Bloque de código para añadir los ejemplares creados al libro 1.
-            libro2.addEjemplar(ejemplar3);
+                // Bloque de código para añadir los ejemplares creados al libro 1.
+                libro2.addEjemplar(ejemplar3);
             
-            // Bloque de código para relacionar los libros con el autor (manteniendo la bidireccionalidad). Aquí se emplea el método "Helper" para mantener consistencia bidireccional.
-            autor.addLibro(libro1);
-            autor.addLibro(libro2);
+                // Bloque de código para relacionar los libros con el autor (manteniendo la bidireccionalidad). Aquí se emplea el método "Helper" para mantener consistencia bidireccional.
+                autor.addLibro(libro1);
+                autor.addLibro(libro2);
             
-            // Bloque de código para guardar el autor (se guardan en cascada los libros y ejemplares).
-            session.persist(autor);
+                // Bloque de código para guardar el autor (se guardan en cascada los libros y ejemplares).
+                session.persist(autor);
             
-            System.out.println("\n\n\tGuardando el autor junto a sus libros y respectivos ejemplares en la base de datos...");
+                System.out.println("\n\n\tGuardando el autor junto a sus libros y respectivos ejemplares en la base de datos...");
             
-            // Bloque de código para confirmar la transacción.
-            transaction.commit();
+                // Bloque de código para confirmar la transacción.
+                transaction.commit();
+                servicioEstadisticas.invalidar();
             
-            System.out.println("\n\n\tTransacción confirmada.");
+                System.out.println("\n\n\tTransacción confirmada.");
 
-            // Muestreo del resultado final.
-            System.out.println("\n\n\tTanto el Autor {" + autor + "} como sus correspondientes libros {" + libro1 + " y " + libro2 + "} y respectivos ejemplares {" + ejemplar1 + ", " + ejemplar2 + " y " + ejemplar3 + "} han sido creados correctamente.");
-        } catch (HibernateException hex){
-            // Si ocurre un error/excepción revierte el proceso de transacción.
-            if (transaction != null) transaction.rollback(); System.out.println("\n\n\tError: Transacción revertida.");
-            JOptionPane.showMessageDialog(null, "Error inesperado durante la ejecución de la transacción (creación de libros): " + hex.getMessage(), "Error de ejecución", JOptionPane.ERROR_MESSAGE);
-            hex.printStackTrace();
-        } finally{
-            session.close();
-        }
+                // Muestreo del resultado final.
+                System.out.println("\n\n\tTanto el Autor {" + autor + "} como sus correspondientes libros {" + libro1 + " y " + libro2 + "} y respectivos ejemplares {" + ejemplar1 + ", " + ejemplar2 + " y " + ejemplar3 + "} han sido creados correctamente.");
+            } catch (HibernateException hex){
+                // Si ocurre un error/excepción revierte el proceso de transacción.
+                if (transaction != null) transaction.rollback(); System.out.println("\n\n\tError: Transacción revertida.");
+                InformadorErrores.get().informar("Error de ejecución", "Error inesperado durante la ejecución de la transacción (creación de libros)", hex);
+            } finally{
+                session.close();
+            }
+        });
     }
     
     // Crea el método "agregarEjemplarALibroExistente". Su función será ir añadiendo objetos, ejemplares, correspondientes a un código ISBN (con un estado y una ubicación del mismo) de nuesta base de datos.
@@ -122,65 +158,78 @@ public class GestionBiblioteca{
          * Busca un libro por su código ISBN y le añade un nuevo ejemplar. Este nuevo ejemplar se crea con estado "DISPONIBLE" y ubicación "Almacén".
          */
     public void agregarEjemplarALibroExistente(String isbn, String codigoEjemplar){
-        // Se abre una sesión de Hibernate para interactuar con la base de datos.
-        session = HibernateUtil.getSessionFactory().openSession();
-        //transaction = null;
+        METRICAS.medir("agregarEjemplarALibroExistente", () -> {
+            // Se abre una sesión de Hibernate para interactuar con la base de datos.
+            Session session = HibernateUtil.getSessionFactory().openSession();
+            Transaction transaction = null;
         
-        try{
-            // Se abre/inicia una nueva transacción.
-            transaction = session.beginTransaction();
-            
-            System.out.println("\n\n\tBuscando un ejemplar/es por su código ISBN {" + isbn + "}...");
-            
-            // Bloque de código para buscar un libro por su ISBN (código) usando "HQL" (Hibernate Query Language).
-                // ":isbn" Es el valor real que espera del parametro que pasaremos "setParameter" (" "isbn", " →(=) isbn).
-                    // Forma 1.
-            //Libro libro = session.createQuery("FROM Libro l WHERE l.isbn = :isbn", Libro.class).setParameter("isbn", isbn).uniqueResult();
-                    // Forma 2.
-            String hql = "FROM Libro l WHERE l.isbn = :isbn";
-            Query<Libro> query = session.createQuery(hql, Libro.class);
-            query.setParameter("isbn", isbn);
-            
-            // Obtiene el único resultado, "uniqueResult", posible (único porque "ISBN" es "UNIQUE").
-            Libro libro = query.uniqueResult();
-            
-            // Si no hay libros, es decir, si la tabla "libro" está vacía se muestra un mensaje informativo.
-            if (libro == null){
-                System.out.println("\n\n\tNo se encontró o no existe ningún libro con el ISBN {'" + isbn + "'}.");
-                return;
+            try{
+                // Se abre/inicia una nueva transacción.
+                transaction = session.beginTransaction();
+            
+                System.out.println("\n\n\tBuscando un ejemplar/es por su código ISBN {" + isbn + "}...");
+            
+                // Bloque de código para buscar un libro por su ISBN (código) usando "HQL" (Hibernate Query Language).
+                    // ":isbn" Es el valor real que espera del parametro que pasaremos "setParameter" (" "isbn", " →(=) isbn).
+                        // Forma 1.
+                //Libro libro = session.createQuery("FROM Libro l WHERE l.isbn = :isbn", Libro.class).setParameter("isbn", isbn).uniqueResult();
+                        // Forma 2.
+                //String hql = "FROM Libro l WHERE l.isbn = :isbn";
+                //Query<Libro> query = session.createQuery(hql, Libro.class);
+                //query.setParameter("isbn", isbn);
+                //Libro libro = query.uniqueResult();
+                        // Forma 3 (actual).
+                    // Se resuelve primero en el índice en memoria del catálogo (ISBN → "ID") y, si el ISBN no está, con la consulta "HQL" anterior guardada en la caché de consultas (ver "ServicioBiblioteca.buscarPorIsbn()").
+                Libro libro = ServicioBiblioteca.buscarPorIsbn(session, isbn);
+            
+                // Si no hay libros, es decir, si la tabla "libro" está vacía se muestra un mensaje informativo.
+                if (libro == null){
+                    System.out.println("\n\n\tNo se encontró o no existe ningún libro con el ISBN {'" + isbn + "'}.");
+                    return;
+                }
+            
+                // Bloque de código para contar los ejemplares actuales del libro con una consulta ("COUNT"), sin cargar su colección de ejemplares ("libro.getEjemplares().size()" los leía todos).
+                long existencias = session.createQuery("SELECT COUNT(e) FROM Ejemplar e WHERE e.libro.id = :idLibro", Long.class)
+                                          .setParameter("idLibro", libro.getId())
+                                          .uniqueResult();
+            
+                // Un libro puede no tener autor: se muestra "(sin autor)", igual que en los listados.
+                String autor = libro.getAutor() == null ? "(sin autor)" : libro.getAutor().getNombre() + " " + libro.getAutor().getApellidos();
+            
+                System.out.println("\n\n\tLibro encontrado: " + libro.getTitulo() + "\n\t\tAutor: " + autor + "\n\n\tExistencias actuales (Cantidad de ejemplares): " + existencias);
+            
+                // Bloque de código para crear un nuevo ejemplar.
+                Ejemplar nuevoEjemplar = new Ejemplar(codigoEjemplar, EstadoEjemplar.DISPONIBLE, "Almacén");
+            
+                System.out.println("\n\n\tNuevo ejemplar creado/añadido: " + libro.getTitulo() + " ('" + nuevoEjemplar.getCodigoEjemplar() + "')\n\t\tAutor: " + autor + "\n\n\tNuevas existencias actuales (Cantidad de ejemplares): " + (existencias + 1) + "\n\t\tEstado: " + nuevoEjemplar.getEstado() + "\n\t\tUbicación: " + nuevoEjemplar.getUbicacion());
+            
+                // Bloque de código para añadir el nuevo ejemplar creado al libro.
+                    // Antes: "libro.addEjemplar(nuevoEjemplar)" (método "Helper" que mantiene la consistencia bidireccional) y "session.merge(libro)", que cargaba la colección completa de ejemplares y recorría en cascada todo el libro.
+                //libro.addEjemplar(nuevoEjemplar);
+                //session.merge(libro);
+                    // Ahora solo se asigna el libro al ejemplar (lado propietario de la relación, columna "id_libro") y se persiste únicamente el nuevo ejemplar: un solo "INSERT".
+                    // La colección de ejemplares del libro en la caché de segundo nivel se invalida sola ("hibernate.cache.auto_evict_collection_cache").
+                nuevoEjemplar.setLibro(libro);
+                session.persist(nuevoEjemplar);
+            
+                System.out.println("\n\n\tGuardando actualización. Nuevo ejemplar asociado al libro en la base de datos...");
+            
+                // Bloque de código para confirmar la transacción.
+                transaction.commit();
+                servicioEstadisticas.invalidar();
+            
+                System.out.println("\n\n\tTransacción confirmada.");
+            
+                // Muestreo del resultado final.
+                System.out.println("\n\n\tEl nuevo ejemplar ('" + nuevoEjemplar.getCodigoEjemplar() +"') ha sido añadido/asociado a su respectivo libro {" + libro.getTitulo() + "}.");
+            } catch (HibernateException hex){
+                // Si ocurre un error/excepción revierte el proceso de transacción.
+                if (transaction != null) transaction.rollback();
+                InformadorErrores.get().informar("Error de ejecución", "Error inesperado durante la ejecución de la transacción (agregado de ejemplares)", hex);
+            } finally{
+                session.close();
             }
-            
-            System.out.println("\n\n\tLibro encontrado: " + libro.getTitulo() + "\n\t\tAutor: " + libro.getAutor().getNombre() + " " + libro.getAutor().getApellidos() + "\n\n\tExistencias actuales (Cantidad de ejemplares): " + libro.getEjemplares().size());
-            
-            // Bloque de código para crear un nuevo ejemplar.
-            Ejemplar nuevoEjemplar = new Ejemplar(codigoEjemplar, EstadoEjemplar.DISPONIBLE, "Almacén");
-            
-            System.out.println("\n\n\tNuevo ejemplar creado/añadido: " + libro.getTitulo() + " ('" + nuevoEjemplar.getCodigoEjemplar() + "')\n\t\tAutor: " + libro.getAutor().getNombre() + " " + libro.getAutor().getApellidos() + "\n\n\tNuevas existencias actuales (Cantidad de ejemplares): " + libro.getEjemplares().size() + "\n\t\tEstado: " + nuevoEjemplar.getEstado() + "\n\t\tUbicación: " + nuevoEjemplar.getUbicacion());
-            
-            // Bloque de código para añadir el nuevo ejemplar creado al libro. Aquí se emplea el método "Helper" para mantener consistencia bidireccional.
-            libro.addEjemplar(nuevoEjemplar);
-           
-            // Bloque de código para guardar el autor (se guardan en cascada los libros y ejemplares).
-            //session.persist(libro);
-                // Con el método "Merge" actualizamos el libro (en este caso la parte de sus ejemplares correspondientes) y, por cascada, persiste el nuevo ejemplar.
-            session.merge(libro);
-            
-            System.out.println("\n\n\tGuardando actualización. Nuevo ejemplar asociado al libro en la base de datos...");
-            
-            // Bloque de código para confirmar la transacción.
-            transaction.commit();
-            
-            System.out.println("\n\n\tTransacción confirmada.");
-            
-            // Muestreo del resultado final.
-            System.out.println("\n\n\tEl nuevo ejemplar ('" + nuevoEjemplar.getCodigoEjemplar() +"') ha sido añadido/asociado a su respectivo libro {" + libro.getTitulo() + "}.");
-        } catch (HibernateException hex){
-            // Si ocurre un error/excepción revierte el proceso de transacción.
-            if (transaction != null) transaction.rollback();
-            JOptionPane.showMessageDialog(null, "Error inesperado durante la ejecución de la transacción (agregado de ejemplares): " + hex.getMessage(), "Error de ejecución", JOptionPane.ERROR_MESSAGE);
-        } finally{
-            session.close();
-        }
+        });
     }
     
     // Crea el método "listarTodosLosAutores". Su función será ir recuperando/leyendo todos los objetos, autores, de nuesta base de datos.
@@ -188,43 +237,44 @@ public class GestionBiblioteca{
          * Busca y hace una lista de todos los autores registrados en la base de datos.
          */
     public void listarTodosLosAutores(){
-        // Se abre una sesión de Hibernate para interactuar con la base de datos.
-        session = HibernateUtil.getSessionFactory().openSession();
-        //transaction = null;
-        
-        System.out.println("\n\n\tBuscando y listando a todos los autores registrados en la DB...");
+        METRICAS.medir("listarTodosLosAutores", () -> {
+            System.out.println("\n\n\tBuscando y listando a todos los autores registrados en la DB...");
         
-        try{
-            // Bloque de código para buscar todos los autores registrados en la DB mediante consulta HQL (Hibernate Query Language).
-                    // Forma 1.
-            // List<Autor> autores = session.createQuery("FROM Autor", Autor.class).list();
-                    // Forma 2.
-            String hql = "FROM Autor";
-            Query<Autor> query = session.createQuery(hql, Autor.class);
-            List<Autor> autores = query.list();
-            
-            // Si no hay autores registrados se muestra un mensaje informativo.
-            if (autores.isEmpty()){
-                System.out.println("\n\n\tNo se encontró ningún autor. Por el momento no hay autores registrados en la base de datos.");
-                return;
-            }
-            
-            int contador = 1;
-            
-            System.out.println("\n\n\t<==================== LISTA de AUTORES ====================>\n\n");
-            for (Autor autor : autores){
-                System.out.println("\n\n\tAutor número " + contador);
-                //System.out.println(autor);
-                System.out.println("\n\t\tAutor: " + autor.getNombre() + " " + autor.getApellidos() + "\tCódigo de identificación (ID): " + autor.getId() + "\n\t\t\tNacionalidad: " + autor.getNacionalidad() + "\n\t\t\tFecha de Nacimiento: " + autor.getFechaNacimiento() + "\n\t\t\tNº Libros/Novelas escritas: " + autor.getLibros().size() + " en total.");
-                System.out.println("----------------------------------------------------------------------");
+            try{
+                // Bloque de código para buscar todos los autores registrados en la DB, página a página.
+                    /*
+                     * 1. Cada página pide como máximo "TAMANO_PAGINA" autores con "id" mayor que el último mostrado ("paginación por clave"), en vez de cargar toda la tabla con "FROM Autor".
+                     * 2. "listarResumenAutores()" proyecta cada fila directamente en un DTO ("ResumenAutor") en una sesión de solo lectura (con réplicas de lectura configuradas, no carga la base de datos principal):
+                     *    no se crean entidades "Autor" y el nº de libros sale de la misma consulta, sin cargar la colección de libros de cada autor.
+                     */
+                String token = null;
+                int contador = 1;
+            
+                do{
+                    Pagina<ResumenAutor> pagina = servicioBiblioteca.listarResumenAutores(token, TAMANO_PAGINA);
+                
+                    // Si no hay autores registrados se muestra un mensaje informativo.
+                    if (pagina.getElementos().isEmpty() && contador == 1){
+                        System.out.println("\n\n\tNo se encontró ningún autor. Por el momento no hay autores registrados en la base de datos.");
+                        return;
+                    }
                 
-                contador ++;
+                    if (contador == 1) System.out.println("\n\n\t<==================== LISTA de AUTORES ====================>\n\n");
+                    for (ResumenAutor autor : pagina.getElementos()){
+                        System.out.println("\n\n\tAutor número " + contador);
+                        //System.out.println(autor);
+                        System.out.println("\n\t\tAutor: " + autor.getNombre() + " " + autor.getApellidos() + "\tCódigo de identificación (ID): " + autor.getId() + "\n\t\t\tNacionalidad: " + autor.getNacionalidad() + "\n\t\t\tFecha de Nacimiento: " + autor.getFechaNacimiento() + "\n\t\t\tNº Libros/Novelas escritas: " + autor.getNumeroLibros() + " en total.");
+                        System.out.println("----------------------------------------------------------------------");
+                    
+                        contador ++;
+                    }
+                
+                    token = pagina.getSiguienteToken();
+                } while (token != null);
+            } catch (HibernateException hex){
+                InformadorErrores.get().informar("Error de lectura", "Error inesperado durante la lectura de autores registrados en la DB", hex);
             }
-        } catch (HibernateException hex){
-            JOptionPane.showMessageDialog(null, "Error inesperado durante la lectura de autores registrados en la DB: " + hex.getMessage(), "Error de lectura", JOptionPane.ERROR_MESSAGE);
-        } finally{
-            session.close();
-        }
+        });
     }
     
     // Crea el método "buscarLibroPorId". Su función será ir recuperando/leyendo el objeto, libro, corresponciente a su ID de nuesta base de datos.
@@ -232,57 +282,99 @@ public class GestionBiblioteca{
          * Busca un libro por su número de identificación o ID registrado en la base de datos.
          */
     public void buscarLibroPorId(Long id){
-        // Se abre una sesión de Hibernate para interactuar con la base de datos.
-        session = HibernateUtil.getSessionFactory().openSession();
-        //transaction = null;
-        
-        System.out.println("\n\n\tBuscando un libro por su número de identificació (ID) {" + id + "}...");
+        METRICAS.medir("buscarLibroPorId", () -> {
+            System.out.println("\n\n\tBuscando un libro por su número de identificació (ID) {" + id + "}...");
         
-        try{
-            // Bloque de código para buscar un libro por su número de identificación (ID).
-            Libro libro = session.get(Libro.class, id);
-            
-            // Si no hay libros, es decir, si la tabla "libro" está vacía se muestra un mensaje informativo.
-            if (libro == null){
-                System.out.println("\n\n\tNo se encontró o no existe ningún libro con el número de identificación (ID): {'" + id + "'}.");
-                return;
-            }
+            try{
+                // Bloque de código para buscar un libro por su número de identificación (ID).
+                    /*
+                     * 1. "obtenerDetalleLibro()" trae el libro, su autor y sus ejemplares desde la caché de segundo nivel o en una única sentencia SQL que proyecta solo las columnas del detalle, en lugar de "session.get()" seguido de una carga perezosa por cada acceso a "getAutor()" y "getEjemplares()".
+                     * 2. Devuelve un DTO ("DetalleLibro"), así que los datos se muestran sin depender de una sesión abierta.
+                     */
+                Optional<DetalleLibro> encontrado = servicioBiblioteca.obtenerDetalleLibro(id);
             
-            System.out.println("\n\n\t<==================== LIBRO ENCONTRADO ====================>\n\n");
+                // Si no hay libros, es decir, si la tabla "libro" está vacía se muestra un mensaje informativo.
+                if (encontrado.isEmpty()){
+                    System.out.println("\n\n\tNo se encontró o no existe ningún libro con el número de identificación (ID): {'" + id + "'}.");
+                    return;
+                }
+                DetalleLibro libro = encontrado.get();
             
-            System.out.println("\n\tTítulo: " + libro.getTitulo() + " " + "\tNúmero de identificación (ID): " + id + "\n\t\tCódigo ISBN: " + libro.getIsbn() + "\n\t\tAutor/Escritor: " + libro.getAutor().getNombre() + " " + libro.getAutor().getApellidos() + " (" + libro.getAutor().getId()+ ")" +"\n\t\tFecha de Publicación: " + libro.getFechaPublicacion() + "\n\t\tNúmero de Páginas: " + libro.getNumeroPaginas());
+                System.out.println("\n\n\t<==================== LIBRO ENCONTRADO ====================>\n\n");
             
-            System.out.println("\n\n\t<==================== AUTOR DEL LIBRO ====================>\n\n");
+                System.out.println("\n\tTítulo: " + libro.getTitulo() + " " + "\tNúmero de identificación (ID): " + id + "\n\t\tCódigo ISBN: " + libro.getIsbn() + "\n\t\tAutor/Escritor: " + libro.getNombreAutor() + " " + libro.getApellidosAutor() + " (" + libro.getIdAutor() + ")" +"\n\t\tFecha de Publicación: " + libro.getFechaPublicacion() + "\n\t\tNúmero de Páginas: " + libro.getNumeroPaginas());
             
-            System.out.println("\n\tAutor/Escritor: " + libro.getAutor().getNombre() + " " + libro.getAutor().getApellidos() + " (" + libro.getAutor().getId()+ ")" + "\n\t\tNacionalidad: " + libro.getAutor().getNacionalidad() + "\n\t\tFecha de Nacimiento: " + libro.getAutor().getFechaNacimiento() + "\n\t\tNº Libros/Novelas escritas: " + libro.getAutor().getLibros().size() + " en total.");
+                System.out.println("\n\n\t<==================== AUTOR DEL LIBRO ====================>\n\n");
             
-            System.out.println("\n\n\t<==================== EJEMPLARES DEL AUTOR (Lista) ====================>\n\n");
+                System.out.println("\n\tAutor/Escritor: " + libro.getNombreAutor() + " " + libro.getApellidosAutor() + " (" + libro.getIdAutor() + ")" + "\n\t\tNacionalidad: " + libro.getNacionalidadAutor() + "\n\t\tFecha de Nacimiento: " + libro.getFechaNacimientoAutor() + "\n\t\tNº Libros/Novelas escritas: " + libro.getLibrosDelAutor() + " en total.");
             
-            List<Ejemplar> ejemplares = libro.getEjemplares();
-            System.out.println("\n\tNº Libros/Novelas escritas: " + ejemplares.size() + " en total.");
+                System.out.println("\n\n\t<==================== EJEMPLARES DEL LIBRO (Lista) ====================>\n\n");
             
-            // Si no hay ejemplares registrados se muestra un mensaje informativo.
-            if (ejemplares.isEmpty()){
-                System.out.println("\n\n\tNo se encontró ningún ejemplar. Por el momento no hay ejemplares registrados para dicho libro en la base de datos.");
-                return;
-            }
+                List<DetalleEjemplar> ejemplares = libro.getEjemplares();
+                System.out.println("\n\tNº Ejemplares: " + ejemplares.size() + " en total.");
             
-            int contador = 1;
+                // Si no hay ejemplares registrados se muestra un mensaje informativo.
+                if (ejemplares.isEmpty()){
+                    System.out.println("\n\n\tNo se encontró ningún ejemplar. Por el momento no hay ejemplares registrados para dicho libro en la base de datos.");
+                    return;
+                }
             
-            //for (Ejemplar ejemplar : libro.getEjemplares()){
-            for (Ejemplar ejemplar : libro.getEjemplares()){
-                System.out.println("\n\n\tEjemplar número " + contador);
-                //System.out.println(autor);
-                System.out.println("\n\t\tCódigo: " + ejemplar.getCodigoEjemplar() + " " + "\tNúmero de identificación (ID): " + ejemplar.getId() + "\n\t\t\tEstado: " + ejemplar.getEstado() + "\n\t\t\tUbicación: " + ejemplar.getUbicacion());
-                System.out.println("----------------------------------------------------------------------");
+                int contador = 1;
+            
+                for (DetalleEjemplar ejemplar : ejemplares){
+                    System.out.println("\n\n\tEjemplar número " + contador);
+                    System.out.println("\n\t\tCódigo: " + ejemplar.getCodigoEjemplar() + " " + "\tNúmero de identificación (ID): " + ejemplar.getId() + "\n\t\t\tEstado: " + ejemplar.getEstado() + "\n\t\t\tUbicación: " + ejemplar.getUbicacion());
+                    System.out.println("----------------------------------------------------------------------");
+                
+                    contador ++;
+                }
+            } catch (HibernateException hex){
+                InformadorErrores.get().informar("Error de búsqueda", "Error inesperado durante la búsqueda del libro con número de identificación o ID ('" + id + ")'", hex);
+            }
+        });
+    }
+    
+    // Crea el método "buscarLibrosPorTexto". Su función será buscar libros por palabras (o el principio de palabras) de su título o del nombre de su autor.
+        /*
+         * 1. "buscarIdsLibrosPorTexto()" resuelve la búsqueda en el índice de texto en memoria (sin "LIKE '%...%'", que recorría la tabla entera) y devuelve los "ID" ordenados por relevancia.
+         * 2. El título y el autor de los libros encontrados se leen en una única consulta y se muestran en ese mismo orden.
+         */
+    public void buscarLibrosPorTexto(String texto){
+        METRICAS.medir("buscarLibrosPorTexto", () -> {
+            System.out.println("\n\n\tBuscando libros por título o autor {" + texto + "}...");
+        
+            try{
+                List<Long> ids = servicioBiblioteca.buscarIdsLibrosPorTexto(texto, TAMANO_PAGINA);
+            
+                // Si no hay coincidencias se muestra un mensaje informativo.
+                if (ids.isEmpty()){
+                    System.out.println("\n\n\tNo se encontró ningún libro cuyo título o autor contenga {'" + texto + "'}.");
+                    return;
+                }
+            
+                List<Object[]> filas = HibernateUtil.enLectura(session -> session.createQuery("SELECT l.id, l.titulo, l.isbn, a.nombre, a.apellidos FROM Libro l LEFT JOIN l.autor a WHERE l.id IN :ids", Object[].class)
+                                                                                 .setParameterList("ids", ids)
+                                                                                 .list());
+                Map<Long, Object[]> porId = new HashMap<>();
+                for (Object[] fila : filas) porId.put((Long) fila[0], fila);
+            
+                System.out.println("\n\n\t<==================== LIBROS ENCONTRADOS ====================>\n\n");
+            
+                int contador = 1;
+            
+                for (Long id : ids){
+                    Object[] libro = porId.get(id);
+                    // Un "ID" del índice que ya no existe (inserción revertida) no se muestra.
+                    if (libro == null) continue;
+                    System.out.println("\n\t" + contador + ". " + libro[1] + "\tNúmero de identificación (ID): " + id + "\n\t\tCódigo ISBN: " + libro[2] + "\n\t\tAutor/Escritor: " + (libro[3] == null ? "(sin autor)" : libro[3] + " " + libro[4]));
+                    System.out.println("----------------------------------------------------------------------");
                 
-                contador ++;
+                    contador ++;
+                }
+            } catch (HibernateException hex){
+                InformadorErrores.get().informar("Error de búsqueda", "Error inesperado durante la búsqueda de libros por título o autor ('" + texto + "')", hex);
             }
-        } catch (HibernateException hex){
-            JOptionPane.showMessageDialog(null, "Error inesperado durante la búsqueda del libro con número de identificación o ID ('" + id + ")': " + hex.getMessage(), "Error de búsqueda", JOptionPane.ERROR_MESSAGE);
-        } finally{
-            session.close();
-        }
+        });
     }
     
     // Crea el método "buscarEjemplaresPorEstado". Su función será ir recuperando/leyendo todos los objetos, ejemplares, corresponciente a su libro (partiendo como filtro de búsqueda el estado de estos) de nuesta base de datos.
@@ -290,44 +382,86 @@ public class GestionBiblioteca{
          * Busca todos los ejemplares filtrados por su estado.
          */
     public void buscarEjemplaresPorEstado(EstadoEjemplar estado){
-        // Se abre una sesión de Hibernate para interactuar con la base de datos.
-        session = HibernateUtil.getSessionFactory().openSession();
-        //transaction = null;
+        METRICAS.medir("buscarEjemplaresPorEstado", () -> {
+            System.out.println("\n\n\tBuscando un ejemplar/es por su estado {" + estado + "}...");
         
-        System.out.println("\n\n\tBuscando un ejemplar/es por su estado {" + estado + "}...");
-        
-        try{
-            // Bloque de código para buscar un ejemplar/es por su estado usando "HQL" (Hibernate Query Language).
-                // ":estado" Es el valor real que espera del parametro que pasaremos "setParameter" (" "estado", " →(=) estado).
-            String hql = "FROM Ejemplar e WHERE e.estado = :estado";
-            Query<Ejemplar> query = session.createQuery(hql, Ejemplar.class);
-            query.setParameter("estado", estado);
-            List<Ejemplar> ejemplares = query.list();
-            
-            // Si no hay ejemplares registrados se muestra un mensaje informativo.
-            if (ejemplares.isEmpty()){
-                System.out.println("\n\n\tNo se encontró ningún ejemplar. Por el momento no hay ejemplares registrados con dicho estado en la base de datos.");
-                return;
-            }
-            
-            System.out.println("\n\n\tTotal de ejemplares encontrados: " + ejemplares.size());
+            try{
+                // Bloque de código para buscar un ejemplar/es por su estado, página a página (ver "listarTodosLosAutores()").
+                    /*
+                     * "listarResumenEjemplaresPorEstado()" trae en cada fila ("ResumenEjemplar") los datos del ejemplar, de su libro y del autor del libro con una sola consulta por página,
+                     * en lugar de cargar las entidades y lanzar una carga perezosa por cada libro, autor y colección de libros que se muestra.
+                     */
+                String token = null;
+                int contador = 1;
+            
+                do{
+                    Pagina<ResumenEjemplar> pagina = servicioBiblioteca.listarResumenEjemplaresPorEstado(estado, token, TAMANO_PAGINA);
+            
+                    // Si no hay ejemplares registrados se muestra un mensaje informativo.
+                    if (pagina.getElementos().isEmpty() && contador == 1){
+                        System.out.println("\n\n\tNo se encontró ningún ejemplar. Por el momento no hay ejemplares registrados con dicho estado en la base de datos.");
+                        return;
+                    }
+            
+                    for (ResumenEjemplar ejemplar : pagina.getElementos()){
+                        System.out.println("\n\n\tEjemplar número " + contador);
+                        //System.out.println(ejemplar);
+                        System.out.println("\n\t\tCódigo: " + ejemplar.getCodigoEjemplar() + " " + "\tNúmero de identificación (ID): " + ejemplar.getId() + "\n\t\t\tEstado: " + ejemplar.getEstado() + "\n\t\t\tUbicación: " + ejemplar.getUbicacion() + "\n\n\t\t\tLibro (al que corresponde): " + ejemplar.getTitulo() + "\tNúmero de identificación (ID): " + ejemplar.getIdLibro() + "\n\t\t\t\tCódigo ISBN: " + ejemplar.getIsbn() + "\n\t\t\t\tFecha de Publicación: " + ejemplar.getFechaPublicacion() + "\n\t\t\t\tNúmero de Páginas: " + ejemplar.getNumeroPaginas() + "\n\n\t\t\tAutor (al que pertenece): " + ejemplar.getNombreAutor() + " " + ejemplar.getApellidosAutor() + "\tNúmero de identificación (ID): " + ejemplar.getIdAutor() + "\n\t\t\t\tNacionalidad: " + ejemplar.getNacionalidadAutor() + "\n\t\t\t\tFecha de Nacimiento: " + ejemplar.getFechaNacimientoAutor() + "\n\t\t\t\tNº Libros/Novelas escritas: " + ejemplar.getLibrosDelAutor() + " en total.");
+                        System.out.println("----------------------------------------------------------------------");
+                
+                        contador ++;
+                    }
             
-            int contador = 1;
+                    token = pagina.getSiguienteToken();
+                } while (token != null);
             
-            //for (Ejemplar ejemplar : libro.getEjemplares()){
-            for (Ejemplar ejemplar : ejemplares){
-                System.out.println("\n\n\tEjemplar número " + contador);
-                //System.out.println(autor);
-                System.out.println("\n\t\tCódigo: " + ejemplar.getCodigoEjemplar() + " " + "\tNúmero de identificación (ID): " + ejemplar.getId() + "\n\t\t\tEstado: " + ejemplar.getEstado() + "\n\t\t\tUbicación: " + ejemplar.getUbicacion() + "\n\n\t\t\tLibro (al que corresponde): " + ejemplar.getLibro().getTitulo() + "\tNúmero de identificación (ID): " + ejemplar.getLibro().getId() + "\n\t\t\t\tCódigo ISBN: " + ejemplar.getLibro().getIsbn() + "\n\t\t\t\tFecha de Publicación: " + ejemplar.getLibro().getFechaPublicacion() + "\n\t\t\t\tNúmero de Páginas: " + ejemplar.getLibro().getNumeroPaginas() + "\n\n\t\t\tAutor (al que pertenece): " + ejemplar.getLibro().getAutor().getNombre() + " " + ejemplar.getLibro().getAutor().getApellidos() + "\tNúmero de identificación (ID): " + ejemplar.getLibro().getAutor().getId() + "\n\t\t\t\tNacionalidad: " + ejemplar.getLibro().getAutor().getNacionalidad() + "\n\t\t\t\tFecha de Nacimiento: " + ejemplar.getLibro().getAutor().getFechaNacimiento() + "\n\t\t\t\tNº Libros/Novelas escritas: " + ejemplar.getLibro().getAutor().getLibros().size() + " en total.");
-                System.out.println("----------------------------------------------------------------------");
-                
-                contador ++;
+                System.out.println("\n\n\tTotal de ejemplares encontrados: " + (contador - 1));
+            } catch (HibernateException hex){
+                InformadorErrores.get().informar("Error de búsqueda", "Error inesperado durante la búsqueda del ejemplar por su estado actla ('"+ estado +")'", hex);
             }
-        } catch (HibernateException hex){
-            JOptionPane.showMessageDialog(null, "Error inesperado durante la búsqueda del ejemplar por su estado actla ('"+ estado +")': " + hex.getMessage(), "Error de búsqueda", JOptionPane.ERROR_MESSAGE);
-        } finally{
-            session.close();
-        }
+        });
+    }
+    
+    // Crea el método "filtrarEjemplares". Su función será buscar los ejemplares que están en alguno de los estados y en alguna de las ubicaciones indicadas (por ejemplo, "DISPONIBLE" en "E-10" o "E-11").
+        /*
+         * 1. "buscarEjemplaresPorFacetas()" resuelve el filtro en el índice de facetas en memoria (sin una consulta por cada combinación) y devuelve los "ID" junto con cuántos ejemplares hay en cada estado y en cada ubicación.
+         * 2. Los datos de los primeros "TAMANO_PAGINA" ejemplares se leen en una única consulta.
+         */
+    public void filtrarEjemplares(List<EstadoEjemplar> estados, List<String> ubicaciones){
+        METRICAS.medir("filtrarEjemplares", () -> {
+            System.out.println("\n\n\tFiltrando ejemplares por estado " + estados + " y ubicación " + ubicaciones + "...");
+        
+            try{
+                ResultadoFacetas resultado = servicioBiblioteca.buscarEjemplaresPorFacetas(estados, ubicaciones, null, TAMANO_PAGINA);
+            
+                // Bloque de código para mostrar los recuentos de cada faceta (con el resto de filtros aplicados).
+                System.out.println("\n\n\t<==================== EJEMPLARES POR ESTADO ====================>\n");
+                resultado.getPorEstado().forEach((estado, cantidad) -> System.out.println("\t- " + estado + ": " + cantidad));
+                System.out.println("\n\n\t<==================== EJEMPLARES POR UBICACIÓN ====================>\n");
+                resultado.getPorUbicacion().forEach((ubicacion, cantidad) -> System.out.println("\t- " + ubicacion + ": " + cantidad));
+            
+                // Si no hay coincidencias se muestra un mensaje informativo.
+                if (resultado.getIds().isEmpty()){
+                    System.out.println("\n\n\tNo se encontró ningún ejemplar con esos filtros.");
+                    return;
+                }
+            
+                List<Object[]> filas = HibernateUtil.enLectura(session -> session.createQuery("SELECT e.id, e.codigoEjemplar, e.estado, e.ubicacion, l.titulo FROM Ejemplar e LEFT JOIN e.libro l WHERE e.id IN :ids ORDER BY e.id", Object[].class)
+                                                                                 .setParameterList("ids", resultado.getIds())
+                                                                                 .list());
+            
+                System.out.println("\n\n\t<==================== EJEMPLARES ENCONTRADOS ====================>\n\n");
+            
+                for (Object[] ejemplar : filas){
+                    System.out.println("\n\t\tCódigo: " + ejemplar[1] + " " + "\tNúmero de identificación (ID): " + ejemplar[0] + "\n\t\t\tEstado: " + ejemplar[2] + "\n\t\t\tUbicación: " + ejemplar[3] + "\n\t\t\tLibro: " + (ejemplar[4] == null ? "(sin libro)" : ejemplar[4]));
+                    System.out.println("----------------------------------------------------------------------");
+                }
+            
+                System.out.println("\n\n\tTotal de ejemplares encontrados: " + resultado.getTotal() + (resultado.getTotal() > filas.size() ? " (se muestran los " + filas.size() + " primeros)" : ""));
+            } catch (HibernateException hex){
+                InformadorErrores.get().informar("Error de búsqueda", "Error inesperado durante el filtrado de ejemplares por estado " + estados + " y ubicación " + ubicaciones, hex);
+            }
+        });
     }
     
     // Crea el método "obtenerEstadisticasBiblioteca." Su función será ir recuperando/leyendo todos los objetos de nuestra base de datos para crear y mostrar unas estadísticas generalizadas/globales a los datos obtenidos.
@@ -335,68 +469,31 @@ public class GestionBiblioteca{
          * Busca y trata todos los objetos de nuestra base de datos para crear y mostrar estadísticas en base a ellos.
          */
     public void obtenerEstadisticasBiblioteca(){
-        // Se abre una sesión de Hibernate para interactuar con la base de datos.
-        session = HibernateUtil.getSessionFactory().openSession();
-        //transaction = null;
+        METRICAS.medir("obtenerEstadisticasBiblioteca", () -> {
+            System.out.println("\n\n\tAnalizando datos y generando estadísticas de la biblioteca...");
         
-        System.out.println("\n\n\tAnalizando datos y generando estadísticas de la biblioteca...");
-        
-        try{
-            String hql;
-            System.out.println("\n\n\t<==================== ESTADÍSTICAS DE LA BIBLIOTECA ====================>\n\n");
-            
-            // Bloque de código para contabilizar el número total de registros de autores en la BD.
-                /*
-                 * 1. Crea una consulta HQL que selecciona la cantidad total de autores registrados en la entidad "Autor".
-                 * 2. Con "COUNT(a)" cuenta cuántos objetos (autores) existen en la base de datos.
-                 * 3. Con "Long.class" indica que el resultado devuelto por la consulta será de tipo numérico largo (Long).
-                 * 4. Con "uniqueResult()" obtiene un único valor (no una lista) con el total de autores.
-                 * 5. Guarda ese número total en la variable "totalAutores".
-                 */
-            String autores = "SELECT COUNT(a) FROM Autor a";
-            hql = autores;
-            Long totalAutores = session.createQuery(hql, Long.class).uniqueResult();
-                        
-            // Bloque de código para contabilizar el número total de registros de libros en la BD.
-                /*
-                 * 1. Crea una consulta HQL que selecciona la cantidad total de libros registrados en la entidad "Libro".
-                 * 2. Con "COUNT(a)" cuenta cuántos objetos (libros) existen en la base de datos.
-                 * 3. Con "Long.class" indica que el resultado devuelto por la consulta será de tipo numérico largo (Long).
-                 * 4. Con "uniqueResult()" obtiene un único valor (no una lista) con el total de libros.
-                 * 5. Guarda ese número total en la variable "totalLibros".
-                 */
-            String libros = "SELECT COUNT(l) FROM Libro l";
-            hql = libros;
-            Long totalLibros = session.createQuery(hql, Long.class).uniqueResult();
-            
-            // Bloque de código para contabilizar el número total de registros de ejemplares en la BD.
-                /*
-                 * 1. Crea una consulta HQL que selecciona la cantidad total de ejemplares registrados en la entidad "Ejemplar".
-                 * 2. Con "COUNT(a)" cuenta cuántos objetos (ejemplares) existen en la base de datos.
-                 * 3. Con "Long.class" indica que el resultado devuelto por la consulta será de tipo numérico largo (Long).
-                 * 4. Con "uniqueResult()" obtiene un único valor (no una lista) con el total de ejemplares.
-                 * 5. Guarda ese número total en la variable "totalEjemplares".
-                 */
-            String ejemplares = "SELECT COUNT(e) FROM Ejemplar e";
-            hql = ejemplares;
-            Long totalEjemplares = session.createQuery(hql, Long.class).uniqueResult();
-            
-            System.out.println("\n\t\t<========== CONTEOS TOTALES ==========>\n\n");
-            
-            System.out.println("\n\t\t\tNº Total de autores registrados: " + totalAutores + "\n\t\t\tNº Total de libros registrados: " + totalLibros + "\n\t\t\tNº Total de ejemplares registrados: " + totalEjemplares + "\n");
-            
-            // Bloque de código para contabilizar el número total de registros de ejemplares por estado de disponibilidad en la BD.
-            for (EstadoEjemplar estado : EstadoEjemplar.values()){ /* El método ".values()" es un método propio de los "enum" en Java. Devuelve un array con todos los valores que tiene ese "enum". En este caso el array será tal: "[DISPONIBLE, PRESTADO, DETERIORADO, REPARACION]. "*/
-                    // ":estado" Es el valor real que espera del parametro que pasaremos "setParameter" (" "estado", " →(=) estado).
-                Long cantidad = session.createQuery("SELECT COUNT(e) FROM Ejemplar e WHERE e.estado = :estado", Long.class).setParameter("estado", estado).uniqueResult();
-                
-                System.out.println("\t- " + estado + ": " + cantidad);
+            try{
+                // Bloque de código para obtener todos los conteos (autores, libros, ejemplares y ejemplares por estado) en una única consulta agrupada.
+                    /*
+                     * 1. El servicio "ServicioEstadisticas" lanza una sola consulta ("UNION ALL") en lugar de un "COUNT" por entidad y por estado; los ejemplares por estado se leen del inventario resumido, sin contar la tabla "ejemplares".
+                     * 2. Devuelve una instantánea "EstadisticasBiblioteca" con los totales y el desglose por estado, que aquí solo se muestra por consola.
+                     */
+                EstadisticasBiblioteca estadisticas = servicioEstadisticas.obtenerEstadisticas();
+            
+                System.out.println("\n\n\t<==================== ESTADÍSTICAS DE LA BIBLIOTECA ====================>\n\n");
+            
+                System.out.println("\n\t\t<========== CONTEOS TOTALES ==========>\n\n");
+            
+                System.out.println("\n\t\t\tNº Total de autores registrados: " + estadisticas.getTotalAutores() + "\n\t\t\tNº Total de libros registrados: " + estadisticas.getTotalLibros() + "\n\t\t\tNº Total de ejemplares registrados: " + estadisticas.getTotalEjemplares() + "\n");
+            
+                // Bloque de código para mostrar el número total de registros de ejemplares por estado de disponibilidad en la BD.
+                for (EstadoEjemplar estado : EstadoEjemplar.values()){ /* El método ".values()" es un método propio de los "enum" en Java. Devuelve un array con todos los valores que tiene ese "enum". En este caso el array será tal: "[DISPONIBLE, PRESTADO, REPARACION, BAJA]. "*/
+                    System.out.println("\t- " + estado + ": " + estadisticas.getEjemplares(estado));
+                }
+            } catch (HibernateException hex){
+                InformadorErrores.get().informar("Error de operación", "Error inesperado durante las operaciones de cálculo para obtener las estadísticas", hex);
             }
-        } catch (HibernateException hex){
-            JOptionPane.showMessageDialog(null, "Error inesperado durante las operaciones de cálculo para obtener las estadísticas: " + hex.getMessage(), "Error de operación", JOptionPane.ERROR_MESSAGE);
-        } finally{
-            session.close();
-        }
+        });
     }
     
     // Crea el método "actualizarEstadoEjemplar." Su función será ir recuperando el/los ejemplar/es e ir actualizando su/s estado/s.
@@ -404,80 +501,120 @@ public class GestionBiblioteca{
          * Busca los ejemplares por su número de identificación (ID) y actualiza su estado.
          */
     public void actualizarEstadoEjemplar(Integer id, EstadoEjemplar nuevoEstado){
-        // Se abre una sesión de Hibernate para interactuar con la base de datos.
-        session = HibernateUtil.getSessionFactory().openSession();
-        //transaction = null;
+        METRICAS.medir("actualizarEstadoEjemplar", () -> {
+            // Se abre una sesión de Hibernate para interactuar con la base de datos.
+            Session session = HibernateUtil.getSessionFactory().openSession();
+            Transaction transaction = null;
         
-        System.out.println("\n\n\tBuscando un ejemplar por su número de identificación o ID {" + id + "}...");
+            System.out.println("\n\n\tBuscando un ejemplar por su número de identificación o ID {" + id + "}...");
         
-        try{
-            // Se abre/inicia una nueva transacción.
-            transaction = session.beginTransaction();
-            
-            // Bloque de códifo para buscar al ejemplar por su ID.
-            Ejemplar ejemplar = session.get(Ejemplar.class, id);
-            
-            // Si no hay ejemplares, es decir, si la tabla "ejemplar" está vacía se muestra un mensaje informativo.
-            if (ejemplar == null){
-                System.out.println("\n\n\tNo se encontró o no existe ningún ejemplar con el número de identificación (ID): {'" + id + "'}.");
-                return;
+            try{
+                // Se abre/inicia una nueva transacción.
+                transaction = session.beginTransaction();
+            
+                // Bloque de códifo para buscar al ejemplar por su ID. El identificador de "Ejemplar" es "Long", por lo que se convierte el "Integer" recibido.
+                Ejemplar ejemplar = session.get(Ejemplar.class, id.longValue());
+            
+                // Si no hay ejemplares, es decir, si la tabla "ejemplar" está vacía se muestra un mensaje informativo.
+                if (ejemplar == null){
+                    System.out.println("\n\n\tNo se encontró o no existe ningún ejemplar con el número de identificación (ID): {'" + id + "'}.");
+                    return;
+                }
+            
+                System.out.println("\n\n\tEstado actual del ejemplar: " + ejemplar.getEstado());
+            
+                // Bloque de código para actualizar el estado. Al ser una entidad gestionada por la sesión, Hibernate detecta el cambio y lanza el "UPDATE" al confirmar la transacción.
+                ejemplar.setEstado(nuevoEstado);
+            
+                // Bloque de código para confirmar la transacción.
+                transaction.commit();
+                servicioEstadisticas.invalidar();
+            
+                System.out.println("\n\n\tTransacción confirmada.");
+            
+                // Muestreo del resultado final.
+                System.out.println("\n\n\tEl ejemplar ('" + ejemplar.getCodigoEjemplar() + "') ha pasado al estado: " + ejemplar.getEstado());
+            } catch (HibernateException hex){
+                // Si ocurre un error/excepción revierte el proceso de transacción.
+                if (transaction != null) transaction.rollback();
+                InformadorErrores.get().informar("Error de actualización", "Error inesperado durante la actualización del estado del ejemplar con número de identificación o ID ('" + id + "')", hex);
+            } catch (OptimisticLockException ole){
+                // Otra transacción ha modificado el ejemplar desde que se leyó ("@Version"): la transacción ya se ha revertido al fallar el "commit".
+                InformadorErrores.get().informar("Conflicto de actualización", "El ejemplar con número de identificación o ID ('" + id + "') ha sido modificado por otro usuario mientras se actualizaba. Vuelva a intentarlo.", ole);
+            } finally{
+                session.close();
             }
-            
-            System.out.println("\n\n\tEstado actual del ejemplar: " + ejemplar.getEstado());
-            
-            System.out.println("\n\n\t<==================== ESTADÍSTICAS DE LA BIBLIOTECA ====================>\n\n");
-            
-            // Bloque de código para contabilizar el número total de registros de autores en la BD.
-                /*
-                 * 1. Crea una consulta HQL que selecciona la cantidad total de autores registrados en la entidad "Autor".
-                 * 2. Con "COUNT(a)" cuenta cuántos objetos (autores) existen en la base de datos.
-                 * 3. Con "Long.class" indica que el resultado devuelto por la consulta será de tipo numérico largo (Long).
-                 * 4. Con "uniqueResult()" obtiene un único valor (no una lista) con el total de autores.
-                 * 5. Guarda ese número total en la variable "totalAutores".
-                 */
-            String autores = "SELECT COUNT(a) FROM Autor a";
-            hql = autores;
-            Long totalAutores = session.createQuery(hql, Long.class).uniqueResult();
-                        
-            // Bloque de código para contabilizar el número total de registros de libros en la BD.
-                /*
-                 * 1. Crea una consulta HQL que selecciona la cantidad total de libros registrados en la entidad "Libro".
-                 * 2. Con "COUNT(a)" cuenta cuántos objetos (libros) existen en la base de datos.
-                 * 3. Con "Long.class" indica que el resultado devuelto por la consulta será de tipo numérico largo (Long).
-                 * 4. Con "uniqueResult()" obtiene un único valor (no una lista) con el total de libros.
-                 * 5. Guarda ese número total en la variable "totalLibros".
-                 */
-            String libros = "SELECT COUNT(l) FROM Libro l";
-            hql = libros;
-            Long totalLibros = session.createQuery(hql, Long.class).uniqueResult();
-            
-            // Bloque de código para contabilizar el número total de registros de ejemplares en la BD.
-                /*
-                 * 1. Crea una consulta HQL que selecciona la cantidad total de ejemplares registrados en la entidad "Ejemplar".
-                 * 2. Con "COUNT(a)" cuenta cuántos objetos (ejemplares) existen en la base de datos.
-                 * 3. Con "Long.class" indica que el resultado devuelto por la consulta será de tipo numérico largo (Long).
-                 * 4. Con "uniqueResult()" obtiene un único valor (no una lista) con el total de ejemplares.
-                 * 5. Guarda ese número total en la variable "totalEjemplares".
-                 */
-            String ejemplares = "SELECT COUNT(e) FROM Ejemplar e";
-            hql = ejemplares;
-            Long totalEjemplares = session.createQuery(hql, Long.class).uniqueResult();
-            
-            System.out.println("\n\t\t<========== CONTEOS TOTALES ==========>\n\n");
-            
-            System.out.println("\n\t\t\tNº Total de autores registrados: " + totalAutores + "\n\t\t\tNº Total de libros registrados: " + totalLibros + "\n\t\t\tNº Total de ejemplares registrados: " + totalEjemplares + "\n");
-            
-            // Bloque de código para contabilizar el número total de registros de ejemplares por estado de disponibilidad en la BD.
-            for (EstadoEjemplar estado : EstadoEjemplar.values()){ /* El método ".values()" es un método propio de los "enum" en Java. Devuelve un array con todos los valores que tiene ese "enum". En este caso el array será tal: "[DISPONIBLE, PRESTADO, DETERIORADO, REPARACION]. "*/
-                    // ":estado" Es el valor real que espera del parametro que pasaremos "setParameter" (" "estado", " →(=) estado).
-                Long cantidad = session.createQuery("SELECT COUNT(e) FROM Ejemplar e WHERE e.estado = :estado", Long.class).setParameter("estado", estado).uniqueResult();
-                
-                System.out.println("\t- " + estado + ": " + cantidad);
+        });
+    }
+    
+    // Crea el método "actualizarEstadoEjemplaresPorUbicacion". Su función será cambiar de una vez el estado de todos los ejemplares de una ubicación (por ejemplo, una estantería entera que pasa a "REPARACION").
+        /*
+         * A diferencia de "actualizarEstadoEjemplar()", no carga los ejemplares uno a uno: se aplica una única sentencia "UPDATE" sobre todos ellos en una sola transacción (ver "ServicioBiblioteca.cambiarEstado()").
+         */
+    public void actualizarEstadoEjemplaresPorUbicacion(String ubicacion, EstadoEjemplar nuevoEstado){
+        METRICAS.medir("actualizarEstadoEjemplaresPorUbicacion", () -> {
+            System.out.println("\n\n\tCambiando a " + nuevoEstado + " el estado de los ejemplares de la ubicación {" + ubicacion + "}...");
+        
+            try{
+                int modificados = servicioBiblioteca.cambiarEstadoPorUbicacion(ubicacion, nuevoEstado);
+            
+                // Muestreo del resultado final.
+                if (modificados == 0) System.out.println("\n\n\tNingún ejemplar de la ubicación {'" + ubicacion + "'} ha cambiado de estado (no existen o ya estaban en " + nuevoEstado + ").");
+                else System.out.println("\n\n\tTransacción confirmada. Ejemplares que han pasado al estado " + nuevoEstado + ": " + modificados);
+            } catch (HibernateException hex){
+                // La transacción ya se ha revertido en el servicio.
+                InformadorErrores.get().informar("Error de actualización", "Error inesperado durante la actualización masiva del estado de los ejemplares de la ubicación ('" + ubicacion + "')", hex);
+            }
+        });
+    }
+    
+    // Crea el método "prestarEjemplarPorIsbn". Su función será prestar cualquier ejemplar disponible de un libro.
+        /*
+         * El préstamo es una transición condicional "DISPONIBLE" → "PRESTADO" protegida por el bloqueo optimista ("@Version"): dos mostradores nunca prestan el mismo ejemplar (ver "ServicioBiblioteca.prestarCualquierEjemplar()").
+         */
+    public void prestarEjemplarPorIsbn(String isbn){
+        METRICAS.medir("prestarEjemplarPorIsbn", () -> {
+            System.out.println("\n\n\tBuscando un ejemplar disponible del libro con ISBN {" + isbn + "}...");
+        
+            try{
+                Optional<DetalleEjemplar> prestado = servicioBiblioteca.prestarCualquierEjemplar(isbn);
+            
+                // Muestreo del resultado final.
+                if (prestado.isPresent()) System.out.println("\n\n\tEjemplar prestado: '" + prestado.get().getCodigoEjemplar() + "' (ID " + prestado.get().getId() + ")\n\t\tUbicación: " + prestado.get().getUbicacion());
+                else System.out.println("\n\n\tNo existe el libro con ISBN {'" + isbn + "'} o no le queda ningún ejemplar disponible.");
+            } catch (HibernateException | IllegalStateException ex){
+                InformadorErrores.get().informar("Error de préstamo", "Error inesperado durante el préstamo de un ejemplar del libro con ISBN ('" + isbn + "')", ex);
+            }
+        });
+    }
+    
+    // Crea el método "devolverEjemplar". Su función será registrar la devolución de un ejemplar prestado.
+    public void devolverEjemplar(Long id){
+        METRICAS.medir("devolverEjemplar", () -> {
+            System.out.println("\n\n\tRegistrando la devolución del ejemplar con número de identificación o ID {" + id + "}...");
+        
+            try{
+                // Muestreo del resultado final.
+                if (servicioBiblioteca.devolverEjemplar(id)) System.out.println("\n\n\tDevolución registrada. El ejemplar vuelve a estar " + EstadoEjemplar.DISPONIBLE + ".");
+                else System.out.println("\n\n\tNo existe ningún ejemplar prestado con el número de identificación (ID): {'" + id + "'}.");
+            } catch (HibernateException hex){
+                InformadorErrores.get().informar("Error de devolución", "Error inesperado durante la devolución del ejemplar con número de identificación o ID ('" + id + "')", hex);
             }
-        } catch (HibernateException hex){
-            JOptionPane.showMessageDialog(null, "Error inesperado durante las operaciones de cálculo para obtener las estadísticas: " + hex.getMessage(), "Error de operación", JOptionPane.ERROR_MESSAGE);
-        } finally{
-            session.close();
-        }
+        });
+    }
+    
+    // Crea el método "mostrarMetricas". Su función será mostrar las métricas acumuladas de cada operación (no se mide a sí mismo).
+        /*
+         * Sustituye a "hibernate.show_sql" para saber qué hace cada operación: latencias, sentencias SQL y entidades por invocación y espera de conexión.
+         * El mismo contenido, en formato de Prometheus, está disponible con "HibernateUtil.exportarMetricas()" (o publicado por HTTP con "ServidorMetricas").
+         */
+    public void mostrarMetricas(){
+        List<MetricasOperacion> metricas = HibernateUtil.obtenerMetricasOperaciones();
+        List<MetricasReplica> replicas = HibernateUtil.obtenerMetricasReplicas();
+        
+        // Muestreo del resultado final.
+        if (metricas.isEmpty()) System.out.println("\n\n\tTodavía no se ha ejecutado ninguna operación.");
+        else System.out.println("\n\n\tMétricas por operación: " + metricas);
+        if (!replicas.isEmpty()) System.out.println("\n\n\tRéplicas de lectura: " + replicas);
     }
-}
\ No newline at end of file
+}
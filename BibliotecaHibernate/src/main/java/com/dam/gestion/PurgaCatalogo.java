@@ -0,0 +1,253 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.gestion;
+
+
+// Importa de la biblioteca/librería el paquete "ResultadoPurga".
+import com.dam.dto.ResultadoPurga;
+// Importa de la biblioteca/librería el paquete "CambiosFacetas".
+import com.dam.indice.CambiosFacetas;
+// Importa de la biblioteca/librería el paquete "IndiceCatalogo".
+import com.dam.indice.IndiceCatalogo;
+// Importa de la biblioteca/librería el paquete "IndiceTextoCatalogo".
+import com.dam.indice.IndiceTextoCatalogo;
+// Importa de la biblioteca/librería el paquete "CambiosInventario".
+import com.dam.inventario.CambiosInventario;
+// Importa de la biblioteca/librería el paquete "EstadoEjemplar".
+import com.dam.modelo.Ejemplar.EstadoEjemplar;
+// Importa de la biblioteca/librería el paquete "HibernateUtil".
+import com.dam.util.HibernateUtil;
+// Importa de la biblioteca/librería el paquete "Duration".
+import java.time.Duration;
+// Importa de la biblioteca/librería el paquete "ArrayList".
+import java.util.ArrayList;
+// Importa de la biblioteca/librería el paquete "Collection".
+import java.util.Collection;
+// Importa de la biblioteca/librería el paquete "LinkedHashSet".
+import java.util.LinkedHashSet;
+// Importa de la biblioteca/librería el paquete "List".
+import java.util.List;
+// Importa de la biblioteca/librería el paquete "Consumer".
+import java.util.function.Consumer;
+// Importa de la biblioteca/librería el paquete "ScrollMode".
+import org.hibernate.ScrollMode;
+// Importa de la biblioteca/librería el paquete "ScrollableResults".
+import org.hibernate.ScrollableResults;
+// Importa de la biblioteca/librería el paquete "Session".
+import org.hibernate.Session;
+// Importa de la biblioteca/librería el paquete "StaleStateException".
+import org.hibernate.StaleStateException;
+// Importa de la biblioteca/librería el paquete "Query".
+import org.hibernate.query.Query;
+
+// Crea la clase "PurgaCatalogo".
+    /*
+     * Borrado masivo de autores, libros y estanterías (todos los ejemplares de una ubicación) sin cargar las entidades.
+     *
+     * Frente a "session.remove(autor)" (que, por "CascadeType.ALL" y "orphanRemoval", carga todos los libros y ejemplares del autor en la sesión y los borra fila a fila):
+     *   1. Se borra en orden de dependencias con sentencias "DELETE" sobre conjuntos: primero los ejemplares, después los libros y por último los autores (lo mismo que borra la cascada).
+     *   2. Las filas a borrar se recorren una sola vez en streaming ("ScrollableResults" "FORWARD_ONLY", "fetch size" = "tamanoBloque"; en MySQL requiere "useCursorFetch", ver "hibernate.cfg.xml")
+     *      y se borran por bloques de "tamanoBloque" filas según se leen. De cada fila solo se leen el "ID" y las columnas que hay que descontar, y cada bloque se descarta tras borrarlo,
+     *      así que la memoria no crece con el tamaño del catálogo. (Volver a consultar cada bloque con "id > ultimoId ORDER BY id" obligaba a ordenar de nuevo todas las filas pendientes en cada bloque).
+     *   3. Si una sentencia borra menos filas de las leídas (otra transacción las ha borrado entre medias) se repite toda la transacción, hasta "ServicioBiblioteca.MAX_INTENTOS_CONFLICTO" veces.
+     *
+     * Lo que la cascada hacía a través de los eventos de Hibernate (que las sentencias masivas no lanzan) se hace aquí en cada bloque:
+     *   1. El inventario resumido descuenta los ejemplares borrados ("CambiosInventario"); los cambios de cada bloque se escriben al terminarlo, para no acumular una clave por libro de todo el catálogo.
+     *   2. Los ISBN y códigos borrados salen del índice del catálogo ("IndiceCatalogo") al borrarlos. Si la transacción se revierte solo faltan en el índice, que es una caché: se vuelven a consultar en la base de datos.
+     *      Los libros y autores borrados salen del índice de búsqueda por texto ("IndiceTextoCatalogo") después del "commit": si faltaran tras un "rollback", no se volverían a encontrar.
+     *      Por lo mismo, los ejemplares borrados se anotan en "CambiosFacetas" y salen del índice de facetas ("IndiceFacetasEjemplares") después del "commit" (como mapas de bits, que ocupan poco aunque se borren millones).
+     *   3. Hibernate invalida por su cuenta, tras cada sentencia masiva, las regiones de la caché de segundo nivel de las entidades y colecciones afectadas y la caché de consultas.
+     *
+     * Toda la purga se ejecuta en una única transacción: o se borra todo o no se borra nada.
+     * La clase no guarda estado entre llamadas, por lo que puede compartirse entre hilos.
+     */
+public class PurgaCatalogo{
+    // ==================== ATRIBUTOS ====================
+        // Igual que "ServicioBiblioteca.TAMANO_BLOQUE_IN": cada bloque se borra con un único "IN (...)".
+    public static final int TAMANO_BLOQUE_POR_DEFECTO = ServicioBiblioteca.TAMANO_BLOQUE_IN;
+
+    private final int tamanoBloque;
+
+
+    // ==================== CONSTRUCTORES ====================
+    public PurgaCatalogo(){ this(TAMANO_BLOQUE_POR_DEFECTO); }
+
+            /*
+             * "@param tamanoBloque" Parámetro: Nº máximo de filas que se leen y se borran en cada sentencia.
+             */
+    public PurgaCatalogo(int tamanoBloque){
+        if (tamanoBloque < 1) throw new IllegalArgumentException("El tamaño de bloque debe ser positivo: " + tamanoBloque);
+        this.tamanoBloque = tamanoBloque;
+    }
+
+
+    // ==================== MÉTODOS ====================
+
+    /*
+     * Borra autores junto con todos sus libros y los ejemplares de esos libros.
+     *
+     * "@param ids" Parámetro: "ID" de los autores (los que no existen se ignoran).
+     * "@return" Retorna: Filas borradas y duración de la purga.
+     */
+    public ResultadoPurga eliminarAutores(Collection<Long> ids){
+        List<Long> autores = new ArrayList<>(new LinkedHashSet<>(ids));
+        return ejecutar((session, borrados) -> {
+            for (List<Long> bloque : bloques(autores)){
+                purgarLibros(session, "l.autor.id IN :autores", query -> query.setParameterList("autores", bloque), borrados);
+                borrados.autores += session.createQuery("DELETE FROM Autor a WHERE a.id IN :autores")
+                                           .setParameterList("autores", bloque)
+                                           .executeUpdate();
+                borrados.idsAutores.addAll(bloque);
+            }
+        });
+    }
+
+    /*
+     * Borra libros junto con todos sus ejemplares. Sus autores se conservan.
+     *
+     * "@param ids" Parámetro: "ID" de los libros (los que no existen se ignoran).
+     * "@return" Retorna: Filas borradas y duración de la purga.
+     */
+    public ResultadoPurga eliminarLibros(Collection<Long> ids){
+        List<Long> libros = new ArrayList<>(new LinkedHashSet<>(ids));
+        return ejecutar((session, borrados) -> {
+            for (List<Long> bloque : bloques(libros)){
+                purgarLibros(session, "l.id IN :libros", query -> query.setParameterList("libros", bloque), borrados);
+            }
+        });
+    }
+
+    /*
+     * Vacía una estantería: borra todos los ejemplares de una ubicación. Los libros se conservan.
+     *
+     * "@param ubicacion" Parámetro: Ubicación de los ejemplares.
+     * "@return" Retorna: Filas borradas y duración de la purga.
+     */
+    public ResultadoPurga eliminarEjemplaresPorUbicacion(String ubicacion){
+        if (ubicacion == null) throw new IllegalArgumentException("La ubicación es obligatoria");
+        return ejecutar((session, borrados) ->
+            purgarEjemplares(session, "e.ubicacion = :ubicacion", query -> query.setParameter("ubicacion", ubicacion), borrados));
+    }
+
+
+    // ==================== MÉTODOS HELPER ====================
+
+        // Ejecuta la purga en una transacción (repetida entera si choca con otra) y mide su duración.
+    private ResultadoPurga ejecutar(Purga purga){
+        long inicio = System.nanoTime();
+        Contadores borrados = HibernateUtil.enTransaccionConReintentos(ServicioBiblioteca.MAX_INTENTOS_CONFLICTO, session -> {
+            Contadores contadores = new Contadores();
+            purga.ejecutar(session, contadores);
+            return contadores;
+        });
+        IndiceTextoCatalogo texto = IndiceTextoCatalogo.getInstancia();
+        borrados.idsLibros.forEach(texto::eliminarLibro);
+        borrados.idsAutores.forEach(texto::eliminarAutor);
+        return new ResultadoPurga(borrados.autores, borrados.libros, borrados.ejemplares, Duration.ofNanos(System.nanoTime() - inicio));
+    }
+
+    /*
+     * Borra, bloque a bloque, los libros que cumplen la condición: primero sus ejemplares y después los propios libros.
+     *
+     * "@param condicion"  Parámetro: Condición "HQL" sobre el alias "l" (sin "WHERE").
+     * "@param parametros" Parámetro: Asigna los parámetros de la condición.
+     */
+    private void purgarLibros(Session session, String condicion, Consumer<Query<?>> parametros, Contadores borrados){
+        IndiceCatalogo indice = IndiceCatalogo.getInstancia();
+        Query<Object[]> consulta = session.createQuery("SELECT l.id, l.isbn FROM Libro l WHERE " + condicion, Object[].class);
+        parametros.accept(consulta);
+        porBloques(consulta, libros -> {
+            List<Long> ids = new ArrayList<>(libros.size());
+            for (Object[] libro : libros) ids.add((Long) libro[0]);
+
+            purgarEjemplares(session, "e.libro.id IN :libros", query -> query.setParameterList("libros", ids), borrados);
+            int borradas = session.createQuery("DELETE FROM Libro l WHERE l.id IN :libros")
+                                  .setParameterList("libros", ids)
+                                  .executeUpdate();
+            if (borradas != ids.size()) throw new StaleStateException("Otra transacción ha borrado libros de la purga (leídos: " + ids.size() + ", borrados: " + borradas + ")");
+
+            for (Object[] libro : libros){
+                indice.eliminarLibro((String) libro[1], (Long) libro[0]);
+                borrados.idsLibros.add((Long) libro[0]);
+            }
+            borrados.libros += borradas;
+        });
+    }
+
+    /*
+     * Borra, bloque a bloque, los ejemplares que cumplen la condición y descuenta cada bloque del inventario resumido.
+     *
+     * "@param condicion"  Parámetro: Condición "HQL" sobre el alias "e" (sin "WHERE").
+     * "@param parametros" Parámetro: Asigna los parámetros de la condición.
+     */
+    private void purgarEjemplares(Session session, String condicion, Consumer<Query<?>> parametros, Contadores borrados){
+        IndiceCatalogo indice = IndiceCatalogo.getInstancia();
+        CambiosInventario cambios = CambiosInventario.deTransaccion(session);
+        CambiosFacetas facetas = CambiosFacetas.deTransaccion(session);
+        Query<Object[]> consulta = session.createQuery("SELECT e.id, e.codigoEjemplar, e.libro.id, e.ubicacion, e.estado FROM Ejemplar e WHERE " + condicion, Object[].class);
+        parametros.accept(consulta);
+        porBloques(consulta, ejemplares -> {
+            List<Long> ids = new ArrayList<>(ejemplares.size());
+            for (Object[] ejemplar : ejemplares) ids.add((Long) ejemplar[0]);
+
+            int borradas = session.createQuery("DELETE FROM Ejemplar e WHERE e.id IN :ids")
+                                  .setParameterList("ids", ids)
+                                  .executeUpdate();
+            if (borradas != ids.size()) throw new StaleStateException("Otra transacción ha borrado ejemplares de la purga (leídos: " + ids.size() + ", borrados: " + borradas + ")");
+
+            for (Object[] ejemplar : ejemplares){
+                cambios.anotar((Long) ejemplar[2], (String) ejemplar[3], (EstadoEjemplar) ejemplar[4], -1);
+                indice.eliminarEjemplar((String) ejemplar[1], (Long) ejemplar[0]);
+                facetas.anotarBaja((Long) ejemplar[0], (Long) ejemplar[2], (String) ejemplar[3], (EstadoEjemplar) ejemplar[4]);
+            }
+            cambios.aplicar(session);
+            borrados.ejemplares += borradas;
+        });
+    }
+
+        // Recorre la consulta en streaming y entrega sus filas en bloques de "tamanoBloque" (el último puede ser menor).
+    private void porBloques(Query<Object[]> consulta, Consumer<List<Object[]>> bloque){
+        try (ScrollableResults filas = consulta.setFetchSize(tamanoBloque)
+                                               .setReadOnly(true)
+                                               .scroll(ScrollMode.FORWARD_ONLY)){
+            List<Object[]> pendientes = new ArrayList<>(tamanoBloque);
+            while (filas.next()){
+                pendientes.add(filas.get());
+                if (pendientes.size() == tamanoBloque){
+                    bloque.accept(pendientes);
+                    pendientes = new ArrayList<>(tamanoBloque);
+                }
+            }
+            if (!pendientes.isEmpty()) bloque.accept(pendientes);
+        }
+    }
+
+        // Divide los "ID" en sublistas de como mucho "tamanoBloque" elementos.
+    private List<List<Long>> bloques(List<Long> ids){
+        List<List<Long>> bloques = new ArrayList<>();
+        for (int desde = 0; desde < ids.size(); desde += tamanoBloque){
+            bloques.add(ids.subList(desde, Math.min(desde + tamanoBloque, ids.size())));
+        }
+        return bloques;
+    }
+
+
+    // ==================== TIPOS AUXILIARES ====================
+        // Cuerpo de una purga, ejecutado dentro de la transacción.
+    @FunctionalInterface
+    private interface Purga{
+        void ejecutar(Session session, Contadores borrados);
+    }
+
+        // Filas borradas durante la transacción en curso (se descartan si se repite).
+    private static final class Contadores{
+        long autores;
+        long libros;
+        long ejemplares;
+            // "ID" de los libros y autores borrados, para quitarlos del índice de texto tras el "commit".
+        final List<Long> idsLibros = new ArrayList<>();
+        final List<Long> idsAutores = new ArrayList<>();
+    }
+}
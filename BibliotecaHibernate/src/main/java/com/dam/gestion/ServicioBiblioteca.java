@@ -0,0 +1,1049 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.gestion;
+
+
+// Importa de la biblioteca/librería el paquete "DetalleEjemplar".
+import com.dam.dto.DetalleEjemplar;
+// Importa de la biblioteca/librería el paquete "DetalleLibro".
+import com.dam.dto.DetalleLibro;
+// Importa de la biblioteca/librería el paquete "DisponibilidadLibro".
+import com.dam.dto.DisponibilidadLibro;
+// Importa de la biblioteca/librería el paquete "EstadisticasBiblioteca".
+import com.dam.dto.EstadisticasBiblioteca;
+// Importa de la biblioteca/librería el paquete "Pagina".
+import com.dam.dto.Pagina;
+// Importa de la biblioteca/librería el paquete "ResultadoFacetas".
+import com.dam.dto.ResultadoFacetas;
+// Importa de la biblioteca/librería el paquete "ResultadoPurga".
+import com.dam.dto.ResultadoPurga;
+// Importa de la biblioteca/librería el paquete "ResumenAutor".
+import com.dam.dto.ResumenAutor;
+// Importa de la biblioteca/librería el paquete "ResumenEjemplar".
+import com.dam.dto.ResumenEjemplar;
+// Importa de la biblioteca/librería el paquete "CambiosFacetas".
+import com.dam.indice.CambiosFacetas;
+// Importa de la biblioteca/librería el paquete "IndiceCatalogo".
+import com.dam.indice.IndiceCatalogo;
+// Importa de la biblioteca/librería el paquete "IndiceFacetasEjemplares".
+import com.dam.indice.IndiceFacetasEjemplares;
+// Importa de la biblioteca/librería el paquete "IndiceTextoCatalogo".
+import com.dam.indice.IndiceTextoCatalogo;
+// Importa de la biblioteca/librería el paquete "CambiosInventario".
+import com.dam.inventario.CambiosInventario;
+// Importa todos las dependencias creadas en el paquete "modelo".
+import com.dam.modelo.*;
+// Importa de la biblioteca/librería el paquete "EstadoEjemplar".
+import com.dam.modelo.Ejemplar.EstadoEjemplar;
+// Importa de la biblioteca/librería el paquete "HibernateUtil".
+import com.dam.util.HibernateUtil;
+// Importa de la biblioteca/librería el paquete "ArrayList".
+import java.util.ArrayList;
+// Importa de la biblioteca/librería el paquete "Collection".
+import java.util.Collection;
+// Importa de la biblioteca/librería el paquete "Collections".
+import java.util.Collections;
+// Importa de la biblioteca/librería el paquete "HashMap".
+import java.util.HashMap;
+// Importa de la biblioteca/librería el paquete "LinkedHashMap".
+import java.util.LinkedHashMap;
+// Importa de la biblioteca/librería el paquete "List".
+import java.util.List;
+// Importa de la biblioteca/librería el paquete "Map".
+import java.util.Map;
+// Importa de la biblioteca/librería el paquete "Optional".
+import java.util.Optional;
+// Importa de la biblioteca/librería el paquete "ThreadLocalRandom".
+import java.util.concurrent.ThreadLocalRandom;
+// Importa de la biblioteca/librería el paquete "Duration".
+import java.time.Duration;
+// Importa de la biblioteca/librería el paquete "LocalDate".
+import java.time.LocalDate;
+// Importa de la biblioteca/librería el paquete "BiConsumer".
+import java.util.function.BiConsumer;
+// Importa de la biblioteca/librería el paquete "Consumer".
+import java.util.function.Consumer;
+// Importa de la biblioteca/librería el paquete "Function".
+import java.util.function.Function;
+// Importa de la biblioteca/librería el paquete "PersistenceException".
+import javax.persistence.PersistenceException;
+// Importa de la biblioteca/librería el paquete "CacheMode".
+import org.hibernate.CacheMode;
+// Importa de la biblioteca/librería el paquete "Hibernate".
+import org.hibernate.Hibernate;
+// Importa de la biblioteca/librería el paquete "LockMode".
+import org.hibernate.LockMode;
+// Importa de la biblioteca/librería el paquete "LockOptions".
+import org.hibernate.LockOptions;
+// Importa de la biblioteca/librería el paquete "ScrollMode".
+import org.hibernate.ScrollMode;
+// Importa de la biblioteca/librería el paquete "ScrollableResults".
+import org.hibernate.ScrollableResults;
+// Importa de la biblioteca/librería el paquete "Session".
+import org.hibernate.Session;
+// Importa de la biblioteca/librería el paquete "StaleStateException".
+import org.hibernate.StaleStateException;
+// Importa de la biblioteca/librería el paquete "StatelessSession".
+import org.hibernate.StatelessSession;
+// Importa de la biblioteca/librería el paquete "QueryHints".
+import org.hibernate.jpa.QueryHints;
+// Importa de la biblioteca/librería el paquete "Query".
+import org.hibernate.query.Query;
+
+// Crea la clase "ServicioBiblioteca".
+    /*
+     * Capa de servicio concurrente con las mismas operaciones que "GestionBiblioteca" (crear autor con libros, añadir ejemplar, listar, buscar, cambiar estado y estadísticas).
+     *
+     * A diferencia de "GestionBiblioteca", no guarda la sesión ni la transacción en atributos:
+     *   1. Cada llamada abre su propia sesión (y transacción si escribe) mediante "HibernateUtil.enTransaccion()" / "HibernateUtil.enSesion()".
+     *      Las consultas puras (búsquedas, listados, exportaciones, estadísticas e inventario) usan "HibernateUtil.enLectura()": si hay réplicas de lectura configuradas, no cargan la primaria.
+     *      Las lecturas que preparan una escritura (resolver un ISBN o código, candidatos a préstamo) siguen en la primaria, para no decidir con datos atrasados.
+     *   2. Los únicos atributos son inmutables o seguros entre hilos, de modo que una única instancia puede compartirse entre cientos de hilos.
+     *   3. Los métodos devuelven los datos en lugar de mostrarlos por consola; los errores se propagan al llamante tras revertir la transacción.
+     *
+     * Las entidades devueltas quedan desasociadas ("detached") con las relaciones que necesita cada operación ya inicializadas.
+     * Las pantallas de listado y de detalle usan en su lugar proyecciones a DTO ("ResumenAutor", "ResumenEjemplar", "DetalleLibro"): la consulta solo lee las columnas que se muestran y Hibernate no crea entidades ni guarda su copia en la sesión.
+     *
+     * Autores, libros y ejemplares (y sus colecciones) están en la caché de segundo nivel: las lecturas por "ID" de datos ya cacheados no van a MySQL, y la búsqueda por ISBN usa la caché de consultas ("REGION_LIBRO_POR_ISBN").
+     * Los ISBN y códigos de ejemplar se resuelven primero en el índice en memoria del catálogo ("IndiceCatalogo") y solo si no están se consulta la base de datos.
+     */
+public class ServicioBiblioteca{
+    // ==================== ATRIBUTOS ====================
+        // Tamaño máximo de una página de los listados paginados.
+    public static final int LIMITE_MAXIMO_PAGINA = 1000;
+        // Filas que se piden al driver en cada viaje durante una exportación completa ("fetch size").
+    public static final int TAMANO_LOTE_EXPORTACION = 500;
+        // Región de la caché de consultas para la búsqueda de libros por ISBN (ver "ehcache.xml"). Hibernate la invalida sola al modificarse la tabla "libros".
+    public static final String REGION_LIBRO_POR_ISBN = "consultas.libroPorIsbn";
+        // Nº máximo de valores en cada "IN (...)" de las operaciones masivas (listas muy largas se envían en varias sentencias dentro de la misma transacción).
+    public static final int TAMANO_BLOQUE_IN = 1000;
+        // Nº máximo de intentos de una escritura que choca con otra por el bloqueo optimista ("@Version" de "Ejemplar").
+    public static final int MAX_INTENTOS_CONFLICTO = 5;
+        // Nº de ejemplares disponibles que se leen como candidatos en cada intento de "prestarCualquierEjemplar()".
+    public static final int CANDIDATOS_PRESTAMO = 16;
+
+    private final ServicioEstadisticas servicioEstadisticas;
+        // Inserción de ejemplares sobre una referencia al libro (ver "agregarEjemplares()").
+    private final CargaMasivaCatalogo carga = new CargaMasivaCatalogo();
+        // Borrado masivo de autores, libros y estanterías (ver "PurgaCatalogo").
+    private final PurgaCatalogo purga = new PurgaCatalogo();
+
+
+    // ==================== CONSTRUCTORES ====================
+    public ServicioBiblioteca(){ this(new ServicioEstadisticas()); }
+
+            /*
+             * "@param servicioEstadisticas" Parámetro: Servicio de estadísticas a usar (permite ajustar el tiempo de vida de las instantáneas).
+             */
+    public ServicioBiblioteca(ServicioEstadisticas servicioEstadisticas){
+        this.servicioEstadisticas = servicioEstadisticas;
+    }
+
+
+    // ==================== ESCRITURAS ====================
+
+    /*
+     * Guarda un autor junto a sus libros y ejemplares. Gracias a "CascadeType.ALL" basta con persistir el autor.
+     *
+     * "@param autor" Parámetro: Autor (con sus libros y ejemplares ya asociados mediante "addLibro()"/"addEjemplar()").
+     * "@return" Retorna: El mismo autor, ya con sus identificadores generados.
+     */
+    public Autor crearAutorConLibros(Autor autor){
+        Autor guardado = HibernateUtil.enTransaccion(session -> {
+            session.persist(autor);
+            return autor;
+        });
+        servicioEstadisticas.invalidar();
+        return guardado;
+    }
+
+    /*
+     * Busca un libro por su ISBN y le añade un nuevo ejemplar con estado "DISPONIBLE" y ubicación "Almacén" (ver "agregarEjemplares()").
+     *
+     * "@param isbn"           Parámetro: ISBN del libro.
+     * "@param codigoEjemplar" Parámetro: Código del nuevo ejemplar.
+     * "@return" Retorna: El ejemplar creado (con su libro sin inicializar), o vacío si no existe ningún libro con ese ISBN.
+     */
+    public Optional<Ejemplar> agregarEjemplarALibroExistente(String isbn, String codigoEjemplar){
+        List<Ejemplar> creados = agregarEjemplares(isbn, Collections.singletonList(codigoEjemplar));
+        return creados.isEmpty() ? Optional.empty() : Optional.of(creados.get(0));
+    }
+
+    /*
+     * Añade a un libro varios ejemplares nuevos, con estado "DISPONIBLE" y ubicación "Almacén", en una única transacción.
+     *
+     *   1. El ISBN se resuelve a su "ID" con "resolverIdLibro()" (índice del catálogo o una consulta que solo lee el "ID").
+     *   2. Los ejemplares se asocian a una referencia al libro (un "proxy" con solo el "ID", ver "CargaMasivaCatalogo.importarEjemplares()") y se insertan en lotes JDBC:
+     *      no se carga el libro, ni su autor, ni su colección de ejemplares, así que el coste no depende de cuántos ejemplares tenga ya el libro.
+     *   3. La colección de ejemplares del libro en la caché de segundo nivel se invalida sola al insertar ("hibernate.cache.auto_evict_collection_cache").
+     *
+     * Si el índice apuntaba a un libro que ya no existe (inserción revertida), la clave ajena hace fallar la transacción: se descarta la entrada del índice, se consulta el ISBN en la base de datos y se repite una vez.
+     *
+     * "@param isbn"    Parámetro: ISBN del libro.
+     * "@param codigos" Parámetro: Códigos de los nuevos ejemplares.
+     * "@return" Retorna: Los ejemplares creados (con su libro sin inicializar), o una lista vacía si no existe ningún libro con ese ISBN.
+     */
+    public List<Ejemplar> agregarEjemplares(String isbn, List<String> codigos){
+        if (codigos.isEmpty()) return Collections.emptyList();
+        Optional<Long> idLibro = resolverIdLibro(isbn);
+        if (!idLibro.isPresent()) return Collections.emptyList();
+
+        List<Ejemplar> creados;
+        try{
+            creados = insertarEjemplares(idLibro.get(), codigos);
+        } catch (PersistenceException pex){
+            IndiceCatalogo.getInstancia().eliminarLibro(isbn, idLibro.get());
+            Optional<Long> actual = resolverIdLibro(isbn);
+            if (actual.equals(idLibro)) throw pex;
+            if (!actual.isPresent()) return Collections.emptyList();
+            creados = insertarEjemplares(actual.get(), codigos);
+        }
+        servicioEstadisticas.invalidar();
+        return creados;
+    }
+
+    private List<Ejemplar> insertarEjemplares(Long idLibro, List<String> codigos){
+        List<Ejemplar> nuevos = new ArrayList<>(codigos.size());
+        for (String codigo : codigos) nuevos.add(new Ejemplar(codigo, EstadoEjemplar.DISPONIBLE, "Almacén"));
+        carga.importarEjemplares(idLibro, nuevos.iterator());
+        return nuevos;
+    }
+
+    /*
+     * Busca un libro por ISBN.
+     *   1. Si el ISBN está en el índice del catálogo ("IndiceCatalogo") se carga el libro por su "ID" (normalmente desde la caché de segundo nivel).
+     *   2. Si no está, o el "ID" ya no corresponde a ese ISBN, se usa la consulta por ISBN (con caché de consultas) y se registra el resultado en el índice.
+     *
+     * "@param session" Parámetro: Sesión abierta.
+     * "@param isbn"    Parámetro: ISBN del libro.
+     * "@return" Retorna: El libro, o "null" si no existe.
+     */
+    static Libro buscarPorIsbn(Session session, String isbn){
+        IndiceCatalogo indice = IndiceCatalogo.getInstancia();
+        Long id = indice.idLibro(isbn);
+        if (id != null){
+            Libro libro = session.get(Libro.class, id);
+            if (libro != null && isbn.equals(libro.getIsbn())) return libro;
+            indice.eliminarLibro(isbn, id);
+        }
+
+        Libro libro = session.createQuery("FROM Libro l WHERE l.isbn = :isbn", Libro.class)
+                             .setParameter("isbn", isbn)
+                             .setCacheable(true)
+                             .setCacheRegion(REGION_LIBRO_POR_ISBN)
+                             .uniqueResult();
+        if (libro != null) indice.registrarLibro(isbn, libro.getId());
+        return libro;
+    }
+
+    /*
+     * Cambia el estado de un ejemplar. Si otra transacción lo modifica a la vez (conflicto de "@Version") se vuelve a leer y se repite, hasta "MAX_INTENTOS_CONFLICTO" veces.
+     * Para préstamos y devoluciones, que solo son válidos desde un estado concreto, usar "prestarEjemplar()" / "devolverEjemplar()".
+     *
+     * "@param id"          Parámetro: ID del ejemplar.
+     * "@param nuevoEstado" Parámetro: Estado a asignar.
+     * "@return" Retorna: "true" si el ejemplar existía y se actualizó.
+     */
+    public boolean actualizarEstadoEjemplar(Long id, EstadoEjemplar nuevoEstado){
+        boolean actualizado = HibernateUtil.enTransaccionConReintentos(MAX_INTENTOS_CONFLICTO, session -> {
+            Ejemplar ejemplar = session.get(Ejemplar.class, id);
+            if (ejemplar == null) return false;
+
+            ejemplar.setEstado(nuevoEstado);
+            return true;
+        });
+        if (actualizado) servicioEstadisticas.invalidar();
+        return actualizado;
+    }
+
+
+    // ==================== ESCRITURAS MASIVAS ====================
+
+    /*
+     * Cambia el estado de todos los ejemplares que cumplen el filtro con sentencias "UPDATE" sobre conjuntos (sin cargar los ejemplares), en una única transacción.
+     *
+     *   1. Sin "ID": se leen todos los ejemplares del filtro (por ejemplo, toda una estantería a "REPARACION") y se modifican con una sentencia "UPDATE Ejemplar e SET e.estado = ... WHERE e.id IN ..." por cada bloque de "TAMANO_BLOQUE_IN" leídos.
+     *   2. Con "ID": lo mismo por cada bloque de "TAMANO_BLOQUE_IN" "ID"; si alguna sentencia falla se revierten todas.
+     *   3. Solo se cuentan (y modifican) los ejemplares cuyo estado es distinto del nuevo.
+     *
+     * La sentencia es "UPDATE VERSIONED": incrementa la versión de cada ejemplar modificado, de modo que una sesión que lo tuviera leído de antes falla por bloqueo optimista en lugar de sobrescribir el cambio.
+     * Hibernate invalida por su cuenta la caché de segundo nivel de los ejemplares (y las colecciones y consultas afectadas) tras una sentencia masiva; además se invalida la instantánea de estadísticas.
+     * El índice del catálogo no cambia: los códigos de ejemplar no se modifican.
+     * Las sentencias masivas no lanzan eventos, así que antes de cada "UPDATE" se leen el "ID", libro, ubicación y estado de los ejemplares afectados y se anota su paso al nuevo estado
+     * en el inventario resumido ("CambiosInventario") y en el índice de facetas ("CambiosFacetas", que lo aplica tras el "commit").
+     * La lectura bloquea las filas ("SELECT ... FOR UPDATE") hasta el final de la transacción y el "UPDATE" solo toca los "ID" leídos: lo anotado son exactamente las filas modificadas,
+     * y dos cambios masivos simultáneos sobre los mismos ejemplares se esperan, de modo que cada ejemplar modificado se cuenta en uno solo de ellos.
+     * Si aun así el "UPDATE" modifica un nº de filas distinto del leído se repite toda la transacción, hasta "MAX_INTENTOS_CONFLICTO" veces.
+     *
+     * "@param filtro"      Parámetro: Ejemplares a modificar.
+     * "@param nuevoEstado" Parámetro: Estado a asignar.
+     * "@return" Retorna: Nº de ejemplares que han cambiado de estado.
+     */
+    public int cambiarEstado(FiltroEjemplares filtro, EstadoEjemplar nuevoEstado){
+        if (nuevoEstado == null) throw new IllegalArgumentException("El nuevo estado es obligatorio");
+        List<Long> ids = filtro.getIds();
+        if (ids != null && ids.isEmpty()) return 0;
+
+        int modificados = HibernateUtil.enTransaccionConReintentos(MAX_INTENTOS_CONFLICTO, session -> {
+            if (ids == null) return actualizarEstado(session, filtro, null, nuevoEstado);
+
+            int total = 0;
+            for (int desde = 0; desde < ids.size(); desde += TAMANO_BLOQUE_IN){
+                total += actualizarEstado(session, filtro, ids.subList(desde, Math.min(desde + TAMANO_BLOQUE_IN, ids.size())), nuevoEstado);
+            }
+            return total;
+        });
+        if (modificados > 0) servicioEstadisticas.invalidar();
+        return modificados;
+    }
+
+    /*
+     * "@param ids"         Parámetro: "ID" de los ejemplares.
+     * "@param nuevoEstado" Parámetro: Estado a asignar.
+     * "@return" Retorna: Nº de ejemplares que han cambiado de estado (ver "cambiarEstado(FiltroEjemplares, EstadoEjemplar)").
+     */
+    public int cambiarEstado(Collection<Long> ids, EstadoEjemplar nuevoEstado){
+        return cambiarEstado(FiltroEjemplares.porIds(ids), nuevoEstado);
+    }
+
+    /*
+     * "@param ubicacion"   Parámetro: Ubicación de los ejemplares (por ejemplo una estantería).
+     * "@param nuevoEstado" Parámetro: Estado a asignar.
+     * "@return" Retorna: Nº de ejemplares que han cambiado de estado (ver "cambiarEstado(FiltroEjemplares, EstadoEjemplar)").
+     */
+    public int cambiarEstadoPorUbicacion(String ubicacion, EstadoEjemplar nuevoEstado){
+        return cambiarEstado(FiltroEjemplares.porUbicacion(ubicacion), nuevoEstado);
+    }
+
+        // Lee y bloquea los ejemplares del filtro (y, si se indican, de un bloque de "ID"), los modifica con sentencias "UPDATE" masivas sobre los "ID" leídos y anota el cambio en el inventario resumido y en el índice de facetas.
+    private static int actualizarEstado(Session session, FiltroEjemplares filtro, List<Long> bloqueIds, EstadoEjemplar nuevoEstado){
+        String condicion = " WHERE (e.estado IS NULL OR e.estado <> :nuevoEstado)"
+                         + filtro.condicion()
+                         + (bloqueIds != null ? " AND e.id IN :ids" : "");
+
+        Query<Object[]> lectura = session.createQuery("SELECT e.id, e.libro.id, e.ubicacion, e.estado FROM Ejemplar e" + condicion, Object[].class)
+                                         .setLockOptions(new LockOptions(LockMode.PESSIMISTIC_WRITE));
+        asignarParametros(lectura, filtro, bloqueIds, nuevoEstado);
+        List<Object[]> afectados = lectura.list();
+
+        List<Long> leidos = new ArrayList<>(afectados.size());
+        for (Object[] ejemplar : afectados) leidos.add((Long) ejemplar[0]);
+        int modificados = 0;
+        for (int desde = 0; desde < leidos.size(); desde += TAMANO_BLOQUE_IN){
+            modificados += session.createQuery("UPDATE VERSIONED Ejemplar e SET e.estado = :nuevoEstado WHERE e.id IN :leidos AND (e.estado IS NULL OR e.estado <> :nuevoEstado)")
+                                  .setParameter("nuevoEstado", nuevoEstado)
+                                  .setParameterList("leidos", leidos.subList(desde, Math.min(desde + TAMANO_BLOQUE_IN, leidos.size())))
+                                  .executeUpdate();
+        }
+        if (afectados.size() != modificados) throw new StaleStateException("Otra transacción ha modificado ejemplares del filtro mientras se cambiaba su estado (leídos: " + afectados.size() + ", modificados: " + modificados + ")");
+
+        CambiosInventario cambios = CambiosInventario.deTransaccion(session);
+        CambiosFacetas facetas = CambiosFacetas.deTransaccion(session);
+        for (Object[] ejemplar : afectados){
+            Long idLibro = (Long) ejemplar[1];
+            String ubicacion = (String) ejemplar[2];
+            EstadoEjemplar estado = (EstadoEjemplar) ejemplar[3];
+            cambios.anotarCambio(idLibro, ubicacion, estado, idLibro, ubicacion, nuevoEstado);
+            facetas.anotarCambio((Long) ejemplar[0], idLibro, ubicacion, estado, idLibro, ubicacion, nuevoEstado);
+        }
+        return modificados;
+    }
+
+    private static void asignarParametros(Query<?> query, FiltroEjemplares filtro, List<Long> bloqueIds, EstadoEjemplar nuevoEstado){
+        query.setParameter("nuevoEstado", nuevoEstado);
+        filtro.asignarParametros(query);
+        if (bloqueIds != null) query.setParameterList("ids", bloqueIds);
+    }
+
+    /*
+     * Borra autores con todos sus libros y ejemplares, con sentencias "DELETE" por bloques en una única transacción (ver "PurgaCatalogo").
+     *
+     * "@param ids" Parámetro: "ID" de los autores.
+     * "@return" Retorna: Autores, libros y ejemplares borrados.
+     */
+    public ResultadoPurga eliminarAutores(Collection<Long> ids){
+        if (ids.isEmpty()) return new ResultadoPurga(0, 0, 0, Duration.ZERO);
+        return purgado(purga.eliminarAutores(ids));
+    }
+
+    /*
+     * "@param ids" Parámetro: "ID" de los libros.
+     * "@return" Retorna: Libros y ejemplares borrados (ver "eliminarAutores()").
+     */
+    public ResultadoPurga eliminarLibros(Collection<Long> ids){
+        if (ids.isEmpty()) return new ResultadoPurga(0, 0, 0, Duration.ZERO);
+        return purgado(purga.eliminarLibros(ids));
+    }
+
+    /*
+     * "@param ubicacion" Parámetro: Ubicación (estantería) a vaciar.
+     * "@return" Retorna: Ejemplares borrados (ver "eliminarAutores()").
+     */
+    public ResultadoPurga eliminarEjemplaresPorUbicacion(String ubicacion){
+        return purgado(purga.eliminarEjemplaresPorUbicacion(ubicacion));
+    }
+
+    private ResultadoPurga purgado(ResultadoPurga resultado){
+        if (resultado.getFilas() > 0) servicioEstadisticas.invalidar();
+        return resultado;
+    }
+
+
+    // ==================== PRÉSTAMOS ====================
+        /*
+         * Los préstamos y devoluciones son transiciones condicionales ("DISPONIBLE" → "PRESTADO" y "PRESTADO" → "DISPONIBLE") protegidas por el bloqueo optimista de "Ejemplar":
+         *   1. Se lee el ejemplar y se comprueba su estado; si no es el de partida, la transición no se aplica.
+         *   2. Al confirmar, el "UPDATE" incluye la versión leída: si otro mostrador ha prestado el mismo ejemplar entre medias no se actualiza ninguna fila y la transacción falla con un conflicto.
+         *   3. Tras un conflicto se vuelve a leer el ejemplar (ya "PRESTADO"), así que un ejemplar nunca se presta dos veces.
+         *
+         * No se bloquea ninguna tabla ni fila durante la lectura: solo chocan las transacciones que modifican el mismo ejemplar.
+         */
+
+    /*
+     * Presta un ejemplar concreto.
+     *
+     * "@param idEjemplar" Parámetro: ID del ejemplar.
+     * "@return" Retorna: "true" si el ejemplar estaba "DISPONIBLE" y ha pasado a "PRESTADO"; "false" si no existe o no estaba disponible.
+     */
+    public boolean prestarEjemplar(Long idEjemplar){
+        return transicion(idEjemplar, EstadoEjemplar.DISPONIBLE, EstadoEjemplar.PRESTADO).isPresent();
+    }
+
+    /*
+     * Registra la devolución de un ejemplar.
+     *
+     * "@param idEjemplar" Parámetro: ID del ejemplar.
+     * "@return" Retorna: "true" si el ejemplar estaba "PRESTADO" y ha pasado a "DISPONIBLE"; "false" si no existe o no estaba prestado.
+     */
+    public boolean devolverEjemplar(Long idEjemplar){
+        return transicion(idEjemplar, EstadoEjemplar.PRESTADO, EstadoEjemplar.DISPONIBLE).isPresent();
+    }
+
+    /*
+     * Presta cualquier ejemplar disponible de un libro.
+     *
+     *   1. Se resuelve el libro por ISBN (índice del catálogo) y se leen hasta "CANDIDATOS_PRESTAMO" ejemplares disponibles.
+     *   2. Los candidatos se recorren en orden aleatorio (así los mostradores que prestan el mismo libro a la vez no compiten siempre por el mismo ejemplar) intentando prestar cada uno.
+     *   3. Si otro mostrador se ha llevado todos los candidatos, se vuelven a leer mientras quede alguno disponible.
+     *      Cada candidato perdido lo ha prestado otro mostrador (o ha cambiado de estado), así que los disponibles se acaban y la espera termina.
+     *
+     * "@param isbn" Parámetro: ISBN del libro.
+     * "@return" Retorna: El ejemplar prestado, o vacío si el libro no existe o no le queda ningún ejemplar disponible.
+     */
+    public Optional<DetalleEjemplar> prestarCualquierEjemplar(String isbn){
+        Optional<Long> idLibro = resolverIdLibro(isbn);
+        if (!idLibro.isPresent()) return Optional.empty();
+
+        while (true){
+            List<Long> candidatos = HibernateUtil.enSesion(session ->
+                session.createQuery("SELECT e.id FROM Ejemplar e WHERE e.libro.id = :idLibro AND e.estado = :disponible", Long.class)
+                       .setParameter("idLibro", idLibro.get())
+                       .setParameter("disponible", EstadoEjemplar.DISPONIBLE)
+                       .setMaxResults(CANDIDATOS_PRESTAMO)
+                       .list());
+            if (candidatos.isEmpty()) return Optional.empty();
+
+            Collections.shuffle(candidatos, ThreadLocalRandom.current());
+            for (Long candidato : candidatos){
+                Optional<DetalleEjemplar> prestado = transicion(candidato, EstadoEjemplar.DISPONIBLE, EstadoEjemplar.PRESTADO);
+                if (prestado.isPresent()) return prestado;
+            }
+        }
+    }
+
+    /*
+     * Aplica la transición "desde" → "hasta" a un ejemplar si está en el estado "desde", repitiendo la lectura si hay un conflicto de versión.
+     *
+     * "@return" Retorna: El ejemplar tras la transición, o vacío si no existe o no estaba en el estado "desde".
+     */
+    private Optional<DetalleEjemplar> transicion(Long idEjemplar, EstadoEjemplar desde, EstadoEjemplar hasta){
+        Optional<DetalleEjemplar> resultado = HibernateUtil.enTransaccionConReintentos(MAX_INTENTOS_CONFLICTO, session -> {
+                // El estado se lee siempre de la base de datos (no de la caché de segundo nivel) y la lectura se deja en la caché.
+            session.setCacheMode(CacheMode.REFRESH);
+            Ejemplar ejemplar = session.get(Ejemplar.class, idEjemplar);
+            if (ejemplar == null || ejemplar.getEstado() != desde) return Optional.<DetalleEjemplar>empty();
+
+            ejemplar.setEstado(hasta);
+            return Optional.of(new DetalleEjemplar(ejemplar.getId(), ejemplar.getCodigoEjemplar(), ejemplar.getEstado(), ejemplar.getUbicacion()));
+        });
+        if (resultado.isPresent()) servicioEstadisticas.invalidar();
+        return resultado;
+    }
+
+
+    // ==================== LECTURAS ====================
+
+    /*
+     * Resuelve el "ID" de un libro a partir de su ISBN. Si el ISBN está en el índice del catálogo no se accede a la base de datos; si no, se consulta solo el "ID" y se registra en el índice.
+     * (Tras una inserción revertida el índice puede devolver un "ID" que no existe: cargarlo devuelve "null", ver "ListenerIndiceCatalogo").
+     *
+     * "@param isbn" Parámetro: ISBN del libro.
+     * "@return" Retorna: "ID" del libro, o vacío si no existe.
+     */
+    public Optional<Long> resolverIdLibro(String isbn){
+        IndiceCatalogo indice = IndiceCatalogo.getInstancia();
+        Long id = indice.idLibro(isbn);
+        if (id != null) return Optional.of(id);
+
+        Optional<Long> encontrado = HibernateUtil.enSesion(session ->
+            session.createQuery("SELECT l.id FROM Libro l WHERE l.isbn = :isbn", Long.class)
+                   .setParameter("isbn", isbn)
+                   .uniqueResultOptional());
+        encontrado.ifPresent(idLibro -> indice.registrarLibro(isbn, idLibro));
+        return encontrado;
+    }
+
+    /*
+     * Resuelve el "ID" de un ejemplar a partir de su código, igual que "resolverIdLibro()".
+     *
+     * "@param codigoEjemplar" Parámetro: Código del ejemplar.
+     * "@return" Retorna: "ID" del ejemplar, o vacío si no existe.
+     */
+    public Optional<Long> resolverIdEjemplar(String codigoEjemplar){
+        IndiceCatalogo indice = IndiceCatalogo.getInstancia();
+        Long id = indice.idEjemplar(codigoEjemplar);
+        if (id != null) return Optional.of(id);
+
+        Optional<Long> encontrado = HibernateUtil.enSesion(session ->
+            session.createQuery("SELECT e.id FROM Ejemplar e WHERE e.codigoEjemplar = :codigo", Long.class)
+                   .setParameter("codigo", codigoEjemplar)
+                   .uniqueResultOptional());
+        encontrado.ifPresent(idEjemplar -> indice.registrarEjemplar(codigoEjemplar, idEjemplar));
+        return encontrado;
+    }
+
+    /*
+     * Resuelve los "ID" de varios libros a la vez a partir de sus ISBN:
+     *   1. Los ISBN que están en el índice del catálogo no acceden a la base de datos (mismas garantías que "resolverIdLibro()").
+     *   2. El resto se consulta con "consultarIdsLibros()" (sentencias "IN" por bloques en una sola sesión) y los encontrados se registran en el índice.
+     *
+     * "@param isbns" Parámetro: ISBN de los libros.
+     * "@return" Retorna: Un elemento por ISBN distinto, en el orden de entrada, con su "ID" o vacío si no existe (también para "null").
+     */
+    public Map<String, Optional<Long>> resolverIdsLibros(Collection<String> isbns){
+        IndiceCatalogo indice = IndiceCatalogo.getInstancia();
+        return resolverIds(isbns, indice::idLibro, indice::registrarLibro, this::consultarIdsLibros);
+    }
+
+    /*
+     * Resuelve los "ID" de varios ejemplares a la vez a partir de sus códigos, igual que "resolverIdsLibros()".
+     *
+     * "@param codigos" Parámetro: Códigos de los ejemplares.
+     * "@return" Retorna: Un elemento por código distinto, en el orden de entrada, con su "ID" o vacío si no existe (también para "null").
+     */
+    public Map<String, Optional<Long>> resolverIdsEjemplares(Collection<String> codigos){
+        IndiceCatalogo indice = IndiceCatalogo.getInstancia();
+        return resolverIds(codigos, indice::idEjemplar, indice::registrarEjemplar, this::consultarIdsEjemplares);
+    }
+
+    /*
+     * Consulta los "ID" de varios libros a partir de sus ISBN sin pasar por el índice del catálogo: una sentencia "SELECT l.isbn, l.id ... IN (...)" por cada bloque de "TAMANO_BLOQUE_IN" ISBN (muy por debajo del límite de parámetros del driver), todas en la misma sesión.
+     *
+     * "@param isbns" Parámetro: ISBN de los libros.
+     * "@return" Retorna: Un elemento por ISBN distinto, en el orden de entrada, con su "ID" o vacío si no existe (también para "null").
+     */
+    public Map<String, Optional<Long>> consultarIdsLibros(Collection<String> isbns){
+        return consultarIds(isbns, "SELECT l.isbn, l.id FROM Libro l WHERE l.isbn IN :claves");
+    }
+
+    /*
+     * Consulta los "ID" de varios ejemplares a partir de sus códigos sin pasar por el índice del catálogo, igual que "consultarIdsLibros()".
+     *
+     * "@param codigos" Parámetro: Códigos de los ejemplares.
+     * "@return" Retorna: Un elemento por código distinto, en el orden de entrada, con su "ID" o vacío si no existe (también para "null").
+     */
+    public Map<String, Optional<Long>> consultarIdsEjemplares(Collection<String> codigos){
+        return consultarIds(codigos, "SELECT e.codigoEjemplar, e.id FROM Ejemplar e WHERE e.codigoEjemplar IN :claves");
+    }
+
+    /*
+     * Resuelve varios ISBN con "resolverIdsLibros()" y añade el nº de ejemplares de cada libro en cada estado, leído del inventario resumido (una consulta agrupada por bloque de "ID", ver "ServicioEstadisticas.consultarInventarioLibros()").
+     *
+     * "@param isbns" Parámetro: ISBN de los libros.
+     * "@return" Retorna: Un elemento por ISBN distinto, en el orden de entrada, con la disponibilidad del libro o vacío si no existe (también para "null").
+     */
+    public Map<String, Optional<DisponibilidadLibro>> consultarDisponibilidadLibros(Collection<String> isbns){
+        Map<String, Optional<Long>> ids = resolverIdsLibros(isbns);
+        List<Long> encontrados = new ArrayList<>(ids.size());
+        for (Optional<Long> id : ids.values()) id.ifPresent(encontrados::add);
+        Map<Long, Map<EstadoEjemplar, Long>> inventario = servicioEstadisticas.consultarInventarioLibros(encontrados);
+
+        Map<String, Optional<DisponibilidadLibro>> disponibilidad = new LinkedHashMap<>();
+        ids.forEach((isbn, id) -> disponibilidad.put(isbn, id.map(idLibro -> new DisponibilidadLibro(isbn, idLibro, inventario.get(idLibro)))));
+        return disponibilidad;
+    }
+
+        // Resuelve cada clave distinta en el índice y consulta en bloque las que faltan; las encontradas en la base de datos se registran en el índice.
+    private static Map<String, Optional<Long>> resolverIds(Collection<String> claves, Function<String, Long> enIndice, BiConsumer<String, Long> registrar, Function<List<String>, Map<String, Optional<Long>>> consultar){
+        Map<String, Optional<Long>> ids = new LinkedHashMap<>();
+        List<String> pendientes = new ArrayList<>();
+        for (String clave : claves){
+            if (ids.containsKey(clave)) continue;
+            Long id = enIndice.apply(clave);
+            ids.put(clave, Optional.ofNullable(id));
+            if (id == null && clave != null) pendientes.add(clave);
+        }
+        if (pendientes.isEmpty()) return ids;
+
+        consultar.apply(pendientes).forEach((clave, id) -> id.ifPresent(encontrado -> {
+            ids.put(clave, id);
+            registrar.accept(clave, encontrado);
+        }));
+        return ids;
+    }
+
+        // Lanza la consulta "clave, ID ... IN :claves" por bloques de "TAMANO_BLOQUE_IN" claves distintas. Solo se aceptan las filas cuya clave coincide exactamente con la pedida (la colación de MySQL no distingue mayúsculas).
+    private static Map<String, Optional<Long>> consultarIds(Collection<String> claves, String hql){
+        Map<String, Optional<Long>> ids = new LinkedHashMap<>();
+        for (String clave : claves) ids.putIfAbsent(clave, Optional.empty());
+        List<String> pendientes = new ArrayList<>(ids.keySet());
+        pendientes.remove(null);
+        if (pendientes.isEmpty()) return ids;
+
+        Map<String, Long> encontrados = HibernateUtil.enSesion(session -> {
+            Map<String, Long> resultado = new HashMap<>();
+            for (int desde = 0; desde < pendientes.size(); desde += TAMANO_BLOQUE_IN){
+                List<Object[]> filas = session.createQuery(hql, Object[].class)
+                                              .setParameterList("claves", pendientes.subList(desde, Math.min(desde + TAMANO_BLOQUE_IN, pendientes.size())))
+                                              .list();
+                for (Object[] fila : filas) resultado.put((String) fila[0], (Long) fila[1]);
+            }
+            return resultado;
+        });
+        encontrados.forEach((clave, id) -> {
+            if (ids.containsKey(clave)) ids.put(clave, Optional.of(id));
+        });
+        return ids;
+    }
+
+    /*
+     * "@param codigoEjemplar" Parámetro: Código del ejemplar.
+     * "@return" Retorna: El ejemplar (con su libro sin inicializar), o vacío si no existe.
+     */
+    public Optional<Ejemplar> buscarEjemplarPorCodigo(String codigoEjemplar){
+        return HibernateUtil.enSesion(session -> {
+            IndiceCatalogo indice = IndiceCatalogo.getInstancia();
+            Long id = indice.idEjemplar(codigoEjemplar);
+            if (id != null){
+                Ejemplar ejemplar = session.get(Ejemplar.class, id);
+                if (ejemplar != null && codigoEjemplar.equals(ejemplar.getCodigoEjemplar())) return Optional.of(ejemplar);
+                indice.eliminarEjemplar(codigoEjemplar, id);
+            }
+
+            Optional<Ejemplar> ejemplar = session.createQuery("FROM Ejemplar e WHERE e.codigoEjemplar = :codigo", Ejemplar.class)
+                                                 .setParameter("codigo", codigoEjemplar)
+                                                 .uniqueResultOptional();
+            ejemplar.ifPresent(e -> indice.registrarEjemplar(codigoEjemplar, e.getId()));
+            return ejemplar;
+        });
+    }
+
+    /*
+     * "@return" Retorna: Todos los autores registrados (sin sus libros).
+     */
+    public List<Autor> listarTodosLosAutores(){
+        return HibernateUtil.enLectura(session -> session.createQuery("FROM Autor", Autor.class).list());
+    }
+
+    /*
+     * Busca un libro por su ID con su autor y sus ejemplares ya inicializados.
+     *   1. Si el libro está en la caché de segundo nivel, el libro, el autor y los ejemplares se leen de la caché (sin SQL si también lo están su autor y su colección de ejemplares).
+     *   2. Si no, se trae todo en una única consulta ("JOIN FETCH"), que además deja el libro, el autor y los ejemplares en la caché para las siguientes lecturas.
+     *      El "DISTINCT" solo elimina en memoria las filas repetidas del libro (una por ejemplar); no se envía a SQL ("HINT_PASS_DISTINCT_THROUGH").
+     *
+     * "@param id" Parámetro: ID del libro.
+     * "@return" Retorna: El libro, o vacío si no existe.
+     */
+    public Optional<Libro> buscarLibroPorId(Long id){
+        return HibernateUtil.enLectura(session -> {
+            if (enCache(Libro.class, id)){
+                Libro libro = session.get(Libro.class, id);
+                if (libro != null){
+                    Hibernate.initialize(libro.getAutor());
+                    Hibernate.initialize(libro.getEjemplares());
+                }
+                return Optional.ofNullable(libro);
+            }
+            return session.createQuery("SELECT DISTINCT l FROM Libro l LEFT JOIN FETCH l.autor LEFT JOIN FETCH l.ejemplares WHERE l.id = :id", Libro.class)
+                          .setParameter("id", id)
+                          .setHint(QueryHints.HINT_PASS_DISTINCT_THROUGH, false)
+                          .uniqueResultOptional();
+        });
+    }
+
+    /*
+     * Obtiene la vista de detalle de un libro (libro, autor y ejemplares).
+     *
+     * Si el libro ya está en la caché de segundo nivel, el detalle se arma desde la caché (libro, autor, colección de libros del autor y ejemplares) sin lanzar ninguna consulta.
+     * Si no, se obtiene con "consultarDetalleLibro()".
+     *
+     * "@param id" Parámetro: ID del libro.
+     * "@return" Retorna: Detalle del libro, o vacío si no existe.
+     */
+    public Optional<DetalleLibro> obtenerDetalleLibro(Long id){
+        return HibernateUtil.enLectura(session -> {
+            if (enCache(Libro.class, id)){
+                Libro libro = session.get(Libro.class, id);
+                if (libro == null) return Optional.<DetalleLibro>empty();
+                return Optional.of(aDetalle(libro, libro.getAutor() != null ? libro.getAutor().getLibros().size() : 0));
+            }
+            return proyectarDetalle(session, id);
+        });
+    }
+
+    /*
+     * Obtiene la vista de detalle de un libro de la base de datos (sin pasar por la caché de segundo nivel) con una única sentencia SQL que proyecta solo las columnas del detalle.
+     *
+     *   1. Una fila por ejemplar ("LEFT JOIN" con autor y ejemplares; una sola fila con los ejemplares a "null" si el libro no tiene ninguno).
+     *   2. "SIZE(a.libros)" se resuelve como una subconsulta dentro de la misma sentencia, así que el nº de libros del autor no obliga a cargar su colección.
+     *   3. Las filas son valores sueltos, no entidades: Hibernate no crea "Libro", "Autor" ni "Ejemplar", no los guarda en la sesión ni en la caché de segundo nivel, y el DTO se arma directamente.
+     *
+     * "@param id" Parámetro: ID del libro.
+     * "@return" Retorna: Detalle del libro, o vacío si no existe.
+     */
+    public Optional<DetalleLibro> consultarDetalleLibro(Long id){
+        return HibernateUtil.enLectura(session -> proyectarDetalle(session, id));
+    }
+
+    private static Optional<DetalleLibro> proyectarDetalle(Session session, Long id){
+        List<Object[]> filas = session.createQuery("SELECT l.id, l.titulo, l.isbn, l.fechaPublicacion, l.numeroPaginas,"
+                                                 + " a.id, a.nombre, a.apellidos, a.nacionalidad, a.fechaNacimiento, SIZE(a.libros),"
+                                                 + " e.id, e.codigoEjemplar, e.estado, e.ubicacion"
+                                                 + " FROM Libro l LEFT JOIN l.autor a LEFT JOIN l.ejemplares e WHERE l.id = :id ORDER BY e.id", Object[].class)
+                                      .setParameter("id", id)
+                                      .list();
+        if (filas.isEmpty()) return Optional.empty();
+
+        List<DetalleEjemplar> ejemplares = new ArrayList<>(filas.size());
+        for (Object[] fila : filas){
+            if (fila[11] != null) ejemplares.add(new DetalleEjemplar((Long) fila[11], (String) fila[12], (EstadoEjemplar) fila[13], (String) fila[14]));
+        }
+
+        Object[] libro = filas.get(0);
+        return Optional.of(new DetalleLibro(
+                (Long) libro[0], (String) libro[1], (String) libro[2], (LocalDate) libro[3], (Integer) libro[4],
+                (Long) libro[5], (String) libro[6], (String) libro[7], (String) libro[8], (LocalDate) libro[9],
+                libro[5] != null ? ((Number) libro[10]).longValue() : 0,
+                ejemplares));
+    }
+
+    /*
+     * Convierte un libro (con su autor y sus ejemplares accesibles) en su vista de detalle.
+     */
+    private static DetalleLibro aDetalle(Libro libro, long librosDelAutor){
+        Autor autor = libro.getAutor();
+
+        List<DetalleEjemplar> ejemplares = new ArrayList<>(libro.getEjemplares().size());
+        for (Ejemplar ejemplar : libro.getEjemplares()){
+            ejemplares.add(new DetalleEjemplar(ejemplar.getId(), ejemplar.getCodigoEjemplar(), ejemplar.getEstado(), ejemplar.getUbicacion()));
+        }
+
+        return new DetalleLibro(
+                libro.getId(), libro.getTitulo(), libro.getIsbn(), libro.getFechaPublicacion(), libro.getNumeroPaginas(),
+                autor != null ? autor.getId() : null,
+                autor != null ? autor.getNombre() : null,
+                autor != null ? autor.getApellidos() : null,
+                autor != null ? autor.getNacionalidad() : null,
+                autor != null ? autor.getFechaNacimiento() : null,
+                autor != null ? librosDelAutor : 0,
+                ejemplares);
+    }
+
+    /*
+     * "@return" Retorna: "true" si la entidad está en la caché de segundo nivel (la comprobación no lanza SQL).
+     */
+    private static boolean enCache(Class<?> entidad, Long id){
+        return HibernateUtil.getSessionFactory().getCache().containsEntity(entidad, id);
+    }
+
+    /*
+     * Busca todos los ejemplares con un estado, trayendo en la misma consulta su libro y el autor del libro ("LEFT JOIN": también los ejemplares sin libro o cuyo libro no tiene autor).
+     *
+     * "@param estado" Parámetro: Estado por el que filtrar.
+     * "@return" Retorna: Ejemplares con ese estado.
+     */
+    public List<Ejemplar> buscarEjemplaresPorEstado(EstadoEjemplar estado){
+        return HibernateUtil.enLectura(session ->
+            session.createQuery("SELECT e FROM Ejemplar e LEFT JOIN FETCH e.libro l LEFT JOIN FETCH l.autor WHERE e.estado = :estado", Ejemplar.class)
+                   .setParameter("estado", estado)
+                   .list());
+    }
+
+
+    // ==================== BÚSQUEDA POR TEXTO ====================
+
+    /*
+     * Busca libros por palabras de su título o del nombre y apellidos de su autor, sin distinguir mayúsculas ni acentos ("manana batalla" encuentra "Mañana en la batalla piensa en mí").
+     * Cada palabra de al menos "IndiceTextoCatalogo.LONGITUD_MINIMA_PREFIJO" letras encuentra también las que empiezan por ella; el libro debe contenerlas todas.
+     *   1. Con el índice de texto cargado ("IndiceTextoCatalogo") se resuelve en memoria, del más al menos relevante, sin acceder a la base de datos.
+     *   2. Mientras se carga (o si su carga ha fallado o está desactivada), con "consultarIdsLibrosPorTexto()". Con "biblioteca.indices.carga=perezosa" la primera búsqueda lanza su carga.
+     * (Tras una inserción revertida el índice puede devolver un "ID" que no existe: cargarlo devuelve "null", igual que con "IndiceCatalogo").
+     *
+     * "@param texto"  Parámetro: Palabras a buscar.
+     * "@param limite" Parámetro: Nº máximo de resultados (1 .. "LIMITE_MAXIMO_PAGINA").
+     * "@return" Retorna: "ID" de los libros encontrados.
+     */
+    public List<Long> buscarIdsLibrosPorTexto(String texto, int limite){
+        validarLimite(limite);
+        IndiceTextoCatalogo indice = IndiceTextoCatalogo.getInstancia();
+        if (indice.isCargado()) return indice.buscar(texto, limite);
+        HibernateUtil.cargarIndicesSiHacenFalta();
+        return consultarIdsLibrosPorTexto(texto, limite);
+    }
+
+    /*
+     * Misma búsqueda que "buscarIdsLibrosPorTexto()" con "LIKE '%palabra%'" sobre cada palabra (recorre las tablas "libros" y "autores" enteras).
+     * Los acentos solo se ignoran si la colación de la base de datos lo hace (la de MySQL por defecto sí); el resultado se ordena por "ID", sin relevancia.
+     * Los libros sin autor también se buscan ("LEFT JOIN"), solo por su título.
+     *
+     * "@param texto"  Parámetro: Palabras a buscar.
+     * "@param limite" Parámetro: Nº máximo de resultados (1 .. "LIMITE_MAXIMO_PAGINA").
+     * "@return" Retorna: "ID" de los libros encontrados.
+     */
+    public List<Long> consultarIdsLibrosPorTexto(String texto, int limite){
+        validarLimite(limite);
+        String[] terminos = IndiceTextoCatalogo.terminos(texto);
+        if (terminos.length == 0) return Collections.emptyList();
+
+        StringBuilder hql = new StringBuilder("SELECT l.id FROM Libro l LEFT JOIN l.autor a WHERE 1 = 1");
+        for (int i = 0; i < terminos.length; i++){
+            hql.append(" AND (lower(l.titulo) LIKE :t").append(i)
+               .append(" OR lower(a.nombre) LIKE :t").append(i)
+               .append(" OR lower(a.apellidos) LIKE :t").append(i).append(')');
+        }
+        hql.append(" ORDER BY l.id");
+        return HibernateUtil.enLectura(session -> {
+            Query<Long> query = session.createQuery(hql.toString(), Long.class).setMaxResults(limite);
+            for (int i = 0; i < terminos.length; i++) query.setParameter("t" + i, "%" + terminos[i] + "%");
+            return query.list();
+        });
+    }
+
+
+    // ==================== FILTRO DE EJEMPLARES POR FACETAS ====================
+
+    /*
+     * Filtra los ejemplares por cualquier combinación de estados, ubicaciones y libros ("DISPONIBLE" en "E-10" o "E-11"): dentro de cada faceta basta con uno de los valores y el ejemplar debe cumplir todas.
+     * Devuelve también cuántos ejemplares hay en cada estado y en cada ubicación con el resto de filtros (ver "ResultadoFacetas").
+     *   1. Con el índice de facetas cargado ("IndiceFacetasEjemplares") se resuelve en memoria con intersecciones y uniones de mapas de bits, sin acceder a la base de datos.
+     *   2. Mientras se carga (o si su carga ha fallado o está desactivada), con "consultarEjemplaresPorFacetas()". Con "biblioteca.indices.carga=perezosa" la primera búsqueda lanza su carga.
+     * (Tras un borrado hecho fuera de Hibernate el índice puede devolver un "ID" que ya no existe hasta la siguiente reconstrucción: cargarlo devuelve "null").
+     *
+     * "@param estados"     Parámetro: Estados admitidos ("null" o vacío: cualquiera).
+     * "@param ubicaciones" Parámetro: Ubicaciones admitidas ("null" o vacío: cualquiera).
+     * "@param libros"      Parámetro: "ID" de los libros admitidos ("null" o vacío: cualquiera).
+     * "@param limite"      Parámetro: Nº máximo de "ID" a devolver (1 .. "LIMITE_MAXIMO_PAGINA").
+     * "@return" Retorna: Los "limite" primeros "ID" (en orden creciente), el total y los recuentos por estado y por ubicación.
+     */
+    public ResultadoFacetas buscarEjemplaresPorFacetas(Collection<EstadoEjemplar> estados, Collection<String> ubicaciones, Collection<Long> libros, int limite){
+        validarLimite(limite);
+        IndiceFacetasEjemplares indice = IndiceFacetasEjemplares.getInstancia();
+        if (indice.isCargado()) return indice.buscar(estados, ubicaciones, libros, limite);
+        HibernateUtil.cargarIndicesSiHacenFalta();
+        return consultarEjemplaresPorFacetas(estados, ubicaciones, libros, limite);
+    }
+
+    /*
+     * Mismo filtro que "buscarEjemplaresPorFacetas()" con consultas "HQL": los "ID", el total y un "GROUP BY" por cada faceta con recuentos (cuatro consultas en la misma sesión).
+     *
+     * "@param estados"     Parámetro: Estados admitidos ("null" o vacío: cualquiera).
+     * "@param ubicaciones" Parámetro: Ubicaciones admitidas ("null" o vacío: cualquiera).
+     * "@param libros"      Parámetro: "ID" de los libros admitidos ("null" o vacío: cualquiera).
+     * "@param limite"      Parámetro: Nº máximo de "ID" a devolver (1 .. "LIMITE_MAXIMO_PAGINA").
+     * "@return" Retorna: Los "limite" primeros "ID" (en orden creciente), el total y los recuentos por estado y por ubicación.
+     */
+    public ResultadoFacetas consultarEjemplaresPorFacetas(Collection<EstadoEjemplar> estados, Collection<String> ubicaciones, Collection<Long> libros, int limite){
+        validarLimite(limite);
+        boolean porEstado = estados != null && !estados.isEmpty();
+        boolean porUbicacion = ubicaciones != null && !ubicaciones.isEmpty();
+        boolean porLibro = libros != null && !libros.isEmpty();
+        String condicionEstado = porEstado ? " AND e.estado IN :estados" : "";
+        String condicionUbicacion = porUbicacion ? " AND e.ubicacion IN :ubicaciones" : "";
+        String condicionLibro = porLibro ? " AND e.libro.id IN :libros" : "";
+
+        return HibernateUtil.enLectura(session -> {
+            Query<Long> consultaIds = session.createQuery("SELECT e.id FROM Ejemplar e WHERE 1 = 1" + condicionEstado + condicionUbicacion + condicionLibro + " ORDER BY e.id", Long.class)
+                                             .setMaxResults(limite);
+            Query<Long> consultaTotal = session.createQuery("SELECT COUNT(e) FROM Ejemplar e WHERE 1 = 1" + condicionEstado + condicionUbicacion + condicionLibro, Long.class);
+            Query<Object[]> consultaEstados = session.createQuery("SELECT e.estado, COUNT(e) FROM Ejemplar e WHERE e.estado IS NOT NULL" + condicionUbicacion + condicionLibro + " GROUP BY e.estado", Object[].class);
+            Query<Object[]> consultaUbicaciones = session.createQuery("SELECT e.ubicacion, COUNT(e) FROM Ejemplar e WHERE e.ubicacion IS NOT NULL" + condicionEstado + condicionLibro + " GROUP BY e.ubicacion", Object[].class);
+            for (Query<?> query : List.of(consultaIds, consultaTotal, consultaEstados, consultaUbicaciones)){
+                if (porEstado && query != consultaEstados) query.setParameterList("estados", estados);
+                if (porUbicacion && query != consultaUbicaciones) query.setParameterList("ubicaciones", ubicaciones);
+                if (porLibro) query.setParameterList("libros", libros);
+            }
+
+            Map<EstadoEjemplar, Long> conteoEstados = new HashMap<>();
+            for (Object[] fila : consultaEstados.list()) conteoEstados.put((EstadoEjemplar) fila[0], (Long) fila[1]);
+            Map<String, Long> conteoUbicaciones = new HashMap<>();
+            for (Object[] fila : consultaUbicaciones.list()) conteoUbicaciones.put((String) fila[0], (Long) fila[1]);
+            return new ResultadoFacetas(consultaIds.list(), consultaTotal.uniqueResult(), conteoEstados, conteoUbicaciones);
+        });
+    }
+
+
+    // ==================== LISTADOS PAGINADOS ====================
+        /*
+         * Paginación por clave ("keyset"): cada página filtra "id > ultimoId" ordenando por "id" con un límite, en lugar de cargar la tabla completa.
+         * El testigo de continuación de la página ("Pagina.getSiguienteToken()") se pasa a la siguiente llamada; "null" empieza por el principio.
+         */
+
+    /*
+     * "@param token"  Parámetro: Testigo de la página anterior, o "null" para la primera página.
+     * "@param limite" Parámetro: Nº máximo de autores de la página (1 .. "LIMITE_MAXIMO_PAGINA").
+     * "@return" Retorna: Página de autores (sin sus libros).
+     */
+    public Pagina<Autor> listarAutores(String token, int limite){
+        return HibernateUtil.enLectura(session ->
+            paginar(session.createQuery("FROM Autor a WHERE a.id > :ultimoId ORDER BY a.id", Autor.class), Autor::getId, token, limite));
+    }
+
+    /*
+     * "@param token"  Parámetro: Testigo de la página anterior, o "null" para la primera página.
+     * "@param limite" Parámetro: Nº máximo de libros de la página (1 .. "LIMITE_MAXIMO_PAGINA").
+     * "@return" Retorna: Página de libros con su autor (sin sus ejemplares). Los libros sin autor también aparecen ("LEFT JOIN FETCH"), con el autor a "null".
+     */
+    public Pagina<Libro> listarLibros(String token, int limite){
+        return HibernateUtil.enLectura(session ->
+            paginar(session.createQuery("SELECT l FROM Libro l LEFT JOIN FETCH l.autor WHERE l.id > :ultimoId ORDER BY l.id", Libro.class), Libro::getId, token, limite));
+    }
+
+    /*
+     * "@param estado" Parámetro: Estado por el que filtrar.
+     * "@param token"  Parámetro: Testigo de la página anterior, o "null" para la primera página.
+     * "@param limite" Parámetro: Nº máximo de ejemplares de la página (1 .. "LIMITE_MAXIMO_PAGINA").
+     * "@return" Retorna: Página de ejemplares con ese estado, con su libro y el autor del libro. Los ejemplares sin libro, o cuyo libro no tiene autor, también aparecen ("LEFT JOIN FETCH").
+     *
+     * Se ordena por "e.estado, e.id" (el estado es fijo, así que el orden es el mismo que por "ID") para que coincida con el índice "idx_ejemplares_estado" y la página se lea en su orden, sin ordenar todos los ejemplares del estado.
+     */
+    public Pagina<Ejemplar> listarEjemplaresPorEstado(EstadoEjemplar estado, String token, int limite){
+        return HibernateUtil.enLectura(session ->
+            paginar(session.createQuery("SELECT e FROM Ejemplar e LEFT JOIN FETCH e.libro l LEFT JOIN FETCH l.autor WHERE e.estado = :estado AND e.id > :ultimoId ORDER BY e.estado, e.id", Ejemplar.class)
+                           .setParameter("estado", estado),
+                    Ejemplar::getId, token, limite));
+    }
+
+        // Aplica el filtro por clave y el límite a la consulta (que debe usar ":ultimoId" y ordenar por "id"). Pide un elemento de más para saber si existe una página siguiente.
+    private static <T> Pagina<T> paginar(Query<T> query, Function<T, Long> id, String token, int limite){
+        validarLimite(limite);
+
+        List<T> elementos = query.setParameter("ultimoId", Pagina.decodificarToken(token))
+                                 .setMaxResults(limite + 1)
+                                 .list();
+        if (elementos.size() <= limite) return new Pagina<>(elementos, null);
+
+        List<T> pagina = elementos.subList(0, limite);
+        return new Pagina<>(pagina, Pagina.codificarToken(id.apply(pagina.get(limite - 1))));
+    }
+
+    private static void validarLimite(int limite){
+        if (limite < 1 || limite > LIMITE_MAXIMO_PAGINA) throw new IllegalArgumentException("El límite de la página debe estar entre 1 y " + LIMITE_MAXIMO_PAGINA + ": " + limite);
+    }
+
+
+    // ==================== LISTADOS PAGINADOS (PROYECCIONES) ====================
+        /*
+         * Mismas páginas que los listados anteriores, pero cada fila se construye directamente como DTO en la consulta ("SELECT new ..."):
+         *   1. Solo se leen las columnas que muestra el listado (sin "version" ni claves ajenas que no se usan).
+         *   2. Hibernate no crea entidades, proxies ni colecciones, ni guarda su copia en la sesión para detectar cambios ("dirty checking").
+         *   3. El nº de libros del autor sale en la misma sentencia ("SIZE(a.libros)"), sin inicializar la colección.
+         */
+
+    /*
+     * "@param token"  Parámetro: Testigo de la página anterior, o "null" para la primera página.
+     * "@param limite" Parámetro: Nº máximo de autores de la página (1 .. "LIMITE_MAXIMO_PAGINA").
+     * "@return" Retorna: Página de autores con su nº de libros.
+     */
+    public Pagina<ResumenAutor> listarResumenAutores(String token, int limite){
+        return HibernateUtil.enLectura(session ->
+            paginar(session.createQuery("SELECT new com.dam.dto.ResumenAutor(a.id, a.nombre, a.apellidos, a.nacionalidad, a.fechaNacimiento, SIZE(a.libros))"
+                                      + " FROM Autor a WHERE a.id > :ultimoId ORDER BY a.id", ResumenAutor.class),
+                    ResumenAutor::getId, token, limite));
+    }
+
+    /*
+     * "@param estado" Parámetro: Estado por el que filtrar.
+     * "@param token"  Parámetro: Testigo de la página anterior, o "null" para la primera página.
+     * "@param limite" Parámetro: Nº máximo de ejemplares de la página (1 .. "LIMITE_MAXIMO_PAGINA").
+     * "@return" Retorna: Página de ejemplares con ese estado, con los datos de su libro y del autor del libro (mismo orden e índice que "listarEjemplaresPorEstado()").
+     *           Incluye los ejemplares sin libro o cuyo libro no tiene autor ("LEFT JOIN"): sus datos quedan a "null" y los números a 0.
+     */
+    public Pagina<ResumenEjemplar> listarResumenEjemplaresPorEstado(EstadoEjemplar estado, String token, int limite){
+        return HibernateUtil.enLectura(session ->
+            paginar(session.createQuery("SELECT new com.dam.dto.ResumenEjemplar(e.id, e.codigoEjemplar, e.estado, e.ubicacion,"
+                                      + " l.id, l.titulo, l.isbn, l.fechaPublicacion, COALESCE(l.numeroPaginas, 0),"
+                                      + " a.id, a.nombre, a.apellidos, a.nacionalidad, a.fechaNacimiento, SIZE(a.libros))"
+                                      + " FROM Ejemplar e LEFT JOIN e.libro l LEFT JOIN l.autor a WHERE e.estado = :estado AND e.id > :ultimoId ORDER BY e.estado, e.id", ResumenEjemplar.class)
+                           .setParameter("estado", estado),
+                    ResumenEjemplar::getId, token, limite));
+    }
+
+
+    // ==================== EXPORTACIONES COMPLETAS ====================
+        /*
+         * Recorren todos los resultados en streaming ("ScrollableResults" en modo "FORWARD_ONLY") con una "StatelessSession":
+         *   1. El driver entrega las filas en bloques de "TAMANO_LOTE_EXPORTACION" ("fetch size"; en MySQL requiere "useCursorFetch", ver "hibernate.cfg.xml").
+         *   2. La sesión sin estado no guarda las entidades leídas, así que la memoria no crece con el nº de filas.
+         *   3. Cada entidad se entrega al consumidor según se lee; el consumidor no debe guardarlas todas si se quiere mantener la memoria acotada.
+         */
+
+    /*
+     * "@param destino" Parámetro: Consumidor que recibe cada autor (sin sus libros).
+     * "@return" Retorna: Nº de autores recorridos.
+     */
+    public long exportarAutores(Consumer<Autor> destino){
+        return recorrer(session -> session.createQuery("FROM Autor a ORDER BY a.id", Autor.class), destino);
+    }
+
+    /*
+     * "@param destino" Parámetro: Consumidor que recibe cada libro con su autor (sin sus ejemplares), también los libros sin autor.
+     * "@return" Retorna: Nº de libros recorridos.
+     */
+    public long exportarLibros(Consumer<Libro> destino){
+        return recorrer(session -> session.createQuery("SELECT l FROM Libro l LEFT JOIN FETCH l.autor ORDER BY l.id", Libro.class), destino);
+    }
+
+    /*
+     * "@param estado"  Parámetro: Estado por el que filtrar.
+     * "@param destino" Parámetro: Consumidor que recibe cada ejemplar con su libro y el autor del libro, también los ejemplares sin libro o cuyo libro no tiene autor.
+     * "@return" Retorna: Nº de ejemplares recorridos.
+     */
+    public long exportarEjemplaresPorEstado(EstadoEjemplar estado, Consumer<Ejemplar> destino){
+        return recorrer(session -> session.createQuery("SELECT e FROM Ejemplar e LEFT JOIN FETCH e.libro l LEFT JOIN FETCH l.autor WHERE e.estado = :estado ORDER BY e.estado, e.id", Ejemplar.class)
+                                          .setParameter("estado", estado),
+                        destino);
+    }
+
+        // Abre una "StatelessSession", recorre la consulta en streaming y entrega cada fila al consumidor.
+    @SuppressWarnings("unchecked")
+    private static <T> long recorrer(Function<StatelessSession, Query<T>> consulta, Consumer<T> destino){
+        StatelessSession session = HibernateUtil.abrirSesionSinEstadoLectura();
+        try (ScrollableResults filas = consulta.apply(session)
+                                               .setFetchSize(TAMANO_LOTE_EXPORTACION)
+                                               .setReadOnly(true)
+                                               .scroll(ScrollMode.FORWARD_ONLY)){
+            long total = 0;
+            while (filas.next()){
+                destino.accept((T) filas.get(0));
+                total++;
+            }
+            return total;
+        } finally{
+            session.close();
+        }
+    }
+
+
+    /*
+     * "@return" Retorna: Estadísticas globales de la biblioteca (ver "ServicioEstadisticas").
+     */
+    public EstadisticasBiblioteca obtenerEstadisticas(){ return servicioEstadisticas.obtenerEstadisticas(); }
+
+    /*
+     * "@return" Retorna: Nº de ejemplares del libro (o de la ubicación) en cada estado, leído del inventario resumido (ver "ServicioEstadisticas").
+     */
+    public Map<EstadoEjemplar, Long> obtenerInventarioLibro(Long idLibro){ return servicioEstadisticas.consultarInventarioLibro(idLibro); }
+    public Map<EstadoEjemplar, Long> obtenerInventarioUbicacion(String ubicacion){ return servicioEstadisticas.consultarInventarioUbicacion(ubicacion); }
+}
@@ -0,0 +1,167 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.gestion;
+
+
+// Importa de la biblioteca/librería el paquete "DetalleEjemplar".
+import com.dam.dto.DetalleEjemplar;
+// Importa de la biblioteca/librería el paquete "DetalleLibro".
+import com.dam.dto.DetalleLibro;
+// Importa de la biblioteca/librería el paquete "DisponibilidadLibro".
+import com.dam.dto.DisponibilidadLibro;
+// Importa de la biblioteca/librería el paquete "EstadisticasBiblioteca".
+import com.dam.dto.EstadisticasBiblioteca;
+// Importa de la biblioteca/librería el paquete "Pagina".
+import com.dam.dto.Pagina;
+// Importa de la biblioteca/librería el paquete "ResultadoFacetas".
+import com.dam.dto.ResultadoFacetas;
+// Importa de la biblioteca/librería el paquete "ResultadoPurga".
+import com.dam.dto.ResultadoPurga;
+// Importa todos las dependencias creadas en el paquete "modelo".
+import com.dam.modelo.*;
+// Importa de la biblioteca/librería el paquete "EstadoEjemplar".
+import com.dam.modelo.Ejemplar.EstadoEjemplar;
+// Importa de la biblioteca/librería el paquete "HibernateUtil".
+import com.dam.util.HibernateUtil;
+// Importa de la biblioteca/librería el paquete "ProveedorConexionesPool".
+import com.dam.util.ProveedorConexionesPool;
+// Importa de la biblioteca/librería el paquete "Collection".
+import java.util.Collection;
+// Importa de la biblioteca/librería el paquete "List".
+import java.util.List;
+// Importa de la biblioteca/librería el paquete "Map".
+import java.util.Map;
+// Importa de la biblioteca/librería el paquete "Optional".
+import java.util.Optional;
+// Importa de la biblioteca/librería el paquete "CompletableFuture".
+import java.util.concurrent.CompletableFuture;
+// Importa de la biblioteca/librería el paquete "CompletionException".
+import java.util.concurrent.CompletionException;
+// Importa de la biblioteca/librería el paquete "ExecutorService".
+import java.util.concurrent.ExecutorService;
+// Importa de la biblioteca/librería el paquete "Executors".
+import java.util.concurrent.Executors;
+// Importa de la biblioteca/librería el paquete "Semaphore".
+import java.util.concurrent.Semaphore;
+// Importa de la biblioteca/librería el paquete "Supplier".
+import java.util.function.Supplier;
+
+// Crea la clase "ServicioBibliotecaAsincrono".
+    /*
+     * Fachada asíncrona de "ServicioBiblioteca" (las mismas operaciones que "GestionBiblioteca", pero devolviendo datos): cada llamada se ejecuta en su propio hilo virtual y devuelve un "CompletableFuture".
+     *
+     *   1. Los hilos virtuales apenas cuestan memoria y, mientras esperan a JDBC, liberan el hilo de plataforma que los ejecuta: se pueden lanzar miles de consultas a la vez sin un pool grande de hilos.
+     *   2. Un semáforo limita las operaciones en curso al tamaño máximo del pool de conexiones ("hibernate.hikari.maximumPoolSize"). El resto espera su turno en el semáforo (sin ocupar hilo de plataforma),
+     *      en lugar de amontonarse en el pool hasta agotar su "connectionTimeout".
+     *   3. Los errores de la operación completan el "CompletableFuture" de forma excepcional (la transacción ya se ha revertido en "ServicioBiblioteca").
+     *
+     * HikariCP y el driver de MySQL (9.x) usan "ReentrantLock" en lugar de "synchronized" en sus caminos críticos, así que un hilo virtual bloqueado en JDBC no retiene ("pin") su hilo de plataforma.
+     * Debe cerrarse ("close()") al terminar para esperar a las operaciones en curso.
+     */
+public class ServicioBibliotecaAsincrono implements AutoCloseable{
+    // ==================== ATRIBUTOS ====================
+        // Permisos si la configuración no usa "ProveedorConexionesPool" (coincide con el "maximumPoolSize" por defecto de HikariCP).
+    public static final int PERMISOS_POR_DEFECTO = 10;
+
+    private final ServicioBiblioteca servicio;
+    private final ExecutorService ejecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore permisos;
+
+
+    // ==================== CONSTRUCTORES ====================
+    public ServicioBibliotecaAsincrono(){ this(new ServicioBiblioteca()); }
+
+            /*
+             * "@param servicio" Parámetro: Servicio síncrono al que se delegan las operaciones. Los permisos se ajustan al tamaño máximo del pool de conexiones.
+             */
+    public ServicioBibliotecaAsincrono(ServicioBiblioteca servicio){
+        this(servicio, HibernateUtil.obtenerProveedorPool().map(ProveedorConexionesPool::getTamanoMaximo).orElse(PERMISOS_POR_DEFECTO));
+    }
+
+            /*
+             * "@param servicio"        Parámetro: Servicio síncrono al que se delegan las operaciones.
+             * "@param maxConcurrentes" Parámetro: Nº máximo de operaciones ejecutándose a la vez (no debería superar el tamaño del pool de conexiones).
+             */
+    public ServicioBibliotecaAsincrono(ServicioBiblioteca servicio, int maxConcurrentes){
+        if (maxConcurrentes < 1) throw new IllegalArgumentException("El nº de operaciones concurrentes debe ser positivo: " + maxConcurrentes);
+        this.servicio = servicio;
+        this.permisos = new Semaphore(maxConcurrentes);
+    }
+
+
+    // ==================== ESCRITURAS ====================
+    public CompletableFuture<Autor> crearAutorConLibros(Autor autor){ return ejecutar(() -> servicio.crearAutorConLibros(autor)); }
+    public CompletableFuture<Optional<Ejemplar>> agregarEjemplarALibroExistente(String isbn, String codigoEjemplar){ return ejecutar(() -> servicio.agregarEjemplarALibroExistente(isbn, codigoEjemplar)); }
+    public CompletableFuture<List<Ejemplar>> agregarEjemplares(String isbn, List<String> codigos){ return ejecutar(() -> servicio.agregarEjemplares(isbn, codigos)); }
+    public CompletableFuture<ResultadoPurga> eliminarAutores(Collection<Long> ids){ return ejecutar(() -> servicio.eliminarAutores(ids)); }
+    public CompletableFuture<ResultadoPurga> eliminarLibros(Collection<Long> ids){ return ejecutar(() -> servicio.eliminarLibros(ids)); }
+    public CompletableFuture<ResultadoPurga> eliminarEjemplaresPorUbicacion(String ubicacion){ return ejecutar(() -> servicio.eliminarEjemplaresPorUbicacion(ubicacion)); }
+    public CompletableFuture<Boolean> actualizarEstadoEjemplar(Long id, EstadoEjemplar nuevoEstado){ return ejecutar(() -> servicio.actualizarEstadoEjemplar(id, nuevoEstado)); }
+    public CompletableFuture<Integer> cambiarEstado(FiltroEjemplares filtro, EstadoEjemplar nuevoEstado){ return ejecutar(() -> servicio.cambiarEstado(filtro, nuevoEstado)); }
+    public CompletableFuture<Integer> cambiarEstado(Collection<Long> ids, EstadoEjemplar nuevoEstado){ return ejecutar(() -> servicio.cambiarEstado(ids, nuevoEstado)); }
+
+
+    // ==================== PRÉSTAMOS ====================
+    public CompletableFuture<Boolean> prestarEjemplar(Long idEjemplar){ return ejecutar(() -> servicio.prestarEjemplar(idEjemplar)); }
+    public CompletableFuture<Boolean> devolverEjemplar(Long idEjemplar){ return ejecutar(() -> servicio.devolverEjemplar(idEjemplar)); }
+    public CompletableFuture<Optional<DetalleEjemplar>> prestarCualquierEjemplar(String isbn){ return ejecutar(() -> servicio.prestarCualquierEjemplar(isbn)); }
+
+
+    // ==================== LECTURAS ====================
+    public CompletableFuture<Optional<Long>> resolverIdLibro(String isbn){ return ejecutar(() -> servicio.resolverIdLibro(isbn)); }
+    public CompletableFuture<Optional<Long>> resolverIdEjemplar(String codigoEjemplar){ return ejecutar(() -> servicio.resolverIdEjemplar(codigoEjemplar)); }
+    public CompletableFuture<Map<String, Optional<Long>>> resolverIdsLibros(Collection<String> isbns){ return ejecutar(() -> servicio.resolverIdsLibros(isbns)); }
+    public CompletableFuture<Map<String, Optional<Long>>> resolverIdsEjemplares(Collection<String> codigos){ return ejecutar(() -> servicio.resolverIdsEjemplares(codigos)); }
+    public CompletableFuture<Map<String, Optional<DisponibilidadLibro>>> consultarDisponibilidadLibros(Collection<String> isbns){ return ejecutar(() -> servicio.consultarDisponibilidadLibros(isbns)); }
+    public CompletableFuture<List<Long>> buscarIdsLibrosPorTexto(String texto, int limite){ return ejecutar(() -> servicio.buscarIdsLibrosPorTexto(texto, limite)); }
+    public CompletableFuture<ResultadoFacetas> buscarEjemplaresPorFacetas(Collection<EstadoEjemplar> estados, Collection<String> ubicaciones, Collection<Long> libros, int limite){ return ejecutar(() -> servicio.buscarEjemplaresPorFacetas(estados, ubicaciones, libros, limite)); }
+    public CompletableFuture<Optional<Ejemplar>> buscarEjemplarPorCodigo(String codigoEjemplar){ return ejecutar(() -> servicio.buscarEjemplarPorCodigo(codigoEjemplar)); }
+    public CompletableFuture<List<Autor>> listarTodosLosAutores(){ return ejecutar(servicio::listarTodosLosAutores); }
+    public CompletableFuture<Optional<Libro>> buscarLibroPorId(Long id){ return ejecutar(() -> servicio.buscarLibroPorId(id)); }
+    public CompletableFuture<Optional<DetalleLibro>> obtenerDetalleLibro(Long id){ return ejecutar(() -> servicio.obtenerDetalleLibro(id)); }
+    public CompletableFuture<List<Ejemplar>> buscarEjemplaresPorEstado(EstadoEjemplar estado){ return ejecutar(() -> servicio.buscarEjemplaresPorEstado(estado)); }
+    public CompletableFuture<Pagina<Autor>> listarAutores(String token, int limite){ return ejecutar(() -> servicio.listarAutores(token, limite)); }
+    public CompletableFuture<Pagina<Libro>> listarLibros(String token, int limite){ return ejecutar(() -> servicio.listarLibros(token, limite)); }
+    public CompletableFuture<Pagina<Ejemplar>> listarEjemplaresPorEstado(EstadoEjemplar estado, String token, int limite){ return ejecutar(() -> servicio.listarEjemplaresPorEstado(estado, token, limite)); }
+    public CompletableFuture<EstadisticasBiblioteca> obtenerEstadisticas(){ return ejecutar(servicio::obtenerEstadisticas); }
+    public CompletableFuture<Map<EstadoEjemplar, Long>> obtenerInventarioLibro(Long idLibro){ return ejecutar(() -> servicio.obtenerInventarioLibro(idLibro)); }
+    public CompletableFuture<Map<EstadoEjemplar, Long>> obtenerInventarioUbicacion(String ubicacion){ return ejecutar(() -> servicio.obtenerInventarioUbicacion(ubicacion)); }
+
+
+    // ==================== EJECUCIÓN ====================
+
+    /*
+     * Ejecuta la operación en un hilo virtual cuando haya un permiso libre (una conexión del pool disponible).
+     *
+     * "@param operacion" Parámetro: Operación síncrona de "ServicioBiblioteca".
+     * "@return" Retorna: Resultado futuro de la operación.
+     */
+    private <T> CompletableFuture<T> ejecutar(Supplier<T> operacion){
+        return CompletableFuture.supplyAsync(() -> {
+            try{
+                permisos.acquire();
+            } catch (InterruptedException ie){
+                Thread.currentThread().interrupt();
+                throw new CompletionException(ie);
+            }
+            try{
+                return operacion.get();
+            } finally{
+                permisos.release();
+            }
+        }, ejecutor);
+    }
+
+            /*
+             * "@return" Retorna: Nº de operaciones que esperan un permiso (útil para detectar que el pool de conexiones se queda corto).
+             */
+    public int getEnEspera(){ return permisos.getQueueLength(); }
+
+    /*
+     * Deja de aceptar operaciones y espera a que terminen las que están en curso.
+     */
+    @Override
+    public void close(){ ejecutor.close(); }
+}
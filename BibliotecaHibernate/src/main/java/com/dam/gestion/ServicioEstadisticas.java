@@ -0,0 +1,256 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.gestion;
+
+
+// Importa de la biblioteca/librería el paquete "EstadisticasBiblioteca".
+import com.dam.dto.EstadisticasBiblioteca;
+// Importa de la biblioteca/librería el paquete "ResultadoReconciliacion".
+import com.dam.dto.ResultadoReconciliacion;
+// Importa de la biblioteca/librería el paquete "ReconciliadorInventario".
+import com.dam.inventario.ReconciliadorInventario;
+// Importa de la biblioteca/librería el paquete "EstadoEjemplar".
+import com.dam.modelo.Ejemplar.EstadoEjemplar;
+// Importa de la biblioteca/librería el paquete "HibernateUtil".
+import com.dam.util.HibernateUtil;
+// Importa de la biblioteca/librería el paquete "Duration".
+import java.time.Duration;
+// Importa de la biblioteca/librería el paquete "Instant".
+import java.time.Instant;
+// Importa de la biblioteca/librería el paquete "ArrayList".
+import java.util.ArrayList;
+// Importa de la biblioteca/librería el paquete "Collection".
+import java.util.Collection;
+// Importa de la biblioteca/librería el paquete "EnumMap".
+import java.util.EnumMap;
+// Importa de la biblioteca/librería el paquete "HashMap".
+import java.util.HashMap;
+// Importa de la biblioteca/librería el paquete "List".
+import java.util.List;
+// Importa de la biblioteca/librería el paquete "Map".
+import java.util.Map;
+// Importa de la biblioteca/librería el paquete "AtomicLong".
+import java.util.concurrent.atomic.AtomicLong;
+// Importa de la biblioteca/librería el paquete "Session".
+import org.hibernate.Session;
+
+// Crea la clase "ServicioEstadisticas".
+    /*
+     * Obtiene las estadísticas globales de la biblioteca en un único viaje a la base de datos.
+     *
+     * Antes se lanzaban tres "SELECT COUNT" (autores, libros y ejemplares) y otro "COUNT" más por cada valor de "EstadoEjemplar", es decir, siete consultas por cada refresco.
+     * Ahora una sola consulta "UNION ALL" devuelve pares (clave, cantidad):
+     *   La clave "  AUTORES "          Nº total de autores.
+     *   La clave "  LIBROS  "          Nº total de libros.
+     *   El resto de claves             Nº de ejemplares por estado, leído del inventario resumido ("inventario_estados", unas pocas filas por estado) en lugar de contar la tabla "ejemplares".
+     *
+     * El inventario resumido se actualiza en la misma transacción que cada alta, baja o cambio de estado de un ejemplar ("com.dam.inventario.CambiosInventario"), así que su lectura no depende del nº de ejemplares.
+     * Con él también se obtiene el desglose por estado de un libro o de una ubicación ("consultarInventarioLibro()", "consultarInventarioUbicacion()").
+     *
+     * Además, la última instantánea se reutiliza mientras no supere su tiempo de vida ("ttl"), de forma que los consumidores pueden consultarla con mucha frecuencia sin cargar MySQL.
+     * La clase es segura entre hilos: la instantánea es inmutable y se publica mediante un campo "volatile".
+     * Cada "invalidar()" incrementa una generación: una consulta que empezó antes de la última invalidación devuelve su resultado pero no lo guarda, porque puede no incluir la escritura que la provocó.
+     * Las consultas usan sesiones de solo lectura ("HibernateUtil.enLectura()"): con réplicas configuradas, los totales pueden ir por detrás de la primaria lo que tarde la replicación.
+     */
+public class ServicioEstadisticas{
+    // ==================== ATRIBUTOS ====================
+    private static final String CLAVE_AUTORES = "AUTORES";
+    private static final String CLAVE_LIBROS = "LIBROS";
+
+        // Consulta nativa con todos los conteos. Los ejemplares sin estado ("estado" es opcional) se guardan en el inventario con la cadena vacía y solo suman al total.
+    private static final String SQL_ESTADISTICAS =
+              "SELECT '" + CLAVE_AUTORES + "' AS clave, COUNT(*) AS cantidad FROM autores "
+            + "UNION ALL SELECT '" + CLAVE_LIBROS + "', COUNT(*) FROM libros "
+            + "UNION ALL SELECT i.estado, SUM(i.cantidad) FROM inventario_estados i GROUP BY i.estado";
+
+        // Tiempo de vida por defecto de la instantánea.
+    public static final Duration TTL_POR_DEFECTO = Duration.ofSeconds(5);
+
+    private final Duration ttl;
+    private final Object cerrojoRefresco = new Object();
+    private volatile EstadisticasBiblioteca ultimaInstantanea;
+        // Nº de invalidaciones (solo crece).
+    private final AtomicLong generacion = new AtomicLong();
+
+
+    // ==================== CONSTRUCTORES ====================
+    public ServicioEstadisticas(){ this(TTL_POR_DEFECTO); }
+
+            /*
+             * "@param ttl" Parámetro: Tiempo durante el cual se reutiliza la última instantánea ("Duration.ZERO" para consultar siempre la base de datos).
+             */
+    public ServicioEstadisticas(Duration ttl){
+        if (ttl == null || ttl.isNegative()) throw new IllegalArgumentException("El tiempo de vida de las estadísticas no puede ser nulo ni negativo: " + ttl);
+        this.ttl = ttl;
+    }
+
+
+    // ==================== MÉTODOS ====================
+
+    /*
+     * Devuelve las estadísticas de la biblioteca, reutilizando la última instantánea si sigue vigente.
+     *
+     * Si varios hilos encuentran la instantánea caducada a la vez, solo uno de ellos consulta la base de datos; el resto espera y reutiliza el resultado.
+     *
+     * "@return" Retorna: Instantánea de las estadísticas.
+     */
+    public EstadisticasBiblioteca obtenerEstadisticas(){
+        EstadisticasBiblioteca actual = ultimaInstantanea;
+        if (vigente(actual)) return actual;
+
+        synchronized (cerrojoRefresco){
+            actual = ultimaInstantanea;
+            if (vigente(actual)) return actual;
+
+            long inicio = generacion.get();
+            actual = consultarEstadisticas();
+            if (generacion.get() == inicio){
+                ultimaInstantanea = actual;
+                    // Si "invalidar()" llega entre la comprobación y la publicación, su borrado puede haber ido antes: se vuelve a comprobar y se descarta.
+                if (generacion.get() != inicio) ultimaInstantanea = null;
+            }
+            return actual;
+        }
+    }
+
+    /*
+     * Descarta la instantánea actual. Debe llamarse tras una escritura cuando se necesite que la siguiente lectura refleje el cambio de inmediato.
+     */
+    public void invalidar(){
+        generacion.incrementAndGet();
+        ultimaInstantanea = null;
+    }
+
+    /*
+     * Lanza la consulta agrupada ignorando la instantánea guardada.
+     *
+     * "@return" Retorna: Instantánea recién obtenida de la base de datos.
+     */
+    public EstadisticasBiblioteca consultarEstadisticas(){
+        Session session = HibernateUtil.abrirSesionLectura();
+
+        try{
+            @SuppressWarnings("unchecked")
+            List<Object[]> filas = session.createNativeQuery(SQL_ESTADISTICAS).list();
+
+            long totalAutores = 0;
+            long totalLibros = 0;
+            long totalEjemplares = 0;
+            EnumMap<EstadoEjemplar, Long> porEstado = new EnumMap<>(EstadoEjemplar.class);
+
+            for (Object[] fila : filas){
+                String clave = (String) fila[0];
+                long cantidad = ((Number) fila[1]).longValue();
+
+                switch (clave){
+                    case CLAVE_AUTORES -> totalAutores = cantidad;
+                    case CLAVE_LIBROS -> totalLibros = cantidad;
+                    default -> {
+                        totalEjemplares += cantidad;
+                        EstadoEjemplar estado = aEstado(clave);
+                        if (estado != null) porEstado.merge(estado, cantidad, Long::sum);
+                    }
+                }
+            }
+
+            return new EstadisticasBiblioteca(totalAutores, totalLibros, totalEjemplares, porEstado, Instant.now());
+        } finally{
+            session.close();
+        }
+    }
+
+    /*
+     * "@param idLibro" Parámetro: "ID" del libro.
+     * "@return" Retorna: Nº de ejemplares del libro en cada estado (0 en los estados sin ejemplares), leído del inventario resumido.
+     */
+    public Map<EstadoEjemplar, Long> consultarInventarioLibro(Long idLibro){
+        return consultarInventario("c.idLibro = :valor", idLibro);
+    }
+
+    /*
+     * "@param ubicacion" Parámetro: Ubicación (por ejemplo una estantería).
+     * "@return" Retorna: Nº de ejemplares de la ubicación en cada estado (0 en los estados sin ejemplares), leído del inventario resumido (índice por ubicación y estado).
+     */
+    public Map<EstadoEjemplar, Long> consultarInventarioUbicacion(String ubicacion){
+        return consultarInventario("c.ubicacion = :valor", ubicacion);
+    }
+
+    /*
+     * Inventario de varios libros a la vez: una consulta agrupada por cada bloque de "ServicioBiblioteca.TAMANO_BLOQUE_IN" "ID", todas en la misma sesión.
+     *
+     * "@param idsLibros" Parámetro: "ID" de los libros (los repetidos y los "null" se ignoran).
+     * "@return" Retorna: Nº de ejemplares de cada libro en cada estado (0 en los estados sin ejemplares, también para los libros sin ejemplares o que no existen).
+     */
+    public Map<Long, Map<EstadoEjemplar, Long>> consultarInventarioLibros(Collection<Long> idsLibros){
+        Map<Long, Map<EstadoEjemplar, Long>> inventario = new HashMap<>();
+        for (Long idLibro : idsLibros){
+            if (idLibro != null) inventario.computeIfAbsent(idLibro, id -> inventarioVacio());
+        }
+        if (inventario.isEmpty()) return inventario;
+
+        List<Long> ids = new ArrayList<>(inventario.keySet());
+        List<Object[]> filas = HibernateUtil.enLectura(session -> {
+            List<Object[]> resultado = new ArrayList<>();
+            for (int desde = 0; desde < ids.size(); desde += ServicioBiblioteca.TAMANO_BLOQUE_IN){
+                resultado.addAll(session.createQuery("SELECT c.idLibro, c.estado, SUM(c.cantidad) FROM ContadorInventario c WHERE c.idLibro IN :ids GROUP BY c.idLibro, c.estado", Object[].class)
+                                        .setParameterList("ids", ids.subList(desde, Math.min(desde + ServicioBiblioteca.TAMANO_BLOQUE_IN, ids.size())))
+                                        .list());
+            }
+            return resultado;
+        });
+
+        for (Object[] fila : filas){
+            EstadoEjemplar estado = aEstado((String) fila[1]);
+            if (estado != null) inventario.get((Long) fila[0]).put(estado, ((Number) fila[2]).longValue());
+        }
+        return inventario;
+    }
+
+    /*
+     * Recalcula el inventario resumido a partir de la tabla "ejemplares" y corrige las diferencias (ver "ReconciliadorInventario"). Descarta la instantánea actual.
+     *
+     * "@return" Retorna: Filas revisadas y corregidas.
+     */
+    public ResultadoReconciliacion reconciliarInventario(){
+        ResultadoReconciliacion resultado = ReconciliadorInventario.getInstancia().reconciliar(HibernateUtil.getSessionFactory());
+        invalidar();
+        return resultado;
+    }
+
+    private static Map<EstadoEjemplar, Long> consultarInventario(String condicion, Object valor){
+        List<Object[]> filas = HibernateUtil.enLectura(session ->
+            session.createQuery("SELECT c.estado, SUM(c.cantidad) FROM ContadorInventario c WHERE " + condicion + " GROUP BY c.estado", Object[].class)
+                   .setParameter("valor", valor)
+                   .list());
+
+        Map<EstadoEjemplar, Long> porEstado = inventarioVacio();
+        for (Object[] fila : filas){
+            EstadoEjemplar estado = aEstado((String) fila[0]);
+            if (estado != null) porEstado.put(estado, ((Number) fila[1]).longValue());
+        }
+        return porEstado;
+    }
+
+        // Comprueba si la instantánea existe y no ha superado su tiempo de vida.
+    private boolean vigente(EstadisticasBiblioteca instantanea){
+        return instantanea != null && instantanea.getGeneradaEn().plus(ttl).isAfter(Instant.now());
+    }
+
+        // Mapa con todos los estados a 0.
+    private static Map<EstadoEjemplar, Long> inventarioVacio(){
+        EnumMap<EstadoEjemplar, Long> porEstado = new EnumMap<>(EstadoEjemplar.class);
+        for (EstadoEjemplar estado : EstadoEjemplar.values()) porEstado.put(estado, 0L);
+        return porEstado;
+    }
+
+        // Convierte el valor de la columna "estado" en su "enum". Los valores desconocidos (o "NULL") solo cuentan para el total.
+    private static EstadoEjemplar aEstado(String valor){
+        try{
+            return EstadoEjemplar.valueOf(valor);
+        } catch (IllegalArgumentException iae){
+            return null;
+        }
+    }
+}
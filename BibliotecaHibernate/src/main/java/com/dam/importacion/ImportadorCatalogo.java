@@ -0,0 +1,336 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.importacion;
+
+
+// Importa de la biblioteca/librería el paquete "ResultadoImportacion".
+import com.dam.dto.ResultadoImportacion;
+// Importa todos las dependencias creadas en el paquete "modelo".
+import com.dam.modelo.*;
+// Importa de la biblioteca/librería el paquete "EstadoEjemplar".
+import com.dam.modelo.Ejemplar.EstadoEjemplar;
+// Importa de la biblioteca/librería el paquete "CambiosFacetas".
+import com.dam.indice.CambiosFacetas;
+// Importa de la biblioteca/librería el paquete "IndiceCatalogo".
+import com.dam.indice.IndiceCatalogo;
+// Importa de la biblioteca/librería el paquete "IndiceFacetasEjemplares".
+import com.dam.indice.IndiceFacetasEjemplares;
+// Importa de la biblioteca/librería el paquete "IndiceTextoCatalogo".
+import com.dam.indice.IndiceTextoCatalogo;
+// Importa de la biblioteca/librería el paquete "CambiosInventario".
+import com.dam.inventario.CambiosInventario;
+// Importa de la biblioteca/librería el paquete "HibernateUtil".
+import com.dam.util.HibernateUtil;
+// Importa de la biblioteca/librería el paquete "Path".
+import java.nio.file.Path;
+// Importa de la biblioteca/librería el paquete "Duration".
+import java.time.Duration;
+// Importa de la biblioteca/librería el paquete "ArrayList".
+import java.util.ArrayList;
+// Importa de la biblioteca/librería el paquete "HashMap".
+import java.util.HashMap;
+// Importa de la biblioteca/librería el paquete "HashSet".
+import java.util.HashSet;
+// Importa de la biblioteca/librería el paquete "Iterator".
+import java.util.Iterator;
+// Importa de la biblioteca/librería el paquete "LinkedHashMap".
+import java.util.LinkedHashMap;
+// Importa de la biblioteca/librería el paquete "List".
+import java.util.List;
+// Importa de la biblioteca/librería el paquete "Map".
+import java.util.Map;
+// Importa de la biblioteca/librería el paquete "Objects".
+import java.util.Objects;
+// Importa de la biblioteca/librería el paquete "Set".
+import java.util.Set;
+// Importa de la biblioteca/librería el paquete "StatelessSession".
+import org.hibernate.StatelessSession;
+// Importa de la biblioteca/librería el paquete "Transaction".
+import org.hibernate.Transaction;
+
+// Crea la clase "ImportadorCatalogo".
+    /*
+     * Importa ficheros de catálogo (CSV o JSON, ver "RegistroCatalogo") con memoria constante.
+     *
+     *   1. Los registros se leen en streaming ("LectorCatalogo") y se agrupan en lotes de "tamanoLote".
+     *   2. Cada lote se escribe con una "StatelessSession" (sin caché de primer nivel ni comprobación de cambios) en su propia transacción.
+     *   3. "Upsert" por clave única: se consultan de una vez ("IN") los "isbn" y "codigo_ejemplar" del lote ya existentes;
+     *      los que existen se actualizan solo si algún dato ha cambiado y el resto se insertan.
+     *   4. Los autores (sin columna única) se identifican por nombre y apellidos; las claves ya resueltas se guardan en una caché acotada (LRU) para no consultarlas en cada lote.
+     *   5. Los ejemplares insertados y los que cambian de libro, ubicación o estado se anotan en el inventario resumido ("CambiosInventario"), que se escribe en la misma transacción del lote,
+     *      y en el índice de facetas ("CambiosFacetas"), que se aplica tras su "commit".
+     *   6. Tras cada lote se vacía la caché de segundo nivel, se informa del progreso ("ProgresoImportacion") y, al terminar, se devuelve el resultado total.
+     *
+     * Si un lote falla se revierte solo ese lote y se relanza la excepción: los lotes anteriores quedan confirmados, así que repetir la importación es seguro (los registros ya importados se actualizan o se dejan igual).
+     */
+public class ImportadorCatalogo{
+    // ==================== ATRIBUTOS ====================
+    public static final int TAMANO_LOTE_POR_DEFECTO = 500;
+    private static final int MAXIMO_AUTORES_EN_CACHE = 10_000;
+
+    private final int tamanoLote;
+    private final ProgresoImportacion progreso;
+
+
+    // ==================== CONSTRUCTORES ====================
+    public ImportadorCatalogo(){ this(TAMANO_LOTE_POR_DEFECTO, ProgresoImportacion.CONSOLA); }
+
+            /*
+             * "@param tamanoLote" Parámetro: Nº de registros por lote (y por transacción).
+             * "@param progreso"   Parámetro: Receptor del progreso tras cada lote.
+             */
+    public ImportadorCatalogo(int tamanoLote, ProgresoImportacion progreso){
+        if (tamanoLote < 1) throw new IllegalArgumentException("El tamaño de lote debe ser positivo: " + tamanoLote);
+        this.tamanoLote = tamanoLote;
+        this.progreso = Objects.requireNonNull(progreso);
+    }
+
+
+    // ==================== MÉTODOS ====================
+
+    /*
+     * "@param fichero" Parámetro: Fichero ".csv" o ".json" con el catálogo.
+     * "@return" Retorna: Resultado total de la importación.
+     */
+    public ResultadoImportacion importar(Path fichero){
+        try (LectorCatalogo lector = LectorCatalogo.abrir(fichero)){
+            return importar(lector);
+        }
+    }
+
+    /*
+     * "@param registros" Parámetro: Registros a importar (se consumen de uno en uno).
+     * "@return" Retorna: Resultado total de la importación.
+     */
+    public ResultadoImportacion importar(Iterator<RegistroCatalogo> registros){
+        Contadores contadores = new Contadores(System.nanoTime());
+        Map<String, Long> cacheAutores = new LinkedHashMap<>(16, 0.75f, true){
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> mayor){ return size() > MAXIMO_AUTORES_EN_CACHE; }
+        };
+
+        StatelessSession session = HibernateUtil.getSessionFactory().openStatelessSession();
+        try{
+            List<RegistroCatalogo> lote = new ArrayList<>(tamanoLote);
+            while (registros.hasNext()){
+                lote.add(registros.next());
+                contadores.leidos++;
+
+                if (lote.size() == tamanoLote){
+                    escribirLote(session, lote, cacheAutores, contadores);
+                    lote.clear();
+                }
+            }
+            if (!lote.isEmpty()) escribirLote(session, lote, cacheAutores, contadores);
+
+            return contadores.resultado();
+        } finally{
+            session.close();
+        }
+    }
+
+        // Escribe un lote completo en su propia transacción e informa del progreso. Como las de "enTransaccion()", espera a que quede una conexión libre para los identificadores ("HibernateUtil.conPermisoEscritura()").
+    private void escribirLote(StatelessSession session, List<RegistroCatalogo> lote, Map<String, Long> cacheAutores, Contadores contadores){
+        HibernateUtil.conPermisoEscritura(() -> {
+            Transaction transaction = session.beginTransaction();
+            try{
+                Map<String, Long> autores = resolverAutores(session, lote, cacheAutores, contadores);
+                Map<String, Long> libros = guardarLibros(session, lote, autores, contadores);
+                CambiosInventario inventario = new CambiosInventario();
+                CambiosFacetas facetas = new CambiosFacetas();
+                Map<String, Long> ejemplares = guardarEjemplares(session, lote, libros, inventario, facetas, contadores);
+                    // Sin eventos en la "StatelessSession", el inventario se escribe aquí, antes del "commit".
+                inventario.aplicar(session);
+                transaction.commit();
+                    // La "StatelessSession" no pasa por la caché de segundo nivel ni lanza eventos: se vacía la caché para que nadie lea libros o ejemplares anteriores al lote y se registran las claves en el índice del catálogo (títulos y autores en el de texto, y los cambios de los ejemplares en el de facetas).
+                HibernateUtil.invalidarCache();
+                registrarEnIndice(lote, autores, libros, ejemplares);
+                facetas.aplicar(IndiceFacetasEjemplares.getInstancia());
+                return null;
+            } catch (RuntimeException rex){
+                if (transaction.isActive()) transaction.rollback();
+                    // Las claves creadas en este lote ya no existen tras el "rollback".
+                cacheAutores.clear();
+                throw rex;
+            }
+        });
+        progreso.informar(contadores.resultado());
+    }
+
+
+    // ==================== AUTORES ====================
+    private Map<String, Long> resolverAutores(StatelessSession session, List<RegistroCatalogo> lote, Map<String, Long> cacheAutores, Contadores contadores){
+        Map<String, Long> resueltos = new HashMap<>();
+        Map<String, RegistroCatalogo> pendientes = new LinkedHashMap<>();
+        for (RegistroCatalogo registro : lote){
+            String clave = registro.getClaveAutor();
+            Long id = cacheAutores.get(clave);
+            if (id != null) resueltos.put(clave, id);
+            else pendientes.putIfAbsent(clave, registro);
+        }
+        if (pendientes.isEmpty()) return resueltos;
+
+            // Una sola consulta para todos los autores pendientes del lote (se filtran después los pares nombre/apellidos exactos).
+        Set<String> nombres = new HashSet<>();
+        Set<String> apellidos = new HashSet<>();
+        for (RegistroCatalogo registro : pendientes.values()){
+            nombres.add(registro.getNombre());
+            apellidos.add(registro.getApellidos());
+        }
+        List<Object[]> existentes = session.createQuery("SELECT a.id, a.nombre, a.apellidos FROM Autor a WHERE a.nombre IN :nombres AND a.apellidos IN :apellidos ORDER BY a.id", Object[].class)
+                                           .setParameterList("nombres", nombres)
+                                           .setParameterList("apellidos", apellidos)
+                                           .list();
+        for (Object[] fila : existentes){
+            String clave = fila[1] + "\u0000" + fila[2];
+            if (pendientes.remove(clave) != null) resueltos.put(clave, (Long) fila[0]);
+        }
+
+        for (Map.Entry<String, RegistroCatalogo> entrada : pendientes.entrySet()){
+            RegistroCatalogo registro = entrada.getValue();
+            Autor autor = new Autor(registro.getNombre(), registro.getApellidos(), registro.getNacionalidad(), registro.getFechaNacimiento());
+            resueltos.put(entrada.getKey(), (Long) session.insert(autor));
+            contadores.autoresInsertados++;
+        }
+
+        cacheAutores.putAll(resueltos);
+        return resueltos;
+    }
+
+
+    // ==================== LIBROS ====================
+    private Map<String, Long> guardarLibros(StatelessSession session, List<RegistroCatalogo> lote, Map<String, Long> autores, Contadores contadores){
+            // Si un ISBN aparece varias veces en el lote, prevalecen los datos de su última aparición.
+        Map<String, RegistroCatalogo> porIsbn = new LinkedHashMap<>();
+        for (RegistroCatalogo registro : lote) porIsbn.put(registro.getIsbn(), registro);
+
+        List<Object[]> existentes = session.createQuery("SELECT l.isbn, l.id, l.titulo, l.fechaPublicacion, l.numeroPaginas, l.autor.id FROM Libro l WHERE l.isbn IN :isbns", Object[].class)
+                                           .setParameterList("isbns", porIsbn.keySet())
+                                           .list();
+        Map<String, Object[]> actuales = new HashMap<>();
+        for (Object[] fila : existentes) actuales.put((String) fila[0], fila);
+
+        Map<String, Long> ids = new HashMap<>();
+        for (RegistroCatalogo registro : porIsbn.values()){
+            Long idAutor = autores.get(registro.getClaveAutor());
+            Object[] actual = actuales.get(registro.getIsbn());
+
+            Libro libro = new Libro(registro.getTitulo(), registro.getIsbn(), registro.getFechaPublicacion(), registro.getNumeroPaginas());
+            libro.setAutor(referenciaAutor(idAutor));
+
+            if (actual == null){
+                ids.put(registro.getIsbn(), (Long) session.insert(libro));
+                contadores.librosInsertados++;
+            } else{
+                Long id = (Long) actual[1];
+                ids.put(registro.getIsbn(), id);
+                boolean cambiado = !Objects.equals(actual[2], registro.getTitulo())
+                                || !Objects.equals(actual[3], registro.getFechaPublicacion())
+                                || ((Number) actual[4]).intValue() != registro.getNumeroPaginas()
+                                || !Objects.equals(actual[5], idAutor);
+                if (cambiado){
+                    libro.setId(id);
+                    session.update(libro);
+                    contadores.librosActualizados++;
+                }
+            }
+        }
+        return ids;
+    }
+
+
+    // ==================== EJEMPLARES ====================
+    private Map<String, Long> guardarEjemplares(StatelessSession session, List<RegistroCatalogo> lote, Map<String, Long> libros, CambiosInventario inventario, CambiosFacetas facetas, Contadores contadores){
+        Map<String, RegistroCatalogo> porCodigo = new LinkedHashMap<>();
+        for (RegistroCatalogo registro : lote){
+            if (registro.tieneEjemplar()) porCodigo.put(registro.getCodigoEjemplar(), registro);
+        }
+        Map<String, Long> ids = new HashMap<>();
+        if (porCodigo.isEmpty()) return ids;
+
+        List<Object[]> existentes = session.createQuery("SELECT e.codigoEjemplar, e.id, e.estado, e.ubicacion, e.libro.id, e.version FROM Ejemplar e WHERE e.codigoEjemplar IN :codigos", Object[].class)
+                                           .setParameterList("codigos", porCodigo.keySet())
+                                           .list();
+        Map<String, Object[]> actuales = new HashMap<>();
+        for (Object[] fila : existentes) actuales.put((String) fila[0], fila);
+
+        for (RegistroCatalogo registro : porCodigo.values()){
+            Long idLibro = libros.get(registro.getIsbn());
+            Object[] actual = actuales.get(registro.getCodigoEjemplar());
+
+            Ejemplar ejemplar = new Ejemplar(registro.getCodigoEjemplar(), registro.getEstado(), registro.getUbicacion());
+            ejemplar.setLibro(referenciaLibro(idLibro));
+
+            if (actual == null){
+                Long id = (Long) session.insert(ejemplar);
+                ids.put(registro.getCodigoEjemplar(), id);
+                inventario.anotar(idLibro, registro.getUbicacion(), registro.getEstado(), 1);
+                facetas.anotarAlta(id, idLibro, registro.getUbicacion(), registro.getEstado());
+                contadores.ejemplaresInsertados++;
+            } else{
+                ids.put(registro.getCodigoEjemplar(), (Long) actual[1]);
+                boolean cambiado = actual[2] != registro.getEstado()
+                                || !Objects.equals(actual[3], registro.getUbicacion())
+                                || !Objects.equals(actual[4], idLibro);
+                if (cambiado){
+                    ejemplar.setId((Long) actual[1]);
+                        // "Ejemplar" tiene "@Version": el "UPDATE" compara la versión leída, así que un préstamo hecho entre la consulta y la escritura hace fallar el lote en lugar de perderse.
+                    ejemplar.setVersion((Long) actual[5]);
+                    session.update(ejemplar);
+                    inventario.anotarCambio((Long) actual[4], (String) actual[3], (EstadoEjemplar) actual[2], idLibro, registro.getUbicacion(), registro.getEstado());
+                    facetas.anotarCambio((Long) actual[1], (Long) actual[4], (String) actual[3], (EstadoEjemplar) actual[2], idLibro, registro.getUbicacion(), registro.getEstado());
+                    contadores.ejemplaresActualizados++;
+                }
+            }
+        }
+        return ids;
+    }
+
+
+    // ==================== MÉTODOS HELPER ====================
+        // Registra en el índice del catálogo las claves de un lote ya confirmado, y en el de texto sus autores y títulos (prevalece la última aparición de cada ISBN, igual que al guardarlo).
+    private static void registrarEnIndice(List<RegistroCatalogo> lote, Map<String, Long> autores, Map<String, Long> libros, Map<String, Long> ejemplares){
+        IndiceCatalogo indice = IndiceCatalogo.getInstancia();
+        libros.forEach(indice::registrarLibro);
+        ejemplares.forEach(indice::registrarEjemplar);
+
+        IndiceTextoCatalogo texto = IndiceTextoCatalogo.getInstancia();
+        for (RegistroCatalogo registro : lote){
+            Long idAutor = autores.get(registro.getClaveAutor());
+            texto.registrarAutor(idAutor, registro.getNombre(), registro.getApellidos());
+            texto.registrarLibro(libros.get(registro.getIsbn()), registro.getTitulo(), idAutor);
+        }
+    }
+
+        // Referencias con solo el "ID": bastan para escribir la clave ajena sin cargar la entidad.
+    private static Autor referenciaAutor(Long id){
+        Autor autor = new Autor();
+        autor.setId(id);
+        return autor;
+    }
+
+    private static Libro referenciaLibro(Long id){
+        Libro libro = new Libro();
+        libro.setId(id);
+        return libro;
+    }
+
+        // Contadores acumulados de la importación (solo los usa el hilo que importa).
+    private static final class Contadores{
+        private final long inicio;
+        private long leidos;
+        private long autoresInsertados;
+        private long librosInsertados;
+        private long librosActualizados;
+        private long ejemplaresInsertados;
+        private long ejemplaresActualizados;
+
+        private Contadores(long inicio){ this.inicio = inicio; }
+
+        private ResultadoImportacion resultado(){
+            return new ResultadoImportacion(leidos, autoresInsertados, librosInsertados, librosActualizados, ejemplaresInsertados, ejemplaresActualizados, Duration.ofNanos(System.nanoTime() - inicio));
+        }
+    }
+}
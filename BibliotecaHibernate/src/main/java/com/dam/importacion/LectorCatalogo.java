@@ -0,0 +1,49 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.importacion;
+
+
+// Importa de la biblioteca/librería el paquete "IOException".
+import java.io.IOException;
+// Importa de la biblioteca/librería el paquete "UncheckedIOException".
+import java.io.UncheckedIOException;
+// Importa de la biblioteca/librería el paquete "Files".
+import java.nio.file.Files;
+// Importa de la biblioteca/librería el paquete "Path".
+import java.nio.file.Path;
+// Importa de la biblioteca/librería el paquete "StandardCharsets".
+import java.nio.charset.StandardCharsets;
+// Importa de la biblioteca/librería el paquete "Iterator".
+import java.util.Iterator;
+// Importa de la biblioteca/librería el paquete "Locale".
+import java.util.Locale;
+
+// Crea la interfaz "LectorCatalogo".
+    /*
+     * Lector en streaming de un fichero de catálogo: entrega los registros de uno en uno ("Iterator") sin cargar el fichero completo en memoria.
+     * Los errores de lectura se lanzan como "UncheckedIOException" y los registros mal formados como "IllegalArgumentException" (indicando el nº de registro).
+     */
+public interface LectorCatalogo extends Iterator<RegistroCatalogo>, AutoCloseable{
+
+    /*
+     * Abre el lector adecuado según la extensión del fichero (".csv" o ".json").
+     *
+     * "@param fichero" Parámetro: Ruta del fichero de catálogo (UTF-8).
+     * "@return" Retorna: Lector abierto; debe cerrarse al terminar.
+     */
+    static LectorCatalogo abrir(Path fichero){
+        String nombre = fichero.getFileName().toString().toLowerCase(Locale.ROOT);
+        try{
+            if (nombre.endsWith(".csv")) return new LectorCsvCatalogo(Files.newBufferedReader(fichero, StandardCharsets.UTF_8));
+            if (nombre.endsWith(".json")) return new LectorJsonCatalogo(Files.newBufferedReader(fichero, StandardCharsets.UTF_8));
+        } catch (IOException ioe){
+            throw new UncheckedIOException("No se pudo abrir el fichero de catálogo '" + fichero + "'", ioe);
+        }
+        throw new IllegalArgumentException("Formato de catálogo no soportado (se esperaba .csv o .json): " + fichero);
+    }
+
+    @Override
+    void close();
+}
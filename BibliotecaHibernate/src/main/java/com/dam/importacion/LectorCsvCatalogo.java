@@ -0,0 +1,138 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.importacion;
+
+
+// Importa de la biblioteca/librería el paquete "BufferedReader".
+import java.io.BufferedReader;
+// Importa de la biblioteca/librería el paquete "IOException".
+import java.io.IOException;
+// Importa de la biblioteca/librería el paquete "UncheckedIOException".
+import java.io.UncheckedIOException;
+// Importa de la biblioteca/librería el paquete "ArrayList".
+import java.util.ArrayList;
+// Importa de la biblioteca/librería el paquete "HashMap".
+import java.util.HashMap;
+// Importa de la biblioteca/librería el paquete "List".
+import java.util.List;
+// Importa de la biblioteca/librería el paquete "Locale".
+import java.util.Locale;
+// Importa de la biblioteca/librería el paquete "Map".
+import java.util.Map;
+// Importa de la biblioteca/librería el paquete "NoSuchElementException".
+import java.util.NoSuchElementException;
+
+// Crea la clase "LectorCsvCatalogo".
+    /*
+     * Lee un catálogo en CSV línea a línea.
+     *   1. La primera línea es la cabecera con los nombres de los campos (ver "RegistroCatalogo"); el orden de las columnas es libre.
+     *   2. El separador es ';' o ',' (se deduce de la cabecera).
+     *   3. Los valores pueden ir entre comillas dobles (para incluir el separador); una comilla dentro de un valor se escribe doble ("").
+     *   4. Las líneas vacías se ignoran.
+     */
+class LectorCsvCatalogo implements LectorCatalogo{
+    // ==================== ATRIBUTOS ====================
+    private final BufferedReader lector;
+    private final char separador;
+    private final String[] cabecera;
+    private String lineaSiguiente;
+    private long numeroLinea = 1;
+
+
+    // ==================== CONSTRUCTORES ====================
+    LectorCsvCatalogo(BufferedReader lector){
+        this.lector = lector;
+        String primeraLinea = leerLinea();
+        if (primeraLinea == null) throw new IllegalArgumentException("El fichero CSV está vacío (falta la cabecera).");
+
+        this.separador = primeraLinea.indexOf(';') >= 0 ? ';' : ',';
+        List<String> campos = dividir(primeraLinea);
+        this.cabecera = new String[campos.size()];
+        for (int i = 0; i < campos.size(); i++) cabecera[i] = campos.get(i).trim().toLowerCase(Locale.ROOT);
+
+        this.lineaSiguiente = siguienteNoVacia();
+    }
+
+
+    // ==================== ITERATOR ====================
+    @Override
+    public boolean hasNext(){ return lineaSiguiente != null; }
+
+    @Override
+    public RegistroCatalogo next(){
+        if (lineaSiguiente == null) throw new NoSuchElementException();
+        String linea = lineaSiguiente;
+        long lineaActual = numeroLinea;
+        lineaSiguiente = siguienteNoVacia();
+
+        List<String> valores = dividir(linea);
+        Map<String, String> campos = new HashMap<>();
+        for (int i = 0; i < cabecera.length && i < valores.size(); i++) campos.put(cabecera[i], valores.get(i));
+
+        try{
+            return RegistroCatalogo.desdeCampos(campos);
+        } catch (IllegalArgumentException iae){
+            throw new IllegalArgumentException("Línea " + lineaActual + ": " + iae.getMessage(), iae);
+        }
+    }
+
+    @Override
+    public void close(){
+        try{
+            lector.close();
+        } catch (IOException ioe){
+            throw new UncheckedIOException(ioe);
+        }
+    }
+
+
+    // ==================== MÉTODOS HELPER ====================
+    private String leerLinea(){
+        try{
+            return lector.readLine();
+        } catch (IOException ioe){
+            throw new UncheckedIOException("Error leyendo la línea " + (numeroLinea + 1) + " del CSV", ioe);
+        }
+    }
+
+    private String siguienteNoVacia(){
+        String linea;
+        do{
+            linea = leerLinea();
+            numeroLinea++;
+        } while (linea != null && linea.isBlank());
+        return linea;
+    }
+
+        // Divide una línea en sus valores respetando las comillas dobles.
+    private List<String> dividir(String linea){
+        List<String> valores = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        boolean entreComillas = false;
+
+        for (int i = 0; i < linea.length(); i++){
+            char c = linea.charAt(i);
+            if (entreComillas){
+                if (c == '"' && i + 1 < linea.length() && linea.charAt(i + 1) == '"'){
+                    actual.append('"');
+                    i++;
+                } else if (c == '"'){
+                    entreComillas = false;
+                } else{
+                    actual.append(c);
+                }
+            } else if (c == '"'){
+                entreComillas = true;
+            } else if (c == separador){
+                valores.add(actual.toString());
+                actual.setLength(0);
+            } else{
+                actual.append(c);
+            }
+        }
+        valores.add(actual.toString());
+        return valores;
+    }
+}
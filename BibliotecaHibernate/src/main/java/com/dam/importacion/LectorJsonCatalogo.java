@@ -0,0 +1,109 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.importacion;
+
+
+// Importa de la biblioteca/librería el paquete "JsonFactory".
+import com.fasterxml.jackson.core.JsonFactory;
+// Importa de la biblioteca/librería el paquete "JsonParser".
+import com.fasterxml.jackson.core.JsonParser;
+// Importa de la biblioteca/librería el paquete "JsonToken".
+import com.fasterxml.jackson.core.JsonToken;
+// Importa de la biblioteca/librería el paquete "IOException".
+import java.io.IOException;
+// Importa de la biblioteca/librería el paquete "Reader".
+import java.io.Reader;
+// Importa de la biblioteca/librería el paquete "UncheckedIOException".
+import java.io.UncheckedIOException;
+// Importa de la biblioteca/librería el paquete "HashMap".
+import java.util.HashMap;
+// Importa de la biblioteca/librería el paquete "Locale".
+import java.util.Locale;
+// Importa de la biblioteca/librería el paquete "Map".
+import java.util.Map;
+// Importa de la biblioteca/librería el paquete "NoSuchElementException".
+import java.util.NoSuchElementException;
+
+// Crea la clase "LectorJsonCatalogo".
+    /*
+     * Lee un catálogo en JSON con el analizador en streaming de Jackson ("JsonParser"), objeto a objeto, sin construir el árbol completo en memoria.
+     *
+     * El fichero es un array de objetos planos con los mismos campos que el CSV (ver "RegistroCatalogo"):
+     *      [ {"nombre": "Javier", "apellidos": "Marías", "titulo": "Corazón tan blanco", "isbn": "978-84-204-2954-3", "codigo_ejemplar": "EJ-009-2024"}, ... ]
+     *
+     * Los valores numéricos y lógicos se aceptan y se tratan como texto; los valores "null" se ignoran.
+     */
+class LectorJsonCatalogo implements LectorCatalogo{
+    // ==================== ATRIBUTOS ====================
+    private static final JsonFactory FABRICA = new JsonFactory();
+
+    private final JsonParser parser;
+    private boolean haySiguiente;
+    private long numeroRegistro = 0;
+
+
+    // ==================== CONSTRUCTORES ====================
+    LectorJsonCatalogo(Reader lector){
+        try{
+            this.parser = FABRICA.createParser(lector);
+            if (parser.nextToken() != JsonToken.START_ARRAY) throw new IllegalArgumentException("El catálogo JSON debe ser un array de objetos.");
+            avanzar();
+        } catch (IOException ioe){
+            throw new UncheckedIOException("Error leyendo el catálogo JSON", ioe);
+        }
+    }
+
+
+    // ==================== ITERATOR ====================
+    @Override
+    public boolean hasNext(){ return haySiguiente; }
+
+    @Override
+    public RegistroCatalogo next(){
+        if (!haySiguiente) throw new NoSuchElementException();
+        numeroRegistro++;
+
+        try{
+            Map<String, String> campos = new HashMap<>();
+            while (parser.nextToken() == JsonToken.FIELD_NAME){
+                String campo = parser.currentName().toLowerCase(Locale.ROOT);
+                JsonToken valor = parser.nextToken();
+                if (valor == JsonToken.START_OBJECT || valor == JsonToken.START_ARRAY){
+                    throw new IllegalArgumentException("El campo \"" + campo + "\" debe ser un valor simple.");
+                }
+                if (valor != JsonToken.VALUE_NULL) campos.put(campo, parser.getText());
+            }
+            avanzar();
+            return RegistroCatalogo.desdeCampos(campos);
+        } catch (IOException ioe){
+            throw new UncheckedIOException("Error leyendo el registro " + numeroRegistro + " del catálogo JSON", ioe);
+        } catch (IllegalArgumentException iae){
+            throw new IllegalArgumentException("Registro " + numeroRegistro + ": " + iae.getMessage(), iae);
+        }
+    }
+
+    @Override
+    public void close(){
+        try{
+            parser.close();
+        } catch (IOException ioe){
+            throw new UncheckedIOException(ioe);
+        }
+    }
+
+
+    // ==================== MÉTODOS HELPER ====================
+        // Se coloca al inicio del siguiente objeto del array, o detecta el final del array.
+    private void avanzar() throws IOException{
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.START_OBJECT){
+            haySiguiente = true;
+        } else if (token == JsonToken.END_ARRAY){
+            haySiguiente = false;
+        } else{
+            throw new IllegalArgumentException("Se esperaba un objeto en el array del catálogo JSON y se encontró: " + token);
+        }
+    }
+}
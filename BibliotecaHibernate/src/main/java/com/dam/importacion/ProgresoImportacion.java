@@ -0,0 +1,28 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.importacion;
+
+
+// Importa de la biblioteca/librería el paquete "ResultadoImportacion".
+import com.dam.dto.ResultadoImportacion;
+
+// Crea la interfaz "ProgresoImportacion".
+    /*
+     * Recibe el progreso de una importación tras cada lote confirmado (registros leídos, inserciones, actualizaciones y rendimiento acumulado).
+     */
+@FunctionalInterface
+public interface ProgresoImportacion{
+
+    void informar(ResultadoImportacion parcial);
+
+        // Muestra el progreso por consola.
+    ProgresoImportacion CONSOLA = parcial -> System.out.println("\n\tImportación en curso: " + parcial.getRegistrosLeidos() + " registros leídos"
+            + " (libros +" + parcial.getLibrosInsertados() + "/~" + parcial.getLibrosActualizados()
+            + ", ejemplares +" + parcial.getEjemplaresInsertados() + "/~" + parcial.getEjemplaresActualizados() + ")"
+            + "\t" + String.format("%.1f", parcial.getRegistrosPorSegundo()) + " registros/s");
+
+        // No informa del progreso.
+    ProgresoImportacion NINGUNO = parcial -> {};
+}
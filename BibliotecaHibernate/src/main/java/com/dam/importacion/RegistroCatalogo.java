@@ -0,0 +1,122 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.importacion;
+
+
+// Importa de la biblioteca/librería el paquete "EstadoEjemplar".
+import com.dam.modelo.Ejemplar.EstadoEjemplar;
+// Importa de la biblioteca/librería el paquete "LocalDate".
+import java.time.LocalDate;
+// Importa de la biblioteca/librería el paquete "DateTimeParseException".
+import java.time.format.DateTimeParseException;
+// Importa de la biblioteca/librería el paquete "Map".
+import java.util.Map;
+
+// Definimos un registro (una fila) del fichero de catálogo: un autor, un libro y, opcionalmente, un ejemplar de ese libro.
+    /*
+     * Los campos del fichero (cabecera CSV o claves JSON) son:
+     *   "nombre", "apellidos", "nacionalidad", "fecha_nacimiento"                  → Autor (obligatorios "nombre" y "apellidos").
+     *   "titulo", "isbn", "fecha_publicacion", "numero_paginas"                    → Libro (obligatorios "titulo" e "isbn"; el "isbn" es la clave).
+     *   "codigo_ejemplar", "estado", "ubicacion"                                   → Ejemplar (opcional; el "codigo_ejemplar" es la clave y el estado por defecto es "DISPONIBLE").
+     *
+     * Las fechas usan el formato ISO ("aaaa-mm-dd").
+     */
+public final class RegistroCatalogo{
+    // ==================== ATRIBUTOS ====================
+    private final String nombre;
+    private final String apellidos;
+    private final String nacionalidad;
+    private final LocalDate fechaNacimiento;
+
+    private final String titulo;
+    private final String isbn;
+    private final LocalDate fechaPublicacion;
+    private final int numeroPaginas;
+
+    private final String codigoEjemplar;
+    private final EstadoEjemplar estado;
+    private final String ubicacion;
+
+
+    // ==================== CONSTRUCTORES ====================
+    private RegistroCatalogo(Map<String, String> campos){
+        this.nombre = obligatorio(campos, "nombre");
+        this.apellidos = obligatorio(campos, "apellidos");
+        this.nacionalidad = opcional(campos, "nacionalidad");
+        this.fechaNacimiento = fecha(campos, "fecha_nacimiento");
+
+        this.titulo = obligatorio(campos, "titulo");
+        this.isbn = obligatorio(campos, "isbn");
+        this.fechaPublicacion = fecha(campos, "fecha_publicacion");
+        String paginas = opcional(campos, "numero_paginas");
+        try{
+            this.numeroPaginas = paginas == null ? 0 : Integer.parseInt(paginas);
+        } catch (NumberFormatException nfe){
+            throw new IllegalArgumentException("El campo \"numero_paginas\" no es un número: '" + paginas + "'");
+        }
+
+        this.codigoEjemplar = opcional(campos, "codigo_ejemplar");
+        String valorEstado = opcional(campos, "estado");
+        try{
+            this.estado = valorEstado == null ? EstadoEjemplar.DISPONIBLE : EstadoEjemplar.valueOf(valorEstado.toUpperCase());
+        } catch (IllegalArgumentException iae){
+            throw new IllegalArgumentException("El campo \"estado\" no es un estado de ejemplar válido: '" + valorEstado + "'");
+        }
+        this.ubicacion = opcional(campos, "ubicacion");
+    }
+
+    /*
+     * Crea un registro a partir de los campos leídos del fichero.
+     *
+     * "@param campos" Parámetro: Pares campo/valor (los valores vacíos se tratan como ausentes).
+     * "@return" Retorna: Registro validado.
+     * Lanza "IllegalArgumentException" si falta un campo obligatorio o algún valor no tiene el formato esperado.
+     */
+    public static RegistroCatalogo desdeCampos(Map<String, String> campos){ return new RegistroCatalogo(campos); }
+
+
+    // ==================== MÉTODOS HELPER ====================
+    private static String opcional(Map<String, String> campos, String campo){
+        String valor = campos.get(campo);
+        if (valor == null) return null;
+        valor = valor.trim();
+        return valor.isEmpty() ? null : valor;
+    }
+
+    private static String obligatorio(Map<String, String> campos, String campo){
+        String valor = opcional(campos, campo);
+        if (valor == null) throw new IllegalArgumentException("Falta el campo obligatorio \"" + campo + "\"");
+        return valor;
+    }
+
+    private static LocalDate fecha(Map<String, String> campos, String campo){
+        String valor = opcional(campos, campo);
+        try{
+            return valor == null ? null : LocalDate.parse(valor);
+        } catch (DateTimeParseException dtpe){
+            throw new IllegalArgumentException("El campo \"" + campo + "\" no es una fecha ISO (aaaa-mm-dd): '" + valor + "'");
+        }
+    }
+
+
+    // ==================== GETTERS ====================
+    public String getNombre(){ return nombre; }
+    public String getApellidos(){ return apellidos; }
+    public String getNacionalidad(){ return nacionalidad; }
+    public LocalDate getFechaNacimiento(){ return fechaNacimiento; }
+
+    public String getTitulo(){ return titulo; }
+    public String getIsbn(){ return isbn; }
+    public LocalDate getFechaPublicacion(){ return fechaPublicacion; }
+    public int getNumeroPaginas(){ return numeroPaginas; }
+
+    public boolean tieneEjemplar(){ return codigoEjemplar != null; }
+    public String getCodigoEjemplar(){ return codigoEjemplar; }
+    public EstadoEjemplar getEstado(){ return estado; }
+    public String getUbicacion(){ return ubicacion; }
+
+        // Clave con la que se identifica al autor (no tiene ninguna columna única en la base de datos).
+    public String getClaveAutor(){ return nombre + '\u0000' + apellidos; }
+}
@@ -0,0 +1,147 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.indice;
+
+
+// Importa de la biblioteca/librería el paquete "Facetas".
+import com.dam.indice.IndiceFacetasEjemplares.Facetas;
+// Importa de la biblioteca/librería el paquete "EstadoEjemplar".
+import com.dam.modelo.Ejemplar.EstadoEjemplar;
+// Importa de la biblioteca/librería el paquete "Collections".
+import java.util.Collections;
+// Importa de la biblioteca/librería el paquete "Map".
+import java.util.Map;
+// Importa de la biblioteca/librería el paquete "Objects".
+import java.util.Objects;
+// Importa de la biblioteca/librería el paquete "WeakHashMap".
+import java.util.WeakHashMap;
+// Importa de la biblioteca/librería el paquete "SharedSessionContract".
+import org.hibernate.SharedSessionContract;
+// Importa de la biblioteca/librería el paquete "AfterTransactionCompletionProcess".
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+// Importa de la biblioteca/librería el paquete "SessionImplementor".
+import org.hibernate.engine.spi.SessionImplementor;
+
+// Crea la clase "CambiosFacetas".
+    /*
+     * Cambios pendientes en "IndiceFacetasEjemplares" de una transacción que escribe ejemplares sin lanzar eventos (sentencias masivas, "StatelessSession").
+     *
+     *   1. Por cada valor de cada faceta se acumulan los "ID" que entran (altas) y los que salen (bajas), como mapas de bits: un "UPDATE" de millones de ejemplares ocupa poco.
+     *   2. Un "ID" que entra y después sale de un mismo valor (o al revés) se compensa, así que altas y bajas nunca se solapan y el orden en que se aplican no importa.
+     *   3. No se anotan recuentos: al aplicarlos, el índice vuelve a contar las ubicaciones afectadas a partir de sus conjuntos ya modificados.
+     *   4. Se aplican al índice de una vez y solo si la transacción se confirma: tras un "rollback" el índice no llega a verlos.
+     *
+     * Con una "Session", "deTransaccion()" devuelve los cambios de su transacción en curso y los aplica tras el "commit" (igual que "CambiosInventario").
+     * Con una "StatelessSession" quien escribe crea su propia instancia, anota los cambios y llama a "aplicar()" tras el "commit" (ver "ImportadorCatalogo").
+     * Una instancia solo debe usarla un hilo a la vez, igual que la sesión a la que pertenece.
+     */
+public final class CambiosFacetas{
+    // ==================== ATRIBUTOS ====================
+        // Cambios de la transacción en curso de cada "Session" (las claves son débiles: una sesión cerrada a mitad de transacción no deja su entrada para siempre).
+    private static final Map<SessionImplementor, CambiosFacetas> POR_SESION = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private Facetas altas = new Facetas();
+    private Facetas bajas = new Facetas();
+
+
+    // ==================== CONSTRUCTORES ====================
+    public CambiosFacetas(){}
+
+    /*
+     * Devuelve los cambios de la transacción en curso de la sesión. La primera vez en cada transacción registra en su "ActionQueue"
+     * un proceso que, al terminar la transacción, los aplica al índice de la aplicación si se ha confirmado y los descarta en cualquier caso.
+     *
+     * "@param session" Parámetro: Sesión con una transacción activa.
+     * "@return" Retorna: Cambios pendientes de la transacción.
+     */
+    public static CambiosFacetas deTransaccion(SharedSessionContract session){
+        SessionImplementor sesion = (SessionImplementor) session;
+        CambiosFacetas cambios = POR_SESION.get(sesion);
+        if (cambios != null) return cambios;
+
+        CambiosFacetas nuevos = new CambiosFacetas();
+        POR_SESION.put(sesion, nuevos);
+        sesion.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (exito, s) -> {
+            POR_SESION.remove(sesion);
+            if (exito) nuevos.aplicar(IndiceFacetasEjemplares.getInstancia());
+        });
+        return nuevos;
+    }
+
+
+    // ==================== ANOTACIONES ====================
+
+    /*
+     * Anota un ejemplar nuevo (en todas sus facetas).
+     */
+    public void anotarAlta(Long id, Long idLibro, String ubicacion, EstadoEjemplar estado){
+        if (id == null) return;
+        anotar(altas.todos, bajas.todos, id);
+        anotar(altas.porLibro, bajas.porLibro, idLibro, id);
+        anotar(altas.porUbicacion, bajas.porUbicacion, ubicacion, id);
+        anotar(altas.porEstado, bajas.porEstado, estado, id);
+    }
+
+    /*
+     * Anota un ejemplar borrado (de todas sus facetas).
+     */
+    public void anotarBaja(Long id, Long idLibro, String ubicacion, EstadoEjemplar estado){
+        if (id == null) return;
+        anotar(bajas.todos, altas.todos, id);
+        anotar(bajas.porLibro, altas.porLibro, idLibro, id);
+        anotar(bajas.porUbicacion, altas.porUbicacion, ubicacion, id);
+        anotar(bajas.porEstado, altas.porEstado, estado, id);
+    }
+
+    /*
+     * Anota que un ejemplar pasa de unos valores a otros (solo cambian las facetas cuyo valor es distinto).
+     */
+    public void anotarCambio(Long id, Long libroAntes, String ubicacionAntes, EstadoEjemplar estadoAntes, Long libroDespues, String ubicacionDespues, EstadoEjemplar estadoDespues){
+        if (id == null) return;
+        if (!Objects.equals(libroAntes, libroDespues)){
+            anotar(bajas.porLibro, altas.porLibro, libroAntes, id);
+            anotar(altas.porLibro, bajas.porLibro, libroDespues, id);
+        }
+        if (!Objects.equals(ubicacionAntes, ubicacionDespues)){
+            anotar(bajas.porUbicacion, altas.porUbicacion, ubicacionAntes, id);
+            anotar(altas.porUbicacion, bajas.porUbicacion, ubicacionDespues, id);
+        }
+        if (estadoAntes != estadoDespues){
+            anotar(bajas.porEstado, altas.porEstado, estadoAntes, id);
+            anotar(altas.porEstado, bajas.porEstado, estadoDespues, id);
+        }
+    }
+
+            /*
+             * "@return" Retorna: "true" si no hay ningún cambio que aplicar.
+             */
+    public boolean isVacio(){ return altas.isVacia() && bajas.isVacia(); }
+
+
+    // ==================== APLICACIÓN ====================
+
+    /*
+     * Aplica los cambios al índice y los olvida. Debe llamarse después del "commit".
+     *
+     * "@param indice" Parámetro: Índice al que aplicar los cambios.
+     */
+    public void aplicar(IndiceFacetasEjemplares indice){
+        if (!isVacio()) indice.aplicar(altas, bajas);
+        altas = new Facetas();
+        bajas = new Facetas();
+    }
+
+
+    // ==================== MÉTODOS HELPER ====================
+        // Si el "ID" estaba anotado en sentido contrario se compensa; si no, se anota en "destino".
+    private static <K> void anotar(Map<K, MapaBits> destino, Map<K, MapaBits> contrario, K valor, long id){
+        if (valor == null || Facetas.quitar(contrario, valor, id)) return;
+        Facetas.agregar(destino, valor, id);
+    }
+
+    private static void anotar(MapaBits destino, MapaBits contrario, long id){
+        if (!contrario.quitar(id)) destino.agregar(id);
+    }
+}
@@ -0,0 +1,122 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.indice;
+
+
+// Importa de la biblioteca/librería el paquete "Map".
+import java.util.Map;
+// Importa de la biblioteca/librería el paquete "ConcurrentHashMap".
+import java.util.concurrent.ConcurrentHashMap;
+// Importa de la biblioteca/librería el paquete "SessionFactory".
+import org.hibernate.SessionFactory;
+// Importa de la biblioteca/librería el paquete "StatelessSession".
+import org.hibernate.StatelessSession;
+
+// Crea la clase "IndiceCatalogo".
+    /*
+     * Índice en memoria de las claves naturales del catálogo: ISBN → "ID" del libro y código de ejemplar → "ID" del ejemplar.
+     *
+     *   1. Se carga completo al arrancar ("cargar()", en segundo plano desde "HibernateUtil") leyendo solo las dos columnas de cada tabla.
+     *   2. Se mantiene al día con las escrituras hechas a través de Hibernate ("ListenerIndiceCatalogo", tras cada "commit") y con las de la importación masiva ("ImportadorCatalogo").
+     *   3. Es una caché, no la fuente de verdad: si una clave no está (índice aún cargándose, escrita por otro proceso...) el llamante consulta la base de datos y la registra ("ServicioBiblioteca").
+     *
+     * Cada entrada es una "String" compacta (1 byte por carácter, los ISBN y códigos son ASCII) y un "Long". Los mapas son concurrentes: las búsquedas no bloquean y pueden hacerse desde cualquier nº de hilos.
+     */
+public final class IndiceCatalogo{
+    // ==================== ATRIBUTOS ====================
+    private static final IndiceCatalogo INSTANCIA = new IndiceCatalogo();
+
+    private final Map<String, Long> librosPorIsbn = new ConcurrentHashMap<>(1 << 14);
+    private final Map<String, Long> ejemplaresPorCodigo = new ConcurrentHashMap<>(1 << 16);
+    private volatile boolean cargado;
+
+
+    // ==================== CONSTRUCTORES ====================
+    private IndiceCatalogo(){}
+
+            /*
+             * "@return" Retorna: El índice del catálogo (único por proceso, igual que la "SessionFactory").
+             */
+    public static IndiceCatalogo getInstancia(){ return INSTANCIA; }
+
+
+    // ==================== BÚSQUEDAS ====================
+
+    /*
+     * "@param isbn" Parámetro: ISBN del libro.
+     * "@return" Retorna: "ID" del libro, o "null" si el ISBN no está en el índice (no implica que no exista en la base de datos).
+     */
+    public Long idLibro(String isbn){ return isbn == null ? null : librosPorIsbn.get(isbn); }
+
+    /*
+     * "@param codigoEjemplar" Parámetro: Código del ejemplar.
+     * "@return" Retorna: "ID" del ejemplar, o "null" si el código no está en el índice (no implica que no exista en la base de datos).
+     */
+    public Long idEjemplar(String codigoEjemplar){ return codigoEjemplar == null ? null : ejemplaresPorCodigo.get(codigoEjemplar); }
+
+
+    // ==================== MANTENIMIENTO ====================
+    public void registrarLibro(String isbn, Long id){
+        if (isbn != null && id != null) librosPorIsbn.put(isbn, id);
+    }
+
+    public void registrarEjemplar(String codigoEjemplar, Long id){
+        if (codigoEjemplar != null && id != null) ejemplaresPorCodigo.put(codigoEjemplar, id);
+    }
+
+        // Solo se elimina la entrada si sigue apuntando a ese "ID" (otra escritura más reciente puede haberla reasignado).
+    public void eliminarLibro(String isbn, Long id){
+        if (isbn != null && id != null) librosPorIsbn.remove(isbn, id);
+    }
+
+    public void eliminarEjemplar(String codigoEjemplar, Long id){
+        if (codigoEjemplar != null && id != null) ejemplaresPorCodigo.remove(codigoEjemplar, id);
+    }
+
+        // Elimina las entradas de un "ID" cuando no se conoce su clave anterior (recorre el índice, solo para casos excepcionales).
+    public void olvidarLibro(Long id){ librosPorIsbn.values().removeIf(id::equals); }
+    public void olvidarEjemplar(Long id){ ejemplaresPorCodigo.values().removeIf(id::equals); }
+
+    /*
+     * Vacía el índice. Debe llamarse tras escrituras que Hibernate no ve y que cambian o borran claves (SQL nativo, herramientas externas).
+     */
+    public void vaciar(){
+        librosPorIsbn.clear();
+        ejemplaresPorCodigo.clear();
+        cargado = false;
+    }
+
+
+    // ==================== CARGA ====================
+
+    /*
+     * Carga en el índice todas las claves de libros y ejemplares, recorriendo cada tabla con un cursor ("IndiceUtil.porLotes()", memoria constante en el lado de Hibernate).
+     * Las claves ya registradas por escrituras concurrentes no se sobrescriben.
+     *
+     * "@param sessionFactory" Parámetro: Fábrica de sesiones con la que leer las tablas.
+     */
+    public void cargar(SessionFactory sessionFactory){
+        StatelessSession session = sessionFactory.openStatelessSession();
+        try{
+            recorrer(session, "SELECT l.isbn, l.id FROM Libro l", librosPorIsbn);
+            recorrer(session, "SELECT e.codigoEjemplar, e.id FROM Ejemplar e", ejemplaresPorCodigo);
+            cargado = true;
+        } finally{
+            session.close();
+        }
+    }
+
+    private static void recorrer(StatelessSession session, String hql, Map<String, Long> destino){
+        IndiceUtil.porLotes(session, hql, lote -> {
+            for (Object[] fila : lote) destino.putIfAbsent((String) fila[0], (Long) fila[1]);
+        });
+    }
+
+
+    // ==================== GETTERS ====================
+    public boolean isCargado(){ return cargado; }
+    public int getLibros(){ return librosPorIsbn.size(); }
+    public int getEjemplares(){ return ejemplaresPorCodigo.size(); }
+}
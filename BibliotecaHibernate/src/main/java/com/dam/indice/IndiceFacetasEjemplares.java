@@ -0,0 +1,477 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.indice;
+
+
+// Importa de la biblioteca/librería el paquete "ResultadoFacetas".
+import com.dam.dto.ResultadoFacetas;
+// Importa de la biblioteca/librería el paquete "EstadoEjemplar".
+import com.dam.modelo.Ejemplar.EstadoEjemplar;
+// Importa de la biblioteca/librería el paquete "ArrayList".
+import java.util.ArrayList;
+// Importa de la biblioteca/librería el paquete "Collection".
+import java.util.Collection;
+// Importa de la biblioteca/librería el paquete "EnumMap".
+import java.util.EnumMap;
+// Importa de la biblioteca/librería el paquete "HashMap".
+import java.util.HashMap;
+// Importa de la biblioteca/librería el paquete "HashSet".
+import java.util.HashSet;
+// Importa de la biblioteca/librería el paquete "Iterator".
+import java.util.Iterator;
+// Importa de la biblioteca/librería el paquete "List".
+import java.util.List;
+// Importa de la biblioteca/librería el paquete "Map".
+import java.util.Map;
+// Importa de la biblioteca/librería el paquete "Objects".
+import java.util.Objects;
+// Importa de la biblioteca/librería el paquete "Set".
+import java.util.Set;
+// Importa de la biblioteca/librería el paquete "ReentrantReadWriteLock".
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+// Importa de la biblioteca/librería el paquete "Consumer".
+import java.util.function.Consumer;
+// Importa de la biblioteca/librería el paquete "SessionFactory".
+import org.hibernate.SessionFactory;
+// Importa de la biblioteca/librería el paquete "StatelessSession".
+import org.hibernate.StatelessSession;
+
+// Crea la clase "IndiceFacetasEjemplares".
+    /*
+     * Índice en memoria de los ejemplares por estado, ubicación y libro, para filtrar por cualquier combinación sin una consulta "HQL" por cada una.
+     *
+     *   1. Por cada estado, cada ubicación y cada libro se guarda el conjunto de "ID" de sus ejemplares como un mapa de bits comprimido ("MapaBits").
+     *   2. Un filtro ("DISPONIBLE" en "E-10" o "E-11") es la unión de los conjuntos de cada faceta (estados, ubicaciones, libros) y la intersección de esas uniones; una faceta sin valores no filtra.
+     *   3. Junto al resultado se cuentan los ejemplares de cada estado y de cada ubicación con el resto de filtros ("ResultadoFacetas"). Sin filtro de libro se suman los recuentos por (ubicación, estado),
+     *      que se mantienen al día con cada cambio, en lugar de cruzar conjuntos de todo el catálogo; con él, se cuentan las intersecciones con sus ejemplares (pocos) sin construirlas.
+     *
+     * Igual que los demás índices: se carga al arrancar ("cargar()", en segundo plano desde "HibernateUtil") y se mantiene al día con las escrituras hechas a través de una "Session" ("ListenerIndiceFacetas")
+     * y con las sentencias masivas y la importación, que anotan sus cambios en "CambiosFacetas" y los aplican tras el "commit".
+     * Cada escritura de un ejemplar lo coloca en sus valores actuales quitándolo antes de todos los estados y ubicaciones en que esté (y de su libro anterior), y las de un lote recuentan las ubicaciones afectadas
+     * a partir de los conjuntos, así que aplicarlas dos veces o tras otra más reciente no deja un ejemplar en dos estados ni descuadra los recuentos. Lo que aun así quede desfasado (avisos tras el "commit" que llegan en otro orden, escrituras fuera de Hibernate)
+     * lo corrige la reconstrucción desde la tabla que hace "ReconciliadorInventario" tras cada reconciliación.
+     * Las inserciones también se aplican tras el "commit" (ver "ListenerIndiceFacetas"), así que una inserción revertida no deja "ID" inexistentes; quien use los "ID" los comprueba igualmente al cargar los ejemplares
+     * (un borrado fuera de Hibernate no se ve hasta la siguiente reconstrucción).
+     *
+     * Las búsquedas comparten un cerrojo de lectura y no se bloquean entre sí; cada escritura toma el de escritura solo mientras actualiza los conjuntos de un ejemplar (o de un lote).
+     */
+public final class IndiceFacetasEjemplares{
+    // ==================== ATRIBUTOS ====================
+    private static final IndiceFacetasEjemplares INSTANCIA = new IndiceFacetasEjemplares();
+
+    private static final EstadoEjemplar[] ESTADOS = EstadoEjemplar.values();
+
+    private final ReentrantReadWriteLock cerrojo = new ReentrantReadWriteLock();
+        // Se sustituyen enteras al terminar cada carga. Protegidas por "cerrojo", igual que "cambiosDuranteCarga".
+    private Facetas facetas = new Facetas();
+        // Escrituras hechas mientras "cargar()" lee la tabla, para repetirlas sobre las facetas nuevas antes de sustituir las actuales ("null" si no hay ninguna carga en curso).
+    private List<Consumer<Facetas>> cambiosDuranteCarga;
+    private volatile boolean cargado;
+
+
+    // ==================== CONSTRUCTORES ====================
+            /*
+             * Crea un índice vacío e independiente del de la aplicación (pruebas y benchmarks).
+             */
+    public IndiceFacetasEjemplares(){}
+
+            /*
+             * "@return" Retorna: El índice de facetas de los ejemplares (único por proceso, igual que la "SessionFactory").
+             */
+    public static IndiceFacetasEjemplares getInstancia(){ return INSTANCIA; }
+
+
+    // ==================== BÚSQUEDAS ====================
+
+    /*
+     * Filtra los ejemplares: dentro de cada faceta basta con uno de los valores indicados, y el ejemplar debe cumplir todas las facetas.
+     *
+     * "@param estados"     Parámetro: Estados admitidos ("null" o vacío: cualquiera).
+     * "@param ubicaciones" Parámetro: Ubicaciones admitidas ("null" o vacío: cualquiera).
+     * "@param libros"      Parámetro: "ID" de los libros admitidos ("null" o vacío: cualquiera).
+     * "@param limite"      Parámetro: Nº máximo de "ID" a devolver.
+     * "@return" Retorna: Los "limite" primeros "ID", el total y los recuentos por estado y por ubicación.
+     */
+    public ResultadoFacetas buscar(Collection<EstadoEjemplar> estados, Collection<String> ubicaciones, Collection<Long> libros, int limite){
+        if (limite < 1) throw new IllegalArgumentException("El límite de la búsqueda debe ser positivo: " + limite);
+        cerrojo.readLock().lock();
+        try{
+                // "null": la faceta no filtra.
+            MapaBits filtroEstado = union(facetas.porEstado, estados);
+            MapaBits filtroUbicacion = union(facetas.porUbicacion, ubicaciones);
+            MapaBits filtroLibro = union(facetas.porLibro, libros);
+
+            MapaBits resultado = interseccion(interseccion(filtroEstado, filtroUbicacion), filtroLibro);
+            if (resultado == null) resultado = facetas.todos;
+            List<Long> ids = new ArrayList<>(limite);
+            for (long id : resultado.primeros(limite)) ids.add(id);
+
+            Map<EstadoEjemplar, Long> porEstado;
+            Map<String, Long> porUbicacion;
+            if (filtroLibro == null){
+                porEstado = filtroUbicacion == null ? contar(facetas.porEstado, null) : contarEstados(new HashSet<>(ubicaciones));
+                porUbicacion = filtroEstado == null ? contar(facetas.porUbicacion, null) : contarUbicaciones(new HashSet<>(estados));
+            } else{
+                porEstado = contar(facetas.porEstado, interseccion(filtroUbicacion, filtroLibro));
+                porUbicacion = contar(facetas.porUbicacion, interseccion(filtroEstado, filtroLibro));
+            }
+            return new ResultadoFacetas(ids, resultado.getCardinalidad(), porEstado, porUbicacion);
+        } finally{
+            cerrojo.readLock().unlock();
+        }
+    }
+
+
+    // ==================== MANTENIMIENTO ====================
+    public void registrarEjemplar(Long id, Long idLibro, String ubicacion, EstadoEjemplar estado){
+        if (id == null) return;
+        escribir(f -> {
+            f.quitar(id, idLibro);
+            f.agregar(id, idLibro, ubicacion, estado);
+        });
+    }
+
+        // Cambio de un ejemplar: se quita de todos los estados y ubicaciones (y de su libro anterior, o de todos si cambia de libro) y se añade a sus valores nuevos.
+    public void cambiarEjemplar(Long id, Long libroAntes, Long idLibro, String ubicacion, EstadoEjemplar estado){
+        if (id == null) return;
+        escribir(f -> {
+            if (Objects.equals(libroAntes, idLibro)) f.quitar(id, libroAntes);
+            else f.olvidar(id);
+            f.agregar(id, idLibro, ubicacion, estado);
+        });
+    }
+
+    public void eliminarEjemplar(Long id, Long idLibro){
+        if (id != null) escribir(f -> f.quitar(id, idLibro));
+    }
+
+        // Elimina un ejemplar cuando no se conoce su libro (recorre también los conjuntos de todos los libros, solo para casos excepcionales).
+    public void olvidarEjemplar(Long id){
+        if (id != null) escribir(f -> f.olvidar(id));
+    }
+
+        // Aplica de una vez los cambios de una transacción ya confirmada (ver "CambiosFacetas").
+    void aplicar(Facetas altas, Facetas bajas){
+        escribir(f -> f.aplicar(altas, bajas));
+    }
+
+    /*
+     * Vacía el índice (y descarta la carga en curso, si la hay). Debe llamarse tras escrituras que Hibernate no ve y que cambian ejemplares (SQL nativo, herramientas externas).
+     */
+    public void vaciar(){
+        cerrojo.writeLock().lock();
+        try{
+            facetas = new Facetas();
+            cambiosDuranteCarga = null;
+            cargado = false;
+        } finally{
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+
+    // ==================== CARGA ====================
+
+    /*
+     * Indexa todos los ejemplares en unas facetas nuevas, recorriendo la tabla con un cursor ("IndiceUtil.porLotes()") sin tomar el cerrojo (las búsquedas siguen usando las actuales), y después las sustituye.
+     * Las escrituras que llegan mientras tanto se aplican a las actuales y se guardan para repetirlas sobre las nuevas antes de sustituirlas: como cada una coloca el ejemplar en sus valores,
+     * da igual que la fila leída ya la incluyera. Sirve para la primera carga y para reconstruir el índice desde la tabla (ver "ReconciliadorInventario"); dos cargas a la vez se esperan.
+     *
+     * "@param sessionFactory" Parámetro: Fábrica de sesiones con la que leer la tabla.
+     */
+    public synchronized void cargar(SessionFactory sessionFactory){
+        List<Consumer<Facetas>> cambios = new ArrayList<>();
+        cerrojo.writeLock().lock();
+        try{
+            cambiosDuranteCarga = cambios;
+        } finally{
+            cerrojo.writeLock().unlock();
+        }
+
+        Facetas nuevas = new Facetas();
+        boolean leida = false;
+        try{
+            StatelessSession session = sessionFactory.openStatelessSession();
+            try{
+                IndiceUtil.porLotes(session, "SELECT e.id, e.libro.id, e.ubicacion, e.estado FROM Ejemplar e", lote -> {
+                    for (Object[] fila : lote) nuevas.agregar((Long) fila[0], (Long) fila[1], (String) fila[2], (EstadoEjemplar) fila[3]);
+                });
+            } finally{
+                session.close();
+            }
+            leida = true;
+        } finally{
+            cerrojo.writeLock().lock();
+            try{
+                    // Si falla la lectura se siguen usando las facetas actuales. "vaciar()" durante la carga la descarta: lo leído puede ser anterior a las escrituras que no ha visto Hibernate.
+                if (leida && cambiosDuranteCarga == cambios){
+                    for (Consumer<Facetas> cambio : cambios) cambio.accept(nuevas);
+                    facetas = nuevas;
+                    cargado = true;
+                }
+                cambiosDuranteCarga = null;
+            } finally{
+                cerrojo.writeLock().unlock();
+            }
+        }
+    }
+
+
+    // ==================== GETTERS ====================
+    public boolean isCargado(){ return cargado; }
+
+    public long getEjemplares(){ return IndiceUtil.leer(cerrojo, () -> facetas.todos.getCardinalidad()); }
+    public long getUbicaciones(){ return IndiceUtil.leer(cerrojo, () -> (long) facetas.porUbicacion.size()); }
+
+            /*
+             * "@return" Retorna: Memoria aproximada de los mapas de bits del índice, en bytes.
+             */
+    public long getBytes(){ return IndiceUtil.leer(cerrojo, () -> facetas.getBytes()); }
+
+
+    // ==================== MÉTODOS HELPER ====================
+        // Unión de los conjuntos de los valores pedidos; "null" si no se pide ninguno (un solo valor devuelve su conjunto sin copiarlo: el resultado no se modifica).
+    private static <K> MapaBits union(Map<K, MapaBits> faceta, Collection<K> valores){
+        if (valores == null || valores.isEmpty()) return null;
+        MapaBits union = null;
+        boolean copiada = false;
+        for (K valor : valores){
+            MapaBits ids = faceta.get(valor);
+            if (ids == null) continue;
+            if (union == null) union = ids;
+            else{
+                if (!copiada){
+                    union = union.copia();
+                    copiada = true;
+                }
+                union.agregarTodos(ids);
+            }
+        }
+        return union != null ? union : new MapaBits();
+    }
+
+    private static MapaBits interseccion(MapaBits a, MapaBits b){
+        if (a == null) return b;
+        if (b == null) return a;
+        return MapaBits.y(a, b);
+    }
+
+        // Nº de ejemplares de cada valor de la faceta dentro de "filtro" ("null": todos); se omiten los valores sin ninguno.
+    private static <K> Map<K, Long> contar(Map<K, MapaBits> faceta, MapaBits filtro){
+        Map<K, Long> conteo = new HashMap<>();
+        for (Map.Entry<K, MapaBits> valor : faceta.entrySet()){
+            long cantidad = filtro == null ? valor.getValue().getCardinalidad() : MapaBits.cardinalidadY(valor.getValue(), filtro);
+            if (cantidad > 0) conteo.put(valor.getKey(), cantidad);
+        }
+        return conteo;
+    }
+
+        // Ejemplares de cada estado en las ubicaciones pedidas (suma de sus recuentos por estado).
+    private Map<EstadoEjemplar, Long> contarEstados(Set<String> ubicaciones){
+        Map<EstadoEjemplar, Long> conteo = new EnumMap<>(EstadoEjemplar.class);
+        for (String ubicacion : ubicaciones){
+            long[] porEstado = facetas.porUbicacionEstado.get(ubicacion);
+            if (porEstado == null) continue;
+            for (EstadoEjemplar estado : ESTADOS) conteo.merge(estado, porEstado[estado.ordinal()], Long::sum);
+        }
+        return conteo;
+    }
+
+        // Ejemplares de cada ubicación en los estados pedidos; se omiten las ubicaciones sin ninguno.
+    private Map<String, Long> contarUbicaciones(Set<EstadoEjemplar> estados){
+        Map<String, Long> conteo = new HashMap<>();
+        for (Map.Entry<String, long[]> ubicacion : facetas.porUbicacionEstado.entrySet()){
+            long cantidad = 0;
+            for (EstadoEjemplar estado : estados) cantidad += ubicacion.getValue()[estado.ordinal()];
+            if (cantidad > 0) conteo.put(ubicacion.getKey(), cantidad);
+        }
+        return conteo;
+    }
+
+        // Aplica un cambio a las facetas actuales (y lo guarda si hay una carga en curso).
+    private void escribir(Consumer<Facetas> cambio){
+        IndiceUtil.escribir(cerrojo, () -> {
+            cambio.accept(facetas);
+            if (cambiosDuranteCarga != null) cambiosDuranteCarga.add(cambio);
+        });
+    }
+
+
+    // ==================== TIPOS AUXILIARES ====================
+        /*
+         * Conjuntos de "ID" de ejemplares: todos y por cada valor de cada faceta. Los ejemplares sin estado, ubicación o libro solo están en "todos" y en las facetas que sí tienen.
+         * Un ejemplar está como mucho en un estado y una ubicación, y todos los "ID" de las facetas están en "todos".
+         * "porUbicacionEstado" cuenta los ejemplares de cada (ubicación, estado) (posición "ordinal()" del estado); solo los que tienen los dos.
+         * La usa el índice (con su cerrojo) y "CambiosFacetas" (para las altas y las bajas de una transacción, sin recuentos). Los valores sin ningún ejemplar se eliminan del mapa.
+         */
+    static final class Facetas{
+        final MapaBits todos = new MapaBits();
+        final Map<EstadoEjemplar, MapaBits> porEstado = new EnumMap<>(EstadoEjemplar.class);
+        final Map<String, MapaBits> porUbicacion = new HashMap<>();
+        final Map<Long, MapaBits> porLibro = new HashMap<>();
+        final Map<String, long[]> porUbicacionEstado = new HashMap<>();
+
+            // Solo se cuenta si el ejemplar no estaba ya en esa ubicación y ese estado.
+        void agregar(long id, Long idLibro, String ubicacion, EstadoEjemplar estado){
+            todos.agregar(id);
+            boolean nuevoEstado = agregar(porEstado, estado, id);
+            boolean nuevaUbicacion = agregar(porUbicacion, ubicacion, id);
+            agregar(porLibro, idLibro, id);
+            if (nuevoEstado || nuevaUbicacion) contar(ubicacion, estado, 1);
+        }
+
+            // Quita el ejemplar de todos los estados y ubicaciones en que esté (son pocos valores) y del libro indicado, y descuenta cada (ubicación, estado) en que estaba.
+        void quitar(long id, Long idLibro){
+            if (!todos.quitar(id)) return;
+            List<EstadoEjemplar> estados = olvidar(porEstado, id);
+            List<String> ubicaciones = olvidar(porUbicacion, id);
+            quitar(porLibro, idLibro, id);
+            for (String ubicacion : ubicaciones){
+                for (EstadoEjemplar estado : estados) contar(ubicacion, estado, -1);
+            }
+        }
+
+            // Como "quitar()", pero recorriendo también los conjuntos de todos los libros.
+        void olvidar(long id){
+            if (!todos.contiene(id)) return;
+            olvidar(porLibro, id);
+            quitar(id, null);
+        }
+
+            // Suma "cantidad" al recuento de (ubicación, estado) y elimina la fila si se queda a 0.
+        void contar(String ubicacion, EstadoEjemplar estado, long cantidad){
+            if (ubicacion == null || estado == null) return;
+            long[] porEstado = porUbicacionEstado.computeIfAbsent(ubicacion, u -> new long[ESTADOS.length]);
+            porEstado[estado.ordinal()] += cantidad;
+            for (long valor : porEstado) if (valor != 0) return;
+            porUbicacionEstado.remove(ubicacion);
+        }
+
+        /*
+         * Aplica las altas y las bajas de una transacción ("CambiosFacetas"), con las mismas reglas que un ejemplar suelto:
+         *   1. Los borrados (bajas de "todos") salen de todos los estados y ubicaciones, y de los libros anotados.
+         *   2. Los que entran en un estado o una ubicación salen antes de todos los demás valores de esa faceta; los que salen de un libro, de ese libro.
+         *   3. Los recuentos no se suman: se vuelven a contar, a partir de los conjuntos ya modificados, los de cada ubicación en que estaba o en que está ahora alguno de los ejemplares anotados.
+         *      Así solo cambian por los "ID" que de verdad han entrado o salido, aunque el índice ya incluyera parte de los cambios.
+         */
+        void aplicar(Facetas altas, Facetas bajas){
+            MapaBits entran = altas.ids();
+            MapaBits anotados = entran.copia();
+            anotados.agregarTodos(bajas.ids());
+            Set<String> afectadas = new HashSet<>(altas.porUbicacion.keySet());
+            for (Map.Entry<String, MapaBits> ubicacion : porUbicacion.entrySet()){
+                if (MapaBits.cardinalidadY(ubicacion.getValue(), anotados) > 0) afectadas.add(ubicacion.getKey());
+            }
+
+            todos.quitarTodos(bajas.todos);
+            quitarDeTodos(porEstado, bajas.todos);
+            quitarDeTodos(porUbicacion, bajas.todos);
+            quitarTodos(porEstado, bajas.porEstado);
+            quitarTodos(porUbicacion, bajas.porUbicacion);
+            quitarTodos(porLibro, bajas.porLibro);
+
+            mover(porEstado, altas.porEstado);
+            mover(porUbicacion, altas.porUbicacion);
+            agregarTodos(porLibro, altas.porLibro);
+            todos.agregarTodos(entran);
+
+            for (String ubicacion : afectadas) recontar(ubicacion);
+        }
+
+            // Vuelve a contar los ejemplares de cada estado en la ubicación, cruzando sus conjuntos.
+        private void recontar(String ubicacion){
+            porUbicacionEstado.remove(ubicacion);
+            MapaBits ids = porUbicacion.get(ubicacion);
+            if (ids == null) return;
+            for (Map.Entry<EstadoEjemplar, MapaBits> estado : porEstado.entrySet()) contar(ubicacion, estado.getKey(), MapaBits.cardinalidadY(ids, estado.getValue()));
+        }
+
+            // "@return" Retorna: Unión de "todos" y los conjuntos de todas las facetas.
+        private MapaBits ids(){
+            MapaBits ids = todos.copia();
+            for (MapaBits valor : porEstado.values()) ids.agregarTodos(valor);
+            for (MapaBits valor : porUbicacion.values()) ids.agregarTodos(valor);
+            for (MapaBits valor : porLibro.values()) ids.agregarTodos(valor);
+            return ids;
+        }
+
+        boolean isVacia(){ return todos.isVacio() && porEstado.isEmpty() && porUbicacion.isEmpty() && porLibro.isEmpty() && porUbicacionEstado.isEmpty(); }
+
+        void vaciar(){
+            todos.vaciar();
+            porEstado.clear();
+            porUbicacion.clear();
+            porLibro.clear();
+            porUbicacionEstado.clear();
+        }
+
+        long getBytes(){
+            long bytes = todos.getBytes();
+            for (MapaBits ids : porEstado.values()) bytes += ids.getBytes();
+            for (MapaBits ids : porUbicacion.values()) bytes += ids.getBytes();
+            for (MapaBits ids : porLibro.values()) bytes += ids.getBytes();
+            return bytes + porUbicacionEstado.size() * 8L * ESTADOS.length;
+        }
+
+            // "@return" Retorna: "true" si el "ID" no estaba en el conjunto del valor.
+        static <K> boolean agregar(Map<K, MapaBits> faceta, K valor, long id){
+            return valor != null && faceta.computeIfAbsent(valor, v -> new MapaBits()).agregar(id);
+        }
+
+            // "@return" Retorna: "true" si el "ID" estaba en el conjunto del valor.
+        static <K> boolean quitar(Map<K, MapaBits> faceta, K valor, long id){
+            MapaBits ids = valor == null ? null : faceta.get(valor);
+            if (ids == null || !ids.quitar(id)) return false;
+            if (ids.isVacio()) faceta.remove(valor);
+            return true;
+        }
+
+            // Quita el "ID" de todos los valores de la faceta. "@return" Retorna: Los valores en cuyo conjunto estaba (ninguno o, normalmente, uno).
+        private static <K> List<K> olvidar(Map<K, MapaBits> faceta, long id){
+            List<K> anteriores = new ArrayList<>(1);
+            for (Iterator<Map.Entry<K, MapaBits>> valores = faceta.entrySet().iterator(); valores.hasNext(); ){
+                Map.Entry<K, MapaBits> valor = valores.next();
+                if (!valor.getValue().quitar(id)) continue;
+                anteriores.add(valor.getKey());
+                if (valor.getValue().isVacio()) valores.remove();
+            }
+            return anteriores;
+        }
+
+            // Cada valor de "otra" entra en el mismo valor de la faceta después de salir de todos los demás.
+        private static <K> void mover(Map<K, MapaBits> faceta, Map<K, MapaBits> otra){
+            if (otra.isEmpty()) return;
+            MapaBits entran = new MapaBits();
+            for (MapaBits ids : otra.values()) entran.agregarTodos(ids);
+            quitarDeTodos(faceta, entran);
+            agregarTodos(faceta, otra);
+        }
+
+        private static <K> void agregarTodos(Map<K, MapaBits> faceta, Map<K, MapaBits> otra){
+            for (Map.Entry<K, MapaBits> valor : otra.entrySet()){
+                faceta.computeIfAbsent(valor.getKey(), v -> new MapaBits()).agregarTodos(valor.getValue());
+            }
+        }
+
+        private static <K> void quitarTodos(Map<K, MapaBits> faceta, Map<K, MapaBits> otra){
+            for (Map.Entry<K, MapaBits> valor : otra.entrySet()){
+                MapaBits ids = faceta.get(valor.getKey());
+                if (ids == null) continue;
+                ids.quitarTodos(valor.getValue());
+                if (ids.isVacio()) faceta.remove(valor.getKey());
+            }
+        }
+
+            // Quita los "ID" de todos los valores de la faceta.
+        private static <K> void quitarDeTodos(Map<K, MapaBits> faceta, MapaBits ids){
+            if (ids.isVacio()) return;
+            for (Iterator<MapaBits> valores = faceta.values().iterator(); valores.hasNext(); ){
+                MapaBits valor = valores.next();
+                valor.quitarTodos(ids);
+                if (valor.isVacio()) valores.remove();
+            }
+        }
+    }
+}
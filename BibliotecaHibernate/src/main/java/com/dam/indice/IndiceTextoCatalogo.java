@@ -0,0 +1,496 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.indice;
+
+
+// Importa de la biblioteca/librería el paquete "Normalizer".
+import java.text.Normalizer;
+// Importa de la biblioteca/librería el paquete "ArrayList".
+import java.util.ArrayList;
+// Importa de la biblioteca/librería el paquete "Arrays".
+import java.util.Arrays;
+// Importa de la biblioteca/librería el paquete "Collections".
+import java.util.Collections;
+// Importa de la biblioteca/librería el paquete "HashMap".
+import java.util.HashMap;
+// Importa de la biblioteca/librería el paquete "LinkedHashSet".
+import java.util.LinkedHashSet;
+// Importa de la biblioteca/librería el paquete "List".
+import java.util.List;
+// Importa de la biblioteca/librería el paquete "Locale".
+import java.util.Locale;
+// Importa de la biblioteca/librería el paquete "Map".
+import java.util.Map;
+// Importa de la biblioteca/librería el paquete "NavigableMap".
+import java.util.NavigableMap;
+// Importa de la biblioteca/librería el paquete "Objects".
+import java.util.Objects;
+// Importa de la biblioteca/librería el paquete "PriorityQueue".
+import java.util.PriorityQueue;
+// Importa de la biblioteca/librería el paquete "Set".
+import java.util.Set;
+// Importa de la biblioteca/librería el paquete "TreeMap".
+import java.util.TreeMap;
+// Importa de la biblioteca/librería el paquete "ReentrantReadWriteLock".
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+// Importa de la biblioteca/librería el paquete "Pattern".
+import java.util.regex.Pattern;
+// Importa de la biblioteca/librería el paquete "SessionFactory".
+import org.hibernate.SessionFactory;
+// Importa de la biblioteca/librería el paquete "StatelessSession".
+import org.hibernate.StatelessSession;
+
+// Crea la clase "IndiceTextoCatalogo".
+    /*
+     * Índice invertido en memoria para buscar libros por las palabras de su título y del nombre y apellidos de su autor (sin "LIKE '%...%'", que recorre la tabla entera).
+     *
+     *   1. Cada texto se normaliza antes de indexarlo y de buscarlo ("terminos()"): sin acentos ni diéresis ("Mañana" → "manana"), en minúsculas, partido en palabras y sin las palabras vacías más comunes ("de", "la", "en"...).
+     *   2. Por cada palabra (término) se guarda la lista ordenada de "ID" de los libros que la contienen, una lista para los títulos y otra para los autores (los términos del autor se repiten en cada uno de sus libros).
+     *      Los términos están en un mapa ordenado: una palabra buscada de al menos "LONGITUD_MINIMA_PREFIJO" letras encuentra también las que empiezan por ella ("bata" → "batalla", "batallas") sin guardar sus prefijos.
+     *   3. Un libro aparece en el resultado si contiene todas las palabras buscadas (en el título o en el autor). Se ordena por relevancia: palabras más raras, en el título y completas (no solo como prefijo) puntúan más; a igual relevancia, por "ID".
+     *
+     * Igual que "IndiceCatalogo": se carga al arrancar ("cargar()", en segundo plano desde "HibernateUtil"), se mantiene al día con las escrituras hechas a través de Hibernate ("ListenerIndiceTexto") y de la importación y la purga masivas,
+     * y tras una inserción revertida puede devolver un "ID" que no existe: quien use los "ID" los comprueba al cargar los libros.
+     *
+     * Las búsquedas comparten un cerrojo de lectura y no se bloquean entre sí; cada escritura toma el de escritura solo mientras actualiza las listas de un libro o un autor.
+     */
+public final class IndiceTextoCatalogo{
+    // ==================== ATRIBUTOS ====================
+    private static final IndiceTextoCatalogo INSTANCIA = new IndiceTextoCatalogo();
+
+        // Longitud mínima de una palabra buscada para encontrar también las palabras que empiezan por ella (las más cortas solo se buscan completas).
+    public static final int LONGITUD_MINIMA_PREFIJO = 3;
+
+        // Peso de una palabra según dónde aparece y de una coincidencia solo por prefijo (frente a la palabra completa).
+    private static final float PESO_TITULO = 1.0f;
+    private static final float PESO_AUTOR = 0.6f;
+    private static final float FACTOR_PREFIJO = 0.5f;
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Set<String> PALABRAS_VACIAS = Set.of("a", "al", "con", "de", "del", "el", "en", "la", "las", "lo", "los", "o", "para", "por", "se", "su", "sus", "un", "una", "y");
+
+    private final ReentrantReadWriteLock cerrojo = new ReentrantReadWriteLock();
+        // Término → libros que lo contienen en el título / en el nombre o apellidos del autor.
+    private final TreeMap<String, Apariciones> titulos = new TreeMap<>();
+    private final TreeMap<String, Apariciones> autores = new TreeMap<>();
+        // Libro → términos de su título y autor (para quitarlo de las listas al modificarlo o borrarlo).
+    private final Map<Long, Documento> libros = new HashMap<>();
+        // Autor → términos de su nombre y apellidos, y libros del autor (para actualizarlos si cambia su nombre).
+    private final Map<Long, String[]> terminosAutores = new HashMap<>();
+    private final Map<Long, Apariciones> librosPorAutor = new HashMap<>();
+    private volatile boolean cargado;
+
+
+    // ==================== CONSTRUCTORES ====================
+            /*
+             * Crea un índice vacío e independiente del de la aplicación (pruebas y benchmarks).
+             */
+    public IndiceTextoCatalogo(){}
+
+            /*
+             * "@return" Retorna: El índice de texto del catálogo (único por proceso, igual que la "SessionFactory").
+             */
+    public static IndiceTextoCatalogo getInstancia(){ return INSTANCIA; }
+
+
+    // ==================== BÚSQUEDAS ====================
+
+    /*
+     * "@param texto"  Parámetro: Palabras a buscar (completas o el principio de cada una), en cualquier orden.
+     * "@param limite" Parámetro: Nº máximo de resultados.
+     * "@return" Retorna: "ID" de los libros que contienen todas las palabras, del más al menos relevante (vacío si el texto no tiene ninguna palabra indexable).
+     */
+    public List<Long> buscar(String texto, int limite){
+        if (limite < 1) throw new IllegalArgumentException("El límite de la búsqueda debe ser positivo: " + limite);
+        String[] consulta = terminos(texto);
+        if (consulta.length == 0) return Collections.emptyList();
+
+        cerrojo.readLock().lock();
+        try{
+            int total = Math.max(libros.size(), 1);
+            List<List<Fuente>> porTermino = new ArrayList<>(consulta.length);
+            for (String termino : consulta){
+                List<Fuente> fuentes = new ArrayList<>();
+                anadirFuentes(fuentes, titulos, termino, PESO_TITULO, total);
+                anadirFuentes(fuentes, autores, termino, PESO_AUTOR, total);
+                if (fuentes.isEmpty()) return Collections.emptyList();
+                porTermino.add(fuentes);
+            }
+                // Se empieza por la palabra con menos libros: el resto solo se comprueba sobre sus candidatos.
+            porTermino.sort((a, b) -> Long.compare(apariciones(a), apariciones(b)));
+
+            Coincidencias resultado = unir(porTermino.get(0), 0, porTermino.get(0).size());
+            for (int i = 1; i < porTermino.size() && resultado.tamano > 0; i++) resultado = cruzar(resultado, porTermino.get(i));
+            return mejores(resultado, limite);
+        } finally{
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    /*
+     * Normaliza un texto igual que el índice: sin acentos, en minúsculas, partido en palabras y sin palabras vacías ni repetidas.
+     *
+     * "@param texto" Parámetro: Texto a normalizar ("null" equivale a vacío).
+     * "@return" Retorna: Términos del texto en orden de aparición.
+     */
+    public static String[] terminos(String texto){
+        if (texto == null || texto.isBlank()) return new String[0];
+        String normalizado = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+
+        LinkedHashSet<String> terminos = new LinkedHashSet<>();
+        for (String palabra : SEPARADORES.split(normalizado)){
+            if (!palabra.isEmpty() && !PALABRAS_VACIAS.contains(palabra)) terminos.add(palabra);
+        }
+        return terminos.toArray(new String[0]);
+    }
+
+
+    // ==================== MANTENIMIENTO ====================
+
+    /*
+     * Registra (o actualiza) los términos del nombre y apellidos de un autor en todos sus libros indexados y en los que se indexen después.
+     */
+    public void registrarAutor(Long id, String nombre, String apellidos){
+        if (id == null) return;
+        String[] terminos = terminosAutor(nombre, apellidos);
+        escribir(() -> actualizarAutor(id, terminos));
+    }
+
+    /*
+     * Registra (o actualiza) un libro: los términos de su título y los de su autor (si ya está registrado; si no, se añaden al registrar el autor).
+     */
+    public void registrarLibro(Long id, String titulo, Long idAutor){
+        if (id == null) return;
+        String[] terminos = terminos(titulo);
+        escribir(() -> actualizarLibro(id, terminos, idAutor));
+    }
+
+    public void eliminarLibro(Long id){
+        if (id != null) escribir(() -> quitarLibro(id));
+    }
+
+        // Elimina el autor y todos sus libros (en la base de datos un libro no existe sin su autor).
+    public void eliminarAutor(Long id){
+        if (id == null) return;
+        escribir(() -> {
+            Apariciones suyos = librosPorAutor.get(id);
+            if (suyos != null){
+                for (long idLibro : Arrays.copyOf(suyos.ids, suyos.tamano)) quitarLibro(idLibro);
+            }
+            terminosAutores.remove(id);
+            librosPorAutor.remove(id);
+        });
+    }
+
+    /*
+     * Vacía el índice. Debe llamarse tras escrituras que Hibernate no ve y que cambian títulos o autores (SQL nativo, herramientas externas).
+     */
+    public void vaciar(){
+        escribir(() -> {
+            titulos.clear();
+            autores.clear();
+            libros.clear();
+            terminosAutores.clear();
+            librosPorAutor.clear();
+            cargado = false;
+        });
+    }
+
+
+    // ==================== CARGA ====================
+
+    /*
+     * Indexa todos los autores y libros, recorriendo cada tabla con un cursor ("IndiceUtil.porLotes()") y tomando el cerrojo de escritura una vez por lote (las búsquedas no esperan a toda la carga).
+     * Los autores y libros ya registrados por escrituras concurrentes no se sobrescriben.
+     *
+     * "@param sessionFactory" Parámetro: Fábrica de sesiones con la que leer las tablas.
+     */
+    public void cargar(SessionFactory sessionFactory){
+        StatelessSession session = sessionFactory.openStatelessSession();
+        try{
+            IndiceUtil.porLotes(session, "SELECT a.id, a.nombre, a.apellidos FROM Autor a", lote -> {
+                List<String[]> terminos = new ArrayList<>(lote.size());
+                for (Object[] fila : lote) terminos.add(terminosAutor((String) fila[1], (String) fila[2]));
+                escribir(() -> {
+                    for (int i = 0; i < lote.size(); i++){
+                        Long id = (Long) lote.get(i)[0];
+                        if (!terminosAutores.containsKey(id)) actualizarAutor(id, terminos.get(i));
+                    }
+                });
+            });
+            IndiceUtil.porLotes(session, "SELECT l.id, l.titulo, l.autor.id FROM Libro l", lote -> {
+                List<String[]> terminos = new ArrayList<>(lote.size());
+                for (Object[] fila : lote) terminos.add(terminos((String) fila[1]));
+                escribir(() -> {
+                    for (int i = 0; i < lote.size(); i++){
+                        Long id = (Long) lote.get(i)[0];
+                        if (!libros.containsKey(id)) actualizarLibro(id, terminos.get(i), (Long) lote.get(i)[2]);
+                    }
+                });
+            });
+            cargado = true;
+        } finally{
+            session.close();
+        }
+    }
+
+
+    // ==================== GETTERS ====================
+    public boolean isCargado(){ return cargado; }
+
+    public int getLibros(){ return IndiceUtil.leer(cerrojo, libros::size); }
+    public int getTerminos(){ return IndiceUtil.leer(cerrojo, () -> titulos.size() + autores.size()); }
+
+
+    // ==================== MÉTODOS HELPER ====================
+        // Deben llamarse con el cerrojo de escritura tomado.
+    private void actualizarAutor(Long id, String[] terminos){
+        String[] anteriores = terminosAutores.put(id, terminos);
+        if (Arrays.equals(anteriores, terminos)) return;
+
+        Apariciones suyos = librosPorAutor.get(id);
+        if (suyos == null) return;
+        for (int i = 0; i < suyos.tamano; i++){
+            long idLibro = suyos.ids[i];
+            if (anteriores != null) for (String termino : anteriores) quitar(autores, termino, idLibro);
+            for (String termino : terminos) anadir(autores, termino, idLibro);
+        }
+    }
+
+    private void actualizarLibro(Long id, String[] terminos, Long idAutor){
+        Documento actual = libros.get(id);
+        if (actual != null && actual.igual(terminos, idAutor)) return;
+        quitarLibro(id);
+
+        Apariciones[] titulo = new Apariciones[terminos.length];
+        for (int i = 0; i < terminos.length; i++) titulo[i] = anadir(titulos, terminos[i], id);
+        libros.put(id, new Documento(titulo, idAutor));
+
+        if (idAutor != null){
+            librosPorAutor.computeIfAbsent(idAutor, autor -> new Apariciones(null)).anadir(id);
+            String[] deAutor = terminosAutores.get(idAutor);
+            if (deAutor != null) for (String termino : deAutor) anadir(autores, termino, id);
+        }
+    }
+
+    private void quitarLibro(Long id){
+        Documento documento = libros.remove(id);
+        if (documento == null) return;
+
+        for (Apariciones apariciones : documento.titulo){
+            if (apariciones.quitar(id) && apariciones.tamano == 0) titulos.remove(apariciones.termino);
+        }
+        if (documento.idAutor != null){
+            Apariciones suyos = librosPorAutor.get(documento.idAutor);
+            if (suyos != null && suyos.quitar(id) && suyos.tamano == 0) librosPorAutor.remove(documento.idAutor);
+            String[] deAutor = terminosAutores.get(documento.idAutor);
+            if (deAutor != null) for (String termino : deAutor) quitar(autores, termino, id);
+        }
+    }
+
+    private static Apariciones anadir(Map<String, Apariciones> terminos, String termino, long id){
+        Apariciones apariciones = terminos.computeIfAbsent(termino, Apariciones::new);
+        apariciones.anadir(id);
+        return apariciones;
+    }
+
+    private static void quitar(Map<String, Apariciones> terminos, String termino, long id){
+        Apariciones apariciones = terminos.get(termino);
+        if (apariciones != null && apariciones.quitar(id) && apariciones.tamano == 0) terminos.remove(termino);
+    }
+
+    private static String[] terminosAutor(String nombre, String apellidos){
+        return terminos((nombre == null ? "" : nombre) + " " + (apellidos == null ? "" : apellidos));
+    }
+
+    private void escribir(Runnable cambio){ IndiceUtil.escribir(cerrojo, cambio); }
+
+        // Listas que encuentran un término buscado: la del término exacto y, si es suficientemente largo, las de los términos que empiezan por él.
+    private static void anadirFuentes(List<Fuente> fuentes, NavigableMap<String, Apariciones> terminos, String termino, float peso, int total){
+        if (termino.length() < LONGITUD_MINIMA_PREFIJO){
+            Apariciones exacto = terminos.get(termino);
+            if (exacto != null) fuentes.add(new Fuente(exacto, peso * rareza(exacto, total)));
+            return;
+        }
+        for (Apariciones apariciones : terminos.subMap(termino, true, termino + Character.MAX_VALUE, false).values()){
+            float factor = apariciones.termino.length() == termino.length() ? 1.0f : FACTOR_PREFIJO;
+            fuentes.add(new Fuente(apariciones, peso * factor * rareza(apariciones, total)));
+        }
+    }
+
+        // Frecuencia inversa: un término presente en pocos libros distingue más que uno presente en casi todos.
+    private static float rareza(Apariciones apariciones, int total){
+        return (float) Math.log(1.0 + (double) total / apariciones.tamano);
+    }
+
+    private static long apariciones(List<Fuente> fuentes){
+        long total = 0;
+        for (Fuente fuente : fuentes) total += fuente.apariciones.tamano;
+        return total;
+    }
+
+        // Une las listas de "fuentes[desde, hasta)" por mitades (cada libro se queda con la mayor puntuación).
+    private static Coincidencias unir(List<Fuente> fuentes, int desde, int hasta){
+        if (hasta - desde == 1) return new Coincidencias(fuentes.get(desde));
+        int medio = (desde + hasta) >>> 1;
+        return unir(unir(fuentes, desde, medio), unir(fuentes, medio, hasta));
+    }
+
+    private static Coincidencias unir(Coincidencias a, Coincidencias b){
+        long[] ids = new long[a.tamano + b.tamano];
+        float[] puntos = new float[ids.length];
+        int i = 0, j = 0, n = 0;
+        while (i < a.tamano && j < b.tamano){
+            long idA = a.ids[i], idB = b.ids[j];
+            if (idA < idB){ ids[n] = idA; puntos[n++] = a.punto(i++); }
+            else if (idB < idA){ ids[n] = idB; puntos[n++] = b.punto(j++); }
+            else{ ids[n] = idA; puntos[n++] = Math.max(a.punto(i++), b.punto(j++)); }
+        }
+        while (i < a.tamano){ ids[n] = a.ids[i]; puntos[n++] = a.punto(i++); }
+        while (j < b.tamano){ ids[n] = b.ids[j]; puntos[n++] = b.punto(j++); }
+        return new Coincidencias(ids, puntos, n);
+    }
+
+    /*
+     * Se queda con los candidatos que también contienen el término y suma su puntuación.
+     * Con pocos candidatos se buscan uno a uno en cada lista (búsqueda binaria); con muchos se unen las listas y se cruzan recorriéndolas en orden.
+     */
+    private static Coincidencias cruzar(Coincidencias candidatos, List<Fuente> fuentes){
+        long[] ids = new long[candidatos.tamano];
+        float[] puntos = new float[candidatos.tamano];
+        int n = 0;
+
+        long coste = (long) candidatos.tamano * fuentes.size() * 20;
+        if (coste < apariciones(fuentes)){
+            for (int i = 0; i < candidatos.tamano; i++){
+                long id = candidatos.ids[i];
+                float mejor = 0;
+                for (Fuente fuente : fuentes){
+                    if (fuente.peso > mejor && Arrays.binarySearch(fuente.apariciones.ids, 0, fuente.apariciones.tamano, id) >= 0) mejor = fuente.peso;
+                }
+                if (mejor > 0){ ids[n] = id; puntos[n++] = candidatos.punto(i) + mejor; }
+            }
+        } else{
+            Coincidencias termino = unir(fuentes, 0, fuentes.size());
+            int i = 0, j = 0;
+            while (i < candidatos.tamano && j < termino.tamano){
+                long idA = candidatos.ids[i], idB = termino.ids[j];
+                if (idA < idB) i++;
+                else if (idB < idA) j++;
+                else{ ids[n] = idA; puntos[n++] = candidatos.punto(i++) + termino.punto(j++); }
+            }
+        }
+        return new Coincidencias(ids, puntos, n);
+    }
+
+        // Los "limite" mejores (más puntuación y, a igual puntuación, menor "ID"), con un montículo de tamaño "limite".
+    private static List<Long> mejores(Coincidencias coincidencias, int limite){
+        PriorityQueue<Integer> peores = new PriorityQueue<>(Math.min(limite, coincidencias.tamano) + 1, (a, b) -> comparar(coincidencias, a, b));
+        for (int i = 0; i < coincidencias.tamano; i++){
+            if (peores.size() < limite) peores.add(i);
+            else if (comparar(coincidencias, i, peores.peek()) > 0){
+                peores.poll();
+                peores.add(i);
+            }
+        }
+        Long[] ids = new Long[peores.size()];
+        for (int k = ids.length - 1; k >= 0; k--) ids[k] = coincidencias.ids[peores.poll()];
+        return Arrays.asList(ids);
+    }
+
+    private static int comparar(Coincidencias coincidencias, int a, int b){
+        int porPuntos = Float.compare(coincidencias.punto(a), coincidencias.punto(b));
+        return porPuntos != 0 ? porPuntos : Long.compare(coincidencias.ids[b], coincidencias.ids[a]);
+    }
+
+
+    // ==================== CLASES INTERNAS ====================
+        // Lista ordenada y sin repetidos de "ID" de libros (crece como un "ArrayList"; los "ID" nuevos casi siempre van al final).
+    private static final class Apariciones{
+        private final String termino;
+        private long[] ids = new long[2];
+        private int tamano;
+
+        Apariciones(String termino){ this.termino = termino; }
+
+        void anadir(long id){
+            if (tamano == 0 || ids[tamano - 1] < id){
+                if (tamano == ids.length) ids = Arrays.copyOf(ids, tamano + (tamano >> 1) + 1);
+                ids[tamano++] = id;
+                return;
+            }
+            int posicion = Arrays.binarySearch(ids, 0, tamano, id);
+            if (posicion >= 0) return;
+            posicion = -posicion - 1;
+            if (tamano == ids.length) ids = Arrays.copyOf(ids, tamano + (tamano >> 1) + 1);
+            System.arraycopy(ids, posicion, ids, posicion + 1, tamano - posicion);
+            ids[posicion] = id;
+            tamano++;
+        }
+
+        boolean quitar(long id){
+            int posicion = Arrays.binarySearch(ids, 0, tamano, id);
+            if (posicion < 0) return false;
+            System.arraycopy(ids, posicion + 1, ids, posicion, tamano - posicion - 1);
+            tamano--;
+            return true;
+        }
+    }
+
+        // Libro indexado: las listas de los términos de su título y su autor.
+    private static final class Documento{
+        private final Apariciones[] titulo;
+        private final Long idAutor;
+
+        Documento(Apariciones[] titulo, Long idAutor){
+            this.titulo = titulo;
+            this.idAutor = idAutor;
+        }
+
+        boolean igual(String[] terminos, Long otroAutor){
+            if (terminos.length != titulo.length || !Objects.equals(idAutor, otroAutor)) return false;
+            for (int i = 0; i < terminos.length; i++){
+                if (!titulo[i].termino.equals(terminos[i])) return false;
+            }
+            return true;
+        }
+    }
+
+        // Lista de un término con el peso que aporta a cada libro que la contiene.
+    private static final class Fuente{
+        private final Apariciones apariciones;
+        private final float peso;
+
+        Fuente(Apariciones apariciones, float peso){
+            this.apariciones = apariciones;
+            this.peso = peso;
+        }
+    }
+
+        // Libros candidatos ordenados por "ID" con su puntuación (si "puntos" es "null", todos tienen "peso").
+    private static final class Coincidencias{
+        private final long[] ids;
+        private final float[] puntos;
+        private final float peso;
+        private final int tamano;
+
+        Coincidencias(Fuente fuente){
+            this.ids = fuente.apariciones.ids;
+            this.puntos = null;
+            this.peso = fuente.peso;
+            this.tamano = fuente.apariciones.tamano;
+        }
+
+        Coincidencias(long[] ids, float[] puntos, int tamano){
+            this.ids = ids;
+            this.puntos = puntos;
+            this.peso = 0;
+            this.tamano = tamano;
+        }
+
+        float punto(int i){ return puntos == null ? peso : puntos[i]; }
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.indice;
+
+
+// Importa de la biblioteca/librería el paquete "ArrayList".
+import java.util.ArrayList;
+// Importa de la biblioteca/librería el paquete "List".
+import java.util.List;
+// Importa de la biblioteca/librería el paquete "ReadWriteLock".
+import java.util.concurrent.locks.ReadWriteLock;
+// Importa de la biblioteca/librería el paquete "Consumer".
+import java.util.function.Consumer;
+// Importa de la biblioteca/librería el paquete "Supplier".
+import java.util.function.Supplier;
+// Importa de la biblioteca/librería el paquete "ScrollMode".
+import org.hibernate.ScrollMode;
+// Importa de la biblioteca/librería el paquete "ScrollableResults".
+import org.hibernate.ScrollableResults;
+// Importa de la biblioteca/librería el paquete "StatelessSession".
+import org.hibernate.StatelessSession;
+
+// Crea la clase "IndiceUtil".
+    /*
+     * Métodos comunes a los índices en memoria del catálogo ("IndiceCatalogo", "IndiceTextoCatalogo" e "IndiceFacetasEjemplares"):
+     * la lectura de una tabla por lotes durante la carga y el acceso con el cerrojo de lectura o de escritura.
+     */
+final class IndiceUtil{
+    // ==================== ATRIBUTOS ====================
+        // Filas que se piden al driver en cada viaje durante la carga (y filas de cada lote entregado).
+    static final int TAMANO_LOTE_CARGA = 1000;
+
+
+    // ==================== CONSTRUCTORES ====================
+    private IndiceUtil(){}
+
+
+    // ==================== CARGA ====================
+
+    /*
+     * Recorre el resultado de la consulta con un cursor (memoria constante en el lado de Hibernate) y lo entrega en lotes de "TAMANO_LOTE_CARGA" filas (el último puede ser menor).
+     * Cada lote es una lista nueva: quien la recibe puede guardarla.
+     *
+     * "@param session" Parámetro: Sesión sin estado con la que leer la tabla (la cierra quien la abrió).
+     * "@param hql"     Parámetro: Consulta "HQL" que devuelve varias columnas por fila.
+     * "@param destino" Parámetro: Recibe cada lote de filas, en el orden de la consulta.
+     */
+    static void porLotes(StatelessSession session, String hql, Consumer<List<Object[]>> destino){
+        ScrollableResults filas = session.createQuery(hql)
+                                         .setFetchSize(TAMANO_LOTE_CARGA)
+                                         .setReadOnly(true)
+                                         .scroll(ScrollMode.FORWARD_ONLY);
+        try{
+            List<Object[]> lote = new ArrayList<>(TAMANO_LOTE_CARGA);
+            while (filas.next()){
+                lote.add(filas.get());
+                if (lote.size() == TAMANO_LOTE_CARGA){
+                    destino.accept(lote);
+                    lote = new ArrayList<>(TAMANO_LOTE_CARGA);
+                }
+            }
+            if (!lote.isEmpty()) destino.accept(lote);
+        } finally{
+            filas.close();
+        }
+    }
+
+
+    // ==================== CERROJO ====================
+    static void escribir(ReadWriteLock cerrojo, Runnable cambio){
+        cerrojo.writeLock().lock();
+        try{
+            cambio.run();
+        } finally{
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+    static <T> T leer(ReadWriteLock cerrojo, Supplier<T> lectura){
+        cerrojo.readLock().lock();
+        try{
+            return lectura.get();
+        } finally{
+            cerrojo.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.indice;
+
+
+// Importa de la biblioteca/librería el paquete "Metadata".
+import org.hibernate.boot.Metadata;
+// Importa de la biblioteca/librería el paquete "SessionFactoryImplementor".
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+// Importa de la biblioteca/librería el paquete "EventListenerRegistry".
+import org.hibernate.event.service.spi.EventListenerRegistry;
+// Importa de la biblioteca/librería el paquete "EventType".
+import org.hibernate.event.spi.EventType;
+// Importa de la biblioteca/librería el paquete "Integrator".
+import org.hibernate.integrator.spi.Integrator;
+// Importa de la biblioteca/librería el paquete "SessionFactoryServiceRegistry".
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+
+// Crea la clase "IntegradorIndiceCatalogo".
+    /*
+     * Registra "ListenerIndiceCatalogo", "ListenerIndiceTexto" y "ListenerIndiceFacetas" en cada "SessionFactory" que se construye.
+     * Hibernate lo descubre solo a través de "META-INF/services/org.hibernate.integrator.spi.Integrator", sin tocar "hibernate.cfg.xml".
+     */
+public class IntegradorIndiceCatalogo implements Integrator{
+    @Override
+    public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry){
+        ListenerIndiceCatalogo listener = new ListenerIndiceCatalogo(IndiceCatalogo.getInstancia());
+        EventListenerRegistry registro = serviceRegistry.getService(EventListenerRegistry.class);
+        registro.appendListeners(EventType.POST_INSERT, listener);
+        registro.appendListeners(EventType.POST_COMMIT_UPDATE, listener);
+        registro.appendListeners(EventType.POST_COMMIT_DELETE, listener);
+
+        ListenerIndiceTexto listenerTexto = new ListenerIndiceTexto(IndiceTextoCatalogo.getInstancia());
+        registro.appendListeners(EventType.POST_INSERT, listenerTexto);
+        registro.appendListeners(EventType.POST_COMMIT_UPDATE, listenerTexto);
+        registro.appendListeners(EventType.POST_COMMIT_DELETE, listenerTexto);
+
+        ListenerIndiceFacetas listenerFacetas = new ListenerIndiceFacetas(IndiceFacetasEjemplares.getInstancia());
+        registro.appendListeners(EventType.POST_COMMIT_INSERT, listenerFacetas);
+        registro.appendListeners(EventType.POST_COMMIT_UPDATE, listenerFacetas);
+        registro.appendListeners(EventType.POST_COMMIT_DELETE, listenerFacetas);
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry){}
+}
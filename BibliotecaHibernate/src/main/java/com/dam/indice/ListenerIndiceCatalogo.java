@@ -0,0 +1,108 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.indice;
+
+
+// Importa de la biblioteca/librería el paquete "Ejemplar".
+import com.dam.modelo.Ejemplar;
+// Importa de la biblioteca/librería el paquete "Libro".
+import com.dam.modelo.Libro;
+// Importa de la biblioteca/librería el paquete "ListenerEntidades".
+import com.dam.util.ListenerEntidades;
+// Importa de la biblioteca/librería el paquete "Objects".
+import java.util.Objects;
+// Importa de la biblioteca/librería el paquete "PostCommitDeleteEventListener".
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+// Importa de la biblioteca/librería el paquete "PostCommitUpdateEventListener".
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+// Importa de la biblioteca/librería el paquete "PostDeleteEvent".
+import org.hibernate.event.spi.PostDeleteEvent;
+// Importa de la biblioteca/librería el paquete "PostInsertEvent".
+import org.hibernate.event.spi.PostInsertEvent;
+// Importa de la biblioteca/librería el paquete "PostInsertEventListener".
+import org.hibernate.event.spi.PostInsertEventListener;
+// Importa de la biblioteca/librería el paquete "PostUpdateEvent".
+import org.hibernate.event.spi.PostUpdateEvent;
+// Importa de la biblioteca/librería el paquete "EntityPersister".
+import org.hibernate.persister.entity.EntityPersister;
+
+// Crea la clase "ListenerIndiceCatalogo".
+    /*
+     * Mantiene "IndiceCatalogo" al día con las inserciones, modificaciones y borrados de libros y ejemplares hechos a través de una "Session".
+     *
+     *   1. Las modificaciones y los borrados se aplican después del "commit" ("POST_COMMIT_UPDATE"/"POST_COMMIT_DELETE"): si la transacción se revierte el índice no llega a verlos.
+     *   2. Las inserciones se aplican al insertar ("POST_INSERT"). Esperar al "commit" obligaría a Hibernate a retener cada inserción hasta el final de la transacción, y la carga masiva inserta millones en una sola.
+     *      Si la transacción se revierte, la clave queda apuntando a un "ID" que no existe (los "ID" nunca se reutilizan); quien use el índice lo comprueba al cargar la entidad y, si no existe, la descarta y consulta la base de datos.
+     *
+     * Se registra en Hibernate mediante "IntegradorIndiceCatalogo".
+     */
+final class ListenerIndiceCatalogo extends ListenerEntidades implements PostInsertEventListener, PostCommitUpdateEventListener, PostCommitDeleteEventListener{
+    // ==================== ATRIBUTOS ====================
+    private static final long serialVersionUID = 1L;
+
+        // "transient": Hibernate declara los listeners "Serializable", pero nunca se serializan; el índice es único por JVM y no viaja con ellos.
+    private final transient IndiceCatalogo indice;
+
+
+    // ==================== CONSTRUCTORES ====================
+    ListenerIndiceCatalogo(IndiceCatalogo indice){
+        super(Libro.class, Ejemplar.class);
+        this.indice = indice;
+    }
+
+
+    // ==================== EVENTOS ====================
+    @Override
+    public void onPostInsert(PostInsertEvent event){
+        Object entidad = event.getEntity();
+        if (entidad instanceof Libro) indice.registrarLibro(((Libro) entidad).getIsbn(), (Long) event.getId());
+        else if (entidad instanceof Ejemplar) indice.registrarEjemplar(((Ejemplar) entidad).getCodigoEjemplar(), (Long) event.getId());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event){
+        Object entidad = event.getEntity();
+        Long id = (Long) event.getId();
+        if (entidad instanceof Libro){
+            String isbn = ((Libro) entidad).getIsbn();
+            Object[] anterior = event.getOldState();
+            if (anterior == null) indice.olvidarLibro(id);
+            else{
+                Object isbnAnterior = anterior[indicePropiedad(event.getPersister(), "isbn")];
+                if (!Objects.equals(isbnAnterior, isbn)) indice.eliminarLibro((String) isbnAnterior, id);
+            }
+            indice.registrarLibro(isbn, id);
+        } else if (entidad instanceof Ejemplar){
+            String codigo = ((Ejemplar) entidad).getCodigoEjemplar();
+            Object[] anterior = event.getOldState();
+            if (anterior == null) indice.olvidarEjemplar(id);
+            else{
+                Object codigoAnterior = anterior[indicePropiedad(event.getPersister(), "codigoEjemplar")];
+                if (!Objects.equals(codigoAnterior, codigo)) indice.eliminarEjemplar((String) codigoAnterior, id);
+            }
+            indice.registrarEjemplar(codigo, id);
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event){
+        Object entidad = event.getEntity();
+        if (entidad instanceof Libro) indice.eliminarLibro(((Libro) entidad).getIsbn(), (Long) event.getId());
+        else if (entidad instanceof Ejemplar) indice.eliminarEjemplar(((Ejemplar) entidad).getCodigoEjemplar(), (Long) event.getId());
+    }
+
+        // Si el "commit" falla no hay nada que deshacer: las modificaciones y los borrados solo se aplican tras un "commit" correcto.
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event){}
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event){}
+
+
+    // ==================== MÉTODOS HELPER ====================
+    private static int indicePropiedad(EntityPersister persister, String propiedad){
+        return persister.getEntityMetamodel().getPropertyIndex(propiedad);
+    }
+}
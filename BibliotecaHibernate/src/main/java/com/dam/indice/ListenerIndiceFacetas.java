@@ -0,0 +1,95 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.indice;
+
+
+// Importa de la biblioteca/librería el paquete "Ejemplar".
+import com.dam.modelo.Ejemplar;
+// Importa de la biblioteca/librería el paquete "Libro".
+import com.dam.modelo.Libro;
+// Importa de la biblioteca/librería el paquete "ListenerEntidades".
+import com.dam.util.ListenerEntidades;
+// Importa de la biblioteca/librería el paquete "PostCommitDeleteEventListener".
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+// Importa de la biblioteca/librería el paquete "PostCommitInsertEventListener".
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+// Importa de la biblioteca/librería el paquete "PostCommitUpdateEventListener".
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+// Importa de la biblioteca/librería el paquete "PostDeleteEvent".
+import org.hibernate.event.spi.PostDeleteEvent;
+// Importa de la biblioteca/librería el paquete "PostInsertEvent".
+import org.hibernate.event.spi.PostInsertEvent;
+// Importa de la biblioteca/librería el paquete "PostUpdateEvent".
+import org.hibernate.event.spi.PostUpdateEvent;
+
+// Crea la clase "ListenerIndiceFacetas".
+    /*
+     * Mantiene "IndiceFacetasEjemplares" al día con las inserciones, modificaciones y borrados de ejemplares hechos a través de una "Session" (préstamos, devoluciones, altas...).
+     * A diferencia de "ListenerIndiceCatalogo", también las inserciones se aplican tras el "commit": "IndiceFacetasEjemplares.cargar()" sustituye las facetas enteras y solo repite las escrituras
+     * que llegan durante la carga, así que una inserción aplicada al hacer "flush" antes de empezar la carga y confirmada después de que el cursor lea la tabla se perdería.
+     * De cada modificación solo hace falta el libro anterior: el índice quita el ejemplar de todos los estados y ubicaciones antes de añadirlo a los nuevos (ver "IndiceFacetasEjemplares.cambiarEjemplar()").
+     *
+     * Se registra en Hibernate mediante "IntegradorIndiceCatalogo".
+     */
+final class ListenerIndiceFacetas extends ListenerEntidades implements PostCommitInsertEventListener, PostCommitUpdateEventListener, PostCommitDeleteEventListener{
+    // ==================== ATRIBUTOS ====================
+    private static final long serialVersionUID = 1L;
+
+        // "transient": el listener no se llega a serializar y el índice de facetas es uno solo por JVM.
+    private final transient IndiceFacetasEjemplares indice;
+
+
+    // ==================== CONSTRUCTORES ====================
+    ListenerIndiceFacetas(IndiceFacetasEjemplares indice){
+        super(Ejemplar.class);
+        this.indice = indice;
+    }
+
+
+    // ==================== EVENTOS ====================
+    @Override
+    public void onPostInsert(PostInsertEvent event){
+        if (!(event.getEntity() instanceof Ejemplar)) return;
+        Ejemplar ejemplar = (Ejemplar) event.getEntity();
+        indice.registrarEjemplar((Long) event.getId(), idLibro(ejemplar.getLibro()), ejemplar.getUbicacion(), ejemplar.getEstado());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event){
+        if (!(event.getEntity() instanceof Ejemplar)) return;
+        Ejemplar ejemplar = (Ejemplar) event.getEntity();
+        Long id = (Long) event.getId();
+        Object[] anterior = event.getOldState();
+        if (anterior == null){
+                // Entidad modificada sin estado previo (por ejemplo con "update()" de una entidad separada): se quita de donde esté.
+            indice.olvidarEjemplar(id);
+            indice.registrarEjemplar(id, idLibro(ejemplar.getLibro()), ejemplar.getUbicacion(), ejemplar.getEstado());
+            return;
+        }
+        Libro libroAnterior = (Libro) anterior[event.getPersister().getEntityMetamodel().getPropertyIndex("libro")];
+        indice.cambiarEjemplar(id, idLibro(libroAnterior), idLibro(ejemplar.getLibro()), ejemplar.getUbicacion(), ejemplar.getEstado());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event){
+        if (!(event.getEntity() instanceof Ejemplar)) return;
+        Ejemplar ejemplar = (Ejemplar) event.getEntity();
+        indice.eliminarEjemplar((Long) event.getId(), idLibro(ejemplar.getLibro()));
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event){}
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event){}
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event){}
+
+
+    // ==================== MÉTODOS HELPER ====================
+        // Con el libro como referencia sin inicializar "getId()" no lo carga.
+    private static Long idLibro(Libro libro){ return libro == null ? null : libro.getId(); }
+}
@@ -0,0 +1,82 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.indice;
+
+
+// Importa de la biblioteca/librería el paquete "Autor".
+import com.dam.modelo.Autor;
+// Importa de la biblioteca/librería el paquete "Libro".
+import com.dam.modelo.Libro;
+// Importa de la biblioteca/librería el paquete "ListenerEntidades".
+import com.dam.util.ListenerEntidades;
+// Importa de la biblioteca/librería el paquete "PostCommitDeleteEventListener".
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+// Importa de la biblioteca/librería el paquete "PostCommitUpdateEventListener".
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+// Importa de la biblioteca/librería el paquete "PostDeleteEvent".
+import org.hibernate.event.spi.PostDeleteEvent;
+// Importa de la biblioteca/librería el paquete "PostInsertEvent".
+import org.hibernate.event.spi.PostInsertEvent;
+// Importa de la biblioteca/librería el paquete "PostInsertEventListener".
+import org.hibernate.event.spi.PostInsertEventListener;
+// Importa de la biblioteca/librería el paquete "PostUpdateEvent".
+import org.hibernate.event.spi.PostUpdateEvent;
+
+// Crea la clase "ListenerIndiceTexto".
+    /*
+     * Mantiene "IndiceTextoCatalogo" al día con las inserciones, modificaciones y borrados de autores y libros hechos a través de una "Session".
+     * Sigue los mismos momentos que "ListenerIndiceCatalogo": inserciones al insertar, modificaciones y borrados tras el "commit".
+     *
+     * Se registra en Hibernate mediante "IntegradorIndiceCatalogo".
+     */
+final class ListenerIndiceTexto extends ListenerEntidades implements PostInsertEventListener, PostCommitUpdateEventListener, PostCommitDeleteEventListener{
+    // ==================== ATRIBUTOS ====================
+    private static final long serialVersionUID = 1L;
+
+        // "transient", como en "ListenerIndiceCatalogo": el listener nunca se serializa y el índice no debe viajar con él.
+    private final transient IndiceTextoCatalogo indice;
+
+
+    // ==================== CONSTRUCTORES ====================
+    ListenerIndiceTexto(IndiceTextoCatalogo indice){
+        super(Libro.class, Autor.class);
+        this.indice = indice;
+    }
+
+
+    // ==================== EVENTOS ====================
+    @Override
+    public void onPostInsert(PostInsertEvent event){ registrar(event.getEntity(), (Long) event.getId()); }
+
+        // El índice compara los términos nuevos con los que tenía: una modificación que no toca el título ni el autor no cambia nada.
+    @Override
+    public void onPostUpdate(PostUpdateEvent event){ registrar(event.getEntity(), (Long) event.getId()); }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event){
+        Object entidad = event.getEntity();
+        if (entidad instanceof Libro) indice.eliminarLibro((Long) event.getId());
+        else if (entidad instanceof Autor) indice.eliminarAutor((Long) event.getId());
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event){}
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event){}
+
+
+    // ==================== MÉTODOS HELPER ====================
+    private void registrar(Object entidad, Long id){
+        if (entidad instanceof Libro){
+            Libro libro = (Libro) entidad;
+                // Con el autor como referencia sin inicializar "getId()" no lo carga.
+            indice.registrarLibro(id, libro.getTitulo(), libro.getAutor() == null ? null : libro.getAutor().getId());
+        } else if (entidad instanceof Autor){
+            Autor autor = (Autor) entidad;
+            indice.registrarAutor(id, autor.getNombre(), autor.getApellidos());
+        }
+    }
+}
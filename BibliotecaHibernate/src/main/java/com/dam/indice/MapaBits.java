@@ -0,0 +1,502 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.indice;
+
+
+// Importa de la biblioteca/librería el paquete "Arrays".
+import java.util.Arrays;
+
+// Crea la clase "MapaBits".
+    /*
+     * Conjunto comprimido de "ID" (mapa de bits por contenedores, el mismo esquema que "Roaring"): cada "ID" se parte en sus 16 bits bajos y el resto ("clave" del contenedor).
+     *
+     *   1. Los "ID" que comparten clave (bloques de 65536 "ID" consecutivos) se guardan en un mismo contenedor; las claves se mantienen ordenadas.
+     *   2. Un contenedor con pocos "ID" ("MAXIMO_ARREGLO" o menos) es un "char[]" ordenado (2 bytes por "ID"); con más, un mapa de bits de 8 KB (1 bit por "ID" posible).
+     *      Los "ID" de "Ejemplar" son consecutivos, así que un estado o una estantería con muchos ejemplares ocupa como mucho 1 bit por ejemplar del catálogo, y una con pocos, 2 bytes por ejemplar.
+     *   3. Las intersecciones, uniones y diferencias recorren las dos listas de claves a la vez y operan contenedor a contenedor (palabra a palabra entre mapas de bits).
+     *
+     * No es seguro entre hilos: lo protege "IndiceFacetasEjemplares" (o lo usa un único hilo, como "CambiosFacetas").
+     */
+final class MapaBits{
+    // ==================== ATRIBUTOS ====================
+        // A partir de aquí un contenedor ordenado ocupa más que un mapa de bits (4096 × 2 bytes = 8 KB).
+    private static final int MAXIMO_ARREGLO = 4096;
+    private static final int PALABRAS = 1 << 10;
+
+    private int[] claves = new int[1];
+    private Contenedor[] contenedores = new Contenedor[1];
+    private int tamano;
+
+
+    // ==================== MODIFICACIÓN ====================
+
+            /*
+             * "@return" Retorna: "true" si el "ID" no estaba.
+             */
+    boolean agregar(long id){
+        int clave = clave(id);
+        char bajo = (char) id;
+            // Los "ID" suelen llegar en orden creciente: el último contenedor (o uno nuevo al final) evita la búsqueda binaria.
+        int posicion = tamano > 0 && claves[tamano - 1] == clave ? tamano - 1 : buscar(clave);
+        if (posicion < 0){
+            insertar(-posicion - 1, clave, new Arreglo(new char[]{ bajo }, 1));
+            return true;
+        }
+        Contenedor contenedor = contenedores[posicion];
+        int antes = contenedor.cardinalidad;
+        contenedores[posicion] = contenedor.agregar(bajo);
+        return contenedores[posicion].cardinalidad != antes;
+    }
+
+            /*
+             * "@return" Retorna: "true" si el "ID" estaba.
+             */
+    boolean quitar(long id){
+        int posicion = buscar(clave(id));
+        if (posicion < 0) return false;
+        Contenedor contenedor = contenedores[posicion];
+        int antes = contenedor.cardinalidad;
+        contenedor = contenedor.quitar((char) id);
+        if (contenedor.cardinalidad == 0) eliminar(posicion);
+        else contenedores[posicion] = contenedor;
+        return contenedor.cardinalidad != antes;
+    }
+
+        // Añade todos los "ID" de "otro" a este mapa.
+    void agregarTodos(MapaBits otro){
+        if (otro.tamano == 0) return;
+        MapaBits union = o(this, otro);
+        claves = union.claves;
+        contenedores = union.contenedores;
+        tamano = union.tamano;
+    }
+
+        // Quita de este mapa todos los "ID" de "otro".
+    void quitarTodos(MapaBits otro){
+        if (tamano == 0 || otro.tamano == 0) return;
+        int escritos = 0;
+        for (int i = 0, j = 0; i < tamano; i++){
+            while (j < otro.tamano && otro.claves[j] < claves[i]) j++;
+            Contenedor contenedor = contenedores[i];
+            if (j < otro.tamano && otro.claves[j] == claves[i]) contenedor = contenedor.menos(otro.contenedores[j]);
+            if (contenedor == null) continue;
+            claves[escritos] = claves[i];
+            contenedores[escritos++] = contenedor;
+        }
+        Arrays.fill(contenedores, escritos, tamano, null);
+        tamano = escritos;
+    }
+
+    void vaciar(){
+        claves = new int[1];
+        contenedores = new Contenedor[1];
+        tamano = 0;
+    }
+
+
+    // ==================== CONSULTA ====================
+    boolean contiene(long id){
+        int posicion = buscar(clave(id));
+        return posicion >= 0 && contenedores[posicion].contiene((char) id);
+    }
+
+    boolean isVacio(){ return tamano == 0; }
+
+    long getCardinalidad(){
+        long total = 0;
+        for (int i = 0; i < tamano; i++) total += contenedores[i].cardinalidad;
+        return total;
+    }
+
+            /*
+             * "@param maximo" Parámetro: Nº máximo de "ID" a devolver.
+             * "@return" Retorna: Los "maximo" "ID" menores del mapa, en orden creciente.
+             */
+    long[] primeros(int maximo){
+        long[] ids = new long[(int) Math.min(maximo, getCardinalidad())];
+        int escritos = 0;
+        for (int i = 0; i < tamano && escritos < ids.length; i++){
+            escritos = contenedores[i].volcar((long) claves[i] << 16, ids, escritos);
+        }
+        return ids;
+    }
+
+    MapaBits copia(){
+        MapaBits copia = new MapaBits();
+        copia.claves = Arrays.copyOf(claves, Math.max(tamano, 1));
+        copia.contenedores = new Contenedor[copia.claves.length];
+        for (int i = 0; i < tamano; i++) copia.contenedores[i] = contenedores[i].copia();
+        copia.tamano = tamano;
+        return copia;
+    }
+
+    /*
+     * "@return" Retorna: Memoria aproximada de los contenedores, en bytes (para informar del tamaño del índice).
+     */
+    long getBytes(){
+        long bytes = 16L + claves.length * 4L + contenedores.length * 4L;
+        for (int i = 0; i < tamano; i++) bytes += contenedores[i].bytes();
+        return bytes;
+    }
+
+
+    // ==================== OPERACIONES ENTRE MAPAS ====================
+        // Intersección: "ID" presentes en los dos mapas.
+    static MapaBits y(MapaBits a, MapaBits b){
+        MapaBits resultado = new MapaBits();
+        for (int i = 0, j = 0; i < a.tamano && j < b.tamano; ){
+            if (a.claves[i] < b.claves[j]) i++;
+            else if (a.claves[i] > b.claves[j]) j++;
+            else{
+                Contenedor contenedor = a.contenedores[i].y(b.contenedores[j]);
+                if (contenedor != null) resultado.insertar(resultado.tamano, a.claves[i], contenedor);
+                i++;
+                j++;
+            }
+        }
+        return resultado;
+    }
+
+        // Unión: "ID" presentes en alguno de los dos mapas (los contenedores que solo están en uno se copian).
+    static MapaBits o(MapaBits a, MapaBits b){
+        MapaBits resultado = new MapaBits();
+        resultado.claves = new int[Math.max(a.tamano + b.tamano, 1)];
+        resultado.contenedores = new Contenedor[resultado.claves.length];
+        int i = 0, j = 0;
+        while (i < a.tamano || j < b.tamano){
+            if (j == b.tamano || (i < a.tamano && a.claves[i] < b.claves[j])){
+                resultado.insertar(resultado.tamano, a.claves[i], a.contenedores[i++].copia());
+            } else if (i == a.tamano || a.claves[i] > b.claves[j]){
+                resultado.insertar(resultado.tamano, b.claves[j], b.contenedores[j++].copia());
+            } else{
+                resultado.insertar(resultado.tamano, a.claves[i], a.contenedores[i++].o(b.contenedores[j++]));
+            }
+        }
+        return resultado;
+    }
+
+        // Nº de "ID" de la intersección, sin construirla.
+    static long cardinalidadY(MapaBits a, MapaBits b){
+        long total = 0;
+        for (int i = 0, j = 0; i < a.tamano && j < b.tamano; ){
+            if (a.claves[i] < b.claves[j]) i++;
+            else if (a.claves[i] > b.claves[j]) j++;
+            else total += a.contenedores[i++].cardinalidadY(b.contenedores[j++]);
+        }
+        return total;
+    }
+
+
+    // ==================== MÉTODOS HELPER ====================
+    private static int clave(long id){
+        if (id < 0 || (id >>> 16) > Integer.MAX_VALUE) throw new IllegalArgumentException("ID fuera de rango para el mapa de bits: " + id);
+        return (int) (id >>> 16);
+    }
+
+    private int buscar(int clave){ return Arrays.binarySearch(claves, 0, tamano, clave); }
+
+    private void insertar(int posicion, int clave, Contenedor contenedor){
+        if (tamano == claves.length){
+            claves = Arrays.copyOf(claves, tamano * 2);
+            contenedores = Arrays.copyOf(contenedores, tamano * 2);
+        }
+        System.arraycopy(claves, posicion, claves, posicion + 1, tamano - posicion);
+        System.arraycopy(contenedores, posicion, contenedores, posicion + 1, tamano - posicion);
+        claves[posicion] = clave;
+        contenedores[posicion] = contenedor;
+        tamano++;
+    }
+
+    private void eliminar(int posicion){
+        System.arraycopy(claves, posicion + 1, claves, posicion, tamano - posicion - 1);
+        System.arraycopy(contenedores, posicion + 1, contenedores, posicion, tamano - posicion - 1);
+        contenedores[--tamano] = null;
+    }
+
+
+    // ==================== CONTENEDORES ====================
+        /*
+         * Los 16 bits bajos de los "ID" de una clave. Las operaciones que pueden cambiar de representación devuelven el contenedor resultante
+         * ("this" si no cambia) y las binarias devuelven "null" si el resultado queda vacío.
+         */
+    private abstract static class Contenedor{
+        int cardinalidad;
+
+        abstract Contenedor agregar(char valor);
+        abstract Contenedor quitar(char valor);
+        abstract boolean contiene(char valor);
+        abstract Contenedor y(Contenedor otro);
+        abstract Contenedor o(Contenedor otro);
+        abstract Contenedor menos(Contenedor otro);
+        abstract int cardinalidadY(Contenedor otro);
+            // Escribe los "ID" (con la parte alta "alto") en "destino" desde "desde", hasta llenarlo; devuelve la siguiente posición libre.
+        abstract int volcar(long alto, long[] destino, int desde);
+        abstract Contenedor copia();
+        abstract long bytes();
+    }
+
+        // Valores ordenados en un "char[]" (hasta "MAXIMO_ARREGLO").
+    private static final class Arreglo extends Contenedor{
+        private char[] valores;
+
+        Arreglo(char[] valores, int cardinalidad){
+            this.valores = valores;
+            this.cardinalidad = cardinalidad;
+        }
+
+        @Override
+        Contenedor agregar(char valor){
+            int posicion = cardinalidad > 0 && valores[cardinalidad - 1] < valor ? -cardinalidad - 1 : Arrays.binarySearch(valores, 0, cardinalidad, valor);
+            if (posicion >= 0) return this;
+            if (cardinalidad == MAXIMO_ARREGLO) return aBits().agregar(valor);
+            posicion = -posicion - 1;
+            if (cardinalidad == valores.length) valores = Arrays.copyOf(valores, Math.min(Math.max(cardinalidad * 2, 4), MAXIMO_ARREGLO));
+            System.arraycopy(valores, posicion, valores, posicion + 1, cardinalidad - posicion);
+            valores[posicion] = valor;
+            cardinalidad++;
+            return this;
+        }
+
+        @Override
+        Contenedor quitar(char valor){
+            int posicion = Arrays.binarySearch(valores, 0, cardinalidad, valor);
+            if (posicion < 0) return this;
+            System.arraycopy(valores, posicion + 1, valores, posicion, cardinalidad - posicion - 1);
+            cardinalidad--;
+            return this;
+        }
+
+        @Override
+        boolean contiene(char valor){ return Arrays.binarySearch(valores, 0, cardinalidad, valor) >= 0; }
+
+        @Override
+        Contenedor y(Contenedor otro){
+            char[] resultado = new char[Math.min(cardinalidad, otro.cardinalidad)];
+            int n = 0;
+            if (otro instanceof Bits){
+                long[] palabras = ((Bits) otro).palabras;
+                for (int i = 0; i < cardinalidad; i++){
+                    if ((palabras[valores[i] >>> 6] & (1L << valores[i])) != 0) resultado[n++] = valores[i];
+                }
+            } else{
+                Arreglo b = (Arreglo) otro;
+                for (int i = 0, j = 0; i < cardinalidad && j < b.cardinalidad; ){
+                    if (valores[i] < b.valores[j]) i++;
+                    else if (valores[i] > b.valores[j]) j++;
+                    else{
+                        resultado[n++] = valores[i++];
+                        j++;
+                    }
+                }
+            }
+            return n == 0 ? null : new Arreglo(resultado, n);
+        }
+
+        @Override
+        Contenedor o(Contenedor otro){
+            if (otro instanceof Bits) return otro.o(this);
+            Arreglo b = (Arreglo) otro;
+            if (cardinalidad + b.cardinalidad > MAXIMO_ARREGLO) return aBits().o(b);
+            char[] resultado = new char[cardinalidad + b.cardinalidad];
+            int n = 0, i = 0, j = 0;
+            while (i < cardinalidad && j < b.cardinalidad){
+                if (valores[i] < b.valores[j]) resultado[n++] = valores[i++];
+                else if (valores[i] > b.valores[j]) resultado[n++] = b.valores[j++];
+                else{
+                    resultado[n++] = valores[i++];
+                    j++;
+                }
+            }
+            while (i < cardinalidad) resultado[n++] = valores[i++];
+            while (j < b.cardinalidad) resultado[n++] = b.valores[j++];
+            return new Arreglo(resultado, n);
+        }
+
+        @Override
+        Contenedor menos(Contenedor otro){
+            char[] resultado = new char[cardinalidad];
+            int n = 0;
+            for (int i = 0; i < cardinalidad; i++){
+                if (!otro.contiene(valores[i])) resultado[n++] = valores[i];
+            }
+            return n == 0 ? null : new Arreglo(resultado, n);
+        }
+
+        @Override
+        int cardinalidadY(Contenedor otro){
+            if (otro instanceof Bits){
+                long[] palabras = ((Bits) otro).palabras;
+                int total = 0;
+                for (int i = 0; i < cardinalidad; i++){
+                    if ((palabras[valores[i] >>> 6] & (1L << valores[i])) != 0) total++;
+                }
+                return total;
+            }
+            Arreglo b = (Arreglo) otro;
+            int total = 0;
+            for (int i = 0, j = 0; i < cardinalidad && j < b.cardinalidad; ){
+                if (valores[i] < b.valores[j]) i++;
+                else if (valores[i] > b.valores[j]) j++;
+                else{
+                    total++;
+                    i++;
+                    j++;
+                }
+            }
+            return total;
+        }
+
+        @Override
+        int volcar(long alto, long[] destino, int desde){
+            int n = Math.min(cardinalidad, destino.length - desde);
+            for (int i = 0; i < n; i++) destino[desde + i] = alto | valores[i];
+            return desde + n;
+        }
+
+        @Override
+        Contenedor copia(){ return new Arreglo(Arrays.copyOf(valores, Math.max(cardinalidad, 1)), cardinalidad); }
+
+        @Override
+        long bytes(){ return 32L + valores.length * 2L; }
+
+        private Bits aBits(){
+            Bits bits = new Bits(new long[PALABRAS], 0);
+            for (int i = 0; i < cardinalidad; i++) bits.agregar(valores[i]);
+            return bits;
+        }
+    }
+
+        // Mapa de bits de 65536 posiciones (1024 palabras de 64 bits).
+    private static final class Bits extends Contenedor{
+        private final long[] palabras;
+
+        Bits(long[] palabras, int cardinalidad){
+            this.palabras = palabras;
+            this.cardinalidad = cardinalidad;
+        }
+
+        @Override
+        Contenedor agregar(char valor){
+            long antes = palabras[valor >>> 6];
+            palabras[valor >>> 6] = antes | (1L << valor);
+            if (palabras[valor >>> 6] != antes) cardinalidad++;
+            return this;
+        }
+
+        @Override
+        Contenedor quitar(char valor){
+            long antes = palabras[valor >>> 6];
+            palabras[valor >>> 6] = antes & ~(1L << valor);
+            if (palabras[valor >>> 6] != antes) cardinalidad--;
+            return cardinalidad <= MAXIMO_ARREGLO ? aArreglo(palabras, cardinalidad) : this;
+        }
+
+        @Override
+        boolean contiene(char valor){ return (palabras[valor >>> 6] & (1L << valor)) != 0; }
+
+        @Override
+        Contenedor y(Contenedor otro){
+            if (otro instanceof Arreglo) return otro.y(this);
+            long[] b = ((Bits) otro).palabras;
+            long[] resultado = new long[PALABRAS];
+            int n = 0;
+            for (int i = 0; i < PALABRAS; i++){
+                resultado[i] = palabras[i] & b[i];
+                n += Long.bitCount(resultado[i]);
+            }
+            return reducido(resultado, n);
+        }
+
+        @Override
+        Contenedor o(Contenedor otro){
+            long[] resultado = palabras.clone();
+            if (otro instanceof Arreglo){
+                Arreglo b = (Arreglo) otro;
+                Bits bits = new Bits(resultado, cardinalidad);
+                for (int i = 0; i < b.cardinalidad; i++) bits.agregar(b.valores[i]);
+                return bits;
+            }
+            long[] b = ((Bits) otro).palabras;
+            int n = 0;
+            for (int i = 0; i < PALABRAS; i++){
+                resultado[i] |= b[i];
+                n += Long.bitCount(resultado[i]);
+            }
+            return new Bits(resultado, n);
+        }
+
+        @Override
+        Contenedor menos(Contenedor otro){
+            long[] resultado = palabras.clone();
+            int n;
+            if (otro instanceof Arreglo){
+                Arreglo b = (Arreglo) otro;
+                Bits bits = new Bits(resultado, cardinalidad);
+                for (int i = 0; i < b.cardinalidad; i++) bits.quitarBit(b.valores[i]);
+                n = bits.cardinalidad;
+            } else{
+                long[] b = ((Bits) otro).palabras;
+                n = 0;
+                for (int i = 0; i < PALABRAS; i++){
+                    resultado[i] &= ~b[i];
+                    n += Long.bitCount(resultado[i]);
+                }
+            }
+            return reducido(resultado, n);
+        }
+
+        @Override
+        int cardinalidadY(Contenedor otro){
+            if (otro instanceof Arreglo) return otro.cardinalidadY(this);
+            long[] b = ((Bits) otro).palabras;
+            int total = 0;
+            for (int i = 0; i < PALABRAS; i++) total += Long.bitCount(palabras[i] & b[i]);
+            return total;
+        }
+
+        @Override
+        int volcar(long alto, long[] destino, int desde){
+            for (int i = 0; i < PALABRAS && desde < destino.length; i++){
+                long palabra = palabras[i];
+                while (palabra != 0 && desde < destino.length){
+                    destino[desde++] = alto | (i << 6) | Long.numberOfTrailingZeros(palabra);
+                    palabra &= palabra - 1;
+                }
+            }
+            return desde;
+        }
+
+        @Override
+        Contenedor copia(){ return new Bits(palabras.clone(), cardinalidad); }
+
+        @Override
+        long bytes(){ return 32L + PALABRAS * 8L; }
+
+            // Como "quitar()", sin volver a convertir a arreglo (se usa al construir un resultado que se reduce al final).
+        private void quitarBit(char valor){
+            long antes = palabras[valor >>> 6];
+            palabras[valor >>> 6] = antes & ~(1L << valor);
+            if (palabras[valor >>> 6] != antes) cardinalidad--;
+        }
+
+        private static Contenedor reducido(long[] palabras, int cardinalidad){
+            if (cardinalidad == 0) return null;
+            return cardinalidad <= MAXIMO_ARREGLO ? aArreglo(palabras, cardinalidad) : new Bits(palabras, cardinalidad);
+        }
+
+        private static Arreglo aArreglo(long[] palabras, int cardinalidad){
+            char[] valores = new char[Math.max(cardinalidad, 1)];
+            int n = 0;
+            for (int i = 0; i < PALABRAS; i++){
+                long palabra = palabras[i];
+                while (palabra != 0){
+                    valores[n++] = (char) ((i << 6) | Long.numberOfTrailingZeros(palabra));
+                    palabra &= palabra - 1;
+                }
+            }
+            return new Arreglo(valores, cardinalidad);
+        }
+    }
+}
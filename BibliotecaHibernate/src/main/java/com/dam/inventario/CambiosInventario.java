@@ -0,0 +1,230 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.inventario;
+
+
+// Importa de la biblioteca/librería el paquete "EstadoEjemplar".
+import com.dam.modelo.Ejemplar.EstadoEjemplar;
+// Importa de la biblioteca/librería el paquete "Connection".
+import java.sql.Connection;
+// Importa de la biblioteca/librería el paquete "PreparedStatement".
+import java.sql.PreparedStatement;
+// Importa de la biblioteca/librería el paquete "SQLException".
+import java.sql.SQLException;
+// Importa de la biblioteca/librería el paquete "ArrayList".
+import java.util.ArrayList;
+// Importa de la biblioteca/librería el paquete "Collections".
+import java.util.Collections;
+// Importa de la biblioteca/librería el paquete "List".
+import java.util.List;
+// Importa de la biblioteca/librería el paquete "Map".
+import java.util.Map;
+// Importa de la biblioteca/librería el paquete "TreeMap".
+import java.util.TreeMap;
+// Importa de la biblioteca/librería el paquete "WeakHashMap".
+import java.util.WeakHashMap;
+// Importa de la biblioteca/librería el paquete "ThreadLocalRandom".
+import java.util.concurrent.ThreadLocalRandom;
+// Importa de la biblioteca/librería el paquete "SharedSessionContract".
+import org.hibernate.SharedSessionContract;
+// Importa de la biblioteca/librería el paquete "AfterTransactionCompletionProcess".
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+// Importa de la biblioteca/librería el paquete "BeforeTransactionCompletionProcess".
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+// Importa de la biblioteca/librería el paquete "SessionImplementor".
+import org.hibernate.engine.spi.SessionImplementor;
+
+// Crea la clase "CambiosInventario".
+    /*
+     * Cambios pendientes en el inventario resumido ("inventario_ejemplares" e "inventario_estados") de una transacción: cuántos ejemplares entran o salen de cada (libro, ubicación, estado).
+     *
+     *   1. Los cambios se acumulan en memoria y se escriben de una vez al final ("aplicar()"): una transacción que presta y devuelve, o que carga millones de ejemplares, escribe una fila por clave y no una por ejemplar.
+     *   2. Se escriben con lotes JDBC de "UPDATE ... SET cantidad = cantidad + ?" (y "INSERT ... ON DUPLICATE KEY UPDATE" para las claves nuevas), dentro de la misma transacción: si se revierte, el inventario tampoco cambia.
+     *   3. Las claves se escriben siempre en el mismo orden (mapas ordenados), así dos transacciones que tocan las mismas filas esperan una por la otra en lugar de bloquearse mutuamente ("deadlock").
+     *   4. El total por estado se reparte en "RANURAS" filas y cada transacción escribe en una al azar, para que los préstamos concurrentes no esperen todos por la misma fila.
+     *
+     * Con una "Session", "deTransaccion()" devuelve los cambios de su transacción en curso y los aplica solo antes del "commit" (los anota "ListenerInventario").
+     * Con una "StatelessSession" (que no lanza eventos) quien escribe crea su propia instancia, anota los cambios y llama a "aplicar()" antes del "commit" (ver "ImportadorCatalogo").
+     * Una instancia solo debe usarla un hilo a la vez, igual que la sesión a la que pertenece.
+     */
+public final class CambiosInventario{
+    // ==================== ATRIBUTOS ====================
+        // Nº de filas en las que se reparte el total de cada estado en "inventario_estados".
+    public static final int RANURAS = 16;
+        // Valor guardado en la clave cuando el ejemplar no tiene libro, ubicación o estado (la clave primaria no admite "NULL").
+    public static final long SIN_LIBRO = 0L;
+    public static final String SIN_VALOR = "";
+
+    private static final String SQL_ACTUALIZAR_EJEMPLARES = "UPDATE inventario_ejemplares SET cantidad = cantidad + ? WHERE id_libro = ? AND ubicacion = ? AND estado = ?";
+    private static final String SQL_INSERTAR_EJEMPLARES = "INSERT INTO inventario_ejemplares (id_libro, ubicacion, estado, cantidad) VALUES (?, ?, ?, ?) ON DUPLICATE KEY UPDATE cantidad = cantidad + VALUES(cantidad)";
+    private static final String SQL_ACTUALIZAR_ESTADOS = "UPDATE inventario_estados SET cantidad = cantidad + ? WHERE estado = ? AND ranura = ?";
+    private static final String SQL_INSERTAR_ESTADOS = "INSERT INTO inventario_estados (estado, ranura, cantidad) VALUES (?, ?, ?) ON DUPLICATE KEY UPDATE cantidad = cantidad + VALUES(cantidad)";
+
+        // Cambios de la transacción en curso de cada "Session" (las claves son débiles: una sesión cerrada a mitad de transacción no deja su entrada para siempre).
+    private static final Map<SessionImplementor, CambiosInventario> POR_SESION = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final Map<Clave, Long> porClave = new TreeMap<>();
+    private final Map<String, Long> porEstado = new TreeMap<>();
+
+
+    // ==================== CONSTRUCTORES ====================
+    public CambiosInventario(){}
+
+    /*
+     * Devuelve los cambios de la transacción en curso de la sesión. La primera vez en cada transacción registra en su "ActionQueue":
+     *   1. Un proceso que los aplica justo antes del "commit" (después del último "flush", así que ya incluyen todas las escrituras).
+     *   2. Un proceso que los descarta al terminar la transacción, se confirme o se revierta.
+     *
+     * "@param session" Parámetro: Sesión con una transacción activa.
+     * "@return" Retorna: Cambios pendientes de la transacción.
+     */
+    public static CambiosInventario deTransaccion(SharedSessionContract session){
+        SessionImplementor sesion = (SessionImplementor) session;
+        CambiosInventario cambios = POR_SESION.get(sesion);
+        if (cambios != null) return cambios;
+
+        cambios = new CambiosInventario();
+        POR_SESION.put(sesion, cambios);
+            // Los procesos buscan los cambios por sesión (no los capturan): si la transacción se revierte, el proceso previo al "commit" sigue en la cola y no debe aplicar nada en la siguiente.
+        sesion.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) s -> {
+            CambiosInventario pendientes = POR_SESION.remove(s);
+            if (pendientes != null) pendientes.aplicar(s);
+        });
+        sesion.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (exito, s) -> POR_SESION.remove(sesion));
+        return cambios;
+    }
+
+
+    // ==================== ANOTACIONES ====================
+
+    /*
+     * Anota que "cantidad" ejemplares entran (positivo) o salen (negativo) de una clave.
+     *
+     * "@param idLibro"   Parámetro: "ID" del libro de los ejemplares ("null" si no tienen).
+     * "@param ubicacion" Parámetro: Ubicación de los ejemplares ("null" si no tienen).
+     * "@param estado"    Parámetro: Estado de los ejemplares ("null" si no tienen).
+     * "@param cantidad"  Parámetro: Nº de ejemplares que entran o salen.
+     */
+    public void anotar(Long idLibro, String ubicacion, EstadoEjemplar estado, long cantidad){
+        anotar(new Clave(idLibro != null ? idLibro : SIN_LIBRO, ubicacion != null ? ubicacion : SIN_VALOR, estado != null ? estado.name() : SIN_VALOR), cantidad);
+    }
+
+    /*
+     * Anota que un ejemplar pasa de una clave a otra (si la clave no cambia, las dos anotaciones se compensan y no se escribe nada).
+     */
+    public void anotarCambio(Long libroAntes, String ubicacionAntes, EstadoEjemplar estadoAntes, Long libroDespues, String ubicacionDespues, EstadoEjemplar estadoDespues){
+        anotar(libroAntes, ubicacionAntes, estadoAntes, -1);
+        anotar(libroDespues, ubicacionDespues, estadoDespues, 1);
+    }
+
+        // Clave ya normalizada (la usa "ReconciliadorInventario").
+    void anotar(Clave clave, long cantidad){
+        if (cantidad == 0) return;
+        porClave.merge(clave, cantidad, Long::sum);
+        anotarEstado(clave.estado, cantidad);
+    }
+
+        // Solo el total por estado (la usa "ReconciliadorInventario" para corregir "inventario_estados" sin tocar "inventario_ejemplares").
+    void anotarEstado(String estado, long cantidad){
+        if (cantidad != 0) porEstado.merge(estado, cantidad, Long::sum);
+    }
+
+            /*
+             * "@return" Retorna: "true" si no hay ningún cambio que escribir (las entradas y salidas de cada clave se compensan).
+             */
+    public boolean isVacio(){
+        return porClave.values().stream().allMatch(c -> c == 0) && porEstado.values().stream().allMatch(c -> c == 0);
+    }
+
+
+    // ==================== ESCRITURA ====================
+
+    /*
+     * Escribe los cambios con la conexión de la sesión (dentro de su transacción) y los olvida.
+     *
+     * "@param session" Parámetro: "Session" o "StatelessSession" con la transacción en la que se han hecho los cambios.
+     */
+    public void aplicar(SharedSessionContract session){
+        if (!isVacio()) session.doWork(this::aplicar);
+        porClave.clear();
+        porEstado.clear();
+    }
+
+    private void aplicar(Connection conexion) throws SQLException{
+        List<Object[]> ejemplares = new ArrayList<>(porClave.size());
+        for (Map.Entry<Clave, Long> cambio : porClave.entrySet()){
+            Clave clave = cambio.getKey();
+            if (cambio.getValue() != 0) ejemplares.add(new Object[]{clave.idLibro, clave.ubicacion, clave.estado, cambio.getValue()});
+        }
+        escribir(conexion, SQL_ACTUALIZAR_EJEMPLARES, SQL_INSERTAR_EJEMPLARES, ejemplares);
+
+        int ranura = ThreadLocalRandom.current().nextInt(RANURAS);
+        List<Object[]> estados = new ArrayList<>(porEstado.size());
+        for (Map.Entry<String, Long> cambio : porEstado.entrySet()){
+            if (cambio.getValue() != 0) estados.add(new Object[]{cambio.getKey(), ranura, cambio.getValue()});
+        }
+        escribir(conexion, SQL_ACTUALIZAR_ESTADOS, SQL_INSERTAR_ESTADOS, estados);
+    }
+
+        /*
+         * Suma cada cambio ("filas": columnas de la clave y, al final, la cantidad) con un lote de "UPDATE" y después inserta solo las claves que aún no tenían fila.
+         * Casi siempre la fila ya existe, y un "UPDATE" por clave primaria es más barato que un "INSERT ... ON DUPLICATE KEY UPDATE" que choca con ella (H2, por ejemplo, lo resuelve lanzando y capturando el error de clave duplicada).
+         * Si otra transacción inserta la misma clave entre medias, el "ON DUPLICATE KEY UPDATE" la suma igualmente.
+         */
+    private static void escribir(Connection conexion, String sqlActualizar, String sqlInsertar, List<Object[]> filas) throws SQLException{
+        if (filas.isEmpty()) return;
+        int[] actualizadas;
+        try (PreparedStatement sentencia = conexion.prepareStatement(sqlActualizar)){
+            for (Object[] fila : filas){
+                sentencia.setObject(1, fila[fila.length - 1]);
+                for (int i = 0; i < fila.length - 1; i++) sentencia.setObject(i + 2, fila[i]);
+                sentencia.addBatch();
+            }
+            actualizadas = sentencia.executeBatch();
+        }
+
+        List<Object[]> nuevas = new ArrayList<>();
+        for (int f = 0; f < filas.size(); f++){
+            if (actualizadas[f] == 0) nuevas.add(filas.get(f));
+        }
+        if (nuevas.isEmpty()) return;
+        try (PreparedStatement sentencia = conexion.prepareStatement(sqlInsertar)){
+            for (Object[] fila : nuevas){
+                for (int i = 0; i < fila.length; i++) sentencia.setObject(i + 1, fila[i]);
+                sentencia.addBatch();
+            }
+            sentencia.executeBatch();
+        }
+    }
+
+
+    // ==================== CLAVE ====================
+        // Clave (libro, ubicación, estado) ya normalizada, ordenada igual que la clave primaria de "inventario_ejemplares".
+    static final class Clave implements Comparable<Clave>{
+        final long idLibro;
+        final String ubicacion;
+        final String estado;
+
+        Clave(long idLibro, String ubicacion, String estado){
+            this.idLibro = idLibro;
+            this.ubicacion = ubicacion;
+            this.estado = estado;
+        }
+
+        @Override
+        public int compareTo(Clave otra){
+            int comparacion = Long.compare(idLibro, otra.idLibro);
+            if (comparacion == 0) comparacion = ubicacion.compareTo(otra.ubicacion);
+            if (comparacion == 0) comparacion = estado.compareTo(otra.estado);
+            return comparacion;
+        }
+
+        @Override
+        public boolean equals(Object otro){ return otro instanceof Clave && compareTo((Clave) otro) == 0; }
+
+        @Override
+        public int hashCode(){ return (Long.hashCode(idLibro) * 31 + ubicacion.hashCode()) * 31 + estado.hashCode(); }
+    }
+}
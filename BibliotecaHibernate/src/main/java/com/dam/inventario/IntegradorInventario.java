@@ -0,0 +1,38 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.inventario;
+
+
+// Importa de la biblioteca/librería el paquete "Metadata".
+import org.hibernate.boot.Metadata;
+// Importa de la biblioteca/librería el paquete "SessionFactoryImplementor".
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+// Importa de la biblioteca/librería el paquete "EventListenerRegistry".
+import org.hibernate.event.service.spi.EventListenerRegistry;
+// Importa de la biblioteca/librería el paquete "EventType".
+import org.hibernate.event.spi.EventType;
+// Importa de la biblioteca/librería el paquete "Integrator".
+import org.hibernate.integrator.spi.Integrator;
+// Importa de la biblioteca/librería el paquete "SessionFactoryServiceRegistry".
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+
+// Crea la clase "IntegradorInventario".
+    /*
+     * Registra "ListenerInventario" en cada "SessionFactory" que se construye.
+     * Hibernate lo descubre solo a través de "META-INF/services/org.hibernate.integrator.spi.Integrator", sin tocar "hibernate.cfg.xml".
+     */
+public class IntegradorInventario implements Integrator{
+    @Override
+    public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry){
+        ListenerInventario listener = new ListenerInventario();
+        EventListenerRegistry registro = serviceRegistry.getService(EventListenerRegistry.class);
+        registro.appendListeners(EventType.POST_INSERT, listener);
+        registro.appendListeners(EventType.PRE_UPDATE, listener);
+        registro.appendListeners(EventType.POST_DELETE, listener);
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry){}
+}
@@ -0,0 +1,104 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.inventario;
+
+
+// Importa de la biblioteca/librería el paquete "Ejemplar".
+import com.dam.modelo.Ejemplar;
+// Importa de la biblioteca/librería el paquete "EstadoEjemplar".
+import com.dam.modelo.Ejemplar.EstadoEjemplar;
+// Importa de la biblioteca/librería el paquete "Libro".
+import com.dam.modelo.Libro;
+// Importa de la biblioteca/librería el paquete "ListenerEntidades".
+import com.dam.util.ListenerEntidades;
+// Importa de la biblioteca/librería el paquete "PostDeleteEvent".
+import org.hibernate.event.spi.PostDeleteEvent;
+// Importa de la biblioteca/librería el paquete "PostDeleteEventListener".
+import org.hibernate.event.spi.PostDeleteEventListener;
+// Importa de la biblioteca/librería el paquete "PostInsertEvent".
+import org.hibernate.event.spi.PostInsertEvent;
+// Importa de la biblioteca/librería el paquete "PostInsertEventListener".
+import org.hibernate.event.spi.PostInsertEventListener;
+// Importa de la biblioteca/librería el paquete "PreUpdateEvent".
+import org.hibernate.event.spi.PreUpdateEvent;
+// Importa de la biblioteca/librería el paquete "PreUpdateEventListener".
+import org.hibernate.event.spi.PreUpdateEventListener;
+// Importa de la biblioteca/librería el paquete "EntityPersister".
+import org.hibernate.persister.entity.EntityPersister;
+// Importa de la biblioteca/librería el paquete "HibernateProxy".
+import org.hibernate.proxy.HibernateProxy;
+
+// Crea la clase "ListenerInventario".
+    /*
+     * Anota en "CambiosInventario" cada ejemplar que se inserta, se borra o cambia de libro, ubicación o estado a través de una "Session".
+     *
+     *   1. Se escucha al escribir cada fila (no tras el "commit"): los cambios se aplican al inventario antes del "commit", en la misma transacción ("CambiosInventario.deTransaccion()").
+     *   2. Las modificaciones se anotan antes del "UPDATE" ("PRE_UPDATE"): si la sesión no conoce el estado anterior (ejemplar desasociado guardado con "update()"), aún puede leerse de la base de datos.
+     *
+     * Las sentencias masivas ("UPDATE"/"DELETE" en HQL) y las "StatelessSession" no lanzan eventos: quien las usa anota sus cambios (ver "ServicioBiblioteca.cambiarEstado()" e "ImportadorCatalogo").
+     * Se registra en Hibernate mediante "IntegradorInventario".
+     */
+final class ListenerInventario extends ListenerEntidades implements PostInsertEventListener, PreUpdateEventListener, PostDeleteEventListener{
+    // ==================== ATRIBUTOS ====================
+    private static final long serialVersionUID = 1L;
+
+
+    // ==================== CONSTRUCTORES ====================
+        // Los cambios forman parte de la transacción: ningún evento espera al "commit".
+    ListenerInventario(){
+        super();
+    }
+
+
+    // ==================== EVENTOS ====================
+    @Override
+    public void onPostInsert(PostInsertEvent event){
+        if (!(event.getEntity() instanceof Ejemplar)) return;
+        Ejemplar ejemplar = (Ejemplar) event.getEntity();
+        CambiosInventario.deTransaccion(event.getSession()).anotar(idLibro(ejemplar.getLibro()), ejemplar.getUbicacion(), ejemplar.getEstado(), 1);
+    }
+
+    @Override
+    public boolean onPreUpdate(PreUpdateEvent event){
+        if (!(event.getEntity() instanceof Ejemplar)) return false;
+        EntityPersister persister = event.getPersister();
+        Object[] anterior = event.getOldState();
+        if (anterior == null) anterior = persister.getDatabaseSnapshot(event.getId(), event.getSession());
+            // Sin fila en la base de datos el "UPDATE" fallará por bloqueo optimista y la transacción se revertirá: no hay nada que anotar.
+        if (anterior == null) return false;
+
+        Object[] nuevo = event.getState();
+        int libro = indicePropiedad(persister, "libro");
+        int ubicacion = indicePropiedad(persister, "ubicacion");
+        int estado = indicePropiedad(persister, "estado");
+        CambiosInventario.deTransaccion(event.getSession()).anotarCambio(
+                idLibro(anterior[libro]), (String) anterior[ubicacion], (EstadoEjemplar) anterior[estado],
+                idLibro(nuevo[libro]), (String) nuevo[ubicacion], (EstadoEjemplar) nuevo[estado]);
+        return false;
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event){
+        if (!(event.getEntity() instanceof Ejemplar)) return;
+        Object[] borrado = event.getDeletedState();
+        EntityPersister persister = event.getPersister();
+        CambiosInventario.deTransaccion(event.getSession()).anotar(
+                idLibro(borrado[indicePropiedad(persister, "libro")]), (String) borrado[indicePropiedad(persister, "ubicacion")], (EstadoEjemplar) borrado[indicePropiedad(persister, "estado")], -1);
+    }
+
+
+    // ==================== MÉTODOS HELPER ====================
+    private static int indicePropiedad(EntityPersister persister, String propiedad){
+        return persister.getEntityMetamodel().getPropertyIndex(propiedad);
+    }
+
+        // "ID" del libro sin inicializarlo: el estado de la sesión guarda la entidad (o su "proxy") y la instantánea de la base de datos solo el "ID".
+    private static Long idLibro(Object libro){
+        if (libro == null) return null;
+        if (libro instanceof HibernateProxy) return (Long) ((HibernateProxy) libro).getHibernateLazyInitializer().getIdentifier();
+        if (libro instanceof Libro) return ((Libro) libro).getId();
+        return (Long) libro;
+    }
+}
@@ -0,0 +1,251 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.inventario;
+
+
+// Importa de la biblioteca/librería el paquete "ResultadoReconciliacion".
+import com.dam.dto.ResultadoReconciliacion;
+// Importa de la biblioteca/librería el paquete "IndiceFacetasEjemplares".
+import com.dam.indice.IndiceFacetasEjemplares;
+// Importa de la biblioteca/librería el paquete "EstadoEjemplar".
+import com.dam.modelo.Ejemplar.EstadoEjemplar;
+// Importa de la biblioteca/librería el paquete "InformadorErrores".
+import com.dam.util.InformadorErrores;
+// Importa de la biblioteca/librería el paquete "PreparedStatement".
+import java.sql.PreparedStatement;
+// Importa de la biblioteca/librería el paquete "Duration".
+import java.time.Duration;
+// Importa de la biblioteca/librería el paquete "ArrayList".
+import java.util.ArrayList;
+// Importa de la biblioteca/librería el paquete "HashMap".
+import java.util.HashMap;
+// Importa de la biblioteca/librería el paquete "List".
+import java.util.List;
+// Importa de la biblioteca/librería el paquete "Map".
+import java.util.Map;
+// Importa de la biblioteca/librería el paquete "Executors".
+import java.util.concurrent.Executors;
+// Importa de la biblioteca/librería el paquete "ScheduledExecutorService".
+import java.util.concurrent.ScheduledExecutorService;
+// Importa de la biblioteca/librería el paquete "TimeUnit".
+import java.util.concurrent.TimeUnit;
+// Importa de la biblioteca/librería el paquete "Function".
+import java.util.function.Function;
+// Importa de la biblioteca/librería el paquete "Logger".
+import java.util.logging.Logger;
+// Importa de la biblioteca/librería el paquete "Session".
+import org.hibernate.Session;
+// Importa de la biblioteca/librería el paquete "SessionFactory".
+import org.hibernate.SessionFactory;
+// Importa de la biblioteca/librería el paquete "Transaction".
+import org.hibernate.Transaction;
+
+// Crea la clase "ReconciliadorInventario".
+    /*
+     * Recalcula el inventario resumido a partir de la tabla "ejemplares" y corrige las diferencias ("deriva") que hayan podido quedar:
+     * escrituras hechas fuera de la aplicación (SQL a mano, otras herramientas), restauraciones de copias de seguridad, errores...
+     *
+     *   1. Recorre los libros por bloques de "ID" ("TAMANO_BLOQUE"), cada bloque en su propia transacción:
+     *        a. Bloquea ("FOR UPDATE") las filas de "inventario_ejemplares" del bloque. Las transacciones que modifiquen ejemplares de esos libros esperan a que termine para escribir su cambio.
+     *        b. Cuenta los ejemplares del bloque ("GROUP BY" libro, ubicación y estado) y anota la diferencia con lo guardado en "CambiosInventario", que la aplica (también en "inventario_estados").
+     *        c. Borra las filas que se han quedado a 0.
+     *   2. Después compara cada total de "inventario_estados" con la suma de "inventario_ejemplares" y corrige la diferencia.
+     *   3. Por último, si el índice de facetas de los ejemplares ya está cargado, lo reconstruye desde la tabla ("IndiceFacetasEjemplares.cargar()"), que puede haber derivado por las mismas causas.
+     *
+     * Los bloqueos se piden antes de leer los ejemplares: una transacción concurrente o ya ha escrito su cambio en el inventario (y se lee), o lo escribirá después de la corrección (y no se lee).
+     * Se puede lanzar a mano ("reconciliar()") o cada cierto tiempo ("programar()", en un hilo en segundo plano).
+     */
+public final class ReconciliadorInventario{
+    // ==================== ATRIBUTOS ====================
+    private static final ReconciliadorInventario INSTANCIA = new ReconciliadorInventario();
+    private static final Logger LOG = Logger.getLogger("com.dam.inventario");
+
+        // Propiedad de configuración ("hibernate.cfg.xml" o de sistema) con los minutos entre reconciliaciones automáticas (0 o ausente = desactivada).
+    public static final String PROPIEDAD_PERIODO = "biblioteca.inventario.reconciliacion_minutos";
+        // Nº de "ID" de libro que se reconcilian en cada transacción.
+    public static final int TAMANO_BLOQUE = 1000;
+
+    private static final String SQL_BLOQUEAR_EJEMPLARES = "SELECT id_libro, ubicacion, estado, cantidad FROM inventario_ejemplares WHERE id_libro >= ? AND id_libro < ? FOR UPDATE";
+    private static final String SQL_BORRAR_VACIAS = "DELETE FROM inventario_ejemplares WHERE id_libro >= ? AND id_libro < ? AND cantidad = 0";
+    private static final String SQL_BLOQUEAR_ESTADOS = "SELECT estado, cantidad FROM inventario_estados FOR UPDATE";
+    private static final String SQL_SUMAR_ESTADOS = "SELECT estado, SUM(cantidad) FROM inventario_ejemplares GROUP BY estado";
+    private static final String HQL_CONTAR = "SELECT e.libro.id, e.ubicacion, e.estado, COUNT(e) FROM Ejemplar e";
+
+        // Tarea periódica en curso ("null" si no hay ninguna). Protegida por el monitor de la instancia.
+    private ScheduledExecutorService planificador;
+
+
+    // ==================== CONSTRUCTORES ====================
+    private ReconciliadorInventario(){}
+
+            /*
+             * "@return" Retorna: El reconciliador del inventario (único por proceso, igual que la "SessionFactory").
+             */
+    public static ReconciliadorInventario getInstancia(){ return INSTANCIA; }
+
+
+    // ==================== RECONCILIACIÓN ====================
+
+    /*
+     * "@param sessionFactory" Parámetro: Fábrica de sesiones con la que leer y corregir las tablas.
+     * "@return" Retorna: Filas revisadas, filas corregidas y nº de ejemplares de diferencia.
+     */
+    public ResultadoReconciliacion reconciliar(SessionFactory sessionFactory){
+        long inicio = System.nanoTime();
+        long[] totales = new long[3]; /* Filas revisadas, filas corregidas y ejemplares de diferencia. */
+
+        long maximo = enTransaccion(sessionFactory, session -> {
+            Long libros = session.createQuery("SELECT MAX(l.id) FROM Libro l", Long.class).uniqueResult();
+            Long inventario = session.createQuery("SELECT MAX(c.idLibro) FROM ContadorInventario c", Long.class).uniqueResult();
+            return Math.max(libros != null ? libros : 0L, inventario != null ? inventario : 0L);
+        });
+        for (long desde = 0; desde <= maximo; desde += TAMANO_BLOQUE){
+            long inicioBloque = desde;
+            enTransaccion(sessionFactory, session -> reconciliarBloque(session, inicioBloque, inicioBloque + TAMANO_BLOQUE, totales));
+        }
+        enTransaccion(sessionFactory, session -> reconciliarEstados(session, totales));
+
+        ResultadoReconciliacion resultado = new ResultadoReconciliacion(totales[0], totales[1], totales[2], Duration.ofNanos(System.nanoTime() - inicio));
+        if (resultado.getFilasCorregidas() > 0) LOG.warning("Inventario de ejemplares descuadrado y corregido:" + resultado);
+        else LOG.fine("Inventario de ejemplares cuadrado:" + resultado);
+
+        IndiceFacetasEjemplares facetas = IndiceFacetasEjemplares.getInstancia();
+        if (facetas.isCargado()) facetas.cargar(sessionFactory);
+        return resultado;
+    }
+
+        // Reconcilia los libros con "ID" en ["desde", "hasta") (el libro 0 agrupa los ejemplares sin libro).
+    private static Void reconciliarBloque(Session session, long desde, long hasta, long[] totales){
+        Map<CambiosInventario.Clave, Long> diferencias = new HashMap<>();
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> guardadas = session.createNativeQuery(SQL_BLOQUEAR_EJEMPLARES).setParameter(1, desde).setParameter(2, hasta).list();
+        for (Object[] fila : guardadas){
+            diferencias.merge(new CambiosInventario.Clave(((Number) fila[0]).longValue(), (String) fila[1], (String) fila[2]), -((Number) fila[3]).longValue(), Long::sum);
+        }
+
+        List<Object[]> contadas = new ArrayList<>(session.createQuery(HQL_CONTAR + " WHERE e.libro.id >= :desde AND e.libro.id < :hasta GROUP BY e.libro.id, e.ubicacion, e.estado", Object[].class)
+                                         .setParameter("desde", desde)
+                                         .setParameter("hasta", hasta)
+                                         .list());
+        if (desde <= CambiosInventario.SIN_LIBRO){
+            contadas.addAll(session.createQuery(HQL_CONTAR + " WHERE e.libro IS NULL GROUP BY e.libro.id, e.ubicacion, e.estado", Object[].class).list());
+        }
+        for (Object[] fila : contadas){
+            Long idLibro = (Long) fila[0];
+            String ubicacion = (String) fila[1];
+            EstadoEjemplar estado = (EstadoEjemplar) fila[2];
+            CambiosInventario.Clave clave = new CambiosInventario.Clave(idLibro != null ? idLibro : CambiosInventario.SIN_LIBRO, ubicacion != null ? ubicacion : CambiosInventario.SIN_VALOR, estado != null ? estado.name() : CambiosInventario.SIN_VALOR);
+            diferencias.merge(clave, (Long) fila[3], Long::sum);
+        }
+
+        CambiosInventario cambios = new CambiosInventario();
+        for (Map.Entry<CambiosInventario.Clave, Long> diferencia : diferencias.entrySet()){
+            long cantidad = diferencia.getValue();
+            totales[0]++;
+            if (cantidad == 0) continue;
+            totales[1]++;
+            totales[2] += Math.abs(cantidad);
+            cambios.anotar(diferencia.getKey(), cantidad);
+        }
+        cambios.aplicar(session);
+        session.doWork(conexion -> {
+            try (PreparedStatement sentencia = conexion.prepareStatement(SQL_BORRAR_VACIAS)){
+                sentencia.setLong(1, desde);
+                sentencia.setLong(2, hasta);
+                sentencia.executeUpdate();
+            }
+        });
+        return null;
+    }
+
+        // Corrige cada total por estado con la suma de "inventario_ejemplares" (ya reconciliada).
+    private static Void reconciliarEstados(Session session, long[] totales){
+        Map<String, Long> diferencias = new HashMap<>();
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> guardadas = session.createNativeQuery(SQL_BLOQUEAR_ESTADOS).list();
+        for (Object[] fila : guardadas) diferencias.merge((String) fila[0], -((Number) fila[1]).longValue(), Long::sum);
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> sumadas = session.createNativeQuery(SQL_SUMAR_ESTADOS).list();
+        for (Object[] fila : sumadas) diferencias.merge((String) fila[0], ((Number) fila[1]).longValue(), Long::sum);
+
+        CambiosInventario cambios = new CambiosInventario();
+        for (Map.Entry<String, Long> diferencia : diferencias.entrySet()){
+            long cantidad = diferencia.getValue();
+            totales[0]++;
+            if (cantidad == 0) continue;
+            totales[1]++;
+            cambios.anotarEstado(diferencia.getKey(), cantidad);
+        }
+        cambios.aplicar(session);
+        return null;
+    }
+
+        // Ejecuta una operación en su propia sesión y transacción (como "HibernateUtil.enTransaccion()", con la fábrica recibida).
+    private static <T> T enTransaccion(SessionFactory sessionFactory, Function<Session, T> operacion){
+        Session session = sessionFactory.openSession();
+        Transaction transaction = session.beginTransaction();
+        try{
+            T resultado = operacion.apply(session);
+            transaction.commit();
+            return resultado;
+        } catch (RuntimeException rex){
+            if (transaction.isActive()) transaction.rollback();
+            throw rex;
+        } finally{
+            session.close();
+        }
+    }
+
+
+    // ==================== PROGRAMACIÓN ====================
+
+    /*
+     * Reconcilia el inventario cada "periodo" en un hilo en segundo plano ("reconciliacion-inventario"), empezando tras el primer periodo. Sustituye a la programación anterior, si la había.
+     * Los errores de una ejecución se informan ("InformadorErrores") y no cancelan las siguientes.
+     *
+     * "@param sessionFactory" Parámetro: Fábrica de sesiones con la que reconciliar.
+     * "@param periodo"        Parámetro: Tiempo entre dos reconciliaciones.
+     */
+    public synchronized void programar(SessionFactory sessionFactory, Duration periodo){
+        if (periodo == null || periodo.isZero() || periodo.isNegative()) throw new IllegalArgumentException("El periodo de reconciliación debe ser positivo: " + periodo);
+        detener();
+        planificador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "reconciliacion-inventario");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        long milisegundos = periodo.toMillis();
+        planificador.scheduleWithFixedDelay(() -> {
+            try{
+                reconciliar(sessionFactory);
+            } catch (RuntimeException rex){
+                if (!sessionFactory.isClosed()) InformadorErrores.get().informar("Inventario de ejemplares", "No se pudo reconciliar el inventario de ejemplares", rex);
+            }
+        }, milisegundos, milisegundos, TimeUnit.MILLISECONDS);
+    }
+
+    /*
+     * Programa la reconciliación periódica si la configuración de la fábrica lo pide ("PROPIEDAD_PERIODO").
+     *
+     * "@param sessionFactory" Parámetro: Fábrica de sesiones recién creada.
+     */
+    public void programarSegunConfiguracion(SessionFactory sessionFactory){
+        Object valor = sessionFactory.getProperties().get(PROPIEDAD_PERIODO);
+        long minutos = valor != null ? Long.parseLong(valor.toString().trim()) : 0;
+        if (minutos > 0) programar(sessionFactory, Duration.ofMinutes(minutos));
+    }
+
+    /*
+     * Cancela la reconciliación periódica (la que esté en curso termina). Si no hay ninguna no hace nada.
+     */
+    public synchronized void detener(){
+        if (planificador == null) return;
+        planificador.shutdown();
+        planificador = null;
+    }
+}
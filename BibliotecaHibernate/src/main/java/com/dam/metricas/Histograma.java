@@ -0,0 +1,91 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.metricas;
+
+
+// Importa de la biblioteca/librería el paquete "AtomicLongArray".
+import java.util.concurrent.atomic.AtomicLongArray;
+// Importa de la biblioteca/librería el paquete "LongAccumulator".
+import java.util.concurrent.atomic.LongAccumulator;
+// Importa de la biblioteca/librería el paquete "LongAdder".
+import java.util.concurrent.atomic.LongAdder;
+
+// Crea la clase "Histograma".
+    /*
+     * Histograma de latencias de tamaño fijo (no guarda las muestras), apto para registrar desde muchos hilos a la vez.
+     *
+     * Los tiempos se agrupan en microsegundos en cubetas log-lineales: cada potencia de 2 se divide en "SUBCUBETAS" cubetas iguales,
+     * así que un percentil se devuelve con un error relativo máximo del 25 % y la memoria es la misma con 10 registros que con 10 millones.
+     */
+final class Histograma{
+    // ==================== ATRIBUTOS ====================
+    private static final int BITS_SUBCUBETA = 2;
+    private static final int SUBCUBETAS = 1 << BITS_SUBCUBETA;
+    private static final int CUBETAS = 64 * SUBCUBETAS;
+
+    private final AtomicLongArray cubetas = new AtomicLongArray(CUBETAS);
+    private final LongAdder registros = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maximoNanos = new LongAccumulator(Long::max, 0L);
+
+
+    // ==================== REGISTRO ====================
+    void registrar(long nanos){
+        if (nanos < 0) nanos = 0;
+        cubetas.incrementAndGet(cubeta(nanos / 1_000));
+        registros.increment();
+        totalNanos.add(nanos);
+        maximoNanos.accumulate(nanos);
+    }
+
+        // Las cubetas 0..3 son exactas (0-3 µs); a partir de ahí, 4 cubetas por potencia de 2.
+    private static int cubeta(long micros){
+        if (micros < SUBCUBETAS) return (int) micros;
+        int exponente = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = (int) (micros >>> (exponente - BITS_SUBCUBETA)) & (SUBCUBETAS - 1);
+        return (exponente - BITS_SUBCUBETA + 1) * SUBCUBETAS + sub;
+    }
+
+        // Límite superior (en µs) de los valores que caen en la cubeta.
+    private static long limiteSuperior(int cubeta){
+        if (cubeta < SUBCUBETAS) return cubeta;
+        int exponente = cubeta / SUBCUBETAS + BITS_SUBCUBETA - 1;
+        long sub = cubeta % SUBCUBETAS;
+        return ((SUBCUBETAS + sub + 1) << (exponente - BITS_SUBCUBETA)) - 1;
+    }
+
+
+    // ==================== CONSULTA ====================
+
+    /*
+     * "@param percentil" Parámetro: Percentil a calcular (entre 0 y 100).
+     * "@return" Retorna: Latencia (en ms) por debajo de la cual queda ese porcentaje de los registros, o 0 si no hay ninguno.
+     */
+    double percentilMs(double percentil){
+        long total = 0;
+        long[] copia = new long[CUBETAS];
+        for (int i = 0; i < CUBETAS; i++){
+            copia[i] = cubetas.get(i);
+            total += copia[i];
+        }
+        if (total == 0) return 0.0;
+
+        long objetivo = Math.max(1, (long) Math.ceil(total * percentil / 100.0));
+        long acumulado = 0;
+        for (int i = 0; i < CUBETAS; i++){
+            acumulado += copia[i];
+            if (acumulado >= objetivo) return Math.min(limiteSuperior(i) / 1_000.0, getMaximoMs());
+        }
+        return getMaximoMs();
+    }
+
+    long getRegistros(){ return registros.sum(); }
+    double getMediaMs(){
+        long n = registros.sum();
+        return n == 0 ? 0.0 : totalNanos.sum() / (double) n / 1_000_000.0;
+    }
+    double getTotalSegundos(){ return totalNanos.sum() / 1_000_000_000.0; }
+    double getMaximoMs(){ return maximoNanos.get() / 1_000_000.0; }
+}
@@ -0,0 +1,33 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.metricas;
+
+
+// Importa de la biblioteca/librería el paquete "StatementInspector".
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+// Crea la clase "InspectorSentencias".
+    /*
+     * Ve cada sentencia SQL antes de que Hibernate la prepare: la cuenta en la operación en curso ("MetricasOperaciones") y la recuerda para el registro de sentencias lentas ("ListenerSesionMetricas").
+     * No modifica el SQL. Sustituye a "hibernate.show_sql" como forma de saber qué envía cada operación, sin escribir cada sentencia en la consola.
+     *
+     * Se activa en "hibernate.cfg.xml" con "hibernate.session_factory.statement_inspector".
+     */
+public class InspectorSentencias implements StatementInspector{
+    private static final long serialVersionUID = 1L;
+
+        // Última sentencia preparada en cada hilo (la que se ejecuta a continuación, o la del lote en curso).
+    private static final ThreadLocal<String> ULTIMA_SENTENCIA = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql){
+        ULTIMA_SENTENCIA.set(sql);
+        MetricasOperaciones.Contexto contexto = MetricasOperaciones.contexto();
+        if (contexto != null) contexto.sentencias++;
+        return sql;
+    }
+
+    static String ultimaSentencia(){ return ULTIMA_SENTENCIA.get(); }
+}
@@ -0,0 +1,55 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.metricas;
+
+
+// Importa de la biblioteca/librería el paquete "InformadorErrores".
+import com.dam.util.InformadorErrores;
+// Importa de la biblioteca/librería el paquete "Map".
+import java.util.Map;
+// Importa de la biblioteca/librería el paquete "Metadata".
+import org.hibernate.boot.Metadata;
+// Importa de la biblioteca/librería el paquete "SessionFactoryImplementor".
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+// Importa de la biblioteca/librería el paquete "EventListenerRegistry".
+import org.hibernate.event.service.spi.EventListenerRegistry;
+// Importa de la biblioteca/librería el paquete "EventType".
+import org.hibernate.event.spi.EventType;
+// Importa de la biblioteca/librería el paquete "Integrator".
+import org.hibernate.integrator.spi.Integrator;
+// Importa de la biblioteca/librería el paquete "SessionFactoryServiceRegistry".
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+
+// Crea la clase "IntegradorMetricas".
+    /*
+     * Registra "ListenerCargaMetricas" en cada "SessionFactory" que se construye y aplica a "MetricasOperaciones" los umbrales de "hibernate.cfg.xml".
+     * Hibernate lo descubre solo a través de "META-INF/services/org.hibernate.integrator.spi.Integrator".
+     */
+public class IntegradorMetricas implements Integrator{
+    @Override
+    public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry){
+        Map<String, Object> propiedades = sessionFactory.getProperties();
+        MetricasOperaciones metricas = MetricasOperaciones.getInstancia();
+        metricas.setUmbralOperacionLentaMs(leerMs(propiedades, MetricasOperaciones.PROPIEDAD_OPERACION_LENTA));
+        metricas.setUmbralSentenciaLentaMs(leerMs(propiedades, MetricasOperaciones.PROPIEDAD_SENTENCIA_LENTA));
+
+        serviceRegistry.getService(EventListenerRegistry.class).appendListeners(EventType.POST_LOAD, new ListenerCargaMetricas());
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry){}
+
+        // Un umbral que no está definido (o no es un número) queda desactivado.
+    private static long leerMs(Map<String, Object> propiedades, String clave){
+        Object valor = propiedades.get(clave);
+        if (valor == null) return 0;
+        try{
+            return Long.parseLong(valor.toString().trim());
+        } catch (NumberFormatException nfe){
+            InformadorErrores.get().informar("Configuración", "Valor no válido para '" + clave + "': " + valor + " (umbral desactivado)", nfe);
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.metricas;
+
+
+// Importa de la biblioteca/librería el paquete "PostLoadEvent".
+import org.hibernate.event.spi.PostLoadEvent;
+// Importa de la biblioteca/librería el paquete "PostLoadEventListener".
+import org.hibernate.event.spi.PostLoadEventListener;
+
+// Crea la clase "ListenerCargaMetricas".
+    /*
+     * Cuenta las entidades que carga la operación en curso ("MetricasOperaciones"), tanto desde la base de datos como desde la caché de segundo nivel.
+     * Se registra en Hibernate mediante "IntegradorMetricas".
+     */
+final class ListenerCargaMetricas implements PostLoadEventListener{
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public void onPostLoad(PostLoadEvent event){
+        MetricasOperaciones.Contexto contexto = MetricasOperaciones.contexto();
+        if (contexto != null) contexto.entidades++;
+    }
+}
@@ -0,0 +1,50 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.metricas;
+
+
+// Importa de la biblioteca/librería el paquete "BaseSessionEventListener".
+import org.hibernate.BaseSessionEventListener;
+
+// Crea la clase "ListenerSesionMetricas".
+    /*
+     * Recibe de cada sesión los tiempos de sus accesos JDBC:
+     *   1. La espera para obtener una conexión, que se suma a la operación en curso ("MetricasOperaciones").
+     *   2. La duración de cada ejecución (sentencia o lote), que alimenta el registro de sentencias lentas.
+     *
+     * Hibernate crea una instancia por sesión (la sesión la usa un único hilo), por eso los tiempos de inicio son campos normales.
+     * Se activa en "hibernate.cfg.xml" con "hibernate.session.events.auto".
+     */
+public class ListenerSesionMetricas extends BaseSessionEventListener{
+    private static final long serialVersionUID = 1L;
+
+    private long inicioConexion;
+    private long inicioEjecucion;
+
+    @Override
+    public void jdbcConnectionAcquisitionStart(){ inicioConexion = System.nanoTime(); }
+
+    @Override
+    public void jdbcConnectionAcquisitionEnd(){
+        MetricasOperaciones.Contexto contexto = MetricasOperaciones.contexto();
+        if (contexto != null) contexto.esperaConexionNanos += System.nanoTime() - inicioConexion;
+    }
+
+    @Override
+    public void jdbcExecuteStatementStart(){ inicioEjecucion = System.nanoTime(); }
+
+    @Override
+    public void jdbcExecuteStatementEnd(){ terminarEjecucion(); }
+
+    @Override
+    public void jdbcExecuteBatchStart(){ inicioEjecucion = System.nanoTime(); }
+
+    @Override
+    public void jdbcExecuteBatchEnd(){ terminarEjecucion(); }
+
+    private void terminarEjecucion(){
+        MetricasOperaciones.getInstancia().registrarEjecucion(InspectorSentencias.ultimaSentencia(), System.nanoTime() - inicioEjecucion);
+    }
+}
@@ -0,0 +1,20 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.metricas;
+
+
+// Crea la interfaz "Medicion".
+    /*
+     * Medición de una operación en curso (ver "MetricasOperaciones.iniciar()"). Se cierra al terminar la operación, con un "try-with-resources" si se usa dentro del bloque:
+     *   try (Medicion medicion = MetricasOperaciones.getInstancia().iniciar("buscarLibroPorId")){ ... }
+     * Si no, es más sencillo "MetricasOperaciones.medir()", que la abre y la cierra alrededor de la operación.
+     */
+public interface Medicion extends AutoCloseable{
+        // Medición que no registra nada (operación anidada dentro de otra que ya se está midiendo).
+    Medicion VACIA = () -> {};
+
+    @Override
+    void close();
+}
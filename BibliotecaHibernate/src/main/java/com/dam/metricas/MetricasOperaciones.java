@@ -0,0 +1,273 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.metricas;
+
+
+// Importa de la biblioteca/librería el paquete "MetricasOperacion".
+import com.dam.dto.MetricasOperacion;
+// Importa de la biblioteca/librería el paquete "ArrayList".
+import java.util.ArrayList;
+// Importa de la biblioteca/librería el paquete "Comparator".
+import java.util.Comparator;
+// Importa de la biblioteca/librería el paquete "List".
+import java.util.List;
+// Importa de la biblioteca/librería el paquete "Locale".
+import java.util.Locale;
+// Importa de la biblioteca/librería el paquete "Map".
+import java.util.Map;
+// Importa de la biblioteca/librería el paquete "ConcurrentHashMap".
+import java.util.concurrent.ConcurrentHashMap;
+// Importa de la biblioteca/librería el paquete "LongAdder".
+import java.util.concurrent.atomic.LongAdder;
+// Importa de la biblioteca/librería el paquete "Level".
+import java.util.logging.Level;
+// Importa de la biblioteca/librería el paquete "Logger".
+import java.util.logging.Logger;
+// Importa de la biblioteca/librería el paquete "Statistics".
+import org.hibernate.stat.Statistics;
+
+// Crea la clase "MetricasOperaciones".
+    /*
+     * Métricas de cada operación de "GestionBiblioteca": histograma de latencias, sentencias SQL enviadas, entidades cargadas y espera de conexión.
+     *
+     *   1. Cada operación se mide con "medir(nombre, operación)" (o con "iniciar(nombre)" en un "try-with-resources"): mientras dura, el hilo tiene un contexto en el que
+     *      "InspectorSentencias" (cada sentencia SQL), "ListenerSesionMetricas" (conexiones y ejecuciones JDBC) y "ListenerCargaMetricas" (cada entidad cargada) apuntan lo que hace la operación.
+     *   2. Al cerrar, el contexto se suma a los acumulados de la operación y, si ha superado el umbral, se escribe en el registro de operaciones lentas.
+     *   3. Las sentencias que superan su propio umbral se registran también, con el SQL, aunque se ejecuten fuera de una operación medida.
+     *
+     * Los umbrales se leen de "hibernate.cfg.xml" ("IntegradorMetricas"):
+     *   La propiedad "  biblioteca.metricas.operacion_lenta_ms  " Latencia a partir de la cual una operación se considera lenta (0 = desactivado).
+     *   La propiedad "  biblioteca.metricas.sentencia_lenta_ms  " Latencia a partir de la cual una sentencia SQL se considera lenta (0 = desactivado).
+     *
+     * El registro de lentas usa "java.util.logging" ("com.dam.metricas.lentas", nivel "WARNING"), así se puede redirigir o silenciar sin tocar el código.
+     * Las métricas se consultan con "obtenerMetricas()" o se vuelcan en formato de texto de Prometheus con "exportarTexto()" (ver también "ServidorMetricas").
+     */
+public final class MetricasOperaciones{
+    // ==================== ATRIBUTOS ====================
+    private static final MetricasOperaciones INSTANCIA = new MetricasOperaciones();
+    static final Logger REGISTRO_LENTAS = Logger.getLogger("com.dam.metricas.lentas");
+
+    public static final String PROPIEDAD_OPERACION_LENTA = "biblioteca.metricas.operacion_lenta_ms";
+    public static final String PROPIEDAD_SENTENCIA_LENTA = "biblioteca.metricas.sentencia_lenta_ms";
+
+        // Contexto de la operación que se está midiendo en cada hilo (los hilos virtuales tienen el suyo propio).
+    private static final ThreadLocal<Contexto> CONTEXTO = new ThreadLocal<>();
+
+    private final Map<String, Acumulado> operaciones = new ConcurrentHashMap<>();
+    private volatile long umbralOperacionNanos;
+    private volatile long umbralSentenciaNanos;
+
+
+    // ==================== CONSTRUCTORES ====================
+    private MetricasOperaciones(){}
+
+            /*
+             * "@return" Retorna: El registro de métricas (único por proceso, igual que la "SessionFactory").
+             */
+    public static MetricasOperaciones getInstancia(){ return INSTANCIA; }
+
+
+    // ==================== CONFIGURACIÓN ====================
+    public void setUmbralOperacionLentaMs(long ms){ umbralOperacionNanos = Math.max(0, ms) * 1_000_000L; }
+    public void setUmbralSentenciaLentaMs(long ms){ umbralSentenciaNanos = Math.max(0, ms) * 1_000_000L; }
+
+
+    // ==================== MEDICIÓN ====================
+
+    /*
+     * Empieza a medir una operación en el hilo actual. Si el hilo ya está midiendo otra, la nueva se cuenta dentro de aquella (devuelve una medición vacía).
+     *
+     * "@param operacion" Parámetro: Nombre de la operación (el del método de "GestionBiblioteca").
+     * "@return" Retorna: Medición en curso; se cierra con "close()" (en un "try-with-resources").
+     */
+    public Medicion iniciar(String operacion){
+        if (CONTEXTO.get() != null) return Medicion.VACIA;
+        Contexto contexto = new Contexto(operacion);
+        CONTEXTO.set(contexto);
+        return contexto;
+    }
+
+    /*
+     * Mide una operación: la ejecuta entre "iniciar()" y "close()" (también si lanza una excepción), sin declarar en quien la llama una medición que no usa.
+     *   METRICAS.medir("buscarLibroPorId", () -> { ... });
+     *
+     * "@param operacion" Parámetro: Nombre de la operación (el del método de "GestionBiblioteca").
+     * "@param cuerpo"    Parámetro: Operación a medir.
+     */
+    public void medir(String operacion, Runnable cuerpo){
+        Medicion medicion = iniciar(operacion);
+        try{
+            cuerpo.run();
+        } finally{
+            medicion.close();
+        }
+    }
+
+        // Operación medida en el hilo actual, o "null" si no hay ninguna.
+    static Contexto contexto(){ return CONTEXTO.get(); }
+
+    private void terminar(Contexto contexto){
+        CONTEXTO.remove();
+        long nanos = System.nanoTime() - contexto.inicio;
+        operaciones.computeIfAbsent(contexto.operacion, nombre -> new Acumulado()).sumar(contexto, nanos);
+
+        long umbral = umbralOperacionNanos;
+        if (umbral > 0 && nanos >= umbral && REGISTRO_LENTAS.isLoggable(Level.WARNING)){
+            REGISTRO_LENTAS.warning(String.format(Locale.ROOT, "Operación lenta: %s %.1f ms (%d sentencias SQL, %d entidades cargadas, %.1f ms esperando conexión)%s",
+                    contexto.operacion, nanos / 1_000_000.0, contexto.sentencias, contexto.entidades, contexto.esperaConexionNanos / 1_000_000.0,
+                    contexto.sentenciaMasLenta != null ? String.format(Locale.ROOT, "; sentencia más lenta (%.1f ms): %s", contexto.nanosSentenciaMasLenta / 1_000_000.0, contexto.sentenciaMasLenta) : ""));
+        }
+    }
+
+        // Lo llama "ListenerSesionMetricas" al terminar cada ejecución JDBC.
+    void registrarEjecucion(String sql, long nanos){
+        Contexto contexto = CONTEXTO.get();
+        if (contexto != null && nanos > contexto.nanosSentenciaMasLenta){
+            contexto.nanosSentenciaMasLenta = nanos;
+            contexto.sentenciaMasLenta = sql;
+        }
+
+        long umbral = umbralSentenciaNanos;
+        if (umbral > 0 && nanos >= umbral && REGISTRO_LENTAS.isLoggable(Level.WARNING)){
+            REGISTRO_LENTAS.warning(String.format(Locale.ROOT, "Sentencia lenta%s: %.1f ms: %s",
+                    contexto != null ? " en " + contexto.operacion : "", nanos / 1_000_000.0, sql));
+        }
+    }
+
+
+    // ==================== CONSULTA ====================
+
+    /*
+     * "@return" Retorna: Métricas acumuladas de cada operación medida desde el arranque (o desde "reiniciar()"), por nombre.
+     */
+    public List<MetricasOperacion> obtenerMetricas(){
+        List<MetricasOperacion> metricas = new ArrayList<>(operaciones.size());
+        for (Map.Entry<String, Acumulado> entrada : operaciones.entrySet()){
+            Acumulado a = entrada.getValue();
+            long invocaciones = a.latencias.getRegistros();
+            metricas.add(new MetricasOperacion(
+                    entrada.getKey(),
+                    invocaciones,
+                    a.latencias.getMediaMs(),
+                    a.latencias.percentilMs(50),
+                    a.latencias.percentilMs(95),
+                    a.latencias.percentilMs(99),
+                    a.latencias.getMaximoMs(),
+                    a.sentencias.sum(),
+                    a.entidades.sum(),
+                    invocaciones == 0 ? 0.0 : a.esperaConexionNanos.sum() / (double) invocaciones / 1_000_000.0
+            ));
+        }
+        metricas.sort(Comparator.comparing(MetricasOperacion::getOperacion));
+        return metricas;
+    }
+
+    /*
+     * Vuelca las métricas en el formato de texto de Prometheus (una línea por valor), listo para que lo recoja un "scraper" o para guardarlo en un fichero.
+     *
+     * "@param estadisticas" Parámetro: Estadísticas globales de Hibernate ("hibernate.generate_statistics"), o "null" para no incluirlas.
+     * "@return" Retorna: El texto con las métricas.
+     */
+    public String exportarTexto(Statistics estadisticas){
+        StringBuilder texto = new StringBuilder(4096);
+        List<MetricasOperacion> metricas = obtenerMetricas();
+
+        cabecera(texto, "biblioteca_operacion_latencia_ms", "summary", "Latencia de cada operación de GestionBiblioteca (ms)");
+        for (MetricasOperacion m : metricas){
+            linea(texto, "biblioteca_operacion_latencia_ms", m.getOperacion(), "quantile=\"0.5\"", m.getP50Ms());
+            linea(texto, "biblioteca_operacion_latencia_ms", m.getOperacion(), "quantile=\"0.95\"", m.getP95Ms());
+            linea(texto, "biblioteca_operacion_latencia_ms", m.getOperacion(), "quantile=\"0.99\"", m.getP99Ms());
+            linea(texto, "biblioteca_operacion_latencia_ms_sum", m.getOperacion(), null, m.getLatenciaMediaMs() * m.getInvocaciones());
+            linea(texto, "biblioteca_operacion_latencia_ms_count", m.getOperacion(), null, m.getInvocaciones());
+        }
+        cabecera(texto, "biblioteca_operacion_latencia_maxima_ms", "gauge", "Latencia máxima de cada operación (ms)");
+        for (MetricasOperacion m : metricas) linea(texto, "biblioteca_operacion_latencia_maxima_ms", m.getOperacion(), null, m.getLatenciaMaximaMs());
+        cabecera(texto, "biblioteca_operacion_sentencias_sql_total", "counter", "Sentencias SQL enviadas por cada operación");
+        for (MetricasOperacion m : metricas) linea(texto, "biblioteca_operacion_sentencias_sql_total", m.getOperacion(), null, m.getSentenciasSql());
+        cabecera(texto, "biblioteca_operacion_entidades_cargadas_total", "counter", "Entidades cargadas por cada operación");
+        for (MetricasOperacion m : metricas) linea(texto, "biblioteca_operacion_entidades_cargadas_total", m.getOperacion(), null, m.getEntidadesCargadas());
+        cabecera(texto, "biblioteca_operacion_espera_conexion_ms_total", "counter", "Tiempo esperando conexión del pool por cada operación (ms)");
+        for (MetricasOperacion m : metricas) linea(texto, "biblioteca_operacion_espera_conexion_ms_total", m.getOperacion(), null, m.getEsperaConexionMs() * m.getInvocaciones());
+
+        if (estadisticas != null && estadisticas.isStatisticsEnabled()){
+            global(texto, "hibernate_sentencias_preparadas_total", "counter", estadisticas.getPrepareStatementCount());
+            global(texto, "hibernate_consultas_total", "counter", estadisticas.getQueryExecutionCount());
+            global(texto, "hibernate_consulta_maxima_ms", "gauge", estadisticas.getQueryExecutionMaxTime());
+            global(texto, "hibernate_entidades_cargadas_total", "counter", estadisticas.getEntityLoadCount());
+            global(texto, "hibernate_entidades_leidas_total", "counter", estadisticas.getEntityFetchCount());
+            global(texto, "hibernate_colecciones_cargadas_total", "counter", estadisticas.getCollectionLoadCount());
+            global(texto, "hibernate_cache_segundo_nivel_aciertos_total", "counter", estadisticas.getSecondLevelCacheHitCount());
+            global(texto, "hibernate_cache_segundo_nivel_fallos_total", "counter", estadisticas.getSecondLevelCacheMissCount());
+            global(texto, "hibernate_transacciones_total", "counter", estadisticas.getTransactionCount());
+            global(texto, "hibernate_conflictos_optimistas_total", "counter", estadisticas.getOptimisticFailureCount());
+        }
+        return texto.toString();
+    }
+
+    /*
+     * Borra las métricas acumuladas (por ejemplo, tras el calentamiento o entre dos pruebas de carga).
+     */
+    public void reiniciar(){ operaciones.clear(); }
+
+
+    // ==================== MÉTODOS HELPER ====================
+    private static void cabecera(StringBuilder texto, String nombre, String tipo, String ayuda){
+        texto.append("# HELP ").append(nombre).append(' ').append(ayuda).append('\n');
+        texto.append("# TYPE ").append(nombre).append(' ').append(tipo).append('\n');
+    }
+
+    private static void linea(StringBuilder texto, String nombre, String operacion, String etiquetaExtra, double valor){
+        linea(texto, nombre, operacion, etiquetaExtra, String.format(Locale.ROOT, "%.3f", valor));
+    }
+
+    private static void linea(StringBuilder texto, String nombre, String operacion, String etiquetaExtra, long valor){
+        linea(texto, nombre, operacion, etiquetaExtra, Long.toString(valor));
+    }
+
+    private static void linea(StringBuilder texto, String nombre, String operacion, String etiquetaExtra, String valor){
+        texto.append(nombre).append("{operacion=\"").append(operacion).append('"');
+        if (etiquetaExtra != null) texto.append(',').append(etiquetaExtra);
+        texto.append("} ").append(valor).append('\n');
+    }
+
+    private static void global(StringBuilder texto, String nombre, String tipo, long valor){
+        texto.append("# TYPE ").append(nombre).append(' ').append(tipo).append('\n');
+        texto.append(nombre).append(' ').append(valor).append('\n');
+    }
+
+
+    // ==================== CLASES INTERNAS ====================
+
+        // Contadores de una operación en curso. Solo los toca el hilo que la ejecuta, por eso no son atómicos.
+    static final class Contexto implements Medicion{
+        final String operacion;
+        final long inicio = System.nanoTime();
+        long sentencias;
+        long entidades;
+        long esperaConexionNanos;
+        String sentenciaMasLenta;
+        long nanosSentenciaMasLenta;
+
+        private Contexto(String operacion){ this.operacion = operacion; }
+
+        @Override
+        public void close(){ INSTANCIA.terminar(this); }
+    }
+
+        // Acumulados de una operación (los suman todos los hilos que la ejecutan).
+    private static final class Acumulado{
+        final Histograma latencias = new Histograma();
+        final LongAdder sentencias = new LongAdder();
+        final LongAdder entidades = new LongAdder();
+        final LongAdder esperaConexionNanos = new LongAdder();
+
+        void sumar(Contexto contexto, long nanos){
+            sentencias.add(contexto.sentencias);
+            entidades.add(contexto.entidades);
+            esperaConexionNanos.add(contexto.esperaConexionNanos);
+            latencias.registrar(nanos);
+        }
+    }
+}
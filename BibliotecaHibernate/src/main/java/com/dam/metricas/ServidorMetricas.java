@@ -0,0 +1,60 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.metricas;
+
+
+// Importa de la biblioteca/librería el paquete "HttpServer".
+import com.sun.net.httpserver.HttpServer;
+// Importa de la biblioteca/librería el paquete "IOException".
+import java.io.IOException;
+// Importa de la biblioteca/librería el paquete "OutputStream".
+import java.io.OutputStream;
+// Importa de la biblioteca/librería el paquete "InetSocketAddress".
+import java.net.InetSocketAddress;
+// Importa de la biblioteca/librería el paquete "StandardCharsets".
+import java.nio.charset.StandardCharsets;
+// Importa de la biblioteca/librería el paquete "Supplier".
+import java.util.function.Supplier;
+
+// Crea la clase "ServidorMetricas".
+    /*
+     * Servidor HTTP mínimo (el incluido en el JDK, sin dependencias) que publica las métricas en "GET /metrics" con el formato de texto de Prometheus.
+     * Atiende las peticiones en un único hilo: generar el texto solo lee contadores, así que no interfiere con las operaciones.
+     */
+public final class ServidorMetricas implements AutoCloseable{
+    // ==================== ATRIBUTOS ====================
+    private final HttpServer servidor;
+
+
+    // ==================== CONSTRUCTORES ====================
+
+            /*
+             * "@param puerto"   Parámetro: Puerto en el que escuchar (0 = cualquiera libre, ver "getPuerto()").
+             * "@param metricas" Parámetro: Genera el texto de las métricas en cada petición (por ejemplo "HibernateUtil::exportarMetricas").
+             */
+    public ServidorMetricas(int puerto, Supplier<String> metricas) throws IOException{
+        servidor = HttpServer.create(new InetSocketAddress(puerto), 0);
+        servidor.createContext("/metrics", intercambio -> {
+            try{
+                byte[] cuerpo = metricas.get().getBytes(StandardCharsets.UTF_8);
+                intercambio.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                intercambio.sendResponseHeaders(200, cuerpo.length);
+                try (OutputStream salida = intercambio.getResponseBody()){
+                    salida.write(cuerpo);
+                }
+            } finally{
+                intercambio.close();
+            }
+        });
+        servidor.start();
+    }
+
+
+    // ==================== MÉTODOS ====================
+    public int getPuerto(){ return servidor.getAddress().getPort(); }
+
+    @Override
+    public void close(){ servidor.stop(0); }
+}
@@ -7,6 +7,10 @@ package com.dam.modelo;
 
 // Importa todos los paquetes de la biblioteca/librería "persistence".
 import javax.persistence.*;
+// Importa de la biblioteca/librería el paquete "Cache".
+import org.hibernate.annotations.Cache;
+// Importa de la biblioteca/librería el paquete "CacheConcurrencyStrategy".
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 // Importa de todos los paquetes de la biblioteca/librería "LocalDate".
 import java.time.LocalDate;
 // Importa de todos los paquetes de la biblioteca/librería "ArrayList".
@@ -18,9 +22,13 @@ import java.util.List;
     /*
      * 1. Primero mapea a la tabla "autores" en la base de datos.
      * 2. Despues define una relación donde/en la que un autor puede escribir múltiples libros, es decir, relación uno a muchos, un autor-muchos libros: (1:N).
+     * 3. Se guarda en la caché de segundo nivel (región "com.dam.modelo.Autor", ver "ehcache.xml"): los autores casi nunca cambian una vez cargados, así que las lecturas por "ID" no necesitan ir a MySQL.
+     *      La estrategia "READ_WRITE" bloquea la entrada mientras se modifica, de modo que ninguna sesión lee un autor a medio actualizar.
      */
 @Entity
 @Table(name = "autores")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 
 // Crea la clase "Autor".
 public class Autor{
@@ -29,11 +37,13 @@ public class Autor{
             // (Sustituye al archivo "Autor.hbm.xml").
                 /*
                  * 1. Se genera el identificador, "ID", único (clave primaria) de "autor".
-                 * 2. Se genera automáticamente mediante estrategia "IDENTITY".
+                 * 2. Se genera automáticamente mediante estrategia "TABLE" (tabla "generadores_id", fila "autores") con el optimizador "pooled": cada acceso a la tabla reserva un bloque de 50 identificadores ("allocationSize").
+                 *      Con "IDENTITY" Hibernate necesitaba ejecutar cada "INSERT" por separado para conocer el "ID" generado, lo que desactivaba los lotes ("hibernate.jdbc.batch_size"). Al conocer el "ID" antes de insertar, los "INSERT" se agrupan en lotes.
                  * 3. Se 'ancla'/enlaza a la columna de nombre "id_autor".
                  */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "generador_autores")
+    @TableGenerator(name = "generador_autores", table = "generadores_id", pkColumnName = "entidad", valueColumnName = "siguiente_valor", pkColumnValue = "autores", allocationSize = 50)
     @Column(name = "id_autor")
     private Long id; /* Utilizo "Long" (clase envolvente) en vez de "long" (tipo primitivo) ya que Hibernate necesita saber si el objeto (autor) ya tiene un valor de (id) asignado o si debe generarlo automáticamente. Al usar tipos primitivos su valor por defecto será (0) confundiéndo a Hibernate y haciéndole pensar que ya tiene un valor (id) asignado. Por el contrario, al usar una clase envolvente, como es el caso, es valor inicial por defecto es (null), de esta forma Hibernate sabrá que si recibe o lee un valor nulo deberá generar uno nuevo antes/al guardar el objeto. */
     
@@ -89,6 +99,7 @@ public class Autor{
                cascade = CascadeType.ALL, 
                orphanRemoval = true, 
                fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private List<Libro> libros = new ArrayList<>();
     
     
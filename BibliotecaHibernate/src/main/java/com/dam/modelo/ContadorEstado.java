@@ -0,0 +1,86 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.modelo;
+
+
+// Importa todos los paquetes de la biblioteca/librería "persistence".
+import javax.persistence.*;
+// Importa de la biblioteca/librería el paquete "Immutable".
+import org.hibernate.annotations.Immutable;
+// Importa de la biblioteca/librería el paquete "Serializable".
+import java.io.Serializable;
+// Importa de la biblioteca/librería el paquete "Objects".
+import java.util.Objects;
+
+// Definimos una entidad de solo lectura con una parte del nº total de ejemplares en un estado.
+    /*
+     * 1. Mapea a la tabla "inventario_estados" (ver "db/migracion/V3__inventario_ejemplares.sql"): el total de un estado es la suma de sus filas ("ranuras").
+     * 2. Cada transacción suma su cambio en una ranura al azar ("CambiosInventario.RANURAS"): con una sola fila por estado, todos los préstamos y devoluciones esperarían por el bloqueo de las mismas dos filas.
+     * 3. Igual que "ContadorInventario", Hibernate nunca la escribe ("@Immutable") y no se guarda en la caché de segundo nivel.
+     */
+@Entity
+@Immutable
+@IdClass(ContadorEstado.Clave.class)
+@Table(name = "inventario_estados")
+
+// Crea la clase "ContadorEstado".
+public class ContadorEstado{
+    // ==================== ATRIBUTOS ====================
+    @Id
+    @Column(name = "estado", nullable = false, length = 20)
+    private String estado; /* La cadena vacía representa a los ejemplares sin estado. */
+
+    @Id
+    @Column(name = "ranura", nullable = false)
+    private Integer ranura;
+
+    @Column(name = "cantidad", nullable = false)
+    private long cantidad;
+
+
+    // ==================== CONSTRUCTORES ====================
+        // Constructor vacío, necesario para "JPA".
+    public ContadorEstado(){}
+
+
+    // ==================== GETTERS ====================
+    public String getEstado(){ return estado; }
+    public Integer getRanura(){ return ranura; }
+    public long getCantidad(){ return cantidad; }
+
+
+    // ==================== TOSTRING ====================
+    @Override
+    public String toString(){
+        return "\n\tContadorEstado{"
+             + "\n\t\tEstado: " + estado
+             + "\n\t\tRanura: " + ranura
+             + "\n\t\tCantidad: " + cantidad
+             + "\n\t" + '}';
+    }
+
+
+    // ==================== CLAVE ====================
+        // Clave primaria compuesta (estado, ranura), exigida por "@IdClass".
+    public static class Clave implements Serializable{
+        private static final long serialVersionUID = 1L;
+
+        private String estado;
+        private Integer ranura;
+
+        public Clave(){}
+
+        @Override
+        public boolean equals(Object otro){
+            if (this == otro) return true;
+            if (!(otro instanceof Clave)) return false;
+            Clave clave = (Clave) otro;
+            return Objects.equals(estado, clave.estado) && Objects.equals(ranura, clave.ranura);
+        }
+
+        @Override
+        public int hashCode(){ return Objects.hash(estado, ranura); }
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.modelo;
+
+
+// Importa todos los paquetes de la biblioteca/librería "persistence".
+import javax.persistence.*;
+// Importa de la biblioteca/librería el paquete "Immutable".
+import org.hibernate.annotations.Immutable;
+// Importa de la biblioteca/librería el paquete "Serializable".
+import java.io.Serializable;
+// Importa de la biblioteca/librería el paquete "Objects".
+import java.util.Objects;
+
+// Definimos una entidad de solo lectura con el nº de ejemplares de un libro en una ubicación y un estado (inventario resumido).
+    /*
+     * 1. Mapea a la tabla "inventario_ejemplares" (ver "db/migracion/V3__inventario_ejemplares.sql"): una fila por cada combinación (libro, ubicación, estado) con ejemplares.
+     * 2. Hibernate nunca la escribe ("@Immutable"): la mantiene "CambiosInventario" sumando cada cambio ("UPDATE ... SET cantidad = cantidad + ?") en la misma transacción que modifica los ejemplares,
+     *      y "ReconciliadorInventario" corrige las diferencias que pudieran quedar. Se mapea para que "hbm2ddl" cree y valide la tabla y para consultarla con HQL.
+     * 3. Los ejemplares sin libro, sin ubicación o sin estado se guardan con el libro 0 y la cadena vacía (la clave primaria no admite "NULL").
+     * 4. No se guarda en la caché de segundo nivel: cambia en cada préstamo.
+     */
+@Entity
+@Immutable
+@IdClass(ContadorInventario.Clave.class)
+@Table(name = "inventario_ejemplares", indexes = @Index(name = "idx_inventario_ubicacion_estado", columnList = "ubicacion, estado"))
+
+// Crea la clase "ContadorInventario".
+public class ContadorInventario{
+    // ==================== ATRIBUTOS ====================
+    @Id
+    @Column(name = "id_libro", nullable = false)
+    private Long idLibro;
+
+    @Id
+    @Column(name = "ubicacion", nullable = false, length = 100)
+    private String ubicacion;
+
+    @Id
+    @Column(name = "estado", nullable = false, length = 20)
+    private String estado; /* "String" y no "EstadoEjemplar": la cadena vacía representa a los ejemplares sin estado. */
+
+    @Column(name = "cantidad", nullable = false)
+    private long cantidad;
+
+
+    // ==================== CONSTRUCTORES ====================
+        // Constructor vacío, necesario para "JPA".
+    public ContadorInventario(){}
+
+
+    // ==================== GETTERS ====================
+    public Long getIdLibro(){ return idLibro; }
+    public String getUbicacion(){ return ubicacion; }
+    public String getEstado(){ return estado; }
+    public long getCantidad(){ return cantidad; }
+
+
+    // ==================== TOSTRING ====================
+    @Override
+    public String toString(){
+        return "\n\tContadorInventario{"
+             + "\n\t\tLibro: " + idLibro
+             + "\n\t\tUbicación: " + ubicacion
+             + "\n\t\tEstado: " + estado
+             + "\n\t\tCantidad: " + cantidad
+             + "\n\t" + '}';
+    }
+
+
+    // ==================== CLAVE ====================
+        // Clave primaria compuesta (libro, ubicación, estado), exigida por "@IdClass".
+    public static class Clave implements Serializable{
+        private static final long serialVersionUID = 1L;
+
+        private Long idLibro;
+        private String ubicacion;
+        private String estado;
+
+        public Clave(){}
+
+        @Override
+        public boolean equals(Object otro){
+            if (this == otro) return true;
+            if (!(otro instanceof Clave)) return false;
+            Clave clave = (Clave) otro;
+            return Objects.equals(idLibro, clave.idLibro) && Objects.equals(ubicacion, clave.ubicacion) && Objects.equals(estado, clave.estado);
+        }
+
+        @Override
+        public int hashCode(){ return Objects.hash(idLibro, ubicacion, estado); }
+    }
+}
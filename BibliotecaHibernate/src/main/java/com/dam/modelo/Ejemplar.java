@@ -7,14 +7,32 @@ package com.dam.modelo;
 
 // Importa todos los paquetes de la biblioteca/librería "persistence".
 import javax.persistence.*;
+// Importa de la biblioteca/librería el paquete "Cache".
+import org.hibernate.annotations.Cache;
+// Importa de la biblioteca/librería el paquete "CacheConcurrencyStrategy".
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 // Definimos una entidad que representará a un autor de libros en la biblioteca.
     /*
      * 1. Primero mapea a la tabla "ejemplares" en la base de datos.
      * 2. Despues define una relación donde/en la que un ejemplar pertenece a un único libro, es decir, relación muchos a uno, muchos ejemplares-un libro: (N:1).
+     * 3. Se guarda en la caché de segundo nivel (región "com.dam.modelo.Ejemplar", ver "ehcache.xml") con estrategia "READ_WRITE".
+     *      La caché de la colección "Libro.ejemplares" solo guarda los "ID" de los ejemplares; sin cachear también la entidad, leer la colección desde caché lanzaría una consulta por ejemplar.
+     * 4. Declara los índices de las consultas que se hacen sobre "ejemplares" (ver "db/migracion/V4__indices_ejemplares.sql"):
+     *      "  idx_ejemplares_libro_estado     " (id_libro, estado)     Ejemplares de un libro (colección "Libro.ejemplares") y el ejemplar disponible de un libro ("prestarCualquierEjemplar()"). También sirve a la clave ajena.
+     *      "  idx_ejemplares_estado           " (estado, id_ejemplar)  Listados por estado paginados por "ID" ("listarEjemplaresPorEstado()"): la página se lee en orden del índice, sin ordenar todos los ejemplares del estado.
+     *                                                                 (InnoDB ya añade la clave primaria a cada índice secundario; declararla hace que el orden no dependa del motor, p. ej. H2).
+     *      "  idx_ejemplares_estado_ubicacion " (estado, ubicacion)    Ejemplares de un estado en una ubicación.
+     *      "  idx_ejemplares_ubicacion        " (ubicacion)            Cambios de estado por ubicación ("cambiarEstadoPorUbicacion()").
      */
 @Entity
-@Table(name = "ejemplares")
+@Table(name = "ejemplares",
+       indexes = {@Index(name = "idx_ejemplares_libro_estado", columnList = "id_libro, estado"),
+                  @Index(name = "idx_ejemplares_estado", columnList = "estado, id_ejemplar"),
+                  @Index(name = "idx_ejemplares_estado_ubicacion", columnList = "estado, ubicacion"),
+                  @Index(name = "idx_ejemplares_ubicacion", columnList = "ubicacion")})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 
 // Crea la clase "Libro".
 public class Ejemplar{
@@ -23,11 +41,13 @@ public class Ejemplar{
             // (Sustituye al archivo "Ejemplar.hbm.xml").
                 /*
                  * 1. Se genera el identificador, "ID", único (clave primaria) de "ejemplar".
-                 * 2. Se genera automáticamente mediante estrategia "IDENTITY".
+                 * 2. Se genera automáticamente mediante estrategia "TABLE" (tabla "generadores_id", fila "ejemplares") con el optimizador "pooled": cada acceso a la tabla reserva un bloque de 50 identificadores ("allocationSize").
+                 *      Con "IDENTITY" Hibernate necesitaba ejecutar cada "INSERT" por separado para conocer el "ID" generado, lo que desactivaba los lotes ("hibernate.jdbc.batch_size"). Al conocer el "ID" antes de insertar, los "INSERT" se agrupan en lotes.
                  * 3. Se 'ancla'/enlaza a la columna de nombre "id_ejemplar".
                  */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "generador_ejemplares")
+    @TableGenerator(name = "generador_ejemplares", table = "generadores_id", pkColumnName = "entidad", valueColumnName = "siguiente_valor", pkColumnValue = "ejemplares", allocationSize = 50)
     @Column(name = "id_ejemplar")
     private Long id; /* Utilizo "Long" (clase envolvente) en vez de "long" (tipo primitivo) ya que Hibernate necesita saber si el objeto (ejemplar) ya tiene un valor de (id) asignado o si debe generarlo automáticamente. Al usar tipos primitivos su valor por defecto será (0) confundiéndo a Hibernate y haciéndole pensar que ya tiene un valor (id) asignado. Por el contrario, al usar una clase envolvente, como es el caso, es valor inicial por defecto es (null), de esta forma Hibernate sabrá que si recibe o lee un valor nulo deberá generar uno nuevo antes/al guardar el objeto. */
     
@@ -61,6 +81,16 @@ public class Ejemplar{
                  */
     @Column(name = "ubicacion", length = 100)
     private String ubicacion;
+
+                /*
+                 * 1. Atributo para la versión del ejemplar (bloqueo optimista).
+                 * 2. Hibernate la incrementa en cada "UPDATE" y la añade a su "WHERE" ("... WHERE id_ejemplar = ? AND version = ?"): si otra transacción ha modificado el ejemplar desde que se leyó, no se actualiza ninguna fila y se lanza "OptimisticLockException".
+                 *      Así dos mostradores que prestan el mismo ejemplar a la vez no pueden tener éxito los dos (ver "ServicioBiblioteca.prestarEjemplar()").
+                 * 3. Se 'ancla'/enlaza a la columna de nombre "version" (ver "db/migracion/V2__version_ejemplares.sql").
+                 */
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version; /* "Long" por el mismo motivo que el "ID": con "null" Hibernate sabe que el ejemplar es nuevo y empieza la versión en 0. */
     
     
     // ==================== RELACIONES ====================
@@ -69,8 +99,11 @@ public class Ejemplar{
          * 
          * Hacemos una relación (N:1) bidireccional con "Ejemplar".
          *   El atributo "  fetch = FetchType.LAZY       " hace/aplica una carga perezosa retrasando la carga de contenido hasta que sea necesario, consiguiendo optimizar el rendimiento de recursos y tiempo.
+         *
+         * Se 'ancla'/enlaza a la columna de nombre "id_libro" de la tabla "ejemplares" (antes Hibernate usaba su nombre por defecto, "libro_id_libro").
          */
     @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "id_libro")
     private Libro libro;
     
     
@@ -110,11 +143,15 @@ public class Ejemplar{
              * 9. Obtiene el libro (al que va a corresponder el ejemplar) de "Libro.java" del ejemplar.
              *   (Es fundamental saber que si se accede fuera de una sesión de Hibernate y la carga es "LAZY", puede lanzar "LazyInitializationException").
              * 10. "@return libro" Retorna: Libro correspondiende al/del ejemplar.
+             *
+             * 11. Obtiene la versión del ejemplar.
+             * 12. "@return version" Retorna: Versión del ejemplar (bloqueo optimista).
              */
     public Long getId(){ return id; }
     public String getCodigoEjemplar(){ return codigoEjemplar; }
     public EstadoEjemplar getEstado(){ return estado; }
     public String getUbicacion(){ return ubicacion; }
+    public Long getVersion(){ return version; }
     
     public Libro getLibro(){ return libro; }
     
@@ -137,11 +174,15 @@ public class Ejemplar{
              *
              * 9. Establece el libro (al que va a corresponder el ejemplar) de "Libro.java" del ejemplar.
              * 10. "@param libro" Retorna: Libro correspondiende al/del ejemplar.
+             *
+             * 11. Establece la versión del ejemplar. Solo para actualizar ejemplares no gestionados por una sesión ("StatelessSession.update()"), con la versión leída de la base de datos.
+             * 12. "@param version" Parámetro: Versión del ejemplar.
              */
     public void setId(Long id){ this.id = id; }
     public void setCodigoEjemplar(String codigoEjemplar){ this.codigoEjemplar = codigoEjemplar; }
     public void setEstado(EstadoEjemplar estado){ this.estado = estado; }
     public void setUbicacion(String ubicacion){ this.ubicacion = ubicacion; }
+    public void setVersion(Long version){ this.version = version; }
     
     public void setLibro(Libro libro){ this.libro = libro; }
     
@@ -7,6 +7,10 @@ package com.dam.modelo;
 
 // Importa todos los paquetes de la biblioteca/librería "persistence".
 import javax.persistence.*;
+// Importa de la biblioteca/librería el paquete "Cache".
+import org.hibernate.annotations.Cache;
+// Importa de la biblioteca/librería el paquete "CacheConcurrencyStrategy".
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 // Importa de todos los paquetes de la biblioteca/librería "LocalDate".
 import java.time.LocalDate;
 // Importa de todos los paquetes de la biblioteca/librería "ArrayList".
@@ -18,9 +22,12 @@ import java.util.List;
     /*
      * 1. Primero mapea a la tabla "libros" en la base de datos.
      * 2. Despues define una relación donde/en la que un libro puede corresponder a múltiples ejemplares, es decir, relación uno a muchos, un libro-muchos ejemplares: (1:N).
+     * 3. Se guarda en la caché de segundo nivel (región "com.dam.modelo.Libro", ver "ehcache.xml") con estrategia "READ_WRITE", igual que "Autor".
      */
 @Entity
 @Table(name = "libros")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 
 // Crea la clase "Libro".
 public class Libro{
@@ -29,11 +36,13 @@ public class Libro{
             // (Sustituye al archivo "Libro.hbm.xml").
                 /*
                  * 1. Se genera el identificador, "ID", único (clave primaria) de "libro".
-                 * 2. Se genera automáticamente mediante estrategia "IDENTITY".
+                 * 2. Se genera automáticamente mediante estrategia "TABLE" (tabla "generadores_id", fila "libros") con el optimizador "pooled": cada acceso a la tabla reserva un bloque de 50 identificadores ("allocationSize").
+                 *      Con "IDENTITY" Hibernate necesitaba ejecutar cada "INSERT" por separado para conocer el "ID" generado, lo que desactivaba los lotes ("hibernate.jdbc.batch_size"). Al conocer el "ID" antes de insertar, los "INSERT" se agrupan en lotes.
                  * 3. Se 'ancla'/enlaza a la columna de nombre "id_libro".
                  */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "generador_libros")
+    @TableGenerator(name = "generador_libros", table = "generadores_id", pkColumnName = "entidad", valueColumnName = "siguiente_valor", pkColumnValue = "libros", allocationSize = 50)
     @Column(name = "id_libro")
     private Long id; /* Utilizo "Long" (clase envolvente) en vez de "long" (tipo primitivo) ya que Hibernate necesita saber si el objeto (libro) ya tiene un valor de (id) asignado o si debe generarlo automáticamente. Al usar tipos primitivos su valor por defecto será (0) confundiéndo a Hibernate y haciéndole pensar que ya tiene un valor (id) asignado. Por el contrario, al usar una clase envolvente, como es el caso, es valor inicial por defecto es (null), de esta forma Hibernate sabrá que si recibe o lee un valor nulo deberá generar uno nuevo antes/al guardar el objeto. */
     
@@ -72,12 +81,14 @@ public class Libro{
         /*
          * Hacemos una relación para la lista de libros pertenecientes al/escritos por el mismo autor. Es decir, una relación entre la lista de libros, los libros, y el autor al que pertenecen/corresponden.
          * 
-         * Hacemos una relación (N:1) bidireccional con "Ejemplar".
+         * Hacemos una relación (N:1) bidireccional con "Autor" (muchos libros-un autor), lado propietario de "Autor.libros".
+         *   La anotación "  @ManyToOne                  " corresponde a una referencia a un único autor. (Antes estaba anotada como "@OneToMany", que solo es válido para colecciones).
          *   El atributo "  fetch = FetchType.LAZY       " hace/aplica una carga perezosa retrasando la carga de contenido hasta que sea necesario, consiguiendo optimizar el rendimiento de recursos y tiempo.
+         *      Cuando se necesita el autor junto al libro, se trae en la misma consulta con "JOIN FETCH" (ver "ServicioBiblioteca.obtenerDetalleLibro()").
          * 
          * Se 'ancla'/enlaza a la columna de nombre "id_autor" de la tabla "libros".
          */
-    @OneToMany(fetch = FetchType.LAZY)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "id_autor")
     private Autor autor;
     
@@ -101,6 +112,7 @@ public class Libro{
                cascade = CascadeType.ALL, 
                orphanRemoval = true, 
                fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private List<Ejemplar> ejemplares = new ArrayList<>();
     
     
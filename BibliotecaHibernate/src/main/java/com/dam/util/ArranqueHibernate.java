@@ -0,0 +1,255 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.util;
+
+
+// Importa de la biblioteca/librería el paquete "TiemposArranque".
+import com.dam.dto.TiemposArranque;
+// Importa de la biblioteca/librería el paquete "IOException".
+import java.io.IOException;
+// Importa de la biblioteca/librería el paquete "InputStream".
+import java.io.InputStream;
+// Importa de la biblioteca/librería el paquete "OutputStream".
+import java.io.OutputStream;
+// Importa de la biblioteca/librería el paquete "StandardCharsets".
+import java.nio.charset.StandardCharsets;
+// Importa de la biblioteca/librería el paquete "Files".
+import java.nio.file.Files;
+// Importa de la biblioteca/librería el paquete "Path".
+import java.nio.file.Path;
+// Importa de la biblioteca/librería el paquete "Paths".
+import java.nio.file.Paths;
+// Importa de la biblioteca/librería el paquete "MessageDigest".
+import java.security.MessageDigest;
+// Importa de la biblioteca/librería el paquete "NoSuchAlgorithmException".
+import java.security.NoSuchAlgorithmException;
+// Importa de la biblioteca/librería el paquete "Duration".
+import java.time.Duration;
+// Importa de la biblioteca/librería el paquete "Instant".
+import java.time.Instant;
+// Importa de la biblioteca/librería el paquete "ArrayList".
+import java.util.ArrayList;
+// Importa de la biblioteca/librería el paquete "HashMap".
+import java.util.HashMap;
+// Importa de la biblioteca/librería el paquete "Iterator".
+import java.util.Iterator;
+// Importa de la biblioteca/librería el paquete "List".
+import java.util.List;
+// Importa de la biblioteca/librería el paquete "Map".
+import java.util.Map;
+// Importa de la biblioteca/librería el paquete "Properties".
+import java.util.Properties;
+// Importa de la biblioteca/librería el paquete "Logger".
+import java.util.logging.Logger;
+// Importa de la biblioteca/librería el paquete "SessionFactory".
+import org.hibernate.SessionFactory;
+// Importa de la biblioteca/librería el paquete "Metadata".
+import org.hibernate.boot.Metadata;
+// Importa de la biblioteca/librería el paquete "MetadataSources".
+import org.hibernate.boot.MetadataSources;
+// Importa de la biblioteca/librería el paquete "StandardServiceRegistry".
+import org.hibernate.boot.registry.StandardServiceRegistry;
+// Importa de la biblioteca/librería el paquete "StandardServiceRegistryBuilder".
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+// Importa de la biblioteca/librería el paquete "AvailableSettings".
+import org.hibernate.cfg.AvailableSettings;
+// Importa de la biblioteca/librería el paquete "ConfigurationService".
+import org.hibernate.engine.config.spi.ConfigurationService;
+// Importa de la biblioteca/librería el paquete "Column".
+import org.hibernate.mapping.Column;
+// Importa de la biblioteca/librería el paquete "Table".
+import org.hibernate.mapping.Table;
+// Importa de la biblioteca/librería el paquete "SchemaValidator".
+import org.hibernate.tool.hbm2ddl.SchemaValidator;
+
+// Crea la clase "ArranqueHibernate".
+    /*
+     * Construye la "SessionFactory" por fases (servicios, metadatos, validación del esquema y fábrica), midiendo cada una, para "HibernateUtil".
+     *
+     * La validación del esquema ("hibernate.hbm2ddl.auto=validate") es la fase más lenta tras conectar: lee el catálogo de la base de datos tabla a tabla.
+     * Con "biblioteca.validacion_esquema" se decide cuándo hacerla:
+     *   "siempre" Se valida en cada arranque (el comportamiento de Hibernate).
+     *   "cache"   (por defecto) Se valida y se guarda la huella del mapeo (tablas, columnas y tipos de las entidades, más la URL y el usuario) en "biblioteca.validacion_esquema.fichero".
+     *             Los siguientes arranques con la misma huella no vuelven a validar hasta pasadas "biblioteca.validacion_esquema.horas" horas (24 por defecto).
+     *             Un cambio en las entidades cambia la huella y fuerza la validación; un cambio hecho solo en la base de datos se detecta al caducar.
+     *   "nunca"   No se valida (trabajos cortos contra un esquema que se sabe correcto).
+     *
+     * Las propiedades de sistema "hibernate.*" y "biblioteca.*" sustituyen a las de "hibernate.cfg.xml" (por ejemplo "-Dbiblioteca.validacion_esquema=nunca" en un trabajo por lotes,
+     * o "-Dhibernate.connection.url=..." para apuntar a otra base de datos, como la H2 en memoria de los benchmarks).
+     */
+final class ArranqueHibernate{
+    // ==================== ATRIBUTOS ====================
+    static final Logger REGISTRO = Logger.getLogger("com.dam.util.arranque");
+
+    static final String PROPIEDAD_VALIDACION = "biblioteca.validacion_esquema";
+    static final String PROPIEDAD_FICHERO = "biblioteca.validacion_esquema.fichero";
+    static final String PROPIEDAD_HORAS = "biblioteca.validacion_esquema.horas";
+
+    private static final String HUELLA = "huella";
+    private static final String VALIDADO = "validado";
+
+
+    // ==================== CONSTRUCTORES ====================
+    private ArranqueHibernate(){}
+
+
+    // ==================== ARRANQUE ====================
+
+        // "SessionFactory" recién construida y lo que ha tardado cada fase.
+    static final class Resultado{
+        final SessionFactory fabrica;
+        final TiemposArranque tiempos;
+
+        private Resultado(SessionFactory fabrica, TiemposArranque tiempos){
+            this.fabrica = fabrica;
+            this.tiempos = tiempos;
+        }
+    }
+
+    /*
+     * "@param modo" Parámetro: Modo de arranque, solo para informar de él en los tiempos.
+     * "@return" Retorna: La "SessionFactory" y los tiempos de cada fase.
+     */
+    static Resultado construir(String modo){
+        long inicio = System.nanoTime();
+
+            // 1. Servicios: "hibernate.cfg.xml" + propiedades de sistema; el pool de conexiones y el entorno JDBC se crean aquí.
+            //    Los ajustes se reúnen también aparte (los de "hibernate.cfg.xml" y, encima, los de sistema) para decidir sobre la validación antes de crear los servicios.
+        StandardServiceRegistryBuilder builder = new StandardServiceRegistryBuilder().configure();
+        Map<?, ?> delFichero = builder.getAggregatedCfgXml().getConfigurationValues();
+        Map<Object, Object> ajustes = new HashMap<>(delFichero);
+        for (String nombre : System.getProperties().stringPropertyNames()){
+            if (!nombre.startsWith("hibernate.") && !nombre.startsWith("biblioteca.")) continue;
+            builder.applySetting(nombre, System.getProperty(nombre));
+            ajustes.put(nombre, System.getProperty(nombre));
+        }
+        boolean validarEsquema = "validate".equals(ajuste(ajustes, AvailableSettings.HBM2DDL_AUTO, null));
+            // La validación la decide y la hace esta clase, no la "SessionFactory".
+        if (validarEsquema) builder.applySetting(AvailableSettings.HBM2DDL_AUTO, "none");
+        StandardServiceRegistry registro = builder.build();
+
+        try{
+            long finServicios = System.nanoTime();
+
+                // 2. Metadatos: las entidades de "<mapping class>" de "hibernate.cfg.xml".
+            Metadata metadata = new MetadataSources(registro).buildMetadata();
+            long finMetadatos = System.nanoTime();
+
+                // 3. Validación del esquema.
+            String validacion = validarEsquema ? validar(metadata, registro) : "no aplica";
+            long finValidacion = System.nanoTime();
+
+                // 4. Fábrica.
+            SessionFactory fabrica = metadata.buildSessionFactory();
+            long fin = System.nanoTime();
+
+            TiemposArranque tiempos = new TiemposArranque(modo, ms(inicio, finServicios), ms(finServicios, finMetadatos), ms(finMetadatos, finValidacion), validacion, ms(finValidacion, fin), ms(inicio, fin));
+            REGISTRO.info(String.format("SessionFactory creada en %.1f ms (%s): servicios %.1f ms, metadatos %.1f ms, validación %.1f ms (%s), fábrica %.1f ms",
+                    tiempos.getTotalMs(), modo, tiempos.getServiciosMs(), tiempos.getMetadatosMs(), tiempos.getValidacionMs(), validacion, tiempos.getFabricaMs()));
+            return new Resultado(fabrica, tiempos);
+        } catch (RuntimeException | Error ex){
+                // Cierra el pool de conexiones y el resto de servicios ya creados.
+            StandardServiceRegistryBuilder.destroy(registro);
+            throw ex;
+        }
+    }
+
+
+    // ==================== VALIDACIÓN DEL ESQUEMA ====================
+
+    /*
+     * Valida el esquema si lo pide "biblioteca.validacion_esquema" (ver la descripción de la clase). Si la validación falla se lanza la excepción de Hibernate y no se guarda la huella.
+     *
+     * "@return" Retorna: Resultado de la validación, para los tiempos de arranque.
+     */
+    private static String validar(Metadata metadata, StandardServiceRegistry registro){
+        Map<?, ?> ajustes = registro.getService(ConfigurationService.class).getSettings();
+        String modo = ajuste(ajustes, PROPIEDAD_VALIDACION, "cache");
+        if ("nunca".equals(modo)) return "desactivado";
+
+        if (!"cache".equals(modo)){
+            new SchemaValidator().validate(metadata, registro);
+            return "validado";
+        }
+
+        Path fichero = Paths.get(ajuste(ajustes, PROPIEDAD_FICHERO, Paths.get(System.getProperty("user.home"), ".biblioteca", "esquema-validado.properties").toString()));
+        Duration vigencia = Duration.ofHours(Long.parseLong(ajuste(ajustes, PROPIEDAD_HORAS, "24")));
+        String huella = huella(metadata, ajustes);
+
+        Properties guardado = leer(fichero);
+        String validado = guardado.getProperty(VALIDADO);
+        if (huella.equals(guardado.getProperty(HUELLA)) && validado != null && Instant.parse(validado).plus(vigencia).isAfter(Instant.now())) return "omitido (ya validado)";
+
+        new SchemaValidator().validate(metadata, registro);
+        guardar(fichero, huella);
+        return "validado";
+    }
+
+    /*
+     * Huella (SHA-256) de lo que comprueba la validación: cada tabla mapeada con sus columnas (nombre, tipo, longitud y nulabilidad), más la base de datos a la que se conecta.
+     */
+    private static String huella(Metadata metadata, Map<?, ?> ajustes){
+        List<String> lineas = new ArrayList<>();
+        lineas.add(ajuste(ajustes, AvailableSettings.URL, "") + "|" + ajuste(ajustes, AvailableSettings.USER, ""));
+        for (Table tabla : metadata.collectTableMappings()){
+            StringBuilder linea = new StringBuilder(tabla.getName());
+            for (Iterator<Column> columnas = tabla.getColumnIterator(); columnas.hasNext(); ){
+                Column columna = columnas.next();
+                linea.append('|').append(columna.getName())
+                     .append(':').append(columna.getValue() != null && columna.getValue().getType() != null ? columna.getValue().getType().getName() : "?")
+                     .append(':').append(columna.getLength())
+                     .append(':').append(columna.isNullable());
+            }
+            lineas.add(linea.toString());
+        }
+        lineas.sort(null);
+
+        try{
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            for (String linea : lineas) sha.update((linea + '\n').getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(64);
+            for (byte b : sha.digest()) hex.append(String.format("%02x", b));
+            return hex.toString();
+        } catch (NoSuchAlgorithmException nsae){
+            throw new IllegalStateException("SHA-256 no disponible", nsae);
+        }
+    }
+
+        // Un fichero que no existe o no se puede leer equivale a "nunca validado".
+    private static Properties leer(Path fichero){
+        Properties propiedades = new Properties();
+        if (!Files.isReadable(fichero)) return propiedades;
+        try (InputStream entrada = Files.newInputStream(fichero)){
+            propiedades.load(entrada);
+        } catch (IOException | IllegalArgumentException ex){
+            propiedades.clear();
+        }
+        return propiedades;
+    }
+
+        // Si no se puede guardar solo se pierde la caché (el siguiente arranque vuelve a validar).
+    private static void guardar(Path fichero, String huella){
+        Properties propiedades = new Properties();
+        propiedades.setProperty(HUELLA, huella);
+        propiedades.setProperty(VALIDADO, Instant.now().toString());
+        try{
+            if (fichero.getParent() != null) Files.createDirectories(fichero.getParent());
+            try (OutputStream salida = Files.newOutputStream(fichero)){
+                propiedades.store(salida, "Esquema validado por Hibernate (ver com.dam.util.ArranqueHibernate)");
+            }
+        } catch (IOException ioe){
+            REGISTRO.warning("No se pudo guardar la validación del esquema en '" + fichero + "': " + ioe.getMessage());
+        }
+    }
+
+
+    // ==================== MÉTODOS HELPER ====================
+    private static String ajuste(Map<?, ?> ajustes, String clave, String porDefecto){
+        Object valor = ajustes.get(clave);
+        return valor != null ? valor.toString().trim() : porDefecto;
+    }
+
+    private static double ms(long desde, long hasta){ return (hasta - desde) / 1_000_000.0; }
+}
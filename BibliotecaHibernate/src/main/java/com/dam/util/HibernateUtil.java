@@ -5,41 +5,483 @@
 package com.dam.util;
 
 
-// Importa de la biblioteca/librería el paquete "JOptionPane".
-import javax.swing.JOptionPane;
-import org.hibernate.HibernateException;
+// Importa de la biblioteca/librería el paquete "IndiceCatalogo".
+import com.dam.indice.IndiceCatalogo;
+// Importa de la biblioteca/librería el paquete "IndiceFacetasEjemplares".
+import com.dam.indice.IndiceFacetasEjemplares;
+// Importa de la biblioteca/librería el paquete "IndiceTextoCatalogo".
+import com.dam.indice.IndiceTextoCatalogo;
+// Importa de la biblioteca/librería el paquete "ReconciliadorInventario".
+import com.dam.inventario.ReconciliadorInventario;
+// Importa de la biblioteca/librería el paquete "MetricasCache".
+import com.dam.dto.MetricasCache;
+// Importa de la biblioteca/librería el paquete "MetricasOperacion".
+import com.dam.dto.MetricasOperacion;
+// Importa de la biblioteca/librería el paquete "MetricasPool".
+import com.dam.dto.MetricasPool;
+// Importa de la biblioteca/librería el paquete "MetricasRegionCache".
+import com.dam.dto.MetricasRegionCache;
+// Importa de la biblioteca/librería el paquete "MetricasReplica".
+import com.dam.dto.MetricasReplica;
+// Importa de la biblioteca/librería el paquete "TiemposArranque".
+import com.dam.dto.TiemposArranque;
+// Importa de la biblioteca/librería el paquete "MetricasOperaciones".
+import com.dam.metricas.MetricasOperaciones;
+// Importa de la biblioteca/librería el paquete "ManagementFactory".
+import java.lang.management.ManagementFactory;
+// Importa de la biblioteca/librería el paquete "ArrayList".
+import java.util.ArrayList;
+// Importa de la biblioteca/librería el paquete "List".
+import java.util.List;
+// Importa de la biblioteca/librería el paquete "Locale".
+import java.util.Locale;
+// Importa de la biblioteca/librería el paquete "Optional".
+import java.util.Optional;
+// Importa de la biblioteca/librería el paquete "CompletableFuture".
+import java.util.concurrent.CompletableFuture;
+// Importa de la biblioteca/librería el paquete "CompletionException".
+import java.util.concurrent.CompletionException;
+// Importa de la biblioteca/librería el paquete "Semaphore".
+import java.util.concurrent.Semaphore;
+// Importa de la biblioteca/librería el paquete "ThreadLocalRandom".
+import java.util.concurrent.ThreadLocalRandom;
+// Importa de la biblioteca/librería el paquete "Function".
+import java.util.function.Function;
+// Importa de la biblioteca/librería el paquete "Supplier".
+import java.util.function.Supplier;
+// Importa de la biblioteca/librería el paquete "CacheManager".
+import javax.cache.CacheManager;
+// Importa de la biblioteca/librería el paquete "JMException".
+import javax.management.JMException;
+// Importa de la biblioteca/librería el paquete "MBeanServer".
+import javax.management.MBeanServer;
+// Importa de la biblioteca/librería el paquete "ObjectName".
+import javax.management.ObjectName;
+// Importa de la biblioteca/librería el paquete "OptimisticLockException".
+import javax.persistence.OptimisticLockException;
+// Importa de la biblioteca/librería el paquete "FlushMode".
+import org.hibernate.FlushMode;
+// Importa de la biblioteca/librería el paquete "PessimisticLockException".
+import org.hibernate.PessimisticLockException;
+// Importa de la biblioteca/librería el paquete "Session".
+import org.hibernate.Session;
 // Importa de la biblioteca/librería el paquete "SessionFactory".
 import org.hibernate.SessionFactory;
-// Importa de la biblioteca/librería el paquete "Configuration".
-import org.hibernate.cfg.Configuration;
+// Importa de la biblioteca/librería el paquete "StaleStateException".
+import org.hibernate.StaleStateException;
+// Importa de la biblioteca/librería el paquete "StatelessSession".
+import org.hibernate.StatelessSession;
+// Importa de la biblioteca/librería el paquete "LockAcquisitionException".
+import org.hibernate.exception.LockAcquisitionException;
+// Importa de la biblioteca/librería el paquete "ConnectionProvider".
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+// Importa de la biblioteca/librería el paquete "SessionFactoryImplementor".
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+// Importa de la biblioteca/librería el paquete "RegionFactory".
+import org.hibernate.cache.spi.RegionFactory;
+// Importa de la biblioteca/librería el paquete "JCacheRegionFactory".
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
 
 public class HibernateUtil{
-    private static final SessionFactory sessionFactory;
+    /*
+     * La "SessionFactory" se crea según la propiedad de sistema "biblioteca.arranque":
+     *   "perezoso"      (por defecto) La primera vez que se pide ("getSessionFactory()"); cargar la clase no conecta con la base de datos.
+     *   "segundo_plano" En un hilo propio en cuanto se carga la clase, mientras la aplicación sigue arrancando; quien la pida antes de tiempo espera a que termine.
+     *                   También puede lanzarse en cualquier momento con "iniciarEnSegundoPlano()".
+     *   "inmediato"     Al cargar la clase, en el mismo hilo (el comportamiento anterior).
+     * 
+     * Sea cual sea el modo, se construye una única vez; "ArranqueHibernate" la construye por fases, decide si validar el esquema y mide cada fase ("obtenerTiemposArranque()").
+     */
+    public static final String PROPIEDAD_ARRANQUE = "biblioteca.arranque";
+        /*
+         * Los índices en memoria del catálogo se cargan según "biblioteca.indices.carga" ("hibernate.cfg.xml" o propiedad de sistema):
+         *   "segundo_plano" (por defecto) Al crear la "SessionFactory", en un hilo propio (ver "cargarIndiceCatalogo()").
+         *   "perezosa"      En segundo plano, la primera vez que una búsqueda los necesita ("cargarIndicesSiHacenFalta()"); hasta entonces no leen las tablas ni ocupan memoria.
+         *   "nunca"         No se cargan: las búsquedas usan siempre las consultas a la base de datos (trabajos por lotes, herramientas que solo escriben).
+         */
+    public static final String PROPIEDAD_CARGA_INDICES = "biblioteca.indices.carga";
+    
+    private static final Object CERROJO = new Object();
+    private static volatile SessionFactory sessionFactory;
+    private static volatile TiemposArranque tiemposArranque;
+        // Creación en curso o terminada ("null" hasta que se pide). Protegido por "CERROJO".
+    private static CompletableFuture<SessionFactory> arranque;
+        // Valor de "PROPIEDAD_CARGA_INDICES" ("null" hasta crear la "SessionFactory") y si ya se ha lanzado la carga (una sola vez; protegido por "CERROJO").
+    private static volatile String cargaIndices;
+    private static boolean indicesLanzados;
+        /*
+         * Escrituras en curso (ver "conPermisoEscritura()"): una conexión del pool menos que su tamaño máximo. "null" sin "ProveedorConexionesPool" (sin límite).
+         * Una escritura que inserta puede necesitar una segunda conexión mientras tiene la suya: "@TableGenerator" reserva cada bloque de identificadores en una transacción aparte.
+         * Si todas las conexiones las tuvieran escrituras esperando esa segunda, ninguna avanzaría (y todas acabarían en "connectionTimeout"); con una libre siempre hay una que termina.
+         */
+    private static volatile Semaphore permisosEscritura;
+    private static final ThreadLocal<Boolean> CON_PERMISO = new ThreadLocal<>();
     
     static{
-        try{
-            sessionFactory = new Configuration().configure().buildSessionFactory();
-            /*
-            Configuration configuration = new Configuration();
-            configuration = configuration.configure();
-            
-            StandardServiceRegistryBuilder builder = new StandardServiceRegistryBuilder();
-            builder = builder.applySettings(configuration.getProperties());
-            
-            SessionFactory sessionFactory = configuration.buildSessionFactory(builder.build());
-            */
-        } catch(HibernateException tw){
-            JOptionPane.showMessageDialog(null, "Error de sesiones", "'Session Factory' creation failed / La fabricación de sesiones ha fallado: " + tw.getMessage(), JOptionPane.ERROR_MESSAGE);
-            throw new ExceptionInInitializerError(tw);
-        } catch(Throwable tw){
-            JOptionPane.showMessageDialog(null, "Error de sesiones", "'Session Factory' creation failed / La fabricación de sesiones ha fallado: " + tw.getMessage(), JOptionPane.ERROR_MESSAGE);
-            throw new ExceptionInInitializerError(tw);
+        switch (System.getProperty(PROPIEDAD_ARRANQUE, "perezoso")){
+            case "inmediato": getSessionFactory(); break;
+            case "segundo_plano": iniciarEnSegundoPlano(); break;
+            default: break;
         }
     }
     
+  // Crea el método "iniciarEnSegundoPlano".
+    /*
+     * Empieza a crear la "SessionFactory" en un hilo en segundo plano (si no se ha empezado ya), para que esté lista cuando se necesite.
+     * 
+     * "@return" Retorna: La "SessionFactory" futura (la misma para todas las llamadas).
+     */
+  public static CompletableFuture<SessionFactory> iniciarEnSegundoPlano(){ return iniciar(true); }
+  
+  private static CompletableFuture<SessionFactory> iniciar(boolean segundoPlano){
+      CompletableFuture<SessionFactory> nuevo;
+      synchronized (CERROJO){
+          if (arranque != null) return arranque;
+          arranque = nuevo = new CompletableFuture<>();
+      }
+      String modo = segundoPlano ? "segundo_plano" : System.getProperty(PROPIEDAD_ARRANQUE, "perezoso");
+      if (segundoPlano){
+          Thread hilo = new Thread(() -> construir(nuevo, modo), "arranque-hibernate");
+          hilo.setDaemon(true);
+          hilo.start();
+      } else{
+          construir(nuevo, modo);
+      }
+      return nuevo;
+  }
+  
+  private static void construir(CompletableFuture<SessionFactory> destino, String modo){
+      try{
+          ArranqueHibernate.Resultado resultado = ArranqueHibernate.construir(modo);
+          tiemposArranque = resultado.tiempos;
+          sessionFactory = resultado.fabrica;
+          permisosEscritura = obtenerProveedorPool().map(pool -> new Semaphore(Math.max(1, pool.getTamanoMaximo() - 1), true)).orElse(null);
+          cargaIndices = modoCargaIndices(resultado.fabrica);
+          if (cargaIndices.equals("segundo_plano")) cargarIndiceCatalogo();
+          ReconciliadorInventario.getInstancia().programarSegunConfiguracion(resultado.fabrica);
+          destino.complete(resultado.fabrica);
+      } catch(Throwable tw){
+          InformadorErrores.get().informar("Error de sesiones", "'Session Factory' creation failed / La fabricación de sesiones ha fallado", tw);
+          destino.completeExceptionally(tw);
+      }
+  }
+  
+  // Crea el método "cargarIndiceCatalogo".
+    /*
+     * Carga el índice de ISBN y códigos de ejemplar ("IndiceCatalogo"), después el de búsqueda por texto ("IndiceTextoCatalogo") y el de facetas de los ejemplares ("IndiceFacetasEjemplares") en un hilo en segundo plano, para no retrasar el arranque.
+     * Mientras se carga, las búsquedas que no encuentran la clave consultan la base de datos; si la carga falla el índice se sigue llenando con esas consultas.
+     * Hasta que el índice de texto termina de cargarse, las búsquedas por texto usan la consulta "LIKE" (ver "ServicioBiblioteca.buscarIdsLibrosPorTexto()"), y los filtros de ejemplares, las consultas "HQL" (ver "ServicioBiblioteca.buscarEjemplaresPorFacetas()").
+     * Solo se lanza una vez, aunque se pida de nuevo.
+     */
+  private static void cargarIndiceCatalogo(){
+      synchronized (CERROJO){
+          if (indicesLanzados) return;
+          indicesLanzados = true;
+      }
+      Thread hilo = new Thread(() -> {
+          try{
+              IndiceCatalogo.getInstancia().cargar(sessionFactory);
+              IndiceTextoCatalogo.getInstancia().cargar(sessionFactory);
+              IndiceFacetasEjemplares.getInstancia().cargar(sessionFactory);
+          } catch (RuntimeException rex){
+              // Si la aplicación ha terminado (y cerrado la "SessionFactory") antes de acabar la carga, no es un error.
+              if (!sessionFactory.isClosed()) InformadorErrores.get().informar("Índice del catálogo", "No se pudo cargar el índice del catálogo (se consultará la base de datos)", rex);
+          }
+      }, "carga-indice-catalogo");
+      hilo.setDaemon(true);
+      hilo.start();
+  }
+  
+  // Crea el método "cargarIndicesSiHacenFalta".
+    /*
+     * Con "biblioteca.indices.carga=perezosa", lanza la carga de los índices del catálogo si aún no se ha lanzado (la llaman las búsquedas que los usan). Con los demás modos no hace nada.
+     */
+  public static void cargarIndicesSiHacenFalta(){
+      if ("perezosa".equals(cargaIndices)) cargarIndiceCatalogo();
+  }
+  
+  private static String modoCargaIndices(SessionFactory fabrica){
+      Object valor = fabrica.getProperties().get(PROPIEDAD_CARGA_INDICES);
+      String modo = valor != null ? valor.toString().trim().toLowerCase(Locale.ROOT) : "segundo_plano";
+      switch (modo){
+          case "segundo_plano": case "perezosa": case "nunca": return modo;
+          default: throw new IllegalArgumentException("Valor no válido para \"" + PROPIEDAD_CARGA_INDICES + "\" (\"segundo_plano\", \"perezosa\" o \"nunca\"): " + valor);
+      }
+  }
+  
   // Crea el método "get".
-  public static SessionFactory getSessionFactory(){ return sessionFactory; }
+    /*
+     * "@return" Retorna: La "SessionFactory", creándola si aún no existe (o esperando a que termine de crearse en segundo plano).
+     * Si su creación ha fallado lanza "IllegalStateException" con la causa (en esta y en las siguientes llamadas).
+     */
+  public static SessionFactory getSessionFactory(){
+      SessionFactory fabrica = sessionFactory;
+      if (fabrica != null) return fabrica;
+      try{
+          return iniciar(false).join();
+      } catch (CompletionException ce){
+          throw new IllegalStateException("'Session Factory' creation failed / La fabricación de sesiones ha fallado", ce.getCause());
+      }
+  }
+  
+  // Crea el método "obtenerTiemposArranque".
+    /*
+     * "@return" Retorna: Lo que ha tardado cada fase de la creación de la "SessionFactory", o vacío si aún no se ha creado.
+     */
+  public static Optional<TiemposArranque> obtenerTiemposArranque(){ return Optional.ofNullable(tiemposArranque); }
   
   // Crea el método "shutdown".
-  public static void shutdown(){ getSessionFactory().close(); }
+    /*
+     * Cierra la "SessionFactory" (esperando a que termine de crearse si está en curso) y cancela la reconciliación periódica del inventario. Si nunca se ha pedido no hace nada.
+     */
+  public static void shutdown(){
+      CompletableFuture<SessionFactory> actual;
+      synchronized (CERROJO){ actual = arranque; }
+      if (actual == null) return;
+      ReconciliadorInventario.getInstancia().detener();
+      try{
+          actual.join().close();
+      } catch (CompletionException ce){
+          // La creación falló: no hay nada que cerrar.
+      }
+  }
+  
+  // Crea el método "enTransaccion".
+    /*
+     * Ejecuta una operación de escritura con su propia sesión y transacción (sesión por operación).
+     *   1. Abre una sesión nueva e inicia la transacción.
+     *   2. Ejecuta la operación y confirma ("commit") la transacción.
+     *   3. Si la operación falla revierte ("rollback") la transacción y relanza la excepción al llamante.
+     *   4. Cierra siempre la sesión.
+     * 
+     * Como ni la sesión ni la transacción se comparten, puede llamarse desde cualquier número de hilos a la vez.
+     * 
+     * "@param operacion" Parámetro: Operación a ejecutar con la sesión abierta.
+     * "@return" Retorna: Resultado de la operación.
+     */
+  public static <T> T enTransaccion(Function<Session, T> operacion){
+      return conPermisoEscritura(() -> {
+          Session session = getSessionFactory().openSession();
+          try{
+              session.beginTransaction();
+              T resultado = operacion.apply(session);
+              session.getTransaction().commit();
+              return resultado;
+          } catch (RuntimeException rex){
+              if (session.getTransaction().isActive()) session.getTransaction().rollback();
+              throw rex;
+          } finally{
+              session.close();
+          }
+      });
+  }
+  
+  // Crea el método "conPermisoEscritura".
+    /*
+     * Ejecuta una escritura (de "enTransaccion()" o de una transacción propia, como las de "ImportadorCatalogo") cuando hay menos escrituras en curso que conexiones en el pool,
+     * para que siempre quede una conexión para reservar identificadores (ver "permisosEscritura"). Las lecturas no esperan.
+     * Dentro de una escritura, otra del mismo hilo no vuelve a esperar.
+     * 
+     * "@param escritura" Parámetro: Escritura completa (abrir la sesión, la transacción y cerrarlas).
+     * "@return" Retorna: Resultado de la escritura.
+     */
+  public static <T> T conPermisoEscritura(Supplier<T> escritura){
+      getSessionFactory();
+      Semaphore permisos = permisosEscritura;
+      if (permisos == null || CON_PERMISO.get() != null) return escritura.get();
+      
+      try{
+          permisos.acquire();
+      } catch (InterruptedException ie){
+          Thread.currentThread().interrupt();
+          throw new IllegalStateException("Interrumpido mientras se esperaba para escribir", ie);
+      }
+      CON_PERMISO.set(Boolean.TRUE);
+      try{
+          return escritura.get();
+      } finally{
+          CON_PERMISO.remove();
+          permisos.release();
+      }
+  }
+  
+  // Crea el método "enTransaccionConReintentos".
+    /*
+     * Igual que "enTransaccion()", pero si la transacción falla por un conflicto de bloqueo ("@Version" o filas bloqueadas, ver "esConflicto()") la repite entera, con una sesión nueva, hasta "maxIntentos" veces.
+     * Entre intentos espera un tiempo aleatorio que crece con cada intento, para que los hilos en conflicto no vuelvan a chocar a la vez.
+     * 
+     * "@param maxIntentos" Parámetro: Nº máximo de ejecuciones (1 = sin reintentos).
+     * "@param operacion"   Parámetro: Operación a ejecutar; debe poder repetirse (volver a leer lo que necesite en cada intento).
+     * "@return" Retorna: Resultado de la operación.
+     */
+  public static <T> T enTransaccionConReintentos(int maxIntentos, Function<Session, T> operacion){
+      for (int intento = 1; ; intento++){
+          try{
+              return enTransaccion(operacion);
+          } catch (RuntimeException rex){
+              if (!esConflicto(rex) || intento >= maxIntentos) throw rex;
+              esperarAntesDeReintentar(intento);
+          }
+      }
+  }
+  
+  // Crea el método "esConflicto".
+    /*
+     * "@return" Retorna: "true" si la excepción (o alguna de sus causas) se debe a un conflicto de bloqueo optimista, o a un bloqueo de filas ("SELECT ... FOR UPDATE") que no se ha podido obtener (espera agotada o interbloqueo).
+     */
+  public static boolean esConflicto(Throwable error){
+      for (Throwable causa = error; causa != null; causa = causa.getCause()){
+          if (causa instanceof OptimisticLockException || causa instanceof StaleStateException) return true;
+          if (causa instanceof PessimisticLockException || causa instanceof LockAcquisitionException) return true;
+      }
+      return false;
+  }
+  
+  private static void esperarAntesDeReintentar(int intento){
+      try{
+          Thread.sleep(ThreadLocalRandom.current().nextLong(1L << Math.min(intento, 6)) + 1);
+      } catch (InterruptedException ie){
+          Thread.currentThread().interrupt();
+          throw new IllegalStateException("Interrumpido mientras se esperaba para reintentar la transacción", ie);
+      }
+  }
+  
+  // Crea el método "enSesion".
+    /*
+     * Ejecuta una operación de solo lectura con su propia sesión (sin transacción explícita) y la cierra al terminar.
+     * 
+     * "@param operacion" Parámetro: Operación a ejecutar con la sesión abierta.
+     * "@return" Retorna: Resultado de la operación.
+     */
+  public static <T> T enSesion(Function<Session, T> operacion){
+      Session session = getSessionFactory().openSession();
+      try{
+          return operacion.apply(session);
+      } finally{
+          session.close();
+      }
+  }
+  
+  // Crea el método "enLectura".
+    /*
+     * Igual que "enSesion()", pero con una sesión de solo lectura ("abrirSesionLectura()"): si hay réplicas de lectura configuradas, la consulta no carga la primaria.
+     * Solo para operaciones que no escriben y que pueden leer datos con el retraso de la réplica (no para leer lo que se acaba de escribir).
+     * 
+     * "@param operacion" Parámetro: Operación a ejecutar con la sesión abierta.
+     * "@return" Retorna: Resultado de la operación.
+     */
+  public static <T> T enLectura(Function<Session, T> operacion){
+      Session session = abrirSesionLectura();
+      try{
+          return operacion.apply(session);
+      } finally{
+          session.close();
+      }
+  }
+  
+  // Crea el método "abrirSesionLectura".
+    /*
+     * Abre una sesión de solo lectura (quien la abre debe cerrarla).
+     *   1. Su conexión sale de una réplica de lectura si hay alguna disponible, o de la primaria si no ("ReplicasLectura").
+     *   2. Las entidades se cargan como de solo lectura (sin copia de su estado para detectar cambios al hacer "flush").
+     *   3. No se hace "flush" antes de cada consulta ("FlushMode.MANUAL"): la sesión no tiene nada que escribir.
+     * 
+     * "@return" Retorna: La sesión abierta.
+     */
+  public static Session abrirSesionLectura(){
+      Session session = getSessionFactory().openSession();
+      session.setDefaultReadOnly(true);
+      session.setHibernateFlushMode(FlushMode.MANUAL);
+      ReplicasLectura.marcar(session);
+      return session;
+  }
+  
+  // Crea el método "abrirSesionSinEstadoLectura".
+    /*
+     * "@return" Retorna: Una "StatelessSession" cuya conexión sale de una réplica de lectura si hay alguna disponible (para recorridos y exportaciones); quien la abre debe cerrarla.
+     */
+  public static StatelessSession abrirSesionSinEstadoLectura(){
+      StatelessSession session = getSessionFactory().openStatelessSession();
+      ReplicasLectura.marcar(session);
+      return session;
+  }
+  
+  // Crea el método "obtenerProveedorPool".
+    /*
+     * "@return" Retorna: El proveedor de conexiones con pool ("ProveedorConexionesPool"), o vacío si la configuración usa otro proveedor.
+     */
+  public static Optional<ProveedorConexionesPool> obtenerProveedorPool(){
+      ConnectionProvider proveedor = getSessionFactory().unwrap(SessionFactoryImplementor.class).getServiceRegistry().getService(ConnectionProvider.class);
+      if (proveedor == null || !proveedor.isUnwrappableAs(ProveedorConexionesPool.class)) return Optional.empty();
+      return Optional.of(proveedor.unwrap(ProveedorConexionesPool.class));
+  }
+  
+  // Crea el método "obtenerMetricasPool".
+    /*
+     * "@return" Retorna: Métricas actuales del pool de conexiones (activas, inactivas, pendientes y tiempos de espera), o vacío si no se usa "ProveedorConexionesPool".
+     */
+  public static Optional<MetricasPool> obtenerMetricasPool(){
+      return obtenerProveedorPool().map(ProveedorConexionesPool::obtenerMetricas);
+  }
+  
+  // Crea el método "obtenerMetricasReplicas".
+    /*
+     * "@return" Retorna: Estado y lecturas servidas por cada réplica de lectura (vacío si no hay réplicas configuradas).
+     */
+  public static List<MetricasReplica> obtenerMetricasReplicas(){
+      return obtenerProveedorPool().flatMap(ProveedorConexionesPool::getReplicas).map(ReplicasLectura::obtenerMetricas).orElse(List.of());
+  }
+  
+  // Crea el método "invalidarCache".
+    /*
+     * Vacía todas las regiones de la caché de segundo nivel (entidades, colecciones y consultas).
+     * Debe llamarse tras escribir por caminos que Hibernate no ve: "StatelessSession" (importaciones), SQL nativo o herramientas externas.
+     */
+  public static void invalidarCache(){ getSessionFactory().getCache().evictAllRegions(); }
+  
+  // Crea el método "obtenerMetricasCache".
+    /*
+     * Lee las estadísticas estándar de JCache ("javax.cache:type=CacheStatistics", activadas en "ehcache.xml") de cada región de la caché de segundo nivel.
+     * 
+     * "@return" Retorna: Aciertos, fallos, escrituras y expulsiones por región, o vacío si la caché de segundo nivel no usa JCache.
+     */
+  public static Optional<MetricasCache> obtenerMetricasCache(){
+      RegionFactory regionFactory = getSessionFactory().unwrap(SessionFactoryImplementor.class).getCache().getRegionFactory();
+      if (!(regionFactory instanceof JCacheRegionFactory)) return Optional.empty();
+      
+      CacheManager cacheManager = ((JCacheRegionFactory) regionFactory).getCacheManager();
+      MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+      List<MetricasRegionCache> regiones = new ArrayList<>();
+      try{
+          for (String region : cacheManager.getCacheNames()){
+              // Los nombres de las regiones solo contienen letras, guiones y puntos, así que aparecen tal cual en el nombre del MBean.
+              for (ObjectName nombre : servidor.queryNames(new ObjectName("javax.cache:type=CacheStatistics,Cache=" + region + ",*"), null)){
+                  regiones.add(leerRegion(servidor, nombre, region));
+              }
+          }
+      } catch (JMException jme){
+          throw new IllegalStateException("No se pudieron leer las estadísticas de la caché", jme);
+      }
+      return Optional.of(new MetricasCache(regiones));
+  }
+  
+  private static MetricasRegionCache leerRegion(MBeanServer servidor, ObjectName nombre, String region) throws JMException{
+      return new MetricasRegionCache(region,
+                                     (Long) servidor.getAttribute(nombre, "CacheHits"),
+                                     (Long) servidor.getAttribute(nombre, "CacheMisses"),
+                                     (Long) servidor.getAttribute(nombre, "CachePuts"),
+                                     (Long) servidor.getAttribute(nombre, "CacheEvictions"));
+  }
+  
+  // Crea el método "obtenerMetricasOperaciones".
+    /*
+     * "@return" Retorna: Latencias (media, percentiles y máxima), sentencias SQL, entidades cargadas y espera de conexión de cada operación medida de "GestionBiblioteca".
+     */
+  public static List<MetricasOperacion> obtenerMetricasOperaciones(){ return MetricasOperaciones.getInstancia().obtenerMetricas(); }
+  
+  // Crea el método "exportarMetricas".
+    /*
+     * "@return" Retorna: Las métricas de las operaciones y las estadísticas globales de Hibernate en formato de texto de Prometheus (para "ServidorMetricas" o para volcarlas a un fichero).
+     */
+  public static String exportarMetricas(){ return MetricasOperaciones.getInstancia().exportarTexto(getSessionFactory().getStatistics()); }
 }
\ No newline at end of file
@@ -0,0 +1,67 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.util;
+
+
+// Crea la interfaz "InformadorErrores".
+    /*
+     * Destino de los errores que la aplicación no puede resolver por sí misma (fallo al crear la "SessionFactory", transacciones revertidas en "GestionBiblioteca"...).
+     *
+     * Implementaciones:
+     *   1. "InformadorErroresRegistro" (por defecto): escribe cada error como una línea estructurada ("clave=valor") desde un hilo propio; quien informa nunca se bloquea.
+     *   2. "InformadorErroresSwing" (escritorio): además muestra un diálogo. Solo se carga si se elige, así que en un servidor sin pantalla ("headless") no se carga ninguna clase de AWT/Swing.
+     *
+     * Se elige con la propiedad de sistema "biblioteca.errores" ("registro", "swing" o el nombre completo de una clase con constructor sin parámetros) o con "establecer()".
+     */
+public interface InformadorErrores{
+        // Propiedad de sistema con la implementación a usar.
+    String PROPIEDAD = "biblioteca.errores";
+
+    /*
+     * Informa de un error. No debe bloquear ni lanzar excepciones: se llama desde los bloques "catch".
+     *
+     * "@param titulo"  Parámetro: Tipo de error (por ejemplo "Error de búsqueda").
+     * "@param mensaje" Parámetro: Descripción para quien lo lee, con los datos de la operación.
+     * "@param error"   Parámetro: Excepción que lo ha causado, o "null".
+     */
+    void informar(String titulo, String mensaje, Throwable error);
+
+    /*
+     * "@return" Retorna: El informador de errores de la aplicación (el de "biblioteca.errores" o, si no se indica, "InformadorErroresRegistro").
+     */
+    static InformadorErrores get(){ return Actual.informador; }
+
+    /*
+     * Sustituye el informador de errores de la aplicación (por ejemplo, por uno que envíe los errores a un servicio de monitorización).
+     */
+    static void establecer(InformadorErrores informador){
+        if (informador == null) throw new IllegalArgumentException("El informador de errores no puede ser nulo");
+        Actual.informador = informador;
+    }
+
+
+        // Se inicializa la primera vez que se usa (no al cargar la interfaz).
+    final class Actual{
+        private static volatile InformadorErrores informador = crear(System.getProperty(PROPIEDAD, "registro"));
+
+        private Actual(){}
+
+        private static InformadorErrores crear(String tipo){
+            switch (tipo){
+                case "registro": return new InformadorErroresRegistro();
+                case "swing": tipo = "com.dam.util.InformadorErroresSwing"; break;
+                default: break;
+            }
+            try{
+                    // Por reflexión: si no se elige Swing, su clase (y con ella AWT) no llega a cargarse.
+                return (InformadorErrores) Class.forName(tipo).getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | ClassCastException | LinkageError ex){
+                InformadorErrores registro = new InformadorErroresRegistro();
+                registro.informar("Configuración", "No se pudo crear el informador de errores '" + tipo + "' (" + PROPIEDAD + "); se usa el registro", ex);
+                return registro;
+            }
+        }
+    }
+}
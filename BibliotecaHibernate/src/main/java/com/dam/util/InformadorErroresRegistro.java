@@ -0,0 +1,106 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.util;
+
+
+// Importa de la biblioteca/librería el paquete "PrintStream".
+import java.io.PrintStream;
+// Importa de la biblioteca/librería el paquete "PrintWriter".
+import java.io.PrintWriter;
+// Importa de la biblioteca/librería el paquete "StringWriter".
+import java.io.StringWriter;
+// Importa de la biblioteca/librería el paquete "Instant".
+import java.time.Instant;
+// Importa de la biblioteca/librería el paquete "BlockingQueue".
+import java.util.concurrent.BlockingQueue;
+// Importa de la biblioteca/librería el paquete "LinkedBlockingQueue".
+import java.util.concurrent.LinkedBlockingQueue;
+// Importa de la biblioteca/librería el paquete "AtomicLong".
+import java.util.concurrent.atomic.AtomicLong;
+
+// Crea la clase "InformadorErroresRegistro".
+    /*
+     * Informador de errores para servidor: cada error se escribe como una línea "clave=valor" (fácil de filtrar y de enviar a un agregador de registros) seguida de la traza de la excepción.
+     *
+     *   1. "informar()" solo compone la línea y la deja en una cola acotada ("CAPACIDAD"); un hilo "daemon" la escribe en la salida. Quien informa nunca espera a la consola o al disco.
+     *   2. Si la cola está llena (una avalancha de errores) los nuevos se descartan y se cuentan; el recuento se escribe con el siguiente error que entre.
+     *   3. Al terminar la JVM se escriben los errores pendientes.
+     *
+     * Ejemplo: momento=2024-05-01T10:00:00Z nivel=ERROR hilo="main" titulo="Error de búsqueda" mensaje="..." excepcion="org.hibernate.HibernateException" causa="..."
+     */
+public class InformadorErroresRegistro implements InformadorErrores{
+    // ==================== ATRIBUTOS ====================
+    public static final int CAPACIDAD = 1024;
+
+    private final BlockingQueue<String> pendientes = new LinkedBlockingQueue<>(CAPACIDAD);
+    private final AtomicLong descartados = new AtomicLong();
+    private final PrintStream salida;
+
+
+    // ==================== CONSTRUCTORES ====================
+    public InformadorErroresRegistro(){ this(System.err); }
+
+            /*
+             * "@param salida" Parámetro: Flujo en el que se escriben los errores.
+             */
+    public InformadorErroresRegistro(PrintStream salida){
+        this.salida = salida;
+        Thread escritor = new Thread(this::escribir, "informador-errores");
+        escritor.setDaemon(true);
+        escritor.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::vaciar, "informador-errores-cierre"));
+    }
+
+
+    // ==================== MÉTODOS ====================
+    @Override
+    public void informar(String titulo, String mensaje, Throwable error){
+        StringBuilder linea = new StringBuilder(256);
+        long perdidos = descartados.getAndSet(0);
+        if (perdidos > 0) linea.append("momento=").append(Instant.now()).append(" nivel=WARN titulo=\"Errores descartados\" descartados=").append(perdidos).append('\n');
+
+        linea.append("momento=").append(Instant.now())
+             .append(" nivel=ERROR")
+             .append(" hilo=").append(entrecomillar(Thread.currentThread().getName()))
+             .append(" titulo=").append(entrecomillar(titulo))
+             .append(" mensaje=").append(entrecomillar(mensaje));
+        if (error != null){
+            linea.append(" excepcion=").append(entrecomillar(error.getClass().getName()));
+            Throwable causa = error;
+            while (causa.getCause() != null && causa.getCause() != causa) causa = causa.getCause();
+            if (causa != error) linea.append(" causa=").append(entrecomillar(causa.getClass().getName() + ": " + causa.getMessage()));
+            StringWriter traza = new StringWriter();
+            error.printStackTrace(new PrintWriter(traza));
+            linea.append('\n').append(traza.toString().stripTrailing());
+        }
+
+        if (!pendientes.offer(linea.toString())){
+            descartados.incrementAndGet();
+            if (perdidos > 0) descartados.addAndGet(perdidos);
+        }
+    }
+
+        // Hilo escritor: saca las líneas de la cola y las escribe.
+    private void escribir(){
+        try{
+            while (true) salida.println(pendientes.take());
+        } catch (InterruptedException ie){
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void vaciar(){
+        String linea;
+        while ((linea = pendientes.poll()) != null) salida.println(linea);
+        salida.flush();
+    }
+
+
+    // ==================== MÉTODOS HELPER ====================
+    private static String entrecomillar(String valor){
+        if (valor == null) return "\"\"";
+        return '"' + valor.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n").replace("\r", "") + '"';
+    }
+}
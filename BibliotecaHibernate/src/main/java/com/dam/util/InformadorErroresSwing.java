@@ -0,0 +1,34 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.util;
+
+
+// Importa de la biblioteca/librería el paquete "GraphicsEnvironment".
+import java.awt.GraphicsEnvironment;
+// Importa de la biblioteca/librería el paquete "JOptionPane".
+import javax.swing.JOptionPane;
+// Importa de la biblioteca/librería el paquete "SwingUtilities".
+import javax.swing.SwingUtilities;
+
+// Crea la clase "InformadorErroresSwing".
+    /*
+     * Informador de errores para la aplicación de escritorio: escribe el error en el registro ("InformadorErroresRegistro") y además lo muestra en un diálogo.
+     * El diálogo se abre en el hilo de Swing ("invokeLater"), así que quien informa no se queda esperando a que el usuario lo cierre.
+     *
+     * Se activa con "-Dbiblioteca.errores=swing". Si no hay pantalla ("headless") solo se escribe en el registro.
+     */
+public class InformadorErroresSwing implements InformadorErrores{
+    private final InformadorErrores registro = new InformadorErroresRegistro();
+    private final boolean conPantalla = !GraphicsEnvironment.isHeadless();
+
+    @Override
+    public void informar(String titulo, String mensaje, Throwable error){
+        registro.informar(titulo, mensaje, error);
+        if (!conPantalla) return;
+
+        String texto = error != null && error.getMessage() != null ? mensaje + ": " + error.getMessage() : mensaje;
+        SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(null, texto, titulo, JOptionPane.ERROR_MESSAGE));
+    }
+}
@@ -0,0 +1,47 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.util;
+
+
+// Importa de la biblioteca/librería el paquete "Serializable".
+import java.io.Serializable;
+// Importa de la biblioteca/librería el paquete "EntityPersister".
+import org.hibernate.persister.entity.EntityPersister;
+
+// Crea la clase "ListenerEntidades".
+    /*
+     * Base de los listeners de eventos de Hibernate de la aplicación ("ListenerIndiceCatalogo", "ListenerIndiceTexto", "ListenerIndiceFacetas" y "ListenerInventario").
+     * Cada uno indica en su constructor las entidades cuyos eventos deben esperar al "commit" (ninguna si los aplica al escribir cada fila, dentro de la transacción).
+     *
+     * Hibernate 5.6 sigue declarando abstracto "PostActionEventListener.requiresPostCommitHanding()" aunque esté obsoleto ("requiresPostCommitHandling()" lo llama por defecto):
+     * se implementa solo aquí para no repetirlo en cada listener. La interfaz no es pública, así que esta clase no la declara; la implementación la heredan los listeners, que sí la declaran
+     * a través de "PostInsertEventListener", "PostCommitUpdateEventListener"...
+     */
+public abstract class ListenerEntidades implements Serializable{
+    // ==================== ATRIBUTOS ====================
+    private static final long serialVersionUID = 1L;
+
+    private final Class<?>[] entidadesTrasCommit;
+
+
+    // ==================== CONSTRUCTORES ====================
+
+    /*
+     * "@param entidadesTrasCommit" Parámetro: Entidades cuyos eventos se entregan tras el "commit" (las que escucha como "PostCommit...EventListener").
+     */
+    protected ListenerEntidades(Class<?>... entidadesTrasCommit){
+        this.entidadesTrasCommit = entidadesTrasCommit.clone();
+    }
+
+
+    // ==================== EVENTOS ====================
+    public final boolean requiresPostCommitHanding(EntityPersister persister){
+        Class<?> clase = persister.getMappedClass();
+        for (Class<?> entidad : entidadesTrasCommit){
+            if (entidad == clase) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,204 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.util;
+
+
+// Importa de la biblioteca/librería el paquete "MetricasPool".
+import com.dam.dto.MetricasPool;
+// Importa de la biblioteca/librería el paquete "HikariConfig".
+import com.zaxxer.hikari.HikariConfig;
+// Importa de la biblioteca/librería el paquete "HikariDataSource".
+import com.zaxxer.hikari.HikariDataSource;
+// Importa de la biblioteca/librería el paquete "HikariPoolMXBean".
+import com.zaxxer.hikari.HikariPoolMXBean;
+// Importa de la biblioteca/librería el paquete "IMetricsTracker".
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+// Importa de la biblioteca/librería el paquete "Connection".
+import java.sql.Connection;
+// Importa de la biblioteca/librería el paquete "SQLException".
+import java.sql.SQLException;
+// Importa de la biblioteca/librería el paquete "Map".
+import java.util.Map;
+// Importa de la biblioteca/librería el paquete "Optional".
+import java.util.Optional;
+// Importa de la biblioteca/librería el paquete "Properties".
+import java.util.Properties;
+// Importa de la biblioteca/librería el paquete "LongAccumulator".
+import java.util.concurrent.atomic.LongAccumulator;
+// Importa de la biblioteca/librería el paquete "LongAdder".
+import java.util.concurrent.atomic.LongAdder;
+// Importa de la biblioteca/librería el paquete "Consumer".
+import java.util.function.Consumer;
+// Importa de la biblioteca/librería el paquete "HibernateException".
+import org.hibernate.HibernateException;
+// Importa de la biblioteca/librería el paquete "AvailableSettings".
+import org.hibernate.cfg.AvailableSettings;
+// Importa de la biblioteca/librería el paquete "ConnectionProvider".
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+// Importa de la biblioteca/librería el paquete "UnknownUnwrapTypeException".
+import org.hibernate.service.UnknownUnwrapTypeException;
+// Importa de la biblioteca/librería el paquete "Configurable".
+import org.hibernate.service.spi.Configurable;
+// Importa de la biblioteca/librería el paquete "Stoppable".
+import org.hibernate.service.spi.Stoppable;
+
+// Crea la clase "ProveedorConexionesPool".
+    /*
+     * Proveedor de conexiones de Hibernate respaldado por un pool HikariCP. Sustituye al pool interno ("hibernate.connection.pool_size"), que no está pensado para producción y serializa la obtención de conexiones.
+     *
+     * Se activa en "hibernate.cfg.xml" con "hibernate.connection.provider_class" y se configura con las propiedades "hibernate.hikari.*" (se les quita el prefijo y se pasan tal cual a "HikariConfig"):
+     *   La propiedad "  hibernate.hikari.minimumIdle              " Nº mínimo de conexiones inactivas.
+     *   La propiedad "  hibernate.hikari.maximumPoolSize          " Nº máximo de conexiones.
+     *   La propiedad "  hibernate.hikari.connectionTimeout        " Espera máxima (ms) para obtener una conexión.
+     *   La propiedad "  hibernate.hikari.leakDetectionThreshold   " Tiempo (ms) a partir del cual una conexión no devuelta se avisa como posible fuga.
+     *   La propiedad "  hibernate.hikari.dataSource.*             " Propiedades del driver JDBC (por ejemplo la caché de sentencias preparadas de MySQL).
+     *
+     * La URL, el usuario, la contraseña y el driver se toman de las propiedades estándar "hibernate.connection.*".
+     * Además registra los tiempos de espera de cada adquisición para poder consultar las métricas del pool ("obtenerMetricas()").
+     *
+     * Si hay réplicas de lectura configuradas ("biblioteca.replicas.*", ver "ReplicasLectura"), las sesiones de solo lectura ("HibernateUtil.enLectura()") obtienen su conexión de una réplica;
+     * el resto de sesiones, y las de lectura cuando no queda ninguna réplica disponible, de la primaria.
+     */
+public class ProveedorConexionesPool implements ConnectionProvider, Configurable, Stoppable{
+    // ==================== ATRIBUTOS ====================
+    private static final long serialVersionUID = 1L;
+
+    public static final String PREFIJO_HIKARI = "hibernate.hikari.";
+    private static final String NOMBRE_POOL = "BibliotecaPool";
+
+    private transient HikariDataSource dataSource;
+        // Pools de las réplicas de lectura ("null" si no hay ninguna configurada).
+    private transient ReplicasLectura replicas;
+
+        // Contadores de las esperas para obtener conexión (se actualizan desde muchos hilos a la vez).
+    private final transient LongAdder adquisiciones = new LongAdder();
+    private final transient LongAdder esperaTotalNanos = new LongAdder();
+    private final transient LongAccumulator esperaMaximaNanos = new LongAccumulator(Long::max, 0L);
+    private final transient LongAdder timeouts = new LongAdder();
+
+
+    // ==================== CONFIGURACIÓN ====================
+    @Override
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public void configure(Map configurationValues){
+        Map<String, Object> valores = (Map<String, Object>) configurationValues;
+
+        Properties propiedadesHikari = new Properties();
+        for (Map.Entry<String, Object> entrada : valores.entrySet()){
+            if (entrada.getKey().startsWith(PREFIJO_HIKARI) && entrada.getValue() != null){
+                propiedadesHikari.setProperty(entrada.getKey().substring(PREFIJO_HIKARI.length()), entrada.getValue().toString());
+            }
+        }
+
+        try{
+            HikariConfig config = new HikariConfig(propiedadesHikari);
+            config.setPoolName(NOMBRE_POOL);
+            establecerSiExiste(valores, AvailableSettings.URL, config::setJdbcUrl);
+            establecerSiExiste(valores, AvailableSettings.USER, config::setUsername);
+            establecerSiExiste(valores, AvailableSettings.PASS, config::setPassword);
+            establecerSiExiste(valores, AvailableSettings.DRIVER, config::setDriverClassName);
+            config.setMetricsTrackerFactory((nombrePool, estadisticasPool) -> new RegistroEsperas());
+
+            dataSource = new HikariDataSource(config);
+            replicas = ReplicasLectura.configurar(valores, propiedadesHikari, NOMBRE_POOL);
+        } catch (RuntimeException rex){
+            if (dataSource != null) dataSource.close();
+            throw new HibernateException("No se pudo crear el pool de conexiones: " + rex.getMessage(), rex);
+        }
+    }
+
+        // Copia una propiedad "hibernate.connection.*" a la configuración del pool si está definida.
+    private static void establecerSiExiste(Map<String, Object> valores, String clave, Consumer<String> destino){
+        Object valor = valores.get(clave);
+        if (valor != null) destino.accept(valor.toString());
+    }
+
+
+    // ==================== CONEXIONES ====================
+    @Override
+    public Connection getConnection() throws SQLException{
+        if (replicas != null){
+            Connection conexion = replicas.obtenerConexion();
+            if (conexion != null) return conexion;
+        }
+        return dataSource.getConnection();
+    }
+
+    @Override
+    public void closeConnection(Connection conn) throws SQLException{ conn.close(); }
+
+    @Override
+    public boolean supportsAggressiveRelease(){ return false; }
+
+    @Override
+    public void stop(){
+        if (replicas != null) replicas.cerrar();
+        if (dataSource != null) dataSource.close();
+    }
+
+        // La firma con "Class" sin tipo la impone "Wrapped" de Hibernate; dentro se usa como "Class<?>".
+    @Override
+    @SuppressWarnings("rawtypes")
+    public boolean isUnwrappableAs(Class unwrapType){
+        Class<?> tipo = unwrapType;
+        return tipo.isAssignableFrom(getClass()) || tipo.isAssignableFrom(HikariDataSource.class);
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> unwrapType){
+        if (unwrapType.isAssignableFrom(getClass())) return unwrapType.cast(this);
+        if (unwrapType.isAssignableFrom(HikariDataSource.class)) return unwrapType.cast(dataSource);
+        throw new UnknownUnwrapTypeException(unwrapType);
+    }
+
+
+    // ==================== MÉTRICAS ====================
+
+    /*
+     * "@return" Retorna: Nº máximo de conexiones configurado en el pool.
+     */
+    public int getTamanoMaximo(){ return dataSource.getMaximumPoolSize(); }
+
+    /*
+     * "@return" Retorna: Las réplicas de lectura, o vacío si no hay ninguna configurada.
+     */
+    public Optional<ReplicasLectura> getReplicas(){ return Optional.ofNullable(replicas); }
+
+    /*
+     * Obtiene una instantánea del estado del pool (conexiones activas, inactivas y pendientes) y de los tiempos de espera acumulados.
+     *
+     * "@return" Retorna: Métricas del pool.
+     */
+    public MetricasPool obtenerMetricas(){
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        long numAdquisiciones = adquisiciones.sum();
+        double esperaMediaMs = numAdquisiciones == 0 ? 0.0 : esperaTotalNanos.sum() / (double) numAdquisiciones / 1_000_000.0;
+
+        return new MetricasPool(
+                pool.getActiveConnections(),
+                pool.getIdleConnections(),
+                pool.getThreadsAwaitingConnection(),
+                pool.getTotalConnections(),
+                dataSource.getMaximumPoolSize(),
+                numAdquisiciones,
+                esperaMediaMs,
+                esperaMaximaNanos.get() / 1_000_000.0,
+                timeouts.sum()
+        );
+    }
+
+        // Recibe de HikariCP el tiempo de espera de cada adquisición y cada espera agotada.
+    private final class RegistroEsperas implements IMetricsTracker{
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos){
+            adquisiciones.increment();
+            esperaTotalNanos.add(elapsedAcquiredNanos);
+            esperaMaximaNanos.accumulate(elapsedAcquiredNanos);
+        }
+
+        @Override
+        public void recordConnectionTimeout(){ timeouts.increment(); }
+    }
+}
@@ -0,0 +1,299 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.util;
+
+
+// Importa de la biblioteca/librería el paquete "MetricasReplica".
+import com.dam.dto.MetricasReplica;
+// Importa de la biblioteca/librería el paquete "HikariConfig".
+import com.zaxxer.hikari.HikariConfig;
+// Importa de la biblioteca/librería el paquete "HikariDataSource".
+import com.zaxxer.hikari.HikariDataSource;
+// Importa de la biblioteca/librería el paquete "HikariPoolMXBean".
+import com.zaxxer.hikari.HikariPoolMXBean;
+// Importa de la biblioteca/librería el paquete "Connection".
+import java.sql.Connection;
+// Importa de la biblioteca/librería el paquete "SQLException".
+import java.sql.SQLException;
+// Importa de la biblioteca/librería el paquete "ArrayList".
+import java.util.ArrayList;
+// Importa de la biblioteca/librería el paquete "List".
+import java.util.List;
+// Importa de la biblioteca/librería el paquete "Locale".
+import java.util.Locale;
+// Importa de la biblioteca/librería el paquete "Map".
+import java.util.Map;
+// Importa de la biblioteca/librería el paquete "Properties".
+import java.util.Properties;
+// Importa de la biblioteca/librería el paquete "TimeUnit".
+import java.util.concurrent.TimeUnit;
+// Importa de la biblioteca/librería el paquete "AtomicInteger".
+import java.util.concurrent.atomic.AtomicInteger;
+// Importa de la biblioteca/librería el paquete "AtomicLongArray".
+import java.util.concurrent.atomic.AtomicLongArray;
+// Importa de la biblioteca/librería el paquete "LongAdder".
+import java.util.concurrent.atomic.LongAdder;
+// Importa de la biblioteca/librería el paquete "Level".
+import java.util.logging.Level;
+// Importa de la biblioteca/librería el paquete "Logger".
+import java.util.logging.Logger;
+// Importa de la biblioteca/librería el paquete "BaseSessionEventListener".
+import org.hibernate.BaseSessionEventListener;
+// Importa de la biblioteca/librería el paquete "CacheMode".
+import org.hibernate.CacheMode;
+// Importa de la biblioteca/librería el paquete "Session".
+import org.hibernate.Session;
+// Importa de la biblioteca/librería el paquete "SharedSessionContract".
+import org.hibernate.SharedSessionContract;
+// Importa de la biblioteca/librería el paquete "AvailableSettings".
+import org.hibernate.cfg.AvailableSettings;
+// Importa de la biblioteca/librería el paquete "SharedSessionContractImplementor".
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+// Crea la clase "ReplicasLectura".
+    /*
+     * Pools de conexiones a las réplicas de lectura de MySQL, usados por "ProveedorConexionesPool" para las sesiones marcadas como de solo lectura ("HibernateUtil.enLectura()").
+     *
+     * Se configura en "hibernate.cfg.xml" (o con propiedades de sistema "biblioteca.*"):
+     *   La propiedad "  biblioteca.replicas.urls           " URLs JDBC de las réplicas separadas por comas (vacía = sin réplicas: todo va a la primaria).
+     *   La propiedad "  biblioteca.replicas.balanceo       " "rotatorio" (una réplica tras otra) o "menos_cargada" (la que tiene menos conexiones en uso y esperando).
+     *   La propiedad "  biblioteca.replicas.usuario        " Usuario y contraseña de las réplicas ("...contrasena"); por defecto los de la primaria.
+     *   La propiedad "  biblioteca.replicas.espera_ms      " Espera máxima (ms) para obtener una conexión de una réplica antes de darla por caída.
+     *   La propiedad "  biblioteca.replicas.pausa_fallo_ms " Tiempo (ms) que una réplica caída queda fuera del reparto antes de volver a probarla.
+     * El resto de propiedades del pool ("hibernate.hikari.*") son las mismas que las de la primaria.
+     *
+     *   1. La sesión de lectura lleva un "SessionEventListener" ("MarcaLectura") que avisa justo antes y después de que Hibernate pida una conexión: la decisión va con la sesión, no con el hilo que la usa.
+     *   2. Todas las conexiones de una misma sesión salen de la misma réplica (las réplicas pueden ir con retrasos distintos).
+     *   3. Si una réplica no da conexión se aparta durante "pausa_fallo_ms" y se prueba la siguiente; si no queda ninguna, la lectura va a la primaria.
+     *   4. Las conexiones de las réplicas son de solo lectura ("Connection.setReadOnly()"): MySQL rechaza cualquier escritura por error y trata la transacción como de solo lectura.
+     *   5. Una sesión servida por una réplica solo lee de la caché de segundo nivel ("CacheMode.GET"): no guarda en ella datos que pueden llevar el retraso de la réplica.
+     *
+     * Las réplicas se replican de forma asíncrona: una lectura justo después de una escritura puede no verla todavía. Lo que necesite leer lo recién escrito debe usar "enSesion()" o "enTransaccion()".
+     */
+public final class ReplicasLectura{
+    // ==================== ATRIBUTOS ====================
+    public static final String PROPIEDAD_URLS = "biblioteca.replicas.urls";
+    public static final String PROPIEDAD_BALANCEO = "biblioteca.replicas.balanceo";
+    public static final String PROPIEDAD_USUARIO = "biblioteca.replicas.usuario";
+    public static final String PROPIEDAD_CONTRASENA = "biblioteca.replicas.contrasena";
+    public static final String PROPIEDAD_ESPERA = "biblioteca.replicas.espera_ms";
+    public static final String PROPIEDAD_PAUSA_FALLO = "biblioteca.replicas.pausa_fallo_ms";
+
+    private static final long ESPERA_POR_DEFECTO_MS = 2000;
+    private static final long PAUSA_FALLO_POR_DEFECTO_MS = 30000;
+
+    private static final Logger LOG = Logger.getLogger("com.dam.util.replicas");
+
+        // Sesión de lectura que está obteniendo una conexión en este hilo (solo durante la llamada a "ProveedorConexionesPool.getConnection()").
+    private static final ThreadLocal<MarcaLectura> LECTURA_EN_CURSO = new ThreadLocal<>();
+
+    public enum Balanceo{ ROTATORIO, MENOS_CARGADA }
+
+    private final List<String> urls;
+    private final List<HikariDataSource> pools;
+    private final Balanceo balanceo;
+    private final long pausaFalloNanos;
+    private final AtomicInteger siguiente = new AtomicInteger();
+        // Instante ("System.nanoTime()") hasta el que cada réplica queda fuera del reparto; 0 = en servicio.
+    private final AtomicLongArray fueraHasta;
+    private final LongAdder[] lecturas;
+    private final LongAdder[] fallos;
+    private final LongAdder lecturasEnPrimaria = new LongAdder();
+
+
+    // ==================== CONSTRUCTORES ====================
+    private ReplicasLectura(List<String> urls, List<HikariDataSource> pools, Balanceo balanceo, long pausaFalloMs){
+        this.urls = List.copyOf(urls);
+        this.pools = List.copyOf(pools);
+        this.balanceo = balanceo;
+        this.pausaFalloNanos = TimeUnit.MILLISECONDS.toNanos(pausaFalloMs);
+        this.fueraHasta = new AtomicLongArray(pools.size());
+        this.lecturas = new LongAdder[pools.size()];
+        this.fallos = new LongAdder[pools.size()];
+        for (int i = 0; i < pools.size(); i++){
+            lecturas[i] = new LongAdder();
+            fallos[i] = new LongAdder();
+        }
+    }
+
+    /*
+     * Crea un pool por cada réplica configurada. Los pools no conectan al crearse ("initializationFailTimeout = -1"): una réplica caída al arrancar no impide arrancar la aplicación.
+     *
+     * "@param valores"           Parámetro: Propiedades de la configuración de Hibernate.
+     * "@param propiedadesHikari" Parámetro: Propiedades del pool de la primaria ("hibernate.hikari.*" sin el prefijo).
+     * "@param nombrePool"        Parámetro: Nombre del pool de la primaria (los de las réplicas se llaman igual con el sufijo "-replica-N").
+     * "@return" Retorna: Las réplicas, o "null" si no hay ninguna configurada.
+     */
+    static ReplicasLectura configurar(Map<String, Object> valores, Properties propiedadesHikari, String nombrePool){
+        List<String> urls = new ArrayList<>();
+        for (String url : texto(valores, PROPIEDAD_URLS, "").split(",")){
+            if (!url.isBlank()) urls.add(url.trim());
+        }
+        if (urls.isEmpty()) return null;
+
+        Balanceo balanceo = Balanceo.valueOf(texto(valores, PROPIEDAD_BALANCEO, "rotatorio").trim().toUpperCase(Locale.ROOT));
+        long esperaMs = Long.parseLong(texto(valores, PROPIEDAD_ESPERA, String.valueOf(ESPERA_POR_DEFECTO_MS)).trim());
+        long pausaFalloMs = Long.parseLong(texto(valores, PROPIEDAD_PAUSA_FALLO, String.valueOf(PAUSA_FALLO_POR_DEFECTO_MS)).trim());
+        String usuario = texto(valores, PROPIEDAD_USUARIO, texto(valores, AvailableSettings.USER, null));
+        String contrasena = texto(valores, PROPIEDAD_CONTRASENA, texto(valores, AvailableSettings.PASS, null));
+        String driver = texto(valores, AvailableSettings.DRIVER, null);
+
+        List<HikariDataSource> pools = new ArrayList<>();
+        try{
+            for (int i = 0; i < urls.size(); i++){
+                HikariConfig config = new HikariConfig(propiedadesHikari);
+                config.setPoolName(nombrePool + "-replica-" + (i + 1));
+                config.setJdbcUrl(urls.get(i));
+                if (usuario != null) config.setUsername(usuario);
+                if (contrasena != null) config.setPassword(contrasena);
+                if (driver != null) config.setDriverClassName(driver);
+                config.setConnectionTimeout(esperaMs);
+                config.setInitializationFailTimeout(-1);
+                config.setReadOnly(true);
+                pools.add(new HikariDataSource(config));
+            }
+        } catch (RuntimeException rex){
+            pools.forEach(HikariDataSource::close);
+            throw rex;
+        }
+        LOG.info(() -> "Réplicas de lectura (" + balanceo.name().toLowerCase(Locale.ROOT) + "): " + urls);
+        return new ReplicasLectura(urls, pools, balanceo, pausaFalloMs);
+    }
+
+    private static String texto(Map<String, Object> valores, String clave, String porDefecto){
+        Object valor = valores.get(clave);
+        return valor != null && !valor.toString().isBlank() ? valor.toString() : porDefecto;
+    }
+
+
+    // ==================== SESIONES DE LECTURA ====================
+
+    /*
+     * Marca una sesión (o "StatelessSession") recién abierta como de solo lectura: sus conexiones se pedirán a una réplica.
+     * Sin réplicas configuradas la marca no tiene efecto.
+     *
+     * "@param session" Parámetro: Sesión que todavía no ha obtenido su conexión (Hibernate la pide al lanzar la primera sentencia).
+     */
+    public static void marcar(SharedSessionContract session){
+        ((SharedSessionContractImplementor) session).getEventListenerManager().addListener(new MarcaLectura(session instanceof Session ? (Session) session : null));
+    }
+
+        // Avisos de Hibernate alrededor de cada "ConnectionProvider.getConnection()" de la sesión marcada (en el hilo que la pide).
+    private static final class MarcaLectura extends BaseSessionEventListener{
+        private static final long serialVersionUID = 1L;
+
+        private final transient Session session;
+            // Réplica de la que salió la primera conexión de la sesión (-1 = ninguna todavía).
+        private int replica = -1;
+        private boolean servidaPorReplica;
+
+        MarcaLectura(Session session){ this.session = session; }
+
+        @Override
+        public void jdbcConnectionAcquisitionStart(){ LECTURA_EN_CURSO.set(this); }
+
+        @Override
+        public void jdbcConnectionAcquisitionEnd(){
+            LECTURA_EN_CURSO.remove();
+            if (servidaPorReplica && session != null) session.setCacheMode(CacheMode.GET);
+        }
+    }
+
+
+    // ==================== CONEXIONES ====================
+
+    /*
+     * "@return" Retorna: Una conexión de una réplica si este hilo está obteniendo la conexión de una sesión de lectura y queda alguna réplica disponible;
+     *           "null" si la conexión debe salir de la primaria.
+     */
+    Connection obtenerConexion(){
+        MarcaLectura marca = LECTURA_EN_CURSO.get();
+        if (marca == null) return null;
+
+        int n = pools.size();
+        int inicio = marca.replica >= 0 && enServicio(marca.replica) ? marca.replica : elegir();
+        for (int k = 0; k < n; k++){
+            int i = (inicio + k) % n;
+            if (!enServicio(i)) continue;
+            try{
+                Connection conexion = pools.get(i).getConnection();
+                lecturas[i].increment();
+                marca.replica = i;
+                marca.servidaPorReplica = true;
+                return conexion;
+            } catch (SQLException sqle){
+                fallos[i].increment();
+                fueraHasta.set(i, desdeAhora(pausaFalloNanos));
+                LOG.log(Level.WARNING, "La réplica " + urls.get(i) + " no responde; queda fuera del reparto durante " + TimeUnit.NANOSECONDS.toMillis(pausaFalloNanos) + " ms", sqle);
+            }
+        }
+        lecturasEnPrimaria.increment();
+        return null;
+    }
+
+        // Primera réplica a probar según el balanceo. Con "menos_cargada" los empates se resuelven por turno, para no cargar siempre la primera.
+    private int elegir(){
+        int n = pools.size();
+        int inicio = Math.floorMod(siguiente.getAndIncrement(), n);
+        if (balanceo == Balanceo.ROTATORIO) return inicio;
+
+        int mejor = inicio;
+        int menorCarga = Integer.MAX_VALUE;
+        for (int k = 0; k < n; k++){
+            int i = (inicio + k) % n;
+            if (!enServicio(i)) continue;
+            int carga = carga(i);
+            if (carga < menorCarga){
+                menorCarga = carga;
+                mejor = i;
+            }
+        }
+        return mejor;
+    }
+
+    private int carga(int replica){
+        HikariPoolMXBean pool = pools.get(replica).getHikariPoolMXBean();
+        return pool == null ? 0 : pool.getActiveConnections() + pool.getThreadsAwaitingConnection();
+    }
+
+    private boolean enServicio(int replica){
+        long hasta = fueraHasta.get(replica);
+        if (hasta == 0) return true;
+        if (System.nanoTime() - hasta < 0) return false;
+            // Termina la pausa: se vuelve a probar (si falla otra vez, se aparta de nuevo).
+        fueraHasta.compareAndSet(replica, hasta, 0);
+        return true;
+    }
+
+        // Instante futuro distinto de 0 (0 significa "en servicio").
+    private static long desdeAhora(long nanos){
+        long instante = System.nanoTime() + nanos;
+        return instante == 0 ? 1 : instante;
+    }
+
+    void cerrar(){ pools.forEach(HikariDataSource::close); }
+
+
+    // ==================== MÉTRICAS ====================
+
+    /*
+     * "@return" Retorna: Por cada réplica, si está en servicio, sus conexiones en uso y las lecturas servidas y fallidas.
+     */
+    public List<MetricasReplica> obtenerMetricas(){
+        List<MetricasReplica> metricas = new ArrayList<>(pools.size());
+        for (int i = 0; i < pools.size(); i++){
+            HikariPoolMXBean pool = pools.get(i).getHikariPoolMXBean();
+            metricas.add(new MetricasReplica(urls.get(i), enServicio(i), pool == null ? 0 : pool.getActiveConnections(), lecturas[i].sum(), fallos[i].sum()));
+        }
+        return metricas;
+    }
+
+    /*
+     * "@return" Retorna: Nº de lecturas que han ido a la primaria porque no quedaba ninguna réplica disponible.
+     */
+    public long getLecturasEnPrimaria(){ return lecturasEnPrimaria.sum(); }
+
+    public Balanceo getBalanceo(){ return balanceo; }
+}
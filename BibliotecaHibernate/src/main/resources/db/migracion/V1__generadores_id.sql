@@ -0,0 +1,19 @@
+-- ==================== V1: GENERADORES DE IDENTIFICADORES ====================
+-- Tabla usada por "@TableGenerator" (estrategia "TABLE" con optimizador "pooled") en "Autor", "Libro" y "Ejemplar".
+-- Sustituye a "AUTO_INCREMENT" ("IDENTITY") para que Hibernate pueda agrupar los "INSERT" en lotes JDBC.
+--
+-- Con el optimizador "pooled", el valor guardado es el límite superior del bloque reservado: un valor "N" entrega los identificadores (N - 49) .. N.
+-- Por eso cada fila se inicializa con el "ID" máximo actual + 50 (el "allocationSize"), de modo que el primer bloque no repita identificadores existentes.
+
+CREATE TABLE IF NOT EXISTS generadores_id (
+    entidad         VARCHAR(255) NOT NULL,
+    siguiente_valor BIGINT,
+    PRIMARY KEY (entidad)
+) ENGINE = InnoDB;
+
+INSERT INTO generadores_id (entidad, siguiente_valor)
+    SELECT 'autores', COALESCE(MAX(id_autor), 0) + 50 FROM autores;
+INSERT INTO generadores_id (entidad, siguiente_valor)
+    SELECT 'libros', COALESCE(MAX(id_libro), 0) + 50 FROM libros;
+INSERT INTO generadores_id (entidad, siguiente_valor)
+    SELECT 'ejemplares', COALESCE(MAX(id_ejemplar), 0) + 50 FROM ejemplares;
@@ -0,0 +1,6 @@
+-- ==================== V2: VERSIÓN DE LOS EJEMPLARES (BLOQUEO OPTIMISTA) ====================
+-- Columna usada por "@Version" en "Ejemplar": Hibernate la incrementa en cada "UPDATE" y la comprueba en su "WHERE".
+-- Los ejemplares existentes empiezan en la versión 0.
+
+ALTER TABLE ejemplares
+    ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
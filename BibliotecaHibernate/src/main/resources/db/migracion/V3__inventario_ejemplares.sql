@@ -0,0 +1,32 @@
+-- ==================== V3: INVENTARIO RESUMIDO DE EJEMPLARES ====================
+-- Tablas de "ContadorInventario" y "ContadorEstado": el nº de ejemplares por (libro, ubicación, estado) y el total por estado, mantenidos por "CambiosInventario" en cada transacción.
+-- Las estadísticas y los paneles leen estas tablas en lugar de contar la tabla "ejemplares" entera.
+--
+-- Los ejemplares sin libro, ubicación o estado se guardan con el libro 0 y la cadena vacía (la clave primaria no admite "NULL").
+-- El total de cada estado se reparte en varias filas ("ranura" 0..15) para que los préstamos concurrentes no esperen todos por la misma fila; el total es su suma.
+-- Ambas tablas se rellenan aquí a partir de los ejemplares existentes; después, "ReconciliadorInventario" corrige cualquier diferencia.
+
+CREATE TABLE IF NOT EXISTS inventario_ejemplares (
+    id_libro  BIGINT       NOT NULL,
+    ubicacion VARCHAR(100) NOT NULL,
+    estado    VARCHAR(20)  NOT NULL,
+    cantidad  BIGINT       NOT NULL,
+    PRIMARY KEY (id_libro, ubicacion, estado),
+    INDEX idx_inventario_ubicacion_estado (ubicacion, estado)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS inventario_estados (
+    estado   VARCHAR(20) NOT NULL,
+    ranura   INT         NOT NULL,
+    cantidad BIGINT      NOT NULL,
+    PRIMARY KEY (estado, ranura)
+) ENGINE = InnoDB;
+
+-- "libro_id_libro" es la clave ajena que Hibernate asigna por defecto a "Ejemplar.libro".
+INSERT INTO inventario_ejemplares (id_libro, ubicacion, estado, cantidad)
+    SELECT COALESCE(libro_id_libro, 0), COALESCE(ubicacion, ''), COALESCE(estado, ''), COUNT(*)
+    FROM ejemplares
+    GROUP BY COALESCE(libro_id_libro, 0), COALESCE(ubicacion, ''), COALESCE(estado, '');
+
+INSERT INTO inventario_estados (estado, ranura, cantidad)
+    SELECT estado, 0, SUM(cantidad) FROM inventario_ejemplares GROUP BY estado;
@@ -0,0 +1,21 @@
+-- ==================== V4: ÍNDICES DE LOS EJEMPLARES ====================
+-- Índices declarados en "Ejemplar" ("@Table(indexes = ...)") para las consultas por libro, estado y ubicación, y nombre explícito de la clave ajena del libro ("@JoinColumn(name = "id_libro")").
+-- Requiere MySQL 8.0 ("RENAME COLUMN").
+--
+-- 1. La columna se llamaba "libro_id_libro", el nombre que Hibernate asigna por defecto a "Ejemplar.libro" (el que usa V3).
+--      Renombrarla solo cambia el diccionario de datos (no copia la tabla); la clave ajena y su índice siguen la columna.
+-- 2. Los índices se crean en una sola sentencia (una única pasada sobre la tabla) sin bloquear las lecturas ni las escrituras ("LOCK = NONE").
+--      Al existir "idx_ejemplares_libro_estado", que empieza por "id_libro", MySQL borra por sí solo el índice que creó implícitamente para la clave ajena.
+-- 3. "ANALYZE TABLE" actualiza las estadísticas para que el optimizador tenga en cuenta los índices nuevos desde el primer momento.
+
+ALTER TABLE ejemplares
+    RENAME COLUMN libro_id_libro TO id_libro;
+
+ALTER TABLE ejemplares
+    ADD INDEX idx_ejemplares_libro_estado (id_libro, estado),
+    ADD INDEX idx_ejemplares_estado (estado, id_ejemplar),
+    ADD INDEX idx_ejemplares_estado_ubicacion (estado, ubicacion),
+    ADD INDEX idx_ejemplares_ubicacion (ubicacion),
+    ALGORITHM = INPLACE, LOCK = NONE;
+
+ANALYZE TABLE ejemplares;
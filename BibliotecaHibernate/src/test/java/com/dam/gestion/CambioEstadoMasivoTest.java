@@ -0,0 +1,169 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.gestion;
+
+
+// Importa de la biblioteca/librería el paquete "EstadoEjemplar".
+import com.dam.modelo.Ejemplar.EstadoEjemplar;
+// Importa de la biblioteca/librería el paquete "BaseDatosPrueba".
+import com.dam.util.BaseDatosPrueba;
+// Importa de la biblioteca/librería el paquete "HibernateUtil".
+import com.dam.util.HibernateUtil;
+// Importa de la biblioteca/librería el paquete "ArrayList".
+import java.util.ArrayList;
+// Importa de la biblioteca/librería el paquete "List".
+import java.util.List;
+// Importa de la biblioteca/librería el paquete "Map".
+import java.util.Map;
+// Importa de la biblioteca/librería el paquete "TreeMap".
+import java.util.TreeMap;
+// Importa de la biblioteca/librería el paquete "CountDownLatch".
+import java.util.concurrent.CountDownLatch;
+// Importa de la biblioteca/librería el paquete "ExecutorService".
+import java.util.concurrent.ExecutorService;
+// Importa de la biblioteca/librería el paquete "Executors".
+import java.util.concurrent.Executors;
+// Importa de la biblioteca/librería el paquete "Future".
+import java.util.concurrent.Future;
+// Importa de la biblioteca/librería el paquete "ThreadLocalRandom".
+import java.util.concurrent.ThreadLocalRandom;
+// Importa de la biblioteca/librería el paquete "TimeUnit".
+import java.util.concurrent.TimeUnit;
+// Importa de la biblioteca/librería el paquete "AfterAll".
+import org.junit.jupiter.api.AfterAll;
+// Importa de la biblioteca/librería el paquete "BeforeAll".
+import org.junit.jupiter.api.BeforeAll;
+// Importa de la biblioteca/librería el paquete "Test".
+import org.junit.jupiter.api.Test;
+// Importa las aserciones de JUnit.
+import static org.junit.jupiter.api.Assertions.*;
+
+// Crea la clase "CambioEstadoMasivoTest".
+    /*
+     * "ServicioBiblioteca.cambiarEstado()" con otros hilos cambiando a la vez los mismos ejemplares:
+     *   1. Cada ejemplar modificado se cuenta una sola vez, aunque varios hilos cambien a la vez la misma estantería al mismo estado:
+     *      en cada ronda la suma de lo que devuelven es exactamente el nº de ejemplares de la estantería, y todos quedan en el nuevo estado.
+     *   2. Anota en el inventario resumido exactamente las filas que modifica su "UPDATE" masivo, aunque a la vez otros hilos cambien uno a uno el estado de los mismos ejemplares:
+     *      al terminar, coincide con un recuento directo en la base de datos.
+     */
+class CambioEstadoMasivoTest{
+    // ==================== ATRIBUTOS ====================
+    private static final String UBICACION = "Estantería 1";
+    private static final int HILOS_MASIVOS = 4;
+    private static final int HILOS_INDIVIDUALES = 8;
+    private static final int RONDAS = 20;
+    private static final int REPETICIONES = 25;
+
+    private static ServicioBiblioteca servicio;
+    private static List<Long> idsEnUbicacion;
+
+
+    // ==================== CICLO DE VIDA ====================
+    @BeforeAll
+    static void sembrar() throws InterruptedException{
+        BaseDatosPrueba.configurar("masivo");
+        servicio = new ServicioBiblioteca();
+            // 8 ejemplares por libro: uno en cada estantería "0" .. "7".
+        for (int a = 0; a < 10; a++) servicio.crearAutorConLibros(BaseDatosPrueba.generarAutor("masivo" + a, 2, 8));
+        idsEnUbicacion = HibernateUtil.enSesion(session -> session.createQuery("SELECT e.id FROM Ejemplar e WHERE e.ubicacion = :ubicacion ORDER BY e.id", Long.class)
+                                                                  .setParameter("ubicacion", UBICACION)
+                                                                  .list());
+        BaseDatosPrueba.esperarIndices();
+    }
+
+    @AfterAll
+    static void cerrar(){ HibernateUtil.shutdown(); }
+
+
+    // ==================== PRUEBAS ====================
+    @Test
+    void cadaEjemplarSeCuentaUnaSolaVez() throws Exception{
+        for (int ronda = 0; ronda < RONDAS; ronda++){
+            EstadoEjemplar nuevoEstado = ronda % 2 == 0 ? EstadoEjemplar.REPARACION : EstadoEjemplar.DISPONIBLE;
+
+            ExecutorService ejecutor = Executors.newFixedThreadPool(HILOS_MASIVOS);
+            CountDownLatch salida = new CountDownLatch(1);
+            List<Future<Integer>> resultados = new ArrayList<>();
+            try{
+                for (int hilo = 0; hilo < HILOS_MASIVOS; hilo++){
+                    resultados.add(ejecutor.submit(() -> {
+                        salida.await();
+                        return servicio.cambiarEstadoPorUbicacion(UBICACION, nuevoEstado);
+                    }));
+                }
+                salida.countDown();
+            } finally{
+                ejecutor.shutdown();
+            }
+            assertTrue(ejecutor.awaitTermination(1, TimeUnit.MINUTES), "Los hilos no han terminado a tiempo");
+            int modificados = 0;
+            for (Future<Integer> resultado : resultados) modificados += resultado.get();
+
+            assertEquals(idsEnUbicacion.size(), modificados, "Ejemplares modificados en la ronda " + ronda);
+            assertEquals(Map.of(nuevoEstado, (long) idsEnUbicacion.size()), contarPorEstado(), "Ejemplares tras la ronda " + ronda);
+        }
+    }
+
+    @Test
+    void elInventarioCoincideConLaBaseDeDatos() throws Exception{
+        ExecutorService ejecutor = Executors.newFixedThreadPool(HILOS_MASIVOS + HILOS_INDIVIDUALES);
+        CountDownLatch salida = new CountDownLatch(1);
+        List<Future<?>> resultados = new ArrayList<>();
+        try{
+            for (int hilo = 0; hilo < HILOS_MASIVOS; hilo++){
+                resultados.add(ejecutor.submit(() -> {
+                    salida.await();
+                    for (int i = 0; i < REPETICIONES; i++) servicio.cambiarEstadoPorUbicacion(UBICACION, i % 2 == 0 ? EstadoEjemplar.REPARACION : EstadoEjemplar.DISPONIBLE);
+                    return null;
+                }));
+            }
+            for (int hilo = 0; hilo < HILOS_INDIVIDUALES; hilo++){
+                resultados.add(ejecutor.submit(() -> {
+                    salida.await();
+                    ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+                    for (int i = 0; i < 4 * REPETICIONES; i++){
+                        try{
+                            servicio.actualizarEstadoEjemplar(idsEnUbicacion.get(aleatorio.nextInt(idsEnUbicacion.size())), aleatorio.nextBoolean() ? EstadoEjemplar.PRESTADO : EstadoEjemplar.DISPONIBLE);
+                        } catch (RuntimeException rex){
+                                // Con tanta competencia un cambio individual puede agotar sus reintentos: se revierte entero y no afecta a lo que se comprueba.
+                            if (!HibernateUtil.esConflicto(rex)) throw rex;
+                        }
+                    }
+                    return null;
+                }));
+            }
+            salida.countDown();
+        } finally{
+            ejecutor.shutdown();
+        }
+        assertTrue(ejecutor.awaitTermination(5, TimeUnit.MINUTES), "Los hilos no han terminado a tiempo");
+        for (Future<?> resultado : resultados) resultado.get();
+
+        Map<EstadoEjemplar, Long> real = contarPorEstado();
+        assertEquals(idsEnUbicacion.size(), real.values().stream().mapToLong(Long::longValue).sum());
+        assertEquals(real, sinCeros(servicio.obtenerInventarioUbicacion(UBICACION)), "Inventario resumido");
+    }
+
+
+    // ==================== MÉTODOS HELPER ====================
+
+    /*
+     * "@return" Retorna: Nº de ejemplares de la estantería en cada estado, contados directamente en la base de datos.
+     */
+    private static Map<EstadoEjemplar, Long> contarPorEstado(){
+        List<Object[]> filas = HibernateUtil.enSesion(session -> session.createQuery("SELECT e.estado, COUNT(e) FROM Ejemplar e WHERE e.ubicacion = :ubicacion GROUP BY e.estado", Object[].class)
+                                                                       .setParameter("ubicacion", UBICACION)
+                                                                       .list());
+        Map<EstadoEjemplar, Long> recuentos = new TreeMap<>();
+        for (Object[] fila : filas) recuentos.put((EstadoEjemplar) fila[0], (Long) fila[1]);
+        return recuentos;
+    }
+
+    private static Map<EstadoEjemplar, Long> sinCeros(Map<EstadoEjemplar, Long> recuentos){
+        Map<EstadoEjemplar, Long> resultado = new TreeMap<>();
+        recuentos.forEach((estado, total) -> { if (total != 0) resultado.put(estado, total); });
+        return resultado;
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.gestion;
+
+
+// Importa de la biblioteca/librería el paquete "DetalleLibro".
+import com.dam.dto.DetalleLibro;
+// Importa de la biblioteca/librería el paquete "Libro".
+import com.dam.modelo.Libro;
+// Importa de la biblioteca/librería el paquete "BaseDatosPrueba".
+import com.dam.util.BaseDatosPrueba;
+// Importa de la biblioteca/librería el paquete "HibernateUtil".
+import com.dam.util.HibernateUtil;
+// Importa de la biblioteca/librería el paquete "Hibernate".
+import org.hibernate.Hibernate;
+// Importa de la biblioteca/librería el paquete "Statistics".
+import org.hibernate.stat.Statistics;
+// Importa de la biblioteca/librería el paquete "AfterAll".
+import org.junit.jupiter.api.AfterAll;
+// Importa de la biblioteca/librería el paquete "BeforeAll".
+import org.junit.jupiter.api.BeforeAll;
+// Importa de la biblioteca/librería el paquete "BeforeEach".
+import org.junit.jupiter.api.BeforeEach;
+// Importa de la biblioteca/librería el paquete "Test".
+import org.junit.jupiter.api.Test;
+// Importa las aserciones de JUnit.
+import static org.junit.jupiter.api.Assertions.*;
+
+// Crea la clase "DetalleLibroSentenciasTest".
+    /*
+     * La vista de detalle de un libro (libro, autor y ejemplares) se lee con una única sentencia SQL cuando no está en la caché de segundo nivel,
+     * contando las sentencias preparadas con las estadísticas de Hibernate ("hibernate.generate_statistics").
+     */
+class DetalleLibroSentenciasTest{
+    // ==================== ATRIBUTOS ====================
+    private static final int LIBROS = 2;
+    private static final int EJEMPLARES = 3;
+
+    private static ServicioBiblioteca servicio;
+    private static Long idLibro;
+    private static Statistics estadisticas;
+
+
+    // ==================== CICLO DE VIDA ====================
+    @BeforeAll
+    static void sembrar() throws InterruptedException{
+        BaseDatosPrueba.configurar("detalle");
+        servicio = new ServicioBiblioteca();
+        servicio.crearAutorConLibros(BaseDatosPrueba.generarAutor("detalle", LIBROS, EJEMPLARES));
+        idLibro = servicio.resolverIdLibro(BaseDatosPrueba.isbn("detalle", 0)).orElseThrow();
+        estadisticas = HibernateUtil.getSessionFactory().getStatistics();
+            // La carga de los índices lanza sus propias consultas en segundo plano: se espera a que termine para contar solo las de cada prueba.
+        BaseDatosPrueba.esperarIndices();
+    }
+
+        // Caché fría y contadores a cero antes de cada prueba.
+    @BeforeEach
+    void enFrio(){
+        HibernateUtil.invalidarCache();
+        estadisticas.clear();
+    }
+
+    @AfterAll
+    static void cerrar(){ HibernateUtil.shutdown(); }
+
+
+    // ==================== PRUEBAS ====================
+    @Test
+    void elDetalleEnFrioEsUnaSolaSentencia(){
+        DetalleLibro detalle = servicio.obtenerDetalleLibro(idLibro).orElseThrow();
+
+        assertEquals(1, estadisticas.getPrepareStatementCount(), "Sentencias SQL del detalle con la caché fría");
+        assertEquals("Nombre detalle", detalle.getNombreAutor());
+        assertEquals(LIBROS, detalle.getLibrosDelAutor());
+        assertEquals(EJEMPLARES, detalle.getEjemplares().size());
+    }
+
+    @Test
+    void laConsultaDelDetalleEsUnaSolaSentencia(){
+        servicio.consultarDetalleLibro(idLibro).orElseThrow();
+        servicio.consultarDetalleLibro(idLibro).orElseThrow();
+
+            // Sin caché: una sentencia por llamada, aunque se repita.
+        assertEquals(2, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void elLibroConAutorYEjemplaresEnFrioEsUnaSolaSentencia(){
+        Libro libro = servicio.buscarLibroPorId(idLibro).orElseThrow();
+
+        assertEquals(1, estadisticas.getPrepareStatementCount(), "Sentencias SQL de buscarLibroPorId con la caché fría");
+            // Todo lo que muestra la pantalla ya está cargado: fuera de la sesión no se lanza ninguna carga perezosa.
+        assertTrue(Hibernate.isInitialized(libro.getAutor()));
+        assertTrue(Hibernate.isInitialized(libro.getEjemplares()));
+        assertEquals(EJEMPLARES, libro.getEjemplares().size());
+        assertEquals("Nombre detalle", libro.getAutor().getNombre());
+    }
+
+    @Test
+    void unLibroQueNoExisteEsUnaSolaSentencia(){
+        assertTrue(servicio.obtenerDetalleLibro(-1L).isEmpty());
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,136 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.gestion;
+
+
+// Importa de la biblioteca/librería el paquete "ResumenEjemplar".
+import com.dam.dto.ResumenEjemplar;
+// Importa de la biblioteca/librería el paquete "Ejemplar".
+import com.dam.modelo.Ejemplar;
+// Importa de la biblioteca/librería el paquete "EstadoEjemplar".
+import com.dam.modelo.Ejemplar.EstadoEjemplar;
+// Importa de la biblioteca/librería el paquete "Libro".
+import com.dam.modelo.Libro;
+// Importa de la biblioteca/librería el paquete "BaseDatosPrueba".
+import com.dam.util.BaseDatosPrueba;
+// Importa de la biblioteca/librería el paquete "HibernateUtil".
+import com.dam.util.HibernateUtil;
+// Importa de la biblioteca/librería el paquete "LocalDate".
+import java.time.LocalDate;
+// Importa de la biblioteca/librería el paquete "ArrayList".
+import java.util.ArrayList;
+// Importa de la biblioteca/librería el paquete "List".
+import java.util.List;
+// Importa de la biblioteca/librería el paquete "Collectors".
+import java.util.stream.Collectors;
+// Importa de la biblioteca/librería el paquete "AfterAll".
+import org.junit.jupiter.api.AfterAll;
+// Importa de la biblioteca/librería el paquete "BeforeAll".
+import org.junit.jupiter.api.BeforeAll;
+// Importa de la biblioteca/librería el paquete "Test".
+import org.junit.jupiter.api.Test;
+// Importa las aserciones de JUnit.
+import static org.junit.jupiter.api.Assertions.*;
+
+// Crea la clase "ListadosSinAutorTest".
+    /*
+     * "Libro.autor" y "Ejemplar.libro" admiten "null": los listados paginados y las exportaciones deben incluir los libros sin autor y los ejemplares sin libro (o cuyo libro no tiene autor).
+     */
+class ListadosSinAutorTest{
+    // ==================== ATRIBUTOS ====================
+    private static ServicioBiblioteca servicio;
+    private static Long idLibroConAutor;
+    private static Long idLibroSinAutor;
+    private static Long idEjemplarSinAutor;
+    private static Long idEjemplarSinLibro;
+
+
+    // ==================== CICLO DE VIDA ====================
+    @BeforeAll
+    static void sembrar(){
+        BaseDatosPrueba.configurar("listados");
+        servicio = new ServicioBiblioteca();
+
+        servicio.crearAutorConLibros(BaseDatosPrueba.generarAutor("con", 1, 1));
+        idLibroConAutor = servicio.resolverIdLibro(BaseDatosPrueba.isbn("con", 0)).orElseThrow();
+
+        Libro huerfano = new Libro("Anónimo", "sin-autor", LocalDate.of(1554, 1, 1), 80);
+        Ejemplar deHuerfano = new Ejemplar("EJ-SIN-AUTOR", EstadoEjemplar.DISPONIBLE, "Estantería 1");
+        huerfano.addEjemplar(deHuerfano);
+        Ejemplar suelto = new Ejemplar("EJ-SIN-LIBRO", EstadoEjemplar.DISPONIBLE, "Almacén");
+        HibernateUtil.enTransaccion(session -> {
+            session.persist(huerfano);
+            session.persist(suelto);
+            return null;
+        });
+        idLibroSinAutor = huerfano.getId();
+        idEjemplarSinAutor = deHuerfano.getId();
+        idEjemplarSinLibro = suelto.getId();
+    }
+
+    @AfterAll
+    static void cerrar(){ HibernateUtil.shutdown(); }
+
+
+    // ==================== PRUEBAS ====================
+    @Test
+    void losLibrosSinAutorAparecenEnElListadoYEnLaExportacion(){
+        List<Long> listados = servicio.listarLibros(null, 100).getElementos().stream().map(Libro::getId).collect(Collectors.toList());
+        assertEquals(List.of(idLibroConAutor, idLibroSinAutor), listados);
+
+        List<Libro> exportados = new ArrayList<>();
+        assertEquals(2, servicio.exportarLibros(exportados::add));
+        assertNull(exportados.get(1).getAutor());
+        assertNotNull(exportados.get(0).getAutor().getNombre());
+    }
+
+    @Test
+    void losEjemplaresSinLibroOSinAutorAparecenEnElListadoYEnLaExportacion(){
+        List<Long> listados = servicio.listarEjemplaresPorEstado(EstadoEjemplar.DISPONIBLE, null, 100).getElementos().stream().map(Ejemplar::getId).collect(Collectors.toList());
+        assertTrue(listados.containsAll(List.of(idEjemplarSinAutor, idEjemplarSinLibro)), "Listado: " + listados);
+        assertEquals(3, listados.size());
+
+        List<Ejemplar> exportados = new ArrayList<>();
+        assertEquals(3, servicio.exportarEjemplaresPorEstado(EstadoEjemplar.DISPONIBLE, exportados::add));
+        comprobarLibrosYAutores(exportados);
+    }
+
+    @Test
+    void laBusquedaPorEstadoIncluyeLosEjemplaresSinLibroOSinAutor(){
+        List<Ejemplar> encontrados = servicio.buscarEjemplaresPorEstado(EstadoEjemplar.DISPONIBLE);
+        assertEquals(3, encontrados.size());
+        comprobarLibrosYAutores(encontrados);
+    }
+
+    @Test
+    void elResumenPorEstadoIncluyeLosEjemplaresSinLibroOSinAutor(){
+        List<ResumenEjemplar> resumen = servicio.listarResumenEjemplaresPorEstado(EstadoEjemplar.DISPONIBLE, null, 100).getElementos();
+        assertEquals(3, resumen.size());
+        for (ResumenEjemplar ejemplar : resumen){
+            if (ejemplar.getId().equals(idEjemplarSinLibro)){
+                assertNull(ejemplar.getIdLibro());
+                assertEquals(0, ejemplar.getNumeroPaginas());
+            } else if (ejemplar.getId().equals(idEjemplarSinAutor)){
+                assertEquals(idLibroSinAutor, ejemplar.getIdLibro());
+                assertNull(ejemplar.getIdAutor());
+                assertEquals(0, ejemplar.getLibrosDelAutor());
+            } else{
+                assertEquals(idLibroConAutor, ejemplar.getIdLibro());
+                assertEquals(1, ejemplar.getLibrosDelAutor());
+            }
+        }
+    }
+
+
+    // ==================== MÉTODOS HELPER ====================
+        // Los ejemplares llegan con su libro y su autor ya cargados (o "null" si no tienen).
+    private static void comprobarLibrosYAutores(List<Ejemplar> ejemplares){
+        for (Ejemplar ejemplar : ejemplares){
+            if (ejemplar.getId().equals(idEjemplarSinLibro)) assertNull(ejemplar.getLibro());
+            else if (ejemplar.getId().equals(idEjemplarSinAutor)) assertNull(ejemplar.getLibro().getAutor());
+            else assertNotNull(ejemplar.getLibro().getAutor().getNombre());
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.gestion;
+
+
+// Importa de la biblioteca/librería el paquete "DetalleEjemplar".
+import com.dam.dto.DetalleEjemplar;
+// Importa de la biblioteca/librería el paquete "EstadoEjemplar".
+import com.dam.modelo.Ejemplar.EstadoEjemplar;
+// Importa de la biblioteca/librería el paquete "BaseDatosPrueba".
+import com.dam.util.BaseDatosPrueba;
+// Importa de la biblioteca/librería el paquete "HibernateUtil".
+import com.dam.util.HibernateUtil;
+// Importa de la biblioteca/librería el paquete "ArrayList".
+import java.util.ArrayList;
+// Importa de la biblioteca/librería el paquete "HashSet".
+import java.util.HashSet;
+// Importa de la biblioteca/librería el paquete "List".
+import java.util.List;
+// Importa de la biblioteca/librería el paquete "Optional".
+import java.util.Optional;
+// Importa de la biblioteca/librería el paquete "Set".
+import java.util.Set;
+// Importa de la biblioteca/librería el paquete "CountDownLatch".
+import java.util.concurrent.CountDownLatch;
+// Importa de la biblioteca/librería el paquete "ExecutorService".
+import java.util.concurrent.ExecutorService;
+// Importa de la biblioteca/librería el paquete "Executors".
+import java.util.concurrent.Executors;
+// Importa de la biblioteca/librería el paquete "Future".
+import java.util.concurrent.Future;
+// Importa de la biblioteca/librería el paquete "TimeUnit".
+import java.util.concurrent.TimeUnit;
+// Importa de la biblioteca/librería el paquete "AfterAll".
+import org.junit.jupiter.api.AfterAll;
+// Importa de la biblioteca/librería el paquete "BeforeAll".
+import org.junit.jupiter.api.BeforeAll;
+// Importa de la biblioteca/librería el paquete "Test".
+import org.junit.jupiter.api.Test;
+// Importa las aserciones de JUnit.
+import static org.junit.jupiter.api.Assertions.*;
+
+// Crea la clase "PrestamosConcurrentesTest".
+    /*
+     * "ServicioBiblioteca.prestarCualquierEjemplar()" con "HILOS" mostradores prestando a la vez ejemplares de unos pocos libros muy solicitados (como "PrestamosBenchmark"):
+     * hay más mostradores que ejemplares, así que se prestan todos, ninguno dos veces, y cada préstamo devuelto queda "PRESTADO" en la base de datos.
+     */
+class PrestamosConcurrentesTest{
+    // ==================== ATRIBUTOS ====================
+    private static final int HILOS = 200;
+    private static final int LIBROS_SOLICITADOS = 4;
+        // Menos ejemplares que hilos: todos se prestan y algunos mostradores se quedan sin ejemplar.
+    private static final int EJEMPLARES_POR_LIBRO = 40;
+
+    private static ServicioBiblioteca servicio;
+
+
+    // ==================== CICLO DE VIDA ====================
+    @BeforeAll
+    static void sembrar() throws InterruptedException{
+        BaseDatosPrueba.configurar("prestamos");
+        servicio = new ServicioBiblioteca();
+        servicio.crearAutorConLibros(BaseDatosPrueba.generarAutor("prestamos", LIBROS_SOLICITADOS, EJEMPLARES_POR_LIBRO));
+        BaseDatosPrueba.esperarIndices();
+    }
+
+    @AfterAll
+    static void cerrar(){ HibernateUtil.shutdown(); }
+
+
+    // ==================== PRUEBAS ====================
+    @Test
+    void sePrestanTodosLosEjemplaresUnaSolaVez() throws Exception{
+        ExecutorService ejecutor = Executors.newFixedThreadPool(HILOS);
+        CountDownLatch salida = new CountDownLatch(1);
+        List<Future<Optional<DetalleEjemplar>>> resultados = new ArrayList<>(HILOS);
+        try{
+            for (int hilo = 0; hilo < HILOS; hilo++){
+                String isbn = BaseDatosPrueba.isbn("prestamos", hilo % LIBROS_SOLICITADOS);
+                resultados.add(ejecutor.submit(() -> {
+                    salida.await();
+                    return servicio.prestarCualquierEjemplar(isbn);
+                }));
+            }
+            salida.countDown();
+        } finally{
+            ejecutor.shutdown();
+        }
+        assertTrue(ejecutor.awaitTermination(5, TimeUnit.MINUTES), "Los hilos no han terminado a tiempo");
+
+        List<Long> prestados = new ArrayList<>();
+        for (Future<Optional<DetalleEjemplar>> resultado : resultados){
+            resultado.get().ifPresent(ejemplar -> {
+                assertEquals(EstadoEjemplar.PRESTADO, ejemplar.getEstado());
+                prestados.add(ejemplar.getId());
+            });
+        }
+        Set<Long> distintos = new HashSet<>(prestados);
+        assertEquals(prestados.size(), distintos.size(), "Ejemplares prestados más de una vez");
+            // Un mostrador solo se queda sin ejemplar cuando ya no queda ninguno disponible de su libro.
+        assertEquals(LIBROS_SOLICITADOS * EJEMPLARES_POR_LIBRO, prestados.size(), "Ejemplares prestados");
+
+        List<Long> enBaseDeDatos = HibernateUtil.enSesion(session -> session.createQuery("SELECT e.id FROM Ejemplar e WHERE e.estado = :prestado", Long.class)
+                                                                             .setParameter("prestado", EstadoEjemplar.PRESTADO)
+                                                                             .list());
+        assertEquals(distintos, new HashSet<>(enBaseDeDatos));
+    }
+}
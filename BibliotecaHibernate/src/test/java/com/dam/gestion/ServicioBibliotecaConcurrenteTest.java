@@ -0,0 +1,202 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.gestion;
+
+
+// Importa de la biblioteca/librería el paquete "EstadisticasBiblioteca".
+import com.dam.dto.EstadisticasBiblioteca;
+// Importa de la biblioteca/librería el paquete "Ejemplar".
+import com.dam.modelo.Ejemplar;
+// Importa de la biblioteca/librería el paquete "EstadoEjemplar".
+import com.dam.modelo.Ejemplar.EstadoEjemplar;
+// Importa de la biblioteca/librería el paquete "Libro".
+import com.dam.modelo.Libro;
+// Importa de la biblioteca/librería el paquete "BaseDatosPrueba".
+import com.dam.util.BaseDatosPrueba;
+// Importa de la biblioteca/librería el paquete "HibernateUtil".
+import com.dam.util.HibernateUtil;
+// Importa de la biblioteca/librería el paquete "LatenciaSimulada".
+import com.dam.util.LatenciaSimulada;
+// Importa de la biblioteca/librería el paquete "Duration".
+import java.time.Duration;
+// Importa de la biblioteca/librería el paquete "ArrayList".
+import java.util.ArrayList;
+// Importa de la biblioteca/librería el paquete "LinkedHashMap".
+import java.util.LinkedHashMap;
+// Importa de la biblioteca/librería el paquete "List".
+import java.util.List;
+// Importa de la biblioteca/librería el paquete "Map".
+import java.util.Map;
+// Importa de la biblioteca/librería el paquete "Callable".
+import java.util.concurrent.Callable;
+// Importa de la biblioteca/librería el paquete "CountDownLatch".
+import java.util.concurrent.CountDownLatch;
+// Importa de la biblioteca/librería el paquete "ExecutorService".
+import java.util.concurrent.ExecutorService;
+// Importa de la biblioteca/librería el paquete "Executors".
+import java.util.concurrent.Executors;
+// Importa de la biblioteca/librería el paquete "Future".
+import java.util.concurrent.Future;
+// Importa de la biblioteca/librería el paquete "ThreadLocalRandom".
+import java.util.concurrent.ThreadLocalRandom;
+// Importa de la biblioteca/librería el paquete "TimeUnit".
+import java.util.concurrent.TimeUnit;
+// Importa de la biblioteca/librería el paquete "IntFunction".
+import java.util.function.IntFunction;
+// Importa de la biblioteca/librería el paquete "AfterAll".
+import org.junit.jupiter.api.AfterAll;
+// Importa de la biblioteca/librería el paquete "BeforeAll".
+import org.junit.jupiter.api.BeforeAll;
+// Importa de la biblioteca/librería el paquete "Test".
+import org.junit.jupiter.api.Test;
+// Importa las aserciones de JUnit.
+import static org.junit.jupiter.api.Assertions.*;
+
+// Crea la clase "ServicioBibliotecaConcurrenteTest".
+    /*
+     * Prueba de carga de "ServicioBiblioteca" compartido por muchos hilos (sesión y transacción por operación, sin estado mutable):
+     *   1. "HILOS" hilos hacen a la vez las operaciones del servicio (crear autor con libros, añadir ejemplar, listar, buscar, cambiar estado y estadísticas)
+     *      sin ningún error, y al terminar los totales son exactamente la suma de lo que ha hecho cada uno.
+     *   2. Las lecturas de varios hilos no se serializan: con una latencia fija por sentencia SQL ("LatenciaSimulada", como la red hasta un servidor MySQL),
+     *      "HILOS_LECTURA" hilos hacen varias veces más lecturas por segundo que uno solo, tenga la máquina los núcleos que tenga.
+     */
+class ServicioBibliotecaConcurrenteTest{
+    // ==================== ATRIBUTOS ====================
+    private static final int HILOS = 200;
+    private static final int AUTORES_SEMBRADOS = 50;
+    private static final int LIBROS_POR_AUTOR = 4;
+    private static final int EJEMPLARES_POR_LIBRO = 5;
+
+        // Latencia simulada de cada sentencia SQL y duración de cada medición del rendimiento.
+    private static final long LATENCIA_MS = 5;
+    private static final long MEDICION_MS = 1000;
+        // Hilos de lectura comparados con uno solo, y mejora mínima exigida (la ideal sería "HILOS_LECTURA"; la mitad deja margen para el tiempo de CPU y el ruido).
+    private static final int HILOS_LECTURA = 8;
+    private static final double ESCALADO_MINIMO = HILOS_LECTURA / 2.0;
+
+    private static ServicioBiblioteca servicio;
+    private static List<Long> idsLibrosSembrados;
+
+
+    // ==================== CICLO DE VIDA ====================
+    @BeforeAll
+    static void sembrar() throws InterruptedException{
+        BaseDatosPrueba.configurar("concurrencia");
+        System.setProperty("hibernate.session_factory.statement_inspector", LatenciaSimulada.class.getName());
+            // Sin TTL: las estadísticas se consultan siempre en la base de datos.
+        servicio = new ServicioBiblioteca(new ServicioEstadisticas(Duration.ZERO));
+
+        for (int a = 0; a < AUTORES_SEMBRADOS; a++) servicio.crearAutorConLibros(BaseDatosPrueba.generarAutor("sem" + a, LIBROS_POR_AUTOR, EJEMPLARES_POR_LIBRO));
+        idsLibrosSembrados = HibernateUtil.enSesion(session -> session.createQuery("SELECT l.id FROM Libro l ORDER BY l.id", Long.class).getResultList());
+        BaseDatosPrueba.esperarIndices();
+    }
+
+    @AfterAll
+    static void cerrar(){ HibernateUtil.shutdown(); }
+
+
+    // ==================== PRUEBAS ====================
+    @Test
+    void cientosDeHilosCompartenElServicioSinErrores() throws Exception{
+        EstadisticasBiblioteca antes = servicio.obtenerEstadisticas();
+
+        List<Future<Void>> resultados = ejecutarALaVez(HILOS, hilo -> () -> {
+            String clave = "hilo" + hilo;
+            servicio.crearAutorConLibros(BaseDatosPrueba.generarAutor(clave, 1, 2));
+
+            Ejemplar nuevo = servicio.agregarEjemplarALibroExistente(BaseDatosPrueba.isbn(clave, 0), "EXTRA-" + hilo).orElseThrow();
+            assertTrue(servicio.actualizarEstadoEjemplar(nuevo.getId(), EstadoEjemplar.PRESTADO), "El ejemplar recién creado debe poder cambiar de estado");
+
+            Libro libro = servicio.buscarLibroPorId(nuevo.getLibro().getId()).orElseThrow();
+            assertEquals(3, libro.getEjemplares().size(), "Ejemplares del libro de " + clave);
+            assertEquals("Nombre " + clave, libro.getAutor().getNombre());
+
+            Long idAjeno = idsLibrosSembrados.get(ThreadLocalRandom.current().nextInt(idsLibrosSembrados.size()));
+            assertTrue(servicio.buscarLibroPorId(idAjeno).isPresent(), "Libro sembrado " + idAjeno);
+            assertFalse(servicio.listarTodosLosAutores().isEmpty());
+            assertNotNull(servicio.obtenerEstadisticas());
+            return null;
+        });
+        for (Future<Void> resultado : resultados) resultado.get();
+
+            // Cada hilo ha creado 1 autor, 1 libro y 3 ejemplares (2 en cascada y 1 añadido), y ha prestado el añadido.
+        EstadisticasBiblioteca despues = servicio.obtenerEstadisticas();
+        assertEquals(antes.getTotalAutores() + HILOS, despues.getTotalAutores());
+        assertEquals(antes.getTotalLibros() + HILOS, despues.getTotalLibros());
+        assertEquals(antes.getTotalEjemplares() + 3L * HILOS, despues.getTotalEjemplares());
+        assertEquals(antes.getEjemplares(EstadoEjemplar.PRESTADO) + HILOS, despues.getEjemplares(EstadoEjemplar.PRESTADO));
+    }
+
+    @Test
+    void lasLecturasDeVariosHilosNoSeSerializan() throws Exception{
+        Map<Integer, Double> rendimiento = new LinkedHashMap<>();
+        LatenciaSimulada.activar(LATENCIA_MS);
+        try{
+                // Calentamiento: la primera medición no debe incluir la compilación JIT.
+            medirLecturas(1, MEDICION_MS);
+            for (int hilos = 1; hilos <= HILOS_LECTURA; hilos *= 2) rendimiento.put(hilos, medirLecturas(hilos, MEDICION_MS));
+        } finally{
+            LatenciaSimulada.activar(0);
+        }
+
+        StringBuilder tabla = new StringBuilder("\nLecturas por segundo (" + LATENCIA_MS + " ms por sentencia SQL):");
+        rendimiento.forEach((hilos, operaciones) -> tabla.append(String.format("%n\t%4d hilos: %,10.0f op/s (x%.2f)", hilos, operaciones, operaciones / rendimiento.get(1))));
+        System.out.println(tabla);
+
+        assertTrue(rendimiento.get(HILOS_LECTURA) >= ESCALADO_MINIMO * rendimiento.get(1),
+                   "Con " + HILOS_LECTURA + " hilos se esperaban al menos x" + ESCALADO_MINIMO + " lecturas por segundo que con uno:" + tabla);
+    }
+
+
+    // ==================== MÉTODOS HELPER ====================
+
+    /*
+     * Hace lecturas del servicio (un libro con su autor y sus ejemplares, y el listado de autores, como una pantalla de consulta) con "hilos" hilos durante "duracionMs".
+     *
+     * "@return" Retorna: Operaciones por segundo entre todos los hilos.
+     */
+    private static double medirLecturas(int hilos, long duracionMs) throws Exception{
+        long fin = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(duracionMs);
+        List<Future<Long>> resultados = ejecutarALaVez(hilos, hilo -> () -> {
+            ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+            long operaciones = 0;
+            while (System.nanoTime() < fin){
+                if (operaciones % 2 == 0) servicio.buscarLibroPorId(idsLibrosSembrados.get(aleatorio.nextInt(idsLibrosSembrados.size())));
+                else servicio.listarTodosLosAutores();
+                operaciones++;
+            }
+            return operaciones;
+        });
+        long total = 0;
+        for (Future<Long> resultado : resultados) total += resultado.get();
+        return total * 1000.0 / duracionMs;
+    }
+
+    /*
+     * Lanza "hilos" tareas, cada una en su propio hilo, y las suelta a la vez (para que de verdad coincidan).
+     *
+     * "@param tarea" Parámetro: Crea la tarea de cada hilo a partir de su nº (0 .. hilos - 1).
+     * "@return" Retorna: El resultado de cada tarea (al pedirlo, relanza sus errores).
+     */
+    private static <T> List<Future<T>> ejecutarALaVez(int hilos, IntFunction<Callable<T>> tarea) throws InterruptedException{
+        ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+        CountDownLatch salida = new CountDownLatch(1);
+        List<Future<T>> resultados = new ArrayList<>(hilos);
+        try{
+            for (int hilo = 0; hilo < hilos; hilo++){
+                Callable<T> callable = tarea.apply(hilo);
+                resultados.add(ejecutor.submit(() -> {
+                    salida.await();
+                    return callable.call();
+                }));
+            }
+            salida.countDown();
+        } finally{
+            ejecutor.shutdown();
+        }
+        assertTrue(ejecutor.awaitTermination(5, TimeUnit.MINUTES), "Los hilos no han terminado a tiempo");
+        return resultados;
+    }
+}
@@ -0,0 +1,248 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.indice;
+
+
+// Importa de la biblioteca/librería el paquete "ResultadoFacetas".
+import com.dam.dto.ResultadoFacetas;
+// Importa de la biblioteca/librería el paquete "ServicioBiblioteca".
+import com.dam.gestion.ServicioBiblioteca;
+// Importa de la biblioteca/librería el paquete "EstadoEjemplar".
+import com.dam.modelo.Ejemplar.EstadoEjemplar;
+// Importa de la biblioteca/librería el paquete "BaseDatosPrueba".
+import com.dam.util.BaseDatosPrueba;
+// Importa de la biblioteca/librería el paquete "HibernateUtil".
+import com.dam.util.HibernateUtil;
+// Importa de la biblioteca/librería el paquete "ArrayList".
+import java.util.ArrayList;
+// Importa de la biblioteca/librería el paquete "List".
+import java.util.List;
+// Importa de la biblioteca/librería el paquete "Map".
+import java.util.Map;
+// Importa de la biblioteca/librería el paquete "AfterAll".
+import org.junit.jupiter.api.AfterAll;
+// Importa de la biblioteca/librería el paquete "BeforeAll".
+import org.junit.jupiter.api.BeforeAll;
+// Importa de la biblioteca/librería el paquete "Test".
+import org.junit.jupiter.api.Test;
+// Importa las aserciones de JUnit.
+import static org.junit.jupiter.api.Assertions.*;
+
+// Crea la clase "IndiceFacetasEjemplaresTest".
+    /*
+     * "IndiceFacetasEjemplares":
+     *   1. Filtros y recuentos de un índice pequeño construido a mano ("DISPONIBLE" en "E-10" o "E-11", con y sin filtro de libro).
+     *   2. Repetir un cambio (de un ejemplar o de un lote de "CambiosFacetas"), o aplicarlo cuando el índice ya lo incluye, deja el mismo índice que aplicarlo una vez.
+     *   3. Con la base de datos, tras un cambio de estado masivo y tras una purga el índice de la aplicación devuelve lo mismo que las consultas "HQL"
+     *      ("ServicioBiblioteca.consultarEjemplaresPorFacetas()") y que un índice recién cargado desde la tabla.
+     */
+class IndiceFacetasEjemplaresTest{
+    // ==================== ATRIBUTOS ====================
+    private static final EstadoEjemplar DISPONIBLE = EstadoEjemplar.DISPONIBLE;
+    private static final EstadoEjemplar PRESTADO = EstadoEjemplar.PRESTADO;
+    private static final EstadoEjemplar REPARACION = EstadoEjemplar.REPARACION;
+    private static final EstadoEjemplar BAJA = EstadoEjemplar.BAJA;
+    private static final int LIMITE = 50;
+
+    private static ServicioBiblioteca servicio;
+
+
+    // ==================== CICLO DE VIDA ====================
+    @BeforeAll
+    static void sembrar() throws InterruptedException{
+        BaseDatosPrueba.configurar("facetas");
+        servicio = new ServicioBiblioteca();
+            // 8 ejemplares por libro: uno en cada estantería "0" .. "7".
+        for (int a = 0; a < 6; a++) servicio.crearAutorConLibros(BaseDatosPrueba.generarAutor("facetas" + a, 3, 8));
+        BaseDatosPrueba.esperarIndices();
+    }
+
+    @AfterAll
+    static void cerrar(){ HibernateUtil.shutdown(); }
+
+
+    // ==================== PRUEBAS SIN BASE DE DATOS ====================
+    @Test
+    void filtraLosDisponiblesDeDosEstanteriasConSusRecuentos(){
+        IndiceFacetasEjemplares indice = indicePequeno();
+
+        ResultadoFacetas resultado = indice.buscar(List.of(DISPONIBLE), List.of("E-10", "E-11"), null, LIMITE);
+        assertEquals(List.of(1L, 2L, 4L), resultado.getIds());
+        assertEquals(3, resultado.getTotal());
+            // Cada faceta se cuenta con los filtros de las demás: los estados en "E-10" o "E-11", y las ubicaciones con los "DISPONIBLE".
+        assertEquals(Map.of(DISPONIBLE, 3L, PRESTADO, 1L, REPARACION, 1L, BAJA, 0L), resultado.getPorEstado());
+        assertEquals(Map.of("E-10", 2L, "E-11", 1L, "E-12", 1L), resultado.getPorUbicacion());
+
+        ResultadoFacetas primeros = indice.buscar(List.of(DISPONIBLE), List.of("E-10", "E-11"), null, 2);
+        assertEquals(List.of(1L, 2L), primeros.getIds());
+        assertEquals(3, primeros.getTotal());
+
+        ResultadoFacetas delLibro = indice.buscar(List.of(DISPONIBLE), List.of("E-10", "E-11"), List.of(101L), LIMITE);
+        assertEquals(List.of(4L), delLibro.getIds());
+        assertEquals(1, delLibro.getTotal());
+        assertEquals(Map.of(DISPONIBLE, 1L, PRESTADO, 0L, REPARACION, 1L, BAJA, 0L), delLibro.getPorEstado());
+        assertEquals(Map.of("E-11", 1L, "E-12", 1L), delLibro.getPorUbicacion());
+
+        ResultadoFacetas todos = indice.buscar(null, null, null, LIMITE);
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L), todos.getIds());
+        assertEquals(Map.of(DISPONIBLE, 5L, PRESTADO, 1L, REPARACION, 1L, BAJA, 0L), todos.getPorEstado());
+        assertEquals(Map.of("E-10", 3L, "E-11", 2L, "E-12", 1L), todos.getPorUbicacion());
+    }
+
+    @Test
+    void repetirLosCambiosDeUnEjemplarNoDescuadraElIndice(){
+        IndiceFacetasEjemplares indice = indicePequeno();
+        for (int i = 0; i < 2; i++){
+            indice.registrarEjemplar(1L, 100L, "E-10", DISPONIBLE);
+            indice.cambiarEjemplar(2L, 100L, 100L, "E-11", PRESTADO);
+            indice.cambiarEjemplar(3L, 100L, 101L, "E-12", REPARACION);
+            indice.eliminarEjemplar(6L, 101L);
+        }
+            // Un aviso antiguo que llega después de otro más reciente: el ejemplar queda en los valores del antiguo, pero en un solo estado y una sola ubicación.
+        indice.cambiarEjemplar(4L, 101L, 101L, "E-12", PRESTADO);
+        indice.cambiarEjemplar(4L, 101L, 101L, "E-11", DISPONIBLE);
+
+        IndiceFacetasEjemplares esperado = new IndiceFacetasEjemplares();
+        esperado.registrarEjemplar(1L, 100L, "E-10", DISPONIBLE);
+        esperado.registrarEjemplar(2L, 100L, "E-11", PRESTADO);
+        esperado.registrarEjemplar(3L, 101L, "E-12", REPARACION);
+        esperado.registrarEjemplar(4L, 101L, "E-11", DISPONIBLE);
+        esperado.registrarEjemplar(5L, 101L, "E-11", REPARACION);
+        esperado.registrarEjemplar(7L, null, null, DISPONIBLE);
+        comparar(esperado, indice, List.of(100L, 101L), List.of("E-10", "E-11", "E-12"));
+    }
+
+    @Test
+    void repetirUnLoteDeCambiosNoDescuadraElIndice(){
+        IndiceFacetasEjemplares indice = indicePequeno();
+            // El listener ya ha movido el ejemplar 2 antes de que llegue el lote que también lo incluye.
+        indice.cambiarEjemplar(2L, 100L, 100L, "E-10", REPARACION);
+        for (int i = 0; i < 2; i++){
+            CambiosFacetas cambios = new CambiosFacetas();
+            cambios.anotarCambio(1L, 100L, "E-10", DISPONIBLE, 100L, "E-10", REPARACION);
+            cambios.anotarCambio(2L, 100L, "E-10", DISPONIBLE, 100L, "E-10", REPARACION);
+            cambios.anotarCambio(4L, 101L, "E-11", DISPONIBLE, 100L, "E-12", PRESTADO);
+            cambios.anotarBaja(5L, 101L, "E-11", REPARACION);
+            cambios.anotarAlta(8L, 101L, "E-11", DISPONIBLE);
+            cambios.aplicar(indice);
+        }
+
+        IndiceFacetasEjemplares esperado = new IndiceFacetasEjemplares();
+        esperado.registrarEjemplar(1L, 100L, "E-10", REPARACION);
+        esperado.registrarEjemplar(2L, 100L, "E-10", REPARACION);
+        esperado.registrarEjemplar(3L, 100L, "E-10", PRESTADO);
+        esperado.registrarEjemplar(4L, 100L, "E-12", PRESTADO);
+        esperado.registrarEjemplar(6L, 101L, "E-12", DISPONIBLE);
+        esperado.registrarEjemplar(7L, null, null, DISPONIBLE);
+        esperado.registrarEjemplar(8L, 101L, "E-11", DISPONIBLE);
+        comparar(esperado, indice, List.of(100L, 101L), List.of("E-10", "E-11", "E-12"));
+    }
+
+
+    // ==================== PRUEBAS CON BASE DE DATOS ====================
+    @Test
+    void coincideConLaBaseDeDatosTrasUnCambioMasivo(){
+        servicio.cambiarEstadoPorUbicacion("Estantería 1", REPARACION);
+        servicio.cambiarEstadoPorUbicacion("Estantería 2", PRESTADO);
+        List<Long> idsEnUbicacion = idsEnUbicacion("Estantería 1");
+        servicio.actualizarEstadoEjemplar(idsEnUbicacion.get(0), DISPONIBLE);
+        servicio.cambiarEstadoPorUbicacion("Estantería 1", REPARACION);
+
+        comprobarConLaBaseDeDatos();
+    }
+
+    @Test
+    void coincideConLaBaseDeDatosTrasUnaPurga(){
+        servicio.eliminarEjemplaresPorUbicacion("Estantería 3");
+        List<Long> libros = idsLibros();
+        servicio.eliminarLibros(libros.subList(0, 2));
+        List<Long> autores = HibernateUtil.enSesion(session -> session.createQuery("SELECT a.id FROM Autor a ORDER BY a.id DESC", Long.class).setMaxResults(1).list());
+        servicio.eliminarAutores(autores);
+
+        comprobarConLaBaseDeDatos();
+    }
+
+
+    // ==================== MÉTODOS HELPER ====================
+
+    /*
+     * "@return" Retorna: Índice nuevo con 7 ejemplares: 1, 2 ("DISPONIBLE") y 3 ("PRESTADO") en "E-10", del libro 100; 4 ("DISPONIBLE") y 5 ("REPARACION") en "E-11", del libro 101;
+     *                    6 ("DISPONIBLE") en "E-12", del libro 101, y 7 ("DISPONIBLE") sin ubicación ni libro.
+     */
+    private static IndiceFacetasEjemplares indicePequeno(){
+        IndiceFacetasEjemplares indice = new IndiceFacetasEjemplares();
+        indice.registrarEjemplar(1L, 100L, "E-10", DISPONIBLE);
+        indice.registrarEjemplar(2L, 100L, "E-10", DISPONIBLE);
+        indice.registrarEjemplar(3L, 100L, "E-10", PRESTADO);
+        indice.registrarEjemplar(4L, 101L, "E-11", DISPONIBLE);
+        indice.registrarEjemplar(5L, 101L, "E-11", REPARACION);
+        indice.registrarEjemplar(6L, 101L, "E-12", DISPONIBLE);
+        indice.registrarEjemplar(7L, null, null, DISPONIBLE);
+        return indice;
+    }
+
+    /*
+     * Compara el índice de la aplicación con las consultas "HQL" y con un índice recién cargado desde la tabla.
+     */
+    private static void comprobarConLaBaseDeDatos(){
+        IndiceFacetasEjemplares recargado = new IndiceFacetasEjemplares();
+        recargado.cargar(HibernateUtil.getSessionFactory());
+        IndiceFacetasEjemplares indice = IndiceFacetasEjemplares.getInstancia();
+        List<Long> libros = idsLibros();
+        List<String> ubicaciones = List.of("Estantería 1", "Estantería 2", "Estantería 3");
+
+        comparar(recargado, indice, libros.subList(0, 2), ubicaciones);
+        for (List<EstadoEjemplar> estados : combinaciones(List.of(DISPONIBLE, REPARACION))){
+            for (List<String> enUbicaciones : combinaciones(ubicaciones.subList(0, 2))){
+                for (List<Long> deLibros : combinaciones(libros.subList(0, 2))){
+                    String caso = "estados " + estados + ", ubicaciones " + enUbicaciones + " y libros " + deLibros;
+                    assertIguales(servicio.consultarEjemplaresPorFacetas(estados, enUbicaciones, deLibros, LIMITE), indice.buscar(estados, enUbicaciones, deLibros, LIMITE), caso);
+                }
+            }
+        }
+        long ejemplares = HibernateUtil.enSesion(session -> session.createQuery("SELECT COUNT(e) FROM Ejemplar e", Long.class).uniqueResult());
+        assertEquals(ejemplares, indice.getEjemplares(), "Ejemplares del índice");
+    }
+
+        // Compara los dos índices con todas las combinaciones de filtros de los valores dados (cada faceta sin filtro, con el primero, con el segundo y con los dos).
+    private static void comparar(IndiceFacetasEjemplares esperado, IndiceFacetasEjemplares real, List<Long> libros, List<String> ubicaciones){
+        assertEquals(esperado.getEjemplares(), real.getEjemplares(), "Ejemplares del índice");
+        assertEquals(esperado.getUbicaciones(), real.getUbicaciones(), "Ubicaciones del índice");
+        for (List<EstadoEjemplar> estados : combinaciones(List.of(DISPONIBLE, REPARACION))){
+            for (List<String> enUbicaciones : combinaciones(ubicaciones.subList(0, 2))){
+                for (List<Long> deLibros : combinaciones(libros)){
+                    String caso = "estados " + estados + ", ubicaciones " + enUbicaciones + " y libros " + deLibros;
+                    assertIguales(esperado.buscar(estados, enUbicaciones, deLibros, LIMITE), real.buscar(estados, enUbicaciones, deLibros, LIMITE), caso);
+                }
+            }
+        }
+    }
+
+    private static void assertIguales(ResultadoFacetas esperado, ResultadoFacetas real, String caso){
+        assertEquals(esperado.getIds(), real.getIds(), "IDs con " + caso);
+        assertEquals(esperado.getTotal(), real.getTotal(), "Total con " + caso);
+        assertEquals(esperado.getPorEstado(), real.getPorEstado(), "Recuentos por estado con " + caso);
+        assertEquals(esperado.getPorUbicacion(), real.getPorUbicacion(), "Recuentos por ubicación con " + caso);
+    }
+
+        // Sin filtro ("null"), cada uno de los dos valores por separado y los dos juntos.
+    private static <T> List<List<T>> combinaciones(List<T> valores){
+        List<List<T>> combinaciones = new ArrayList<>();
+        combinaciones.add(null);
+        for (T valor : valores) combinaciones.add(List.of(valor));
+        combinaciones.add(valores);
+        return combinaciones;
+    }
+
+    private static List<Long> idsEnUbicacion(String ubicacion){
+        return HibernateUtil.enSesion(session -> session.createQuery("SELECT e.id FROM Ejemplar e WHERE e.ubicacion = :ubicacion ORDER BY e.id", Long.class)
+                                                        .setParameter("ubicacion", ubicacion)
+                                                        .list());
+    }
+
+    private static List<Long> idsLibros(){
+        return HibernateUtil.enSesion(session -> session.createQuery("SELECT l.id FROM Libro l ORDER BY l.id", Long.class).list());
+    }
+}
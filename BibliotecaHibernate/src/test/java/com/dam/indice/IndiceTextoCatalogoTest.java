@@ -0,0 +1,185 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.indice;
+
+
+// Importa de la biblioteca/librería el paquete "ServicioBiblioteca".
+import com.dam.gestion.ServicioBiblioteca;
+// Importa de la biblioteca/librería el paquete "Autor".
+import com.dam.modelo.Autor;
+// Importa de la biblioteca/librería el paquete "Libro".
+import com.dam.modelo.Libro;
+// Importa de la biblioteca/librería el paquete "BaseDatosPrueba".
+import com.dam.util.BaseDatosPrueba;
+// Importa de la biblioteca/librería el paquete "HibernateUtil".
+import com.dam.util.HibernateUtil;
+// Importa de la biblioteca/librería el paquete "LocalDate".
+import java.time.LocalDate;
+// Importa de la biblioteca/librería el paquete "List".
+import java.util.List;
+// Importa de la biblioteca/librería el paquete "AfterAll".
+import org.junit.jupiter.api.AfterAll;
+// Importa de la biblioteca/librería el paquete "BeforeAll".
+import org.junit.jupiter.api.BeforeAll;
+// Importa de la biblioteca/librería el paquete "Test".
+import org.junit.jupiter.api.Test;
+// Importa las aserciones de JUnit.
+import static org.junit.jupiter.api.Assertions.*;
+
+// Crea la clase "IndiceTextoCatalogoTest".
+    /*
+     * "IndiceTextoCatalogo":
+     *   1. Con un índice construido a mano: acentos, prefijos, palabras vacías y orden por relevancia.
+     *   2. Con la base de datos, el índice de la aplicación se mantiene al día (por los listeners y por la purga) al cambiar un título o el nombre de un autor y al borrar un autor,
+     *      e incluye los libros sin autor (igual que la consulta "LIKE").
+     */
+class IndiceTextoCatalogoTest{
+    // ==================== ATRIBUTOS ====================
+    private static final int LIMITE = 10;
+
+    private static ServicioBiblioteca servicio;
+    private static IndiceTextoCatalogo indice;
+    private static Long idLibroSinAutor;
+
+
+    // ==================== CICLO DE VIDA ====================
+    @BeforeAll
+    static void sembrar() throws InterruptedException{
+        BaseDatosPrueba.configurar("texto");
+        servicio = new ServicioBiblioteca();
+        indice = IndiceTextoCatalogo.getInstancia();
+        Libro lazarillo = new Libro("Lazarillo de Tormes", "lazarillo", LocalDate.of(1554, 1, 1), 80);
+        HibernateUtil.enTransaccion(session -> {
+            session.persist(lazarillo);
+            return null;
+        });
+        idLibroSinAutor = lazarillo.getId();
+        BaseDatosPrueba.esperarIndices();
+    }
+
+    @AfterAll
+    static void cerrar(){ HibernateUtil.shutdown(); }
+
+
+    // ==================== PRUEBAS SIN BASE DE DATOS ====================
+    @Test
+    void ignoraLosAcentosYLasMayusculas(){
+        IndiceTextoCatalogo texto = new IndiceTextoCatalogo();
+        texto.registrarAutor(1L, "Javier", "Marías");
+        texto.registrarLibro(10L, "Mañana en la batalla piensa en mí", 1L);
+        texto.registrarLibro(11L, "La mirada", null);
+
+        assertArrayEquals(new String[]{ "manana", "batalla", "piensa", "mi" }, IndiceTextoCatalogo.terminos("Mañana en la batalla piensa en mí"));
+        assertEquals(List.of(10L), texto.buscar("manana", LIMITE));
+        assertEquals(List.of(10L), texto.buscar("MAÑANA", LIMITE));
+        assertEquals(List.of(10L), texto.buscar("marias manana", LIMITE));
+            // Con menos de "LONGITUD_MINIMA_PREFIJO" letras solo se buscan palabras completas: "mi" no encuentra "mirada".
+        assertEquals(List.of(10L), texto.buscar("mi", LIMITE));
+        assertEquals(List.of(11L), texto.buscar("mira", LIMITE));
+    }
+
+    @Test
+    void encuentraLasPalabrasQueEmpiezanPorLaBuscada(){
+        IndiceTextoCatalogo texto = new IndiceTextoCatalogo();
+        texto.registrarLibro(10L, "Las batallas en el desierto", null);
+        texto.registrarLibro(11L, "Mañana en la batalla piensa en mí", null);
+
+        assertEquals(List.of(10L, 11L), texto.buscar("bata", LIMITE));
+            // La palabra completa puntúa más que la que solo empieza por ella, aunque su libro tenga un "ID" mayor.
+        assertEquals(List.of(11L, 10L), texto.buscar("batalla", LIMITE));
+        assertEquals(List.of(10L), texto.buscar("batallas", LIMITE));
+        assertEquals(List.of(), texto.buscar("ba", LIMITE));
+        assertEquals(List.of(), texto.buscar("batallon", LIMITE));
+    }
+
+    @Test
+    void ignoraLasPalabrasVacias(){
+        IndiceTextoCatalogo texto = new IndiceTextoCatalogo();
+        texto.registrarLibro(10L, "El nombre de la rosa", null);
+
+        assertArrayEquals(new String[]{ "nombre", "rosa" }, IndiceTextoCatalogo.terminos("El nombre de la rosa"));
+        assertEquals(List.of(), texto.buscar("de la", LIMITE));
+        assertEquals(List.of(10L), texto.buscar("el nombre de la rosa", LIMITE));
+        assertEquals(List.of(10L), texto.buscar("rosa, la", LIMITE));
+    }
+
+    @Test
+    void ordenaPorRelevancia(){
+        IndiceTextoCatalogo texto = new IndiceTextoCatalogo();
+        texto.registrarAutor(1L, "Pedro", "Salinas");
+        texto.registrarAutor(2L, "Juan", "Rulfo");
+        texto.registrarLibro(10L, "La voz a ti debida", 1L);
+        texto.registrarLibro(11L, "Pedro Páramo", 2L);
+        texto.registrarLibro(12L, "El camino", null);
+        texto.registrarLibro(13L, "Camino", null);
+
+            // En el título puntúa más que en el autor; a igual puntuación, primero el menor "ID".
+        assertEquals(List.of(11L, 10L), texto.buscar("pedro", LIMITE));
+        assertEquals(List.of(12L, 13L), texto.buscar("camino", LIMITE));
+        assertEquals(List.of(12L), texto.buscar("camino", 1));
+        assertThrows(IllegalArgumentException.class, () -> texto.buscar("camino", 0));
+    }
+
+
+    // ==================== PRUEBAS CON BASE DE DATOS ====================
+    @Test
+    void reindexaAlCambiarElTituloOElNombreDelAutor(){
+        Autor marias = autor("Javier", "Marías", "Corazón tan blanco");
+        servicio.crearAutorConLibros(marias);
+        Long idLibro = marias.getLibros().get(0).getId();
+        assertEquals(List.of(idLibro), indice.buscar("corazon blanco", LIMITE));
+
+        HibernateUtil.enTransaccion(session -> {
+            session.get(Libro.class, idLibro).setTitulo("Los enamoramientos");
+            return null;
+        });
+        assertEquals(List.of(), indice.buscar("corazon", LIMITE));
+        assertEquals(List.of(idLibro), indice.buscar("enamoramientos", LIMITE));
+
+        HibernateUtil.enTransaccion(session -> {
+            Autor autor = session.get(Autor.class, marias.getId());
+            autor.setNombre("Xavier");
+            autor.setApellidos("Marías Franco");
+            return null;
+        });
+        assertEquals(List.of(), indice.buscar("javier", LIMITE));
+        assertEquals(List.of(idLibro), indice.buscar("xavier franco enamoramientos", LIMITE));
+    }
+
+    @Test
+    void olvidaLosLibrosDeLosAutoresBorrados(){
+        Autor garcia = autor("Gabriel", "García Márquez", "Cien años de soledad");
+        Autor matute = autor("Ana María", "Matute", "Olvidado rey Gudú");
+        servicio.crearAutorConLibros(garcia);
+        servicio.crearAutorConLibros(matute);
+        assertEquals(List.of(garcia.getLibros().get(0).getId()), indice.buscar("garcia soledad", LIMITE));
+        assertEquals(List.of(matute.getLibros().get(0).getId()), indice.buscar("gudu", LIMITE));
+
+            // Borrado a través de la sesión ("ListenerIndiceTexto") y con la purga masiva.
+        HibernateUtil.enTransaccion(session -> {
+            session.remove(session.get(Autor.class, garcia.getId()));
+            return null;
+        });
+        servicio.eliminarAutores(List.of(matute.getId()));
+        assertEquals(List.of(), indice.buscar("garcia", LIMITE));
+        assertEquals(List.of(), indice.buscar("soledad", LIMITE));
+        assertEquals(List.of(), indice.buscar("matute", LIMITE));
+        assertEquals(List.of(), indice.buscar("gudu", LIMITE));
+    }
+
+    @Test
+    void laBusquedaPorTextoIncluyeLosLibrosSinAutor(){
+        assertEquals(List.of(idLibroSinAutor), servicio.consultarIdsLibrosPorTexto("lazarillo tormes", LIMITE));
+        assertEquals(List.of(idLibroSinAutor), indice.buscar("lazarillo tormes", LIMITE));
+    }
+
+
+    // ==================== MÉTODOS HELPER ====================
+    private static Autor autor(String nombre, String apellidos, String titulo){
+        Autor autor = new Autor(nombre, apellidos, "Española", LocalDate.of(1950, 1, 1));
+        autor.addLibro(new Libro(titulo, BaseDatosPrueba.isbn(apellidos, 0), LocalDate.of(2000, 1, 1), 300));
+        return autor;
+    }
+}
@@ -0,0 +1,150 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.indice;
+
+
+// Importa de la biblioteca/librería el paquete "ArrayList".
+import java.util.ArrayList;
+// Importa de la biblioteca/librería el paquete "List".
+import java.util.List;
+// Importa de la biblioteca/librería el paquete "Random".
+import java.util.Random;
+// Importa de la biblioteca/librería el paquete "TreeSet".
+import java.util.TreeSet;
+// Importa de la biblioteca/librería el paquete "Test".
+import org.junit.jupiter.api.Test;
+// Importa las aserciones de JUnit.
+import static org.junit.jupiter.api.Assertions.*;
+
+// Crea la clase "MapaBitsTest".
+    /*
+     * "MapaBits" comparado con un "TreeSet" al que se le hacen las mismas operaciones aleatorias (con semilla fija, para que un fallo se pueda repetir):
+     *   1. Altas y bajas alrededor del límite entre dos claves (65536) y de un "ID" muy alto, alternando fases con más altas y con más bajas
+     *      para que los contenedores pasen varias veces de arreglo a mapa de bits ("MAXIMO_ARREGLO", 4096) y al revés.
+     *   2. Intersecciones, uniones y diferencias entre mapas de densidades distintas (arreglo con arreglo, arreglo con mapa de bits y mapa de bits con mapa de bits).
+     */
+class MapaBitsTest{
+    // ==================== ATRIBUTOS ====================
+    private static final long SEMILLA = 20240611L;
+        // Cada base reparte sus "ID" en "ANCHO" posiciones: la primera cruza el límite entre las claves 0 y 1, y la última cae en una clave muy alta.
+    private static final long[] BASES = { 65536 - 6000, 7L * 65536, 1L << 40 };
+    private static final int ANCHO = 12000;
+    private static final int FASES = 8;
+    private static final int OPERACIONES_POR_FASE = 60000;
+
+
+    // ==================== PRUEBAS ====================
+    @Test
+    void lasAltasYBajasAleatoriasCoincidenConUnTreeSet(){
+        Random aleatorio = new Random(SEMILLA);
+        MapaBits mapa = new MapaBits();
+        TreeSet<Long> esperado = new TreeSet<>();
+
+        for (int fase = 0; fase < FASES; fase++){
+                // Las fases pares llenan los contenedores por encima de 4096 "ID" y las impares los vacían por debajo.
+            double probabilidadAlta = fase % 2 == 0 ? 0.85 : 0.15;
+            for (int i = 0; i < OPERACIONES_POR_FASE; i++){
+                long id = idAleatorio(aleatorio);
+                if (aleatorio.nextDouble() < probabilidadAlta) assertEquals(esperado.add(id), mapa.agregar(id), "agregar(" + id + ") en la fase " + fase);
+                else assertEquals(esperado.remove(id), mapa.quitar(id), "quitar(" + id + ") en la fase " + fase);
+            }
+            comprobar(esperado, mapa, aleatorio, "fase " + fase);
+        }
+
+        for (Long id : new ArrayList<>(esperado)) assertTrue(mapa.quitar(id));
+        assertTrue(mapa.isVacio());
+        assertEquals(0, mapa.getCardinalidad());
+        assertEquals(0, mapa.primeros(10).length);
+    }
+
+    @Test
+    void lasOperacionesEntreMapasCoincidenConLasDeConjuntos(){
+        Random aleatorio = new Random(SEMILLA + 1);
+            // Fracción de las posiciones ocupadas: 0.05 deja arreglos en todas las claves y 0.9 mapas de bits.
+        double[] densidades = { 0.05, 0.4, 0.9 };
+        for (double densidadA : densidades){
+            for (double densidadB : densidades){
+                TreeSet<Long> a = new TreeSet<>();
+                TreeSet<Long> b = new TreeSet<>();
+                MapaBits mapaA = generar(aleatorio, densidadA, a);
+                MapaBits mapaB = generar(aleatorio, densidadB, b);
+                String caso = "densidades " + densidadA + " y " + densidadB;
+
+                TreeSet<Long> interseccion = new TreeSet<>(a);
+                interseccion.retainAll(b);
+                TreeSet<Long> union = new TreeSet<>(a);
+                union.addAll(b);
+                TreeSet<Long> diferencia = new TreeSet<>(a);
+                diferencia.removeAll(b);
+
+                assertEquals(List.copyOf(interseccion), contenido(MapaBits.y(mapaA, mapaB)), "y() con " + caso);
+                assertEquals(interseccion.size(), MapaBits.cardinalidadY(mapaA, mapaB), "cardinalidadY() con " + caso);
+                assertEquals(List.copyOf(union), contenido(MapaBits.o(mapaA, mapaB)), "o() con " + caso);
+
+                MapaBits agregados = mapaA.copia();
+                agregados.agregarTodos(mapaB);
+                comprobar(union, agregados, aleatorio, "agregarTodos() con " + caso);
+                MapaBits quitados = mapaA.copia();
+                quitados.quitarTodos(mapaB);
+                comprobar(diferencia, quitados, aleatorio, "quitarTodos() con " + caso);
+
+                    // Ni las operaciones ni las copias modifican los mapas de partida.
+                comprobar(a, mapaA, aleatorio, "mapa A tras las operaciones con " + caso);
+                comprobar(b, mapaB, aleatorio, "mapa B tras las operaciones con " + caso);
+            }
+        }
+    }
+
+    @Test
+    void rechazaLosIdFueraDeRango(){
+        MapaBits mapa = new MapaBits();
+        assertThrows(IllegalArgumentException.class, () -> mapa.agregar(-1));
+        assertThrows(IllegalArgumentException.class, () -> mapa.contiene(Long.MAX_VALUE));
+    }
+
+
+    // ==================== MÉTODOS HELPER ====================
+
+    /*
+     * Comprueba que el mapa tiene exactamente los "ID" esperados: cardinalidad, "primeros()" (completo y con un límite) y "contiene()" con "ID" presentes y ausentes.
+     */
+    private static void comprobar(TreeSet<Long> esperado, MapaBits mapa, Random aleatorio, String caso){
+        assertEquals(esperado.size(), mapa.getCardinalidad(), "Cardinalidad tras " + caso);
+        assertEquals(esperado.isEmpty(), mapa.isVacio(), "isVacio() tras " + caso);
+        assertEquals(List.copyOf(esperado), contenido(mapa), "Contenido tras " + caso);
+
+        int limite = aleatorio.nextInt(esperado.size() + 1);
+        List<Long> primeros = new ArrayList<>(limite);
+        for (long id : mapa.primeros(limite)) primeros.add(id);
+        assertEquals(List.copyOf(esperado).subList(0, limite), primeros, "primeros(" + limite + ") tras " + caso);
+
+        for (int i = 0; i < 1000; i++){
+            long id = idAleatorio(aleatorio);
+            assertEquals(esperado.contains(id), mapa.contiene(id), "contiene(" + id + ") tras " + caso);
+        }
+    }
+
+        // Cada "ID" de cada base entra en el mapa (y en "ids") con probabilidad "densidad".
+    private static MapaBits generar(Random aleatorio, double densidad, TreeSet<Long> ids){
+        MapaBits mapa = new MapaBits();
+        for (long base : BASES){
+            for (long id = base; id < base + ANCHO; id++){
+                if (aleatorio.nextDouble() < densidad){
+                    mapa.agregar(id);
+                    ids.add(id);
+                }
+            }
+        }
+        return mapa;
+    }
+
+    private static long idAleatorio(Random aleatorio){ return BASES[aleatorio.nextInt(BASES.length)] + aleatorio.nextInt(ANCHO); }
+
+    private static List<Long> contenido(MapaBits mapa){
+        List<Long> ids = new ArrayList<>();
+        for (long id : mapa.primeros(Integer.MAX_VALUE)) ids.add(id);
+        return ids;
+    }
+}
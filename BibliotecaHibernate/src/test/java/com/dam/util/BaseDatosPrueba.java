@@ -0,0 +1,99 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.util;
+
+
+// Importa de la biblioteca/librería el paquete "IndiceFacetasEjemplares".
+import com.dam.indice.IndiceFacetasEjemplares;
+// Importa todos las dependencias creadas en el paquete "modelo".
+import com.dam.modelo.*;
+// Importa de la biblioteca/librería el paquete "EstadoEjemplar".
+import com.dam.modelo.Ejemplar.EstadoEjemplar;
+// Importa de la biblioteca/librería el paquete "Duration".
+import java.time.Duration;
+// Importa de la biblioteca/librería el paquete "LocalDate".
+import java.time.LocalDate;
+
+// Crea la clase "BaseDatosPrueba".
+    /*
+     * Base de datos de las pruebas: redirige "HibernateUtil" a una base de datos H2 en memoria en modo MySQL (igual que "DatosBenchmark" en los benchmarks)
+     * y genera autores con sus libros y ejemplares.
+     *
+     * "HibernateUtil" crea una única "SessionFactory" por JVM, así que "configurar()" debe llamarse antes de usarla; cada clase de prueba se ejecuta en su propia JVM (ver "pom.xml").
+     */
+public final class BaseDatosPrueba{
+    // ==================== ATRIBUTOS ====================
+        // Espera máxima a que se carguen los índices del catálogo.
+    private static final Duration ESPERA_INDICES = Duration.ofSeconds(60);
+
+
+    // ==================== CONSTRUCTORES ====================
+    private BaseDatosPrueba(){}
+
+
+    // ==================== CONFIGURACIÓN ====================
+
+    /*
+     * Apunta la configuración de Hibernate ("hibernate.*" en las propiedades del sistema, ver "ArranqueHibernate") a una base de datos H2 en memoria vacía, cuyo esquema crea Hibernate.
+     *
+     * "@param nombre" Parámetro: Nombre de la base de datos en memoria.
+     */
+    public static void configurar(String nombre){
+        System.setProperty("hibernate.connection.url", url(nombre));
+        System.setProperty("hibernate.connection.driver_class", "org.h2.Driver");
+        System.setProperty("hibernate.connection.username", "sa");
+        System.setProperty("hibernate.connection.password", "");
+        System.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        System.setProperty("hibernate.hbm2ddl.auto", "create");
+        System.setProperty("hibernate.show_sql", "false");
+        System.setProperty("hibernate.format_sql", "false");
+    }
+
+    /*
+     * "@param nombre" Parámetro: Nombre de la base de datos en memoria.
+     * "@return" Retorna: URL JDBC de la base de datos H2 en memoria (se mantiene mientras viva la JVM, aunque se cierren todas sus conexiones).
+     */
+    public static String url(String nombre){
+        return "jdbc:h2:mem:" + nombre + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    }
+
+    /*
+     * Espera a que los índices del catálogo terminen de cargarse en segundo plano (el de facetas es el último), para probar siempre el camino con índice.
+     * Crea antes la "SessionFactory" (y, con "biblioteca.indices.carga=perezosa", lanza la carga). Si no terminan en "ESPERA_INDICES" (carga fallida o desactivada) lanza "IllegalStateException".
+     */
+    public static void esperarIndices() throws InterruptedException{
+        HibernateUtil.getSessionFactory();
+        HibernateUtil.cargarIndicesSiHacenFalta();
+        long limite = System.nanoTime() + ESPERA_INDICES.toNanos();
+        while (!IndiceFacetasEjemplares.getInstancia().isCargado()){
+            if (System.nanoTime() - limite > 0) throw new IllegalStateException("Los índices del catálogo no se han cargado en " + ESPERA_INDICES.toSeconds() + " s (ver \"" + HibernateUtil.PROPIEDAD_CARGA_INDICES + "\" y el registro de errores)");
+            Thread.sleep(10);
+        }
+    }
+
+
+    // ==================== DATOS ====================
+
+    /*
+     * "@param clave"      Parámetro: Clave única del autor: forma parte de sus ISBN ("clave-N") y de los códigos de sus ejemplares ("EJ-clave-N-M").
+     * "@param libros"     Parámetro: Nº de libros del autor.
+     * "@param ejemplares" Parámetro: Nº de ejemplares de cada libro, todos "DISPONIBLE" en la ubicación "Estantería M % 8".
+     * "@return" Retorna: Autor con sus libros y ejemplares asociados, listo para guardarse en cascada.
+     */
+    public static Autor generarAutor(String clave, int libros, int ejemplares){
+        Autor autor = new Autor("Nombre " + clave, "Apellidos " + clave, "Española", LocalDate.of(1950, 1, 1));
+        for (int l = 0; l < libros; l++){
+            Libro libro = new Libro("Título " + clave + " " + l, isbn(clave, l), LocalDate.of(2000, 1, 1).plusDays(l), 100 + l);
+            for (int e = 0; e < ejemplares; e++) libro.addEjemplar(new Ejemplar("EJ-" + clave + "-" + l + "-" + e, EstadoEjemplar.DISPONIBLE, "Estantería " + (e % 8)));
+            autor.addLibro(libro);
+        }
+        return autor;
+    }
+
+    /*
+     * "@return" Retorna: ISBN del libro "libro" del autor generado con "clave".
+     */
+    public static String isbn(String clave, int libro){ return clave + "-" + libro; }
+}
@@ -0,0 +1,45 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.util;
+
+
+// Importa de la biblioteca/librería el paquete "InspectorSentencias".
+import com.dam.metricas.InspectorSentencias;
+// Importa de la biblioteca/librería el paquete "TimeUnit".
+import java.util.concurrent.TimeUnit;
+// Importa de la biblioteca/librería el paquete "LockSupport".
+import java.util.concurrent.locks.LockSupport;
+
+// Crea la clase "LatenciaSimulada".
+    /*
+     * Simula la latencia de red de un servidor de base de datos real: mientras "activar()" esté en vigor, cada sentencia SQL espera un tiempo fijo antes de prepararse, con la sesión y su conexión ya abiertas.
+     * Con la H2 en memoria las sentencias apenas tardan, así que el rendimiento de varios hilos depende de los núcleos de la máquina; con la espera depende solo de que las operaciones no se serialicen entre sí.
+     *
+     * Se activa con "hibernate.session_factory.statement_inspector" antes de crear la "SessionFactory" (ver "ServicioBibliotecaConcurrenteTest"),
+     * en lugar del inspector de "hibernate.cfg.xml", cuyas métricas sigue registrando.
+     */
+public class LatenciaSimulada extends InspectorSentencias{
+    // ==================== ATRIBUTOS ====================
+    private static final long serialVersionUID = 1L;
+
+        // Espera de cada sentencia ("0": ninguna).
+    private static volatile long esperaNanos;
+
+
+    // ==================== MÉTODOS ====================
+    @Override
+    public String inspect(String sql){
+        long espera = esperaNanos;
+        long fin = System.nanoTime() + espera;
+            // "parkNanos()" puede volver antes de tiempo: se repite hasta cumplir la espera.
+        for (long resto = espera; resto > 0; resto = fin - System.nanoTime()) LockSupport.parkNanos(resto);
+        return super.inspect(sql);
+    }
+
+    /*
+     * "@param milisegundos" Parámetro: Espera de cada sentencia SQL a partir de ahora ("0" la desactiva).
+     */
+    public static void activar(long milisegundos){ esperaNanos = TimeUnit.MILLISECONDS.toNanos(milisegundos); }
+}
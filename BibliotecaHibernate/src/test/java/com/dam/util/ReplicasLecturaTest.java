@@ -0,0 +1,150 @@
+/**
+ *
+ * @author Rodrigo
+ */
+package com.dam.util;
+
+
+// Importa de la biblioteca/librería el paquete "MetricasReplica".
+import com.dam.dto.MetricasReplica;
+// Importa de la biblioteca/librería el paquete "ServicioBiblioteca".
+import com.dam.gestion.ServicioBiblioteca;
+// Importa de la biblioteca/librería el paquete "Files".
+import java.nio.file.Files;
+// Importa de la biblioteca/librería el paquete "Path".
+import java.nio.file.Path;
+// Importa de la biblioteca/librería el paquete "Connection".
+import java.sql.Connection;
+// Importa de la biblioteca/librería el paquete "DriverManager".
+import java.sql.DriverManager;
+// Importa de la biblioteca/librería el paquete "SQLException".
+import java.sql.SQLException;
+// Importa de la biblioteca/librería el paquete "Statement".
+import java.sql.Statement;
+// Importa de la biblioteca/librería el paquete "AfterAll".
+import org.junit.jupiter.api.AfterAll;
+// Importa de la biblioteca/librería el paquete "BeforeAll".
+import org.junit.jupiter.api.BeforeAll;
+// Importa de la biblioteca/librería el paquete "MethodOrderer".
+import org.junit.jupiter.api.MethodOrderer;
+// Importa de la biblioteca/librería el paquete "Order".
+import org.junit.jupiter.api.Order;
+// Importa de la biblioteca/librería el paquete "Test".
+import org.junit.jupiter.api.Test;
+// Importa de la biblioteca/librería el paquete "TestMethodOrder".
+import org.junit.jupiter.api.TestMethodOrder;
+// Importa las aserciones de JUnit.
+import static org.junit.jupiter.api.Assertions.*;
+
+// Crea la clase "ReplicasLecturaTest".
+    /*
+     * Reparto de conexiones entre la primaria y una réplica de lectura ("ReplicasLectura"), con dos bases de datos H2 en memoria:
+     *   1. "primaria": la de Hibernate ("BaseDatosPrueba.configurar()").
+     *   2. "replica":  copia de la primaria hecha tras sembrarla; lo que se escribe después solo está en la primaria (como una réplica con retraso).
+     * Contando los autores se sabe de qué base de datos se ha leído. Las pruebas van en orden: la última apaga la réplica.
+     */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class ReplicasLecturaTest{
+    // ==================== ATRIBUTOS ====================
+    private static final String URL_PRIMARIA = BaseDatosPrueba.url("primaria");
+    private static final String URL_REPLICA = BaseDatosPrueba.url("replica");
+    private static final int AUTORES_COPIADOS = 3;
+
+    private static ServicioBiblioteca servicio;
+
+
+    // ==================== CICLO DE VIDA ====================
+    @BeforeAll
+    static void preparar() throws Exception{
+        BaseDatosPrueba.configurar("primaria");
+            // "IFEXISTS": apagada la réplica, sus conexiones fallan en lugar de crear una base de datos vacía con el mismo nombre.
+        System.setProperty(ReplicasLectura.PROPIEDAD_URLS, URL_REPLICA + ";IFEXISTS=TRUE");
+        System.setProperty(ReplicasLectura.PROPIEDAD_ESPERA, "250");
+        System.setProperty(ReplicasLectura.PROPIEDAD_PAUSA_FALLO, "60000");
+            // La réplica debe existir antes de que su pool intente conectar.
+        DriverManager.getConnection(URL_REPLICA, "sa", "").close();
+
+        servicio = new ServicioBiblioteca();
+        for (int a = 0; a < AUTORES_COPIADOS; a++) servicio.crearAutorConLibros(BaseDatosPrueba.generarAutor("copia" + a, 1, 1));
+
+        Path copia = Files.createTempFile("replica", ".sql");
+        try{
+            ejecutar(URL_PRIMARIA, "SCRIPT TO '" + copia + "'");
+            ejecutar(URL_REPLICA, "RUNSCRIPT FROM '" + copia + "'");
+        } finally{
+            Files.delete(copia);
+        }
+            // Escritura posterior a la copia: la réplica "aún no la ha recibido".
+        servicio.crearAutorConLibros(BaseDatosPrueba.generarAutor("reciente", 1, 1));
+        BaseDatosPrueba.esperarIndices();
+    }
+
+    @AfterAll
+    static void cerrar(){ HibernateUtil.shutdown(); }
+
+
+    // ==================== PRUEBAS ====================
+    @Test
+    @Order(1)
+    void lasLecturasLasSirveLaReplica(){
+        long lecturasAntes = replica().getLecturas();
+        long enPrimariaAntes = replicas().getLecturasEnPrimaria();
+
+        assertEquals(AUTORES_COPIADOS, contarAutoresEnLectura());
+
+        assertTrue(replica().getLecturas() > lecturasAntes, "La lectura debe salir de la réplica: " + replica());
+        assertEquals(enPrimariaAntes, replicas().getLecturasEnPrimaria());
+    }
+
+    @Test
+    @Order(2)
+    void lasTransaccionesVanALaPrimaria(){
+        long lecturasAntes = replica().getLecturas();
+
+        long autores = HibernateUtil.enTransaccion(session -> session.createQuery("SELECT COUNT(a) FROM Autor a", Long.class).uniqueResult());
+
+        assertEquals(AUTORES_COPIADOS + 1, autores);
+        assertEquals(lecturasAntes, replica().getLecturas(), "Una transacción no debe pedir conexión a la réplica");
+    }
+
+    @Test
+    @Order(3)
+    void conLaReplicaCaidaSeLeeDeLaPrimaria() throws Exception{
+        ejecutar(URL_REPLICA, "SHUTDOWN");
+            // Pasado medio segundo sin usarse, el pool comprueba cada conexión antes de entregarla y descarta las de la réplica apagada.
+        Thread.sleep(600);
+        long enPrimariaAntes = replicas().getLecturasEnPrimaria();
+
+        assertEquals(AUTORES_COPIADOS + 1, contarAutoresEnLectura());
+
+        assertTrue(replicas().getLecturasEnPrimaria() > enPrimariaAntes, "La lectura debe ir a la primaria");
+        MetricasReplica replica = replica();
+        assertFalse(replica.isEnServicio(), "La réplica caída queda fuera del reparto: " + replica);
+        assertTrue(replica.getFallos() > 0);
+
+            // Mientras dure la pausa ni siquiera se prueba la réplica.
+        long fallos = replica.getFallos();
+        assertEquals(AUTORES_COPIADOS + 1, contarAutoresEnLectura());
+        assertEquals(fallos, replica().getFallos());
+    }
+
+
+    // ==================== MÉTODOS HELPER ====================
+    private static long contarAutoresEnLectura(){
+        return HibernateUtil.enLectura(session -> session.createQuery("SELECT COUNT(a) FROM Autor a", Long.class).uniqueResult());
+    }
+
+    private static ReplicasLectura replicas(){
+        return HibernateUtil.obtenerProveedorPool().flatMap(ProveedorConexionesPool::getReplicas).orElseThrow();
+    }
+
+    private static MetricasReplica replica(){
+        return HibernateUtil.obtenerMetricasReplicas().get(0);
+    }
+
+    private static void ejecutar(String url, String sql) throws SQLException{
+        try (Connection conexion = DriverManager.getConnection(url, "sa", ""); Statement sentencia = conexion.createStatement()){
+            sentencia.execute(sql);
+        }
+    }
+}